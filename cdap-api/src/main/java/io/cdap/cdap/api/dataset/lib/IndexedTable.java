@@ -38,8 +38,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -94,7 +97,14 @@ import javax.annotation.Nullable;
  * as it would break parsing of the configuration property.
  * </p>
  *
+ * <p>Reading by index resolves the matching data rows in batches, using a multi-get on the data table. In addition,
+ * the values of selected columns can be stored in the index rows, configured with {@link #COVERED_COLUMNS_CONF_KEY}.
+ * Reads by index that only request covered columns are then served from the index table alone, without reading the
+ * data rows. This makes writes of covered columns more expensive, since all index rows of the data row are updated.
+ * </p>
+ *
  * @see #INDEX_COLUMNS_CONF_KEY
+ * @see #COVERED_COLUMNS_CONF_KEY
  */
 public class IndexedTable extends AbstractDataset implements Table {
 
@@ -111,6 +121,14 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   public static final String INDEX_COLUMNS_CONF_KEY = "columnsToIndex";
 
+  /**
+   * Configuration key for defining column names whose values are also stored in the index rows, so that reading
+   * them by index does not require to read the data rows. Multiple column names should be listed as a
+   * comma-separated string, e.g. "column1,column2,etc". Like the columns to index, they cannot be changed once
+   * the dataset is created.
+   */
+  public static final String COVERED_COLUMNS_CONF_KEY = "columnsToCover";
+
   /**
    * Configuration that specifies that the index columns will be specified at runtime, rather than at configure time.
    * Using this property, a single index table can shared across multiple logical tables.
@@ -129,6 +147,16 @@ public class IndexedTable extends AbstractDataset implements Table {
   private static final byte[] IDX_COL = {'r'};
   private static final byte DELIMITER_BYTE = 0;
   private static final byte[] KEY_DELIMITER = new byte[] { DELIMITER_BYTE };
+  /**
+   * Prefix of the columns in the secondary index that store the values of covered columns.
+   */
+  private static final byte[] COVERED_COL_PREFIX = {'c'};
+  /**
+   * Number of data rows read with the first multi-get of an index scan. It doubles with each batch up to the
+   * maximum, so that callers that only read a few rows don't read many more in vain.
+   */
+  private static final int INITIAL_READ_BATCH_SIZE = 16;
+  private static final int MAX_READ_BATCH_SIZE = 512;
 
   private final boolean hasColumnWithDelimiter;
   // the two underlying tables
@@ -136,6 +164,10 @@ public class IndexedTable extends AbstractDataset implements Table {
   // the secondary index column
   private SortedSet<byte[]> indexedColumns;
   private final byte[] keyPrefix;
+  // the columns whose values are stored in the index rows
+  private final SortedSet<byte[]> coveredColumns;
+  // all columns of an index row
+  private final byte[][] indexRowColumns;
 
   /**
    * Configuration time constructor.
@@ -146,12 +178,7 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param columnsToIndex the names of the data columns to index
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex) {
-    super(name, table, index);
-    this.table = table;
-    this.index = index;
-    this.indexedColumns = columnsToIndex;
-    this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
-    this.keyPrefix = Bytes.EMPTY_BYTE_ARRAY;
+    this(name, table, index, columnsToIndex, Bytes.EMPTY_BYTE_ARRAY);
   }
 
   /**
@@ -164,12 +191,35 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param keyPrefix the dynamic indexing prefix. See {@link IndexedTable#DYNAMIC_INDEXING_PREFIX}
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex, byte[] keyPrefix) {
+    this(name, table, index, columnsToIndex, keyPrefix, new TreeSet<>(Bytes.BYTES_COMPARATOR));
+  }
+
+  /**
+   * Configuration time constructor.
+   *
+   * @param name the name of the table
+   * @param table table to use as the table
+   * @param index table to use as the index
+   * @param columnsToIndex the names of the data columns to index
+   * @param keyPrefix the dynamic indexing prefix. See {@link IndexedTable#DYNAMIC_INDEXING_PREFIX}
+   * @param columnsToCover the names of the data columns to store in the index. See
+   *                       {@link IndexedTable#COVERED_COLUMNS_CONF_KEY}
+   */
+  public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex, byte[] keyPrefix,
+                      SortedSet<byte[]> columnsToCover) {
     super(name, table, index);
     this.table = table;
     this.index = index;
     this.indexedColumns = columnsToIndex;
     this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
     this.keyPrefix = keyPrefix;
+    this.coveredColumns = columnsToCover;
+    this.indexRowColumns = new byte[columnsToCover.size() + 1][];
+    this.indexRowColumns[0] = IDX_COL;
+    int i = 1;
+    for (byte[] column : columnsToCover) {
+      this.indexRowColumns[i++] = createCoveredColumn(column);
+    }
   }
 
   /**
@@ -242,7 +292,8 @@ public class IndexedTable extends AbstractDataset implements Table {
 
   /**
    * Reads table rows by the given secondary index key.  If no rows are indexed by the given key, then a
-   * {@link io.cdap.cdap.api.dataset.table.Scanner} with no results will be returned.
+   * {@link io.cdap.cdap.api.dataset.table.Scanner} with no results will be returned. Rows are prefetched in
+   * batches, see {@link #readByIndex(byte[], byte[], byte[][])}.
    * 
    * @return a Scanner returning rows from the data table, whose stored value for the given column matches the
    * given value.
@@ -250,16 +301,39 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   @ReadOnly
   public Scanner readByIndex(byte[] column, byte[] value) {
+    return readByIndex(column, value, null);
+  }
+
+  /**
+   * Reads the given columns of table rows by the given secondary index key. If all the columns are covered by the
+   * index, the rows are read from the index only. If no rows are indexed by the given key, then a
+   * {@link io.cdap.cdap.api.dataset.table.Scanner} with no results will be returned.
+   *
+   * The returned Scanner reads the rows of the data table ahead of iteration, in batches of up to 512 rows. Writes
+   * or deletes of rows in this table made while iterating may therefore not be reflected by the Scanner, even for
+   * rows that have not been returned yet.
+   *
+   * @param column the column to use for the index lookup
+   * @param value the value of the column to look up
+   * @param columns the columns to read, or {@code null} to read all columns
+   * @return a Scanner returning rows from the data table, whose stored value for the given column matches the
+   * given value.
+   * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
+   * @see #COVERED_COLUMNS_CONF_KEY
+   */
+  @ReadOnly
+  public Scanner readByIndex(byte[] column, byte[] value, @Nullable byte[][] columns) {
     assertIndexedColumn(column);
     byte[] rowKeyPrefix = Bytes.concat(keyPrefix, column, KEY_DELIMITER, value, KEY_DELIMITER);
     byte[] stopRow = Bytes.stopKeyForPrefix(rowKeyPrefix);
     Scanner indexScan = index.scan(rowKeyPrefix, stopRow);
-    return new IndexScanner(indexScan, column, value);
+    return new IndexScanner(indexScan, column, columns, value);
   }
 
   /**
    * Reads table rows within the given secondary index key range. If no rows are indexed, falling within the given
-   * range, then a {@link io.cdap.cdap.api.dataset.table.Scanner} with no results will be returned.
+   * range, then a {@link io.cdap.cdap.api.dataset.table.Scanner} with no results will be returned. Rows are
+   * prefetched in batches, see {@link #scanByIndex(byte[], byte[], byte[], byte[][])}.
    *
    * @param column the column to use for the index lookup
    * @param startValue the inclusive start of the range for which rows must fall within to be returned in the scan.
@@ -272,6 +346,31 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   @ReadOnly
   public Scanner scanByIndex(byte[] column, @Nullable byte[] startValue, @Nullable byte[] endValue) {
+    return scanByIndex(column, startValue, endValue, null);
+  }
+
+  /**
+   * Reads the given columns of table rows within the given secondary index key range. If all the columns are covered
+   * by the index, the rows are read from the index only. If no rows are indexed, falling within the given range,
+   * then a {@link io.cdap.cdap.api.dataset.table.Scanner} with no results will be returned.
+   *
+   * As with {@link #readByIndex(byte[], byte[], byte[][])}, the returned Scanner reads rows ahead of iteration in
+   * batches of up to 512 rows, so writes or deletes made while iterating may not be reflected by it.
+   *
+   * @param column the column to use for the index lookup
+   * @param startValue the inclusive start of the range for which rows must fall within to be returned in the scan.
+   *                   {@code null} means start from first row of the table
+   * @param endValue the exclusive end of the range for which rows must fall within to be returned in the scan
+   *                 {@code null} means end with the last row of the table
+   * @param columns the columns to read, or {@code null} to read all columns
+   * @return a Scanner returning rows from the data table, whose stored value for the given column is within the the
+   *         given range.
+   * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
+   * @see #COVERED_COLUMNS_CONF_KEY
+   */
+  @ReadOnly
+  public Scanner scanByIndex(byte[] column, @Nullable byte[] startValue, @Nullable byte[] endValue,
+                             @Nullable byte[][] columns) {
     assertIndexedColumn(column);
     // KEY_DELIMITER is not used at the end of the rowKeys, because they are used for a range scan,
     // instead of a fixed-match lookup
@@ -280,7 +379,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     byte[] stopRow = endValue == null ? Bytes.stopKeyForPrefix(Bytes.concat(keyPrefix, column, KEY_DELIMITER)) :
       Bytes.concat(keyPrefix, column, KEY_DELIMITER, endValue);
     Scanner indexScan = index.scan(startRow, stopRow);
-    return new IndexRangeScanner(indexScan, column, startValue, endValue);
+    return new IndexRangeScanner(indexScan, column, columns, startValue, endValue);
   }
 
   private void assertIndexedColumn(byte[] column) {
@@ -301,39 +400,114 @@ public class IndexedTable extends AbstractDataset implements Table {
     // if different value exists, remove current index ref
     // add a new index ref unless same value already exists
     byte[] dataRow = put.getRow();
-    // find which values need to be indexed
     Map<byte[], byte[]> putColumns = put.getValues();
-    Set<byte[]> colsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], byte[]> putEntry : putColumns.entrySet()) {
-      if (indexedColumns.contains(putEntry.getKey())) {
-        colsToIndex.add(putEntry.getKey());
-      }
+    // first read the existing indexed values to find which have changed and need to be updated
+    Row existingRow = getIndexedValues(dataRow, putColumns.keySet());
+    if (existingRow != null) {
+      updateIndex(dataRow, existingRow, putColumns);
     }
 
-    if (!colsToIndex.isEmpty()) {
-      // first read the existing indexed values to find which have changed and need to be updated
-      Row existingRow = table.get(dataRow, colsToIndex.toArray(new byte[colsToIndex.size()][]));
-      for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
-        if (!Arrays.equals(entry.getValue(), putColumns.get(entry.getKey()))) {
-          index.delete(createIndexKey(dataRow, entry.getKey(), entry.getValue()), IDX_COL);
-        } else {
-          // value already indexed
-          colsToIndex.remove(entry.getKey());
-        }
+    // store the data row
+    table.put(put);
+  }
+
+  private byte[] createIndexKey(byte[] row, byte[] column, byte[] value) {
+    return Bytes.concat(keyPrefix, column, KEY_DELIMITER, value, KEY_DELIMITER, row);
+  }
+
+  private static byte[] createCoveredColumn(byte[] column) {
+    return Bytes.concat(COVERED_COL_PREFIX, column);
+  }
+
+  /**
+   * Reads the existing values of a data row that are needed to update its index entries for a change of the given
+   * columns. If any columns are covered, these are all indexed and covered columns, since the index entries of
+   * the row contain the values of all covered columns.
+   *
+   * @return the existing values, or {@code null} if none of the given columns is indexed or covered
+   */
+  @Nullable
+  private Row getIndexedValues(byte[] row, Set<byte[]> changedColumns) {
+    Set<byte[]> columns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    boolean coveredChanged = false;
+    for (byte[] column : changedColumns) {
+      if (indexedColumns.contains(column)) {
+        columns.add(column);
       }
+      coveredChanged |= coveredColumns.contains(column);
+    }
+    if (columns.isEmpty() && !coveredChanged) {
+      return null;
+    }
+    if (!coveredColumns.isEmpty()) {
+      columns.addAll(indexedColumns);
+      columns.addAll(coveredColumns);
+    }
+    return table.get(row, columns.toArray(new byte[columns.size()][]));
+  }
 
-      // add new index entries for all values that have changed or did not exist
-      for (byte[] col : colsToIndex) {
-        index.put(createIndexKey(dataRow, col, putColumns.get(col)), IDX_COL, dataRow);
+  /**
+   * Updates the index entries of a data row for a change of some of its columns.
+   *
+   * @param row the data row
+   * @param existingRow the existing values of the changed columns that are indexed, and of all indexed and covered
+   *                    columns if any columns are covered
+   * @param changes the new values of the changed columns, where a {@code null} value means the column is deleted
+   */
+  private void updateIndex(byte[] row, Row existingRow, Map<byte[], byte[]> changes) {
+    NavigableMap<byte[], byte[]> coveredValues = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    List<byte[]> changedCoveredColumns = new ArrayList<>();
+    for (byte[] column : coveredColumns) {
+      byte[] oldValue = existingRow.get(column);
+      byte[] newValue = changes.containsKey(column) ? changes.get(column) : oldValue;
+      if (newValue != null) {
+        coveredValues.put(column, newValue);
+      }
+      if (!Arrays.equals(oldValue, newValue)) {
+        changedCoveredColumns.add(column);
       }
     }
 
-    // store the data row
-    table.put(put);
+    for (byte[] column : indexedColumns) {
+      byte[] oldValue = existingRow.get(column);
+      byte[] newValue = changes.containsKey(column) ? changes.get(column) : oldValue;
+      if (Arrays.equals(oldValue, newValue)) {
+        // value already indexed, only the covered values may need to be updated
+        if (newValue != null && !changedCoveredColumns.isEmpty()) {
+          updateCoveredValues(createIndexKey(row, column, newValue), changedCoveredColumns, coveredValues);
+        }
+        continue;
+      }
+      if (oldValue != null) {
+        index.delete(createIndexKey(row, column, oldValue), indexRowColumns);
+      }
+      if (newValue != null) {
+        Put idxPut = new Put(createIndexKey(row, column, newValue), IDX_COL, row);
+        for (Map.Entry<byte[], byte[]> entry : coveredValues.entrySet()) {
+          idxPut.add(createCoveredColumn(entry.getKey()), entry.getValue());
+        }
+        index.put(idxPut);
+      }
+    }
   }
 
-  private byte[] createIndexKey(byte[] row, byte[] column, byte[] value) {
-    return Bytes.concat(keyPrefix, column, KEY_DELIMITER, value, KEY_DELIMITER, row);
+  private void updateCoveredValues(byte[] indexKey, List<byte[]> changedColumns, Map<byte[], byte[]> coveredValues) {
+    Put idxPut = new Put(indexKey);
+    List<byte[]> deletedColumns = new ArrayList<>();
+    for (byte[] column : changedColumns) {
+      byte[] value = coveredValues.get(column);
+      if (value == null) {
+        deletedColumns.add(createCoveredColumn(column));
+      } else {
+        idxPut.add(createCoveredColumn(column), value);
+      }
+    }
+    if (!idxPut.getValues().isEmpty()) {
+      index.put(idxPut);
+    }
+    if (!deletedColumns.isEmpty()) {
+      index.delete(indexKey, deletedColumns.toArray(new byte[deletedColumns.size()][]));
+    }
   }
 
   @WriteOnly
@@ -401,8 +575,15 @@ public class IndexedTable extends AbstractDataset implements Table {
       return;
     }
 
-    // delete all index entries
-    deleteIndexEntries(existingRow);
+    // delete the index entries of the deleted columns, and the deleted covered values from the remaining ones
+    Map<byte[], byte[]> deletes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (byte[] column : columns) {
+      deletes.put(column, null);
+    }
+    Row indexedRow = coveredColumns.isEmpty() ? existingRow : getIndexedValues(row, deletes.keySet());
+    if (indexedRow != null) {
+      updateIndex(row, indexedRow, deletes);
+    }
 
     // delete the row's columns
     table.delete(row, columns);
@@ -412,7 +593,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     byte[] row = existingRow.getRow();
     for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
       if (indexedColumns.contains(entry.getKey())) {
-        index.delete(createIndexKey(row, entry.getKey(), entry.getValue()), IDX_COL);
+        index.delete(createIndexKey(row, entry.getKey(), entry.getValue()), indexRowColumns);
       }
     }
   }
@@ -431,7 +612,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     // the index is not affected - just execute the swap.
     // also, if the swap is on the index column, but the old value
     // is the same as the new value, then the index is not affected either.
-    if (!indexedColumns.contains(column) ||
+    if ((!indexedColumns.contains(column) && !coveredColumns.contains(column)) ||
         Arrays.equals(expected, newValue)) {
       return table.compareAndSwap(row, column, expected, newValue);
     }
@@ -439,16 +620,20 @@ public class IndexedTable extends AbstractDataset implements Table {
     // the swap is on the index column. it will only succeed if the current
     // value matches the expected value of the swap. if that value is not null,
     // then we must remove the row key from the index for that value.
-    Delete idxDelete = null;
-    if (expected != null) {
-      idxDelete = new Delete(createIndexKey(row, column, expected), IDX_COL);
-    }
-
     // if the new value is not null, then we must add the rowkey to the index
-    // for that value.
-    Put idxPut = null;
-    if (newValue != null) {
-      idxPut = new Put(createIndexKey(row, column, newValue), IDX_COL, row);
+    // for that value. if there are covered columns, all index entries of the
+    // row may have to be updated, and their existing values must be read first.
+    Map<byte[], byte[]> changes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    changes.put(column, newValue);
+    Row existingRow;
+    if (coveredColumns.isEmpty()) {
+      NavigableMap<byte[], byte[]> existingValues = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      if (expected != null) {
+        existingValues.put(column, expected);
+      }
+      existingRow = new Result(row, existingValues);
+    } else {
+      existingRow = getIndexedValues(row, changes.keySet());
     }
 
     // apply all operations to both tables
@@ -457,13 +642,7 @@ public class IndexedTable extends AbstractDataset implements Table {
       // do nothing: no changes
       return false;
     }
-    if (idxDelete != null) {
-      index.delete(idxDelete);
-    }
-    if (idxPut != null) {
-      index.put(idxPut);
-    }
-
+    updateIndex(row, existingRow, changes);
     return true;
   }
 
@@ -511,17 +690,15 @@ public class IndexedTable extends AbstractDataset implements Table {
                                             " column: " + Bytes.toStringBinary(columns[i]));
         }
         existingValue = Bytes.toLong(existingBytes);
-        if (indexedColumns.contains(columns[i])) {
-          index.delete(createIndexKey(row, columns[i], existingBytes), IDX_COL);
-        }
       }
       updatedValues[i] = Bytes.toBytes(existingValue + amounts[i]);
       result.put(columns[i], updatedValues[i]);
-      if (indexedColumns.contains(columns[i])) {
-        index.put(createIndexKey(row, columns[i], updatedValues[i]), IDX_COL, row);
-      }
     }
 
+    Row indexedRow = coveredColumns.isEmpty() ? existingRow : getIndexedValues(row, result.keySet());
+    if (indexedRow != null) {
+      updateIndex(row, indexedRow, result);
+    }
     table.put(row, columns, updatedValues);
     return new Result(row, result);
   }
@@ -552,7 +729,8 @@ public class IndexedTable extends AbstractDataset implements Table {
 
   /**
    * Increments (atomically) the specified row and column by the specified amount, without returning the new value.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(byte[], byte[], long)
    */
@@ -560,16 +738,14 @@ public class IndexedTable extends AbstractDataset implements Table {
   @Override
   public void increment(byte[] row, byte[] column, long amount) {
     // read-less increments should not be used on indexed columns
-    if (indexedColumns.contains(column)) {
-      throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                           + Bytes.toStringBinary(column) + "'");
-    }
+    assertReadlessIncrement(column);
     table.increment(row, column, amount);
   }
 
   /**
    * Increments (atomically) the specified row and columns by the specified amounts, without returning the new values.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(byte[], byte[][], long[])
    */
@@ -578,17 +754,15 @@ public class IndexedTable extends AbstractDataset implements Table {
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
     // read-less increments should not be used on indexed columns
     for (byte[] col : columns) {
-      if (indexedColumns.contains(col)) {
-        throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                             + Bytes.toStringBinary(col) + "'");
-      }
+      assertReadlessIncrement(col);
     }
     table.increment(row, columns, amounts);
   }
 
   /**
    * Increments (atomically) the specified row and columns by the specified amounts, without returning the new values.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(Increment)
    */
@@ -596,14 +770,22 @@ public class IndexedTable extends AbstractDataset implements Table {
   @Override
   public void increment(Increment increment) {
     for (byte[] col : increment.getValues().keySet()) {
-      if (indexedColumns.contains(col)) {
-        throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                             + Bytes.toStringBinary(col) + "'");
-      }
+      assertReadlessIncrement(col);
     }
     table.increment(increment);
   }
 
+  private void assertReadlessIncrement(byte[] column) {
+    if (indexedColumns.contains(column)) {
+      throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
+                                           + Bytes.toStringBinary(column) + "'");
+    }
+    if (coveredColumns.contains(column)) {
+      throw new IllegalArgumentException("Read-less increment is not supported on covered column '"
+                                           + Bytes.toStringBinary(column) + "'");
+    }
+  }
+
   @ReadOnly
   @Override
   public Scanner scan(@Nullable byte[] startRow, @Nullable byte[] stopRow) {
@@ -663,10 +845,29 @@ public class IndexedTable extends AbstractDataset implements Table {
     // scanner over index table
     private final Scanner baseScanner;
     private final byte[] column;
-
-    AbstractIndexScanner(Scanner baseScanner, byte[] column) {
+    // columns to read, null for all columns
+    private final byte[][] columns;
+    // whether the rows can be read from the index rows only
+    private final boolean covered;
+    // columns to read from the data table, which include the index column if it has to be verified
+    private final byte[][] getColumns;
+    // rows that are read but not yet returned
+    private final Deque<Row> rows = new ArrayDeque<>();
+    private int batchSize = INITIAL_READ_BATCH_SIZE;
+    private boolean exhausted;
+
+    AbstractIndexScanner(Scanner baseScanner, byte[] column, @Nullable byte[][] columns) {
       this.baseScanner = baseScanner;
       this.column = column;
+      this.columns = columns;
+      this.covered = columns != null && isCovered(columns)
+        && (!hasColumnWithDelimiter || coveredColumns.contains(column));
+      if (columns != null && hasColumnWithDelimiter && !contains(columns, column)) {
+        this.getColumns = Arrays.copyOf(columns, columns.length + 1);
+        this.getColumns[columns.length] = column;
+      } else {
+        this.getColumns = columns;
+      }
     }
 
     /**
@@ -680,9 +881,27 @@ public class IndexedTable extends AbstractDataset implements Table {
     @Nullable
     @Override
     public Row next() {
-      // TODO: retrieve results in batches to minimize RPC overhead (requires multi-get support in table)
-      // keep going until we hit a non-null, non-empty data row, or we exhaust the index
-      for (Row indexRow = baseScanner.next(); indexRow != null; indexRow = baseScanner.next()) {
+      // keep going until we hit a data row, or we exhaust the index
+      while (rows.isEmpty() && !exhausted) {
+        readBatch();
+      }
+      return rows.poll();
+    }
+
+    /**
+     * Reads the next batch of matching index rows and the corresponding data rows, using a single multi-get.
+     */
+    private void readBatch() {
+      List<Get> gets = new ArrayList<>();
+      List<byte[]> columnValues = new ArrayList<>();
+      int count = 0;
+      while (count < batchSize) {
+        Row indexRow = baseScanner.next();
+        if (indexRow == null) {
+          // end of index
+          exhausted = true;
+          break;
+        }
         byte[] rowkey = indexRow.get(IDX_COL);
         if (rowkey == null) {
           LOG.warn("Row of Indexed table '{}' is missing index column. Row key: {}", getName(), indexRow.getRow());
@@ -693,19 +912,53 @@ public class IndexedTable extends AbstractDataset implements Table {
                                                 indexRow.getRow().length - rowkey.length - 1);
         // Verify that datarow matches the expected row key to avoid issues with column name or value
         // containing the delimiter used. This is a sufficient check, as long as columns don't contain the null byte.
-        if (matches(columnValue)) {
-          Row row = table.get(rowkey);
-          // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
+        if (!matches(columnValue)) {
+          continue;
+        }
+        count++;
+        if (covered) {
+          // If a column has null byte (the key delimiter) in it, then we need to check against the row's column
           // to be sure this row isn't a false positive in the scan.
           // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
-          if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
-            continue;
+          if (!hasColumnWithDelimiter || Bytes.equals(indexRow.get(createCoveredColumn(column)), columnValue)) {
+            rows.add(createCoveredRow(rowkey, indexRow));
           }
-          return row;
+        } else {
+          gets.add(getColumns == null ? new Get(rowkey) : new Get(rowkey, getColumns));
+          columnValues.add(columnValue);
         }
       }
-      // end of index
-      return null;
+      batchSize = Math.min(batchSize * 2, MAX_READ_BATCH_SIZE);
+      if (gets.isEmpty()) {
+        return;
+      }
+
+      List<Row> dataRows = table.get(gets);
+      for (int i = 0; i < dataRows.size(); i++) {
+        Row row = dataRows.get(i);
+        if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValues.get(i))) {
+          continue;
+        }
+        if (getColumns != columns) {
+          // remove the index column that was only read for verification
+          NavigableMap<byte[], byte[]> values = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+          values.putAll(row.getColumns());
+          values.remove(column);
+          row = new Result(row.getRow(), values);
+        }
+        rows.add(row);
+      }
+    }
+
+    private Row createCoveredRow(byte[] rowkey, Row indexRow) {
+      NavigableMap<byte[], byte[]> values = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (byte[] col : columns) {
+        byte[] value = indexRow.get(createCoveredColumn(col));
+        if (value != null) {
+          values.put(col, value);
+        }
+      }
+      return new Result(rowkey, values);
     }
 
     @Override
@@ -714,12 +967,30 @@ public class IndexedTable extends AbstractDataset implements Table {
     }
   }
 
+  private boolean isCovered(byte[][] columns) {
+    for (byte[] column : columns) {
+      if (!coveredColumns.contains(column)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean contains(byte[][] columns, byte[] column) {
+    for (byte[] col : columns) {
+      if (Bytes.equals(col, column)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   // scanner that matches column values based upon exact match
   private class IndexScanner extends AbstractIndexScanner {
     private final byte[] value;
 
-    IndexScanner(Scanner baseScanner, byte[] column, byte[] value) {
-      super(baseScanner, column);
+    IndexScanner(Scanner baseScanner, byte[] column, @Nullable byte[][] columns, byte[] value) {
+      super(baseScanner, column, columns);
       this.value = value;
     }
 
@@ -734,8 +1005,9 @@ public class IndexedTable extends AbstractDataset implements Table {
     private final byte[] start;
     private final byte[] end;
 
-    IndexRangeScanner(Scanner baseScanner, byte[] column, @Nullable byte[] start, @Nullable byte[] end) {
-      super(baseScanner, column);
+    IndexRangeScanner(Scanner baseScanner, byte[] column, @Nullable byte[][] columns,
+                      @Nullable byte[] start, @Nullable byte[] end) {
+      super(baseScanner, column, columns);
       this.start = start;
       this.end = end;
     }
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import javax.annotation.Nullable;
 
 /**
  * DatasetDefinition for {@link IndexedTable}.
@@ -81,6 +82,13 @@ public class IndexedTableDefinition
                                                               oldColumnsToIndex, columnNamesToIndex));
         }
       }
+      // existing index rows don't contain the values of newly covered columns
+      String columnNamesToCover = newProperties.getProperties().get(IndexedTable.COVERED_COLUMNS_CONF_KEY);
+      String oldColumnsToCover = currentSpec.getProperty(IndexedTable.COVERED_COLUMNS_CONF_KEY);
+      if (!parseColumns(columnNamesToCover).equals(parseColumns(oldColumnsToCover))) {
+        throw new IncompatibleUpdateException(String.format("Attempt to change columns to cover from '%s' to '%s'",
+                                                            oldColumnsToCover, columnNamesToCover));
+      }
     }
     return super.reconfigure(instanceName, newProperties, currentSpec);
   }
@@ -90,6 +98,7 @@ public class IndexedTableDefinition
                                  Map<String, String> arguments, ClassLoader classLoader) throws IOException {
 
     SortedSet<byte[]> columnsToIndex;
+    SortedSet<byte[]> columnsToCover;
     String keyPrefix = null;
     boolean dynamicIndexing = Boolean.parseBoolean(spec.getProperty(IndexedTable.DYNAMIC_INDEXING));
     if (dynamicIndexing) {
@@ -100,6 +109,7 @@ public class IndexedTableDefinition
           "columnsToIndex must be specified in runtime arguments when dynamic indexing is enabled");
       }
       columnsToIndex = parseColumns(columnsToIndexProp);
+      columnsToCover = parseColumns(arguments.get(IndexedTable.COVERED_COLUMNS_CONF_KEY));
 
       // Dynamic indexing also needs a key prefix
       keyPrefix = arguments.get(IndexedTable.DYNAMIC_INDEXING_PREFIX);
@@ -108,21 +118,25 @@ public class IndexedTableDefinition
       }
     } else {
       columnsToIndex = parseColumns(spec.getProperty(IndexedTable.INDEX_COLUMNS_CONF_KEY));
+      columnsToCover = parseColumns(spec.getProperty(IndexedTable.COVERED_COLUMNS_CONF_KEY));
     }
 
     Table table = getDataset(datasetContext, "d", spec, arguments, classLoader);
     Table index = getDataset(datasetContext, "i", spec, arguments, classLoader);
 
     return new IndexedTable(spec.getName(), table, index, columnsToIndex,
-                            keyPrefix == null ? Bytes.EMPTY_BYTE_ARRAY : Bytes.toBytes(keyPrefix));
+                            keyPrefix == null ? Bytes.EMPTY_BYTE_ARRAY : Bytes.toBytes(keyPrefix), columnsToCover);
   }
 
   /**
-   * Helper method to parse a list of column names, comma-separated.
+   * Helper method to parse a list of column names, comma-separated. A {@code null} value is parsed as no columns.
    */
-  private SortedSet<byte[]> parseColumns(String value) {
+  private SortedSet<byte[]> parseColumns(@Nullable String value) {
     // TODO: add support for setting index key delimiter
     SortedSet<byte[]> columnsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    if (value == null) {
+      return columnsToIndex;
+    }
     for (String column : value.split(",")) {
       columnsToIndex.add(Bytes.toBytes(column));
     }
@@ -19,7 +19,10 @@ package io.cdap.cdap.api.dataset.lib;
 import io.cdap.cdap.api.annotation.Beta;
 import io.cdap.cdap.api.dataset.table.TableProperties;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -38,6 +41,13 @@ public class PartitionedFileSetProperties extends FileSetProperties {
    */
   public static final String PARTITIONING_FIELD_PREFIX = "partitioning.field.";
 
+  /**
+   * The property name for the list of partitioning field names that are indexed in the partitions table.
+   * Partition filters with a condition on an indexed field are served from the index instead of scanning all
+   * partitions, if the filter does not constrain the leading field of the partitioning.
+   */
+  public static final String PARTITIONING_INDEXED_FIELDS = "partitioning.indexed.fields";
+
   /**
    * Read the partitioning for a PartitionedFileSet from its properties.
    *
@@ -71,6 +81,26 @@ public class PartitionedFileSetProperties extends FileSetProperties {
     return builder.build();
   }
 
+  /**
+   * Read the names of the partitioning fields that are indexed in the partitions table from the properties.
+   *
+   * @param properties the dataset properties
+   * @return the names of the indexed fields, or an empty set if no field is indexed.
+   */
+  public static Set<String> getIndexedFields(Map<String, String> properties) {
+    String fieldList = properties.get(PARTITIONING_INDEXED_FIELDS);
+    if (fieldList == null || fieldList.trim().isEmpty()) {
+      return Collections.emptySet();
+    }
+    Set<String> fieldNames = new LinkedHashSet<>();
+    for (String fieldName : fieldList.split(",")) {
+      if (!fieldName.trim().isEmpty()) {
+        fieldNames.add(fieldName.trim());
+      }
+    }
+    return fieldNames;
+  }
+
   /**
    * @return a properties builder
    */
@@ -105,6 +135,15 @@ public class PartitionedFileSetProperties extends FileSetProperties {
       return this;
     }
 
+    /**
+     * Sets the partitioning fields to index in the partitions table. The fields must be part of the partitioning
+     * and cannot be changed after the dataset was created.
+     */
+    public Builder setIndexedFields(String... fieldNames) {
+      add(PARTITIONING_INDEXED_FIELDS, String.join(",", fieldNames));
+      return this;
+    }
+
     /**
      * Set the table permissions as a map from user name to a permission string.
      */
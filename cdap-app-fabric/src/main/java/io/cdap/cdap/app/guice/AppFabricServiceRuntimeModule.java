@@ -95,6 +95,7 @@ import io.cdap.cdap.internal.app.runtime.schedule.DistributedTimeSchedulerServic
 import io.cdap.cdap.internal.app.runtime.schedule.ExecutorThreadPool;
 import io.cdap.cdap.internal.app.runtime.schedule.LocalTimeSchedulerService;
 import io.cdap.cdap.internal.app.runtime.schedule.TimeSchedulerService;
+import io.cdap.cdap.internal.app.runtime.schedule.TimingWheelTimeSchedulerService;
 import io.cdap.cdap.internal.app.runtime.schedule.store.DatasetBasedTimeScheduleStore;
 import io.cdap.cdap.internal.app.runtime.schedule.store.TriggerMisfireLogger;
 import io.cdap.cdap.internal.app.runtime.workflow.BasicWorkflowStateWriter;
@@ -162,7 +163,7 @@ public final class AppFabricServiceRuntimeModule extends RuntimeModule {
                              protected void configure() {
                                bind(RunRecordCorrectorService.class).to(NoopRunRecordCorrectorService.class)
                                  .in(Scopes.SINGLETON);
-                               bind(TimeSchedulerService.class).to(LocalTimeSchedulerService.class)
+                               bind(TimeSchedulerService.class).toProvider(LocalTimeSchedulerServiceProvider.class)
                                  .in(Scopes.SINGLETON);
                                bind(MRJobInfoFetcher.class).to(LocalMRJobInfoFetcher.class);
                                bind(StorageProviderNamespaceAdmin.class).to(LocalStorageProviderNamespaceAdmin.class);
@@ -203,7 +204,7 @@ public final class AppFabricServiceRuntimeModule extends RuntimeModule {
                              protected void configure() {
                                bind(RunRecordCorrectorService.class).to(LocalRunRecordCorrectorService.class)
                                  .in(Scopes.SINGLETON);
-                               bind(TimeSchedulerService.class).to(LocalTimeSchedulerService.class)
+                               bind(TimeSchedulerService.class).toProvider(LocalTimeSchedulerServiceProvider.class)
                                  .in(Scopes.SINGLETON);
                                bind(MRJobInfoFetcher.class).to(LocalMRJobInfoFetcher.class);
                                bind(StorageProviderNamespaceAdmin.class).to(LocalStorageProviderNamespaceAdmin.class);
@@ -256,7 +257,8 @@ public final class AppFabricServiceRuntimeModule extends RuntimeModule {
                              protected void configure() {
                                bind(RunRecordCorrectorService.class).to(ScheduledRunRecordCorrectorService.class)
                                  .in(Scopes.SINGLETON);
-                               bind(TimeSchedulerService.class).to(DistributedTimeSchedulerService.class)
+                               bind(TimeSchedulerService.class)
+                                 .toProvider(DistributedTimeSchedulerServiceProvider.class)
                                  .in(Scopes.SINGLETON);
                                bind(MRJobInfoFetcher.class).to(DistributedMRJobInfoFetcher.class);
                                bind(StorageProviderNamespaceAdmin.class)
@@ -487,4 +489,54 @@ public final class AppFabricServiceRuntimeModule extends RuntimeModule {
       return injector.getInstance(UnsupportedUGIProvider.class);
     }
   }
+
+  /**
+   * A Guice provider for the {@link TimeSchedulerService} based on the CDAP configuration.
+   * <p>
+   * It provides the {@link TimingWheelTimeSchedulerService} if it is configured as the time scheduler type.
+   * Otherwise, the given Quartz based time scheduler service will be used.
+   */
+  private abstract static class TimeSchedulerServiceProvider implements Provider<TimeSchedulerService> {
+
+    private final Injector injector;
+    private final CConfiguration cConf;
+    private final Class<? extends TimeSchedulerService> quartzServiceClass;
+
+    TimeSchedulerServiceProvider(Injector injector, CConfiguration cConf,
+                                 Class<? extends TimeSchedulerService> quartzServiceClass) {
+      this.injector = injector;
+      this.cConf = cConf;
+      this.quartzServiceClass = quartzServiceClass;
+    }
+
+    @Override
+    public TimeSchedulerService get() {
+      if ("timing.wheel".equals(cConf.get(Constants.Scheduler.TIME_SCHEDULER_TYPE))) {
+        return injector.getInstance(TimingWheelTimeSchedulerService.class);
+      }
+      return injector.getInstance(quartzServiceClass);
+    }
+  }
+
+  /**
+   * A {@link TimeSchedulerServiceProvider} with {@link LocalTimeSchedulerService} as the Quartz based scheduler.
+   */
+  private static final class LocalTimeSchedulerServiceProvider extends TimeSchedulerServiceProvider {
+
+    @Inject
+    LocalTimeSchedulerServiceProvider(Injector injector, CConfiguration cConf) {
+      super(injector, cConf, LocalTimeSchedulerService.class);
+    }
+  }
+
+  /**
+   * A {@link TimeSchedulerServiceProvider} with {@link DistributedTimeSchedulerService} as the Quartz based scheduler.
+   */
+  private static final class DistributedTimeSchedulerServiceProvider extends TimeSchedulerServiceProvider {
+
+    @Inject
+    DistributedTimeSchedulerServiceProvider(Injector injector, CConfiguration cConf) {
+      super(injector, cConf, DistributedTimeSchedulerService.class);
+    }
+  }
 }
@@ -17,9 +17,13 @@
 package io.cdap.cdap.app.guice;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
 import com.google.inject.Module;
+import com.google.inject.Provider;
 import com.google.inject.Scopes;
 import com.google.inject.util.Modules;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.app.runtime.Arguments;
 import io.cdap.cdap.app.runtime.ProgramOptions;
 import io.cdap.cdap.app.runtime.ProgramStateWriter;
@@ -39,6 +43,7 @@ import io.cdap.cdap.data.runtime.DataSetServiceModules;
 import io.cdap.cdap.data.runtime.DataSetsModules;
 import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
 import io.cdap.cdap.data2.audit.AuditModule;
+import io.cdap.cdap.data2.datafabric.dataset.DatasetMetaCache;
 import io.cdap.cdap.data2.metadata.writer.FieldLineageWriter;
 import io.cdap.cdap.data2.metadata.writer.LineageWriter;
 import io.cdap.cdap.data2.metadata.writer.MessagingLineageWriter;
@@ -48,6 +53,7 @@ import io.cdap.cdap.explore.client.ExploreClient;
 import io.cdap.cdap.explore.client.ProgramDiscoveryExploreClient;
 import io.cdap.cdap.internal.app.program.MessagingProgramStateWriter;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
+import io.cdap.cdap.internal.app.runtime.ProgramRunners;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.app.runtime.workflow.MessagingWorkflowStateWriter;
 import io.cdap.cdap.internal.app.runtime.workflow.WorkflowStateWriter;
@@ -56,6 +62,7 @@ import io.cdap.cdap.logging.guice.RemoteLogAppenderModule;
 import io.cdap.cdap.logging.guice.TMSLogAppenderModule;
 import io.cdap.cdap.master.environment.MasterEnvironments;
 import io.cdap.cdap.master.spi.environment.MasterEnvironment;
+import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.guice.MessagingClientModule;
 import io.cdap.cdap.metadata.MetadataReaderWriterModules;
 import io.cdap.cdap.metadata.PreferencesFetcher;
@@ -81,6 +88,7 @@ import org.apache.twill.discovery.DiscoveryService;
 import org.apache.twill.discovery.DiscoveryServiceClient;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import javax.annotation.Nullable;
 
@@ -176,6 +184,9 @@ public class DistributedProgramContainerModule extends AbstractModule {
         }
 
         bind(PreferencesFetcher.class).to(RemotePreferencesFetcherInternal.class).in(Scopes.SINGLETON);
+
+        // Programs look up the same dataset instances repeatedly, hence cache them
+        bind(DatasetMetaCache.class).toProvider(DatasetMetaCacheProvider.class).in(Scopes.SINGLETON);
       }
     });
 
@@ -270,6 +281,34 @@ public class DistributedProgramContainerModule extends AbstractModule {
     });
   }
 
+  /**
+   * Provider for the {@link DatasetMetaCache} that emits metrics in the context of the program run.
+   */
+  private static final class DatasetMetaCacheProvider implements Provider<DatasetMetaCache> {
+
+    private final CConfiguration cConf;
+    private final MessagingService messagingService;
+    private final MetricsCollectionService metricsCollectionService;
+    private final ProgramRunId programRunId;
+
+    @Inject
+    DatasetMetaCacheProvider(CConfiguration cConf, MessagingService messagingService,
+                             MetricsCollectionService metricsCollectionService, ProgramRunId programRunId) {
+      this.cConf = cConf;
+      this.messagingService = messagingService;
+      this.metricsCollectionService = metricsCollectionService;
+      this.programRunId = programRunId;
+    }
+
+    @Override
+    public DatasetMetaCache get() {
+      MetricsContext metricsContext = ProgramRunners.createProgramMetricsContext(programRunId,
+                                                                                 Collections.emptyMap(),
+                                                                                 metricsCollectionService);
+      return new DatasetMetaCache(cConf, messagingService, metricsContext);
+    }
+  }
+
   private static String generateClientId(ProgramRunId programRunId, String instanceId) {
     return String.format("%s.%s.%s", programRunId.getParent(), programRunId.getRun(), instanceId);
   }
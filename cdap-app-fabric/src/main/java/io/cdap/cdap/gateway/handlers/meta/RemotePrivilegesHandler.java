@@ -33,6 +33,7 @@ import io.cdap.cdap.proto.security.VisibilityRequest;
 import io.cdap.cdap.security.spi.authorization.AccessEnforcer;
 import io.cdap.cdap.security.spi.authorization.AuthorizationEnforcer;
 import io.cdap.cdap.security.spi.authorization.PrivilegesManager;
+import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 import io.cdap.http.HttpResponder;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -41,7 +42,13 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -57,6 +64,7 @@ import javax.ws.rs.Path;
 public class RemotePrivilegesHandler extends AbstractRemoteSystemOpsHandler {
   private static final Logger LOG = LoggerFactory.getLogger(RemotePrivilegesHandler.class);
   private static final Type SET_OF_ACTIONS = new TypeLiteral<Set<Action>>() { }.getType();
+  private static final Type LIST_OF_PRIVILEGES = new TypeLiteral<List<AuthorizationPrivilege>>() { }.getType();
   private static final Gson GSON = new GsonBuilder()
     .registerTypeAdapter(EntityId.class, new EntityIdTypeAdapter())
     .registerTypeAdapterFactory(new PermissionAdapterFactory())
@@ -80,12 +88,7 @@ public class RemotePrivilegesHandler extends AbstractRemoteSystemOpsHandler {
     AuthorizationPrivilege authorizationPrivilege = GSON.fromJson(request.content().toString(StandardCharsets.UTF_8),
                                                                   AuthorizationPrivilege.class);
     LOG.debug("Enforcing for {}", authorizationPrivilege);
-    Set<Permission> permissions = authorizationPrivilege.getPermissions();
-    if (authorizationPrivilege.getActions() != null) {
-      permissions = Stream.of(permissions, authorizationPrivilege.getActions())
-        .flatMap(set -> set.stream())
-        .collect(Collectors.toSet());
-    }
+    Set<Permission> permissions = getPermissions(authorizationPrivilege);
     if (authorizationPrivilege.getChildEntityType() != null) {
       //It's expected that we'll always have one, but let's handle generic case
       for (Permission permission: permissions) {
@@ -99,6 +102,50 @@ public class RemotePrivilegesHandler extends AbstractRemoteSystemOpsHandler {
     responder.sendStatus(HttpResponseStatus.OK);
   }
 
+  /**
+   * Enforces a list of privileges and responds with a list of booleans telling whether each privilege is allowed.
+   * Privileges of the same principal and permissions are enforced with a single call to the {@link AccessEnforcer}.
+   * Only if that fails, the privileges are enforced one by one to find out which of them are not allowed.
+   */
+  @POST
+  @Path("/enforceAll")
+  public void enforceAll(FullHttpRequest request, HttpResponder responder) throws Exception {
+    List<AuthorizationPrivilege> privileges = GSON.fromJson(request.content().toString(StandardCharsets.UTF_8),
+                                                            LIST_OF_PRIVILEGES);
+    LOG.debug("Enforcing for {} privileges", privileges.size());
+    Map<EnforcementGroup, Set<EntityId>> groups = new LinkedHashMap<>();
+    for (AuthorizationPrivilege privilege : privileges) {
+      groups.computeIfAbsent(new EnforcementGroup(privilege.getPrincipal(), getPermissions(privilege)),
+                             key -> new LinkedHashSet<>()).add(privilege.getEntity());
+    }
+
+    Map<EnforcementGroup, Set<EntityId>> unauthorized = new LinkedHashMap<>();
+    for (Map.Entry<EnforcementGroup, Set<EntityId>> entry : groups.entrySet()) {
+      EnforcementGroup group = entry.getKey();
+      try {
+        accessEnforcer.enforceAll(entry.getValue(), group.principal, group.permissions);
+      } catch (UnauthorizedException e) {
+        Set<EntityId> failed = new LinkedHashSet<>();
+        for (EntityId entityId : entry.getValue()) {
+          try {
+            accessEnforcer.enforce(entityId, group.principal, group.permissions);
+          } catch (UnauthorizedException ue) {
+            failed.add(entityId);
+          }
+        }
+        unauthorized.put(group, failed);
+      }
+    }
+
+    List<Boolean> results = new ArrayList<>(privileges.size());
+    for (AuthorizationPrivilege privilege : privileges) {
+      Set<EntityId> failed = unauthorized.get(new EnforcementGroup(privilege.getPrincipal(),
+                                                                   getPermissions(privilege)));
+      results.add(failed == null || !failed.contains(privilege.getEntity()));
+    }
+    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(results));
+  }
+
   @POST
   @Path("/isSingleVisible")
   public void isSingleVisible(FullHttpRequest request, HttpResponder responder) throws Exception {
@@ -169,4 +216,44 @@ public class RemotePrivilegesHandler extends AbstractRemoteSystemOpsHandler {
     LOG.info("Revoked all actions on {} successfully", entityId);
     responder.sendStatus(HttpResponseStatus.OK);
   }
+
+  private Set<Permission> getPermissions(AuthorizationPrivilege authorizationPrivilege) {
+    Set<Permission> permissions = authorizationPrivilege.getPermissions();
+    if (authorizationPrivilege.getActions() != null) {
+      permissions = Stream.of(permissions, authorizationPrivilege.getActions())
+        .flatMap(set -> set.stream())
+        .collect(Collectors.toSet());
+    }
+    return permissions;
+  }
+
+  /**
+   * The principal and permissions shared by privileges that are enforced together.
+   */
+  private static final class EnforcementGroup {
+    private final Principal principal;
+    private final Set<Permission> permissions;
+
+    private EnforcementGroup(Principal principal, Set<Permission> permissions) {
+      this.principal = principal;
+      this.permissions = permissions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      EnforcementGroup that = (EnforcementGroup) o;
+      return principal.equals(that.principal) && permissions.equals(that.permissions);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(principal, permissions);
+    }
+  }
 }
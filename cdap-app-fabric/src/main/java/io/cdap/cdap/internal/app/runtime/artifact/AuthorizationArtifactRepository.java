@@ -52,6 +52,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -89,10 +90,12 @@ public class AuthorizationArtifactRepository implements ArtifactRepository {
   @Override
   public void clear(NamespaceId namespace) throws Exception {
     List<ArtifactSummary> artifacts = delegate.getArtifactSummaries(namespace, false);
+    Set<ArtifactId> artifactIds = new LinkedHashSet<>();
     for (ArtifactSummary artifactSummary : artifacts) {
-      accessEnforcer.enforce(namespace.artifact(artifactSummary.getName(), artifactSummary.getVersion()),
-                             authenticationContext.getPrincipal(), StandardPermission.DELETE);
+      artifactIds.add(namespace.artifact(artifactSummary.getName(), artifactSummary.getVersion()));
     }
+    accessEnforcer.enforceAll(artifactIds, authenticationContext.getPrincipal(),
+                              Collections.singleton(StandardPermission.DELETE));
     delegate.clear(namespace);
   }
 
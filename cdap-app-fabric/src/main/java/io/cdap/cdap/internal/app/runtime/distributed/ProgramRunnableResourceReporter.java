@@ -18,6 +18,7 @@ package io.cdap.cdap.internal.app.runtime.distributed;
 
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.lang.ClassRewriteCache;
 import io.cdap.cdap.internal.app.program.ProgramTypeMetricTag;
 import io.cdap.cdap.internal.app.runtime.AbstractResourceReporter;
 import io.cdap.cdap.proto.id.ProgramId;
@@ -31,6 +32,9 @@ import java.util.Map;
  * Reports resource metrics about the runnable program.
  */
 final class ProgramRunnableResourceReporter extends AbstractResourceReporter {
+  private static final String METRIC_CLASS_REWRITE_CACHE_HITS = "class.rewrite.cache.hits";
+  private static final String METRIC_CLASS_REWRITE_CACHE_SAVED_MS = "class.rewrite.cache.saved.ms";
+
   private final TwillContext runContext;
 
   ProgramRunnableResourceReporter(ProgramId programId,
@@ -42,6 +46,13 @@ final class ProgramRunnableResourceReporter extends AbstractResourceReporter {
   @Override
   public void reportResources() {
     sendMetrics(Collections.emptyMap(), 1, runContext.getMaxMemoryMB(), runContext.getVirtualCores());
+
+    // Report the class loading time saved by the on-disk cache of rewritten classes, if it is used
+    long cacheHits = ClassRewriteCache.getTotalHits();
+    if (cacheHits > 0) {
+      getCollector().gauge(METRIC_CLASS_REWRITE_CACHE_HITS, cacheHits);
+      getCollector().gauge(METRIC_CLASS_REWRITE_CACHE_SAVED_MS, ClassRewriteCache.getTotalSavedMillis());
+    }
   }
 
   /**
@@ -52,12 +52,14 @@ public final class DirectRuntimeRequestValidator implements RuntimeRequestValida
   private final TransactionRunner txRunner;
   private final ProgramRunRecordFetcher runRecordFetcher;
   private final LoadingCache<ProgramRunId, Boolean> programRunsCache;
+  private final boolean binaryRunRecordEncoding;
 
   @Inject
   DirectRuntimeRequestValidator(CConfiguration cConf, TransactionRunner txRunner,
                                 ProgramRunRecordFetcher runRecordFetcher) {
     this.txRunner = txRunner;
     this.runRecordFetcher = runRecordFetcher;
+    this.binaryRunRecordEncoding = cConf.getBoolean(Constants.AppFabric.RUN_RECORD_BINARY_ENCODING_ENABLED);
 
     // Configure the cache with expiry the poll time.
     // This helps reducing the actual lookup for a burst of requests within one poll interval,
@@ -121,6 +123,7 @@ public final class DirectRuntimeRequestValidator implements RuntimeRequestValida
     try {
       TransactionRunners.run(txRunner, context -> {
         AppMetadataStore store = AppMetadataStore.create(context);
+        store.setBinaryRunRecordEncoding(binaryRunRecordEncoding);
         store.recordProgramProvisioning(programRunId, runRecord.getUserArgs(), runRecord.getSystemArgs(),
                                         runRecord.getSourceId(), runRecord.getArtifactId());
         store.recordProgramProvisioned(programRunId, 1, runRecord.getSourceId());
@@ -55,6 +55,8 @@ public class RuntimeProgramStatusSubscriberService extends AbstractNotificationS
   private static final Logger LOG = LoggerFactory.getLogger(RuntimeProgramStatusSubscriberService.class);
   private static final Gson GSON = new Gson();
 
+  private final boolean binaryRunRecordEncoding;
+
   @Inject
   RuntimeProgramStatusSubscriberService(CConfiguration cConf, MessagingService messagingService,
                                         MetricsCollectionService metricsCollectionService,
@@ -64,6 +66,7 @@ public class RuntimeProgramStatusSubscriberService extends AbstractNotificationS
           cConf.getInt(Constants.AppFabric.STATUS_EVENT_FETCH_SIZE),
           cConf.getLong(Constants.AppFabric.STATUS_EVENT_POLL_DELAY_MILLIS),
           messagingService, metricsCollectionService, transactionRunner);
+    this.binaryRunRecordEncoding = cConf.getBoolean(Constants.AppFabric.RUN_RECORD_BINARY_ENCODING_ENABLED);
   }
 
   @Nullable
@@ -176,6 +179,8 @@ public class RuntimeProgramStatusSubscriberService extends AbstractNotificationS
    * Returns an instance of {@link AppMetadataStore}.
    */
   private AppMetadataStore getAppMetadataStore(StructuredTableContext context) {
-    return AppMetadataStore.create(context);
+    AppMetadataStore store = AppMetadataStore.create(context);
+    store.setBinaryRunRecordEncoding(binaryRunRecordEncoding);
+    return store;
   }
 }
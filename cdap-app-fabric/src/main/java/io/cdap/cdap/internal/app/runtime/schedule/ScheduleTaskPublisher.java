@@ -24,6 +24,7 @@ import io.cdap.cdap.proto.Notification;
 import io.cdap.cdap.proto.id.ScheduleId;
 import io.cdap.cdap.proto.id.TopicId;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -52,13 +53,42 @@ public final class ScheduleTaskPublisher {
   public void publishNotification(Notification.Type notificationType, ScheduleId scheduleId,
                                   Map<String, String> systemOverrides, Map<String, String> userOverrides)
     throws Exception {
+    Notification notification = createNotification(notificationType, scheduleId, systemOverrides, userOverrides);
+    messagingService.publish(StoreRequestBuilder.of(topicId).addPayload(GSON.toJson(notification)).build());
+  }
 
+  /**
+   * Publish notifications for multiple triggered schedules in a single publish call.
+   *
+   * @param notifications the notifications to publish, created by
+   *                      {@link #createNotification(Notification.Type, ScheduleId, Map, Map)}
+   */
+  public void publishNotifications(Collection<Notification> notifications) throws Exception {
+    if (notifications.isEmpty()) {
+      return;
+    }
+    StoreRequestBuilder builder = StoreRequestBuilder.of(topicId);
+    for (Notification notification : notifications) {
+      builder.addPayload(GSON.toJson(notification));
+    }
+    messagingService.publish(builder.build());
+  }
+
+  /**
+   * Creates the notification for the triggered schedule.
+   *
+   * @param notificationType type of the notification
+   * @param scheduleId       {@link ScheduleId} of the triggered schedule
+   * @param systemOverrides Arguments that would be supplied as system runtime arguments for the program.
+   * @param userOverrides Arguments to add to the user runtime arguments for the program.
+   */
+  public static Notification createNotification(Notification.Type notificationType, ScheduleId scheduleId,
+                                                Map<String, String> systemOverrides,
+                                                Map<String, String> userOverrides) {
     Map<String, String> properties = new HashMap<>();
     properties.put(ProgramOptionConstants.SCHEDULE_ID, GSON.toJson(scheduleId));
     properties.put(ProgramOptionConstants.SYSTEM_OVERRIDES, GSON.toJson(systemOverrides));
     properties.put(ProgramOptionConstants.USER_OVERRIDES, GSON.toJson(userOverrides));
-
-    Notification notification = new Notification(notificationType, properties);
-    messagingService.publish(StoreRequestBuilder.of(topicId).addPayload(GSON.toJson(notification)).build());
+    return new Notification(notificationType, properties);
   }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.schedule;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel. Each level of the wheel has the same number of slots, where a slot at level
+ * {@code n} covers {@code tickMillis * wheelSize^n} milliseconds. An item is added to the lowest level that covers
+ * its expiration time, and is moved to the lower levels as the wheel advances, until it expires at level zero.
+ * Adding an item and advancing the wheel by one tick are constant time operations regardless of the number
+ * of items in the wheel. Levels are created on demand for expiration times that are far in the future.
+ *
+ * This class is not thread safe.
+ *
+ * @param <T> type of the items in the wheel
+ */
+final class TimingWheel<T> {
+
+  private final long tickMillis;
+  private final int wheelSize;
+  private final List<List<List<Timeout<T>>>> levels;
+  private long currentTime;
+  private int size;
+
+  /**
+   * Creates a timing wheel.
+   *
+   * @param tickMillis the resolution of the wheel in milliseconds
+   * @param wheelSize the number of slots in each level of the wheel
+   * @param startTime the current time in milliseconds. It is rounded down to a multiple of the tick
+   */
+  TimingWheel(long tickMillis, int wheelSize, long startTime) {
+    Preconditions.checkArgument(tickMillis > 0, "Tick must be positive");
+    Preconditions.checkArgument(wheelSize > 1, "Wheel size must be larger than one");
+    this.tickMillis = tickMillis;
+    this.wheelSize = wheelSize;
+    this.levels = new ArrayList<>();
+    this.currentTime = startTime - (startTime % tickMillis);
+  }
+
+  /**
+   * Returns the time in milliseconds that the wheel has been advanced to.
+   */
+  long getCurrentTime() {
+    return currentTime;
+  }
+
+  /**
+   * Returns the number of items in the wheel.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds an item to the wheel.
+   *
+   * @param item the item to add
+   * @param expiration the time in milliseconds that the item expires
+   * @return {@code true} if the item is added, or {@code false} if it is already expired at the current time of the
+   *         wheel, in which case it is not added
+   */
+  boolean add(T item, long expiration) {
+    if (expiration < currentTime + tickMillis) {
+      return false;
+    }
+    long levelTick = tickMillis;
+    for (int level = 0; ; level++) {
+      long levelInterval = levelTick * wheelSize;
+      // Overflow of the interval means the level covers all remaining time
+      if (levelInterval / wheelSize != levelTick || expiration < currentTime + levelInterval) {
+        getSlot(level, (int) ((expiration / levelTick) % wheelSize)).add(new Timeout<>(item, expiration));
+        size++;
+        return true;
+      }
+      levelTick = levelInterval;
+    }
+  }
+
+  /**
+   * Advances the wheel tick by tick up to the given time.
+   *
+   * @param time the time in milliseconds to advance to
+   * @return the items that expired, ordered by their expiration time
+   */
+  List<T> advance(long time) {
+    List<T> expired = new ArrayList<>();
+    while (currentTime + tickMillis <= time) {
+      currentTime += tickMillis;
+
+      // Collect the slots that start at the current time, from level zero up to the first level not at its boundary
+      List<Timeout<T>> timeouts = new ArrayList<>();
+      long levelTick = tickMillis;
+      for (int level = 0; level < levels.size() && currentTime % levelTick == 0; level++) {
+        List<Timeout<T>> slot = levels.get(level).get((int) ((currentTime / levelTick) % wheelSize));
+        if (!slot.isEmpty()) {
+          timeouts.addAll(slot);
+          slot.clear();
+        }
+        levelTick *= wheelSize;
+      }
+
+      // Re-add the items, which either expires them or moves them to a lower level
+      size -= timeouts.size();
+      timeouts.sort((t1, t2) -> Long.compare(t1.expiration, t2.expiration));
+      for (Timeout<T> timeout : timeouts) {
+        if (!add(timeout.item, timeout.expiration)) {
+          expired.add(timeout.item);
+        }
+      }
+    }
+    return expired;
+  }
+
+  private List<Timeout<T>> getSlot(int level, int slot) {
+    while (levels.size() <= level) {
+      List<List<Timeout<T>>> slots = new ArrayList<>(wheelSize);
+      for (int i = 0; i < wheelSize; i++) {
+        slots.add(new ArrayList<>());
+      }
+      levels.add(slots);
+    }
+    return levels.get(level).get(slot);
+  }
+
+  /**
+   * An item in the wheel with its expiration time.
+   */
+  private static final class Timeout<T> {
+    private final T item;
+    private final long expiration;
+
+    Timeout(T item, long expiration) {
+      this.item = item;
+      this.expiration = expiration;
+    }
+  }
+}
@@ -0,0 +1,464 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.schedule;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.inject.Inject;
+import io.cdap.cdap.api.schedule.SchedulableProgramType;
+import io.cdap.cdap.common.AlreadyExistsException;
+import io.cdap.cdap.common.NotFoundException;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.service.Retries;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
+import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
+import io.cdap.cdap.internal.app.runtime.schedule.trigger.AbstractSatisfiableCompositeTrigger;
+import io.cdap.cdap.internal.app.runtime.schedule.trigger.SatisfiableTrigger;
+import io.cdap.cdap.internal.app.runtime.schedule.trigger.TimeTrigger;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.proto.Notification;
+import io.cdap.cdap.proto.ProtoTrigger;
+import io.cdap.cdap.proto.ScheduledRuntime;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ScheduleId;
+import io.cdap.cdap.proto.id.TopicId;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import org.apache.twill.common.Threads;
+import org.quartz.CronExpression;
+import org.quartz.utils.Key;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TimeSchedulerService} that keeps all time triggers in memory in a {@link TimingWheel}, as an alternative
+ * to the Quartz based {@link TimeScheduler} for large number of time schedules.
+ *
+ * Triggers are not persisted by this service. On startup, the time triggers of all schedules are loaded in batches
+ * from the schedule store, which is the source of truth of the schedules and their status. Only the next fire time
+ * of each trigger is kept in the wheel. It is computed from the cron expression when the trigger is loaded or
+ * resumed, and again each time the trigger fires. Fire times missed while the service was down are not
+ * recovered, which is the same as the misfire handling of the Quartz based scheduler.
+ * Due triggers are published in batches through the {@link ScheduleTaskPublisher}.
+ */
+public final class TimingWheelTimeSchedulerService extends AbstractIdleService implements TimeSchedulerService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimingWheelTimeSchedulerService.class);
+  private static final int WHEEL_SIZE = 64;
+  // Same format as the trigger key used by Quartz, which is the group and the name of the trigger
+  private static final String TRIGGER_KEY_PREFIX = Key.DEFAULT_GROUP + ".";
+
+  private final TransactionRunner transactionRunner;
+  private final ScheduleTaskPublisher taskPublisher;
+  private final long tickMillis;
+  private final int batchSize;
+
+  // All fields below are guarded by this
+  private final Map<ProgramId, Map<String, WheelTrigger>> programTriggers;
+  private final List<Firing> overdueFirings;
+  private TimingWheel<Firing> wheel;
+  private ScheduledExecutorService executor;
+
+  @Inject
+  TimingWheelTimeSchedulerService(CConfiguration cConf, MessagingService messagingService,
+                                  TransactionRunner transactionRunner) {
+    TopicId topicId = NamespaceId.SYSTEM.topic(cConf.get(Constants.Scheduler.TIME_EVENT_TOPIC));
+    this.transactionRunner = transactionRunner;
+    this.taskPublisher = new ScheduleTaskPublisher(messagingService, topicId);
+    this.tickMillis = cConf.getLong(Constants.Scheduler.TIME_WHEEL_TICK_MILLIS);
+    this.batchSize = cConf.getInt(Constants.Scheduler.TIME_WHEEL_BATCH_SIZE);
+    this.programTriggers = new HashMap<>();
+    this.overdueFirings = new ArrayList<>();
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      wheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, now);
+    }
+    loadSchedules(now);
+
+    executor = Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("time-schedule-wheel"));
+    executor.scheduleWithFixedDelay(this::fireTriggers, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    LOG.info("Started time scheduler with {} time triggers", getTriggerCount());
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+    LOG.info("Stopped time scheduler");
+  }
+
+  @Override
+  public void addProgramSchedule(ProgramSchedule schedule) throws AlreadyExistsException, SchedulerException {
+    if (!containsTimeTrigger(schedule)) {
+      return;
+    }
+    Map<String, String> cronEntries = getCronEntries(schedule);
+    List<WheelTrigger> triggers = new ArrayList<>();
+    for (Map.Entry<String, String> entry : cronEntries.entrySet()) {
+      triggers.add(new WheelTrigger(entry.getKey(), schedule.getScheduleId(), entry.getValue(),
+                                    isComposite(schedule)));
+    }
+
+    synchronized (this) {
+      Map<String, WheelTrigger> existing = programTriggers.getOrDefault(schedule.getProgramId(),
+                                                                        Collections.emptyMap());
+      // Verify every trigger does not exist first before adding any of them
+      for (WheelTrigger trigger : triggers) {
+        if (existing.containsKey(trigger.name)) {
+          throw new AlreadyExistsException(schedule.getScheduleId(),
+                                           String.format("Trigger with name '%s' already exists", trigger.name));
+        }
+      }
+      // All new triggers are suspended until the schedule is resumed
+      Map<String, WheelTrigger> programMap = programTriggers.computeIfAbsent(schedule.getProgramId(),
+                                                                             k -> new HashMap<>());
+      for (WheelTrigger trigger : triggers) {
+        programMap.put(trigger.name, trigger);
+      }
+    }
+  }
+
+  @Override
+  public void deleteProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
+    if (!containsTimeTrigger(schedule)) {
+      return;
+    }
+    synchronized (this) {
+      Map<String, WheelTrigger> programMap = programTriggers.get(schedule.getProgramId());
+      for (WheelTrigger trigger : getExistingTriggers(schedule)) {
+        // Clearing the next fire time invalidates the firing in the wheel
+        trigger.nextFireTime = -1L;
+        programMap.remove(trigger.name);
+      }
+      if (programMap != null && programMap.isEmpty()) {
+        programTriggers.remove(schedule.getProgramId());
+      }
+    }
+  }
+
+  @Override
+  public void suspendProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
+    if (!containsTimeTrigger(schedule)) {
+      return;
+    }
+    synchronized (this) {
+      for (WheelTrigger trigger : getExistingTriggers(schedule)) {
+        trigger.suspended = true;
+        trigger.nextFireTime = -1L;
+      }
+    }
+  }
+
+  @Override
+  public void resumeProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
+    if (!containsTimeTrigger(schedule)) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      for (WheelTrigger trigger : getExistingTriggers(schedule)) {
+        if (trigger.suspended) {
+          trigger.suspended = false;
+          scheduleNext(trigger, now);
+        }
+      }
+    }
+  }
+
+  @Override
+  public synchronized List<ScheduledRuntime> previousScheduledRuntime(ProgramId program) {
+    List<ScheduledRuntime> scheduledRuntimes = new ArrayList<>();
+    for (WheelTrigger trigger : programTriggers.getOrDefault(program, Collections.emptyMap()).values()) {
+      // previous fire time is only known for the triggers fired since this service started
+      if (trigger.previousFireTime >= 0) {
+        scheduledRuntimes.add(new ScheduledRuntime(TRIGGER_KEY_PREFIX + trigger.name, trigger.previousFireTime));
+      }
+    }
+    return scheduledRuntimes;
+  }
+
+  @Override
+  public synchronized List<ScheduledRuntime> nextScheduledRuntime(ProgramId program) {
+    if (program.getType().getSchedulableType() == null) {
+      throw new IllegalArgumentException("Program " + program + " cannot be scheduled");
+    }
+    List<ScheduledRuntime> scheduledRuntimes = new ArrayList<>();
+    for (WheelTrigger trigger : programTriggers.getOrDefault(program, Collections.emptyMap()).values()) {
+      // skip the trigger that is not enabled, since it cannot launch program as scheduled
+      if (!trigger.suspended && trigger.nextFireTime >= 0) {
+        scheduledRuntimes.add(new ScheduledRuntime(TRIGGER_KEY_PREFIX + trigger.name, trigger.nextFireTime));
+      }
+    }
+    return scheduledRuntimes;
+  }
+
+  @Override
+  public synchronized List<ScheduledRuntime> getAllScheduledRunTimes(ProgramId program,
+                                                                     SchedulableProgramType programType,
+                                                                     long startTimeSecs, long endTimeSecs) {
+    // decrease the start time by one second to include the next fire time that is equal to the start time
+    Date startTime = new Date(TimeUnit.SECONDS.toMillis(startTimeSecs - 1));
+    long endTimeMillis = TimeUnit.SECONDS.toMillis(endTimeSecs);
+    List<ScheduledRuntime> scheduledRuntimes = new ArrayList<>();
+    for (WheelTrigger trigger : programTriggers.getOrDefault(program, Collections.emptyMap()).values()) {
+      // skip the trigger that is not enabled, since it cannot launch program as scheduled
+      if (trigger.suspended) {
+        continue;
+      }
+      Date nextFireTime = trigger.cronExpression.getNextValidTimeAfter(startTime);
+      while (nextFireTime != null && nextFireTime.getTime() < endTimeMillis) {
+        scheduledRuntimes.add(new ScheduledRuntime(TRIGGER_KEY_PREFIX + trigger.name, nextFireTime.getTime()));
+        nextFireTime = trigger.cronExpression.getNextValidTimeAfter(nextFireTime);
+      }
+    }
+    return scheduledRuntimes;
+  }
+
+  /**
+   * Loads the time triggers of all schedules from the schedule store in batches.
+   */
+  private void loadSchedules(long now) {
+    List<ProgramScheduleRecord> records = new ArrayList<>();
+    ScheduleId cursor = null;
+    do {
+      ScheduleId after = cursor;
+      cursor = Retries.supplyWithRetries(() -> TransactionRunners.run(transactionRunner, context -> {
+        records.clear();
+        return Schedulers.getScheduleStore(context).scanScheduleRecords(after, batchSize, records::add);
+      }), RetryStrategies.exponentialDelay(200, 5000, TimeUnit.MILLISECONDS), Retries.ALWAYS_TRUE);
+
+      for (ProgramScheduleRecord record : records) {
+        ProgramSchedule schedule = record.getSchedule();
+        if (!containsTimeTrigger(schedule)) {
+          continue;
+        }
+        try {
+          addProgramSchedule(schedule);
+          if (record.getMeta().getStatus() == ProgramScheduleStatus.SCHEDULED) {
+            synchronized (this) {
+              for (WheelTrigger trigger : getExistingTriggers(schedule)) {
+                trigger.suspended = false;
+                scheduleNext(trigger, now);
+              }
+            }
+          }
+        } catch (Exception e) {
+          LOG.warn("Failed to load time triggers of schedule {}", schedule.getScheduleId(), e);
+        }
+      }
+    } while (cursor != null);
+  }
+
+  /**
+   * Advances the wheel to the current time and publishes notifications for the triggers that are due.
+   */
+  private void fireTriggers() {
+    List<Firing> due = new ArrayList<>();
+    try {
+      synchronized (this) {
+        List<Firing> firings = new ArrayList<>(overdueFirings);
+        overdueFirings.clear();
+        firings.addAll(wheel.advance(System.currentTimeMillis()));
+
+        for (Firing firing : firings) {
+          WheelTrigger trigger = firing.trigger;
+          // Skip firings of triggers that were deleted, suspended or rescheduled after the firing was added
+          if (trigger.suspended || trigger.nextFireTime != firing.fireTime) {
+            continue;
+          }
+          due.add(firing);
+          trigger.previousFireTime = firing.fireTime;
+          scheduleNext(trigger, firing.fireTime);
+        }
+      }
+
+      for (List<Firing> batch : Iterables.partition(due, batchSize)) {
+        publish(batch);
+      }
+    } catch (Throwable t) {
+      // Catch everything to not stop the scheduled executor
+      LOG.warn("Failed to fire time triggers", t);
+    }
+  }
+
+  private void publish(List<Firing> firings) {
+    List<Notification> notifications = new ArrayList<>(firings.size());
+    for (Firing firing : firings) {
+      WheelTrigger trigger = firing.trigger;
+      LOG.debug("Emitting time notification for schedule '{}' with trigger '{}'.", trigger.scheduleId, trigger.name);
+      ImmutableMap.Builder<String, String> systemOverrides = ImmutableMap.builder();
+      if (trigger.composite) {
+        systemOverrides.put(ProgramOptionConstants.CRON_EXPRESSION, trigger.cronEntry);
+      }
+      systemOverrides.put(ProgramOptionConstants.SCHEDULE_NAME, trigger.scheduleId.getSchedule());
+      Map<String, String> userOverrides = ImmutableMap.of(ProgramOptionConstants.LOGICAL_START_TIME,
+                                                          Long.toString(firing.fireTime));
+      notifications.add(ScheduleTaskPublisher.createNotification(Notification.Type.TIME, trigger.scheduleId,
+                                                                  systemOverrides.build(), userOverrides));
+    }
+    try {
+      taskPublisher.publishNotifications(notifications);
+    } catch (Exception e) {
+      // Same as the Quartz based scheduler, a failed firing is not retried
+      LOG.warn("Error while publishing notifications for {} time triggers", notifications.size(), e);
+    }
+  }
+
+  /**
+   * Computes the next fire time of the trigger after the given time, and adds it to the wheel.
+   * Must be called while holding the lock of this service.
+   */
+  private void scheduleNext(WheelTrigger trigger, long afterTime) {
+    Date nextFireTime = trigger.cronExpression.getNextValidTimeAfter(new Date(afterTime));
+    if (nextFireTime == null) {
+      trigger.nextFireTime = -1L;
+      return;
+    }
+    trigger.nextFireTime = nextFireTime.getTime();
+    Firing firing = new Firing(trigger, trigger.nextFireTime);
+    if (!wheel.add(firing, firing.fireTime)) {
+      // The fire time is within the current tick of the wheel, fire it on the next tick
+      overdueFirings.add(firing);
+    }
+  }
+
+  /**
+   * Returns the triggers of the given schedule.
+   * Must be called while holding the lock of this service.
+   *
+   * @throws SchedulerException if any of the triggers doesn't exist
+   */
+  private List<WheelTrigger> getExistingTriggers(ProgramSchedule schedule) throws SchedulerException {
+    Map<String, WheelTrigger> programMap = programTriggers.getOrDefault(schedule.getProgramId(),
+                                                                       Collections.emptyMap());
+    List<WheelTrigger> triggers = new ArrayList<>();
+    // Must assert all triggers exist before processing any of them
+    for (String name : getCronEntries(schedule).keySet()) {
+      WheelTrigger trigger = programMap.get(name);
+      if (trigger == null) {
+        throw new SchedulerException("Trigger with name '" + name + "' does not exist");
+      }
+      triggers.add(trigger);
+    }
+    return triggers;
+  }
+
+  private synchronized int getTriggerCount() {
+    return programTriggers.values().stream().mapToInt(Map::size).sum();
+  }
+
+  private static boolean containsTimeTrigger(ProgramSchedule schedule) {
+    // A composite trigger may contain a TimeTrigger
+    return schedule.getTrigger() instanceof TimeTrigger || isComposite(schedule);
+  }
+
+  private static boolean isComposite(ProgramSchedule schedule) {
+    return schedule.getTrigger() instanceof AbstractSatisfiableCompositeTrigger;
+  }
+
+  /**
+   * Returns a map from the trigger names to the cron entries of the given schedule. Trigger names are the same
+   * as the ones used by the Quartz based {@link TimeScheduler}.
+   */
+  private static Map<String, String> getCronEntries(ProgramSchedule schedule) {
+    ProgramId program = schedule.getProgramId();
+    SchedulableProgramType programType = program.getType().getSchedulableType();
+    Map<String, String> cronEntries = new LinkedHashMap<>();
+    if (isComposite(schedule)) {
+      Set<SatisfiableTrigger> triggerSet =
+        ((AbstractSatisfiableCompositeTrigger) schedule.getTrigger()).getUnitTriggers().get(ProtoTrigger.Type.TIME);
+      if (triggerSet != null) {
+        for (SatisfiableTrigger timeTrigger : triggerSet) {
+          String cron = ((TimeTrigger) timeTrigger).getCronExpression();
+          cronEntries.put(AbstractTimeSchedulerService.getTriggerName(program, programType, schedule.getName(), cron),
+                          cron);
+        }
+      }
+      return cronEntries;
+    }
+    // No need to include cron expression in trigger name if the trigger is not composite trigger
+    cronEntries.put(AbstractTimeSchedulerService.scheduleIdFor(program, programType, schedule.getName()),
+                    ((TimeTrigger) schedule.getTrigger()).getCronExpression());
+    return cronEntries;
+  }
+
+  /**
+   * A time trigger of a schedule. The mutable fields are guarded by the lock of the service.
+   */
+  private static final class WheelTrigger {
+    private final String name;
+    private final ScheduleId scheduleId;
+    private final String cronEntry;
+    private final boolean composite;
+    private final CronExpression cronExpression;
+    private boolean suspended;
+    private long nextFireTime;
+    private long previousFireTime;
+
+    WheelTrigger(String name, ScheduleId scheduleId, String cronEntry,
+                 boolean composite) throws SchedulerException {
+      this.name = name;
+      this.scheduleId = scheduleId;
+      this.cronEntry = cronEntry;
+      this.composite = composite;
+      try {
+        this.cronExpression = new CronExpression(Schedulers.getQuartzCronExpression(cronEntry));
+      } catch (ParseException e) {
+        throw new SchedulerException("Invalid cron expression '" + cronEntry + "'", e);
+      }
+      this.suspended = true;
+      this.nextFireTime = -1L;
+      this.previousFireTime = -1L;
+    }
+  }
+
+  /**
+   * A scheduled firing of a trigger. It is only valid if the trigger is still scheduled to fire at the same time.
+   */
+  private static final class Firing {
+    private final WheelTrigger trigger;
+    private final long fireTime;
+
+    Firing(WheelTrigger trigger, long fireTime) {
+      this.trigger = trigger;
+      this.fireTime = fireTime;
+    }
+  }
+}
@@ -65,6 +65,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -466,6 +467,39 @@ public class ProgramScheduleStoreDataset {
                                           schedule -> programId.equals(schedule.getProgramId()));
   }
 
+  /**
+   * Scans a batch of schedule records across all namespaces, in the order of their keys.
+   *
+   * @param afterScheduleId the schedule to scan after, or {@code null} to scan from the first schedule
+   * @param limit the maximum number of schedule rows to scan
+   * @param consumer the consumer of the schedule records
+   * @return the id of the last scanned schedule to continue the scan from,
+   *         or {@code null} if there are no more schedules to scan
+   */
+  @Nullable
+  public ScheduleId scanScheduleRecords(@Nullable ScheduleId afterScheduleId, int limit,
+                                        Consumer<ProgramScheduleRecord> consumer) throws IOException {
+    Range range = afterScheduleId == null
+      ? Range.all()
+      : Range.from(getScheduleKeys(afterScheduleId), Range.Bound.EXCLUSIVE);
+    ScheduleId lastScheduleId = null;
+    int count = 0;
+    try (CloseableIterator<StructuredRow> iterator = scheduleStore.scan(range, limit)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        lastScheduleId = rowToScheduleId(row);
+        count++;
+        // Rows of deleted schedules don't have the schedule
+        String serializedSchedule = row.getString(StoreDefinition.ProgramScheduleStore.SCHEDULE);
+        if (serializedSchedule != null) {
+          ProgramSchedule schedule = GSON.fromJson(serializedSchedule, ProgramSchedule.class);
+          consumer.accept(new ProgramScheduleRecord(schedule, extractMetaFromRow(lastScheduleId, row)));
+        }
+      }
+    }
+    return count < limit ? null : lastScheduleId;
+  }
+
   /**
    * Find all schedules that have a trigger with a given trigger key.
    *
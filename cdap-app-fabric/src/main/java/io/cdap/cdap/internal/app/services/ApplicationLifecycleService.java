@@ -743,10 +743,10 @@ public class ApplicationLifecycleService extends AbstractIdleService {
     List<ApplicationSpecification> allSpecs = new ArrayList<>(store.getAllApplications(namespaceId));
     Map<ApplicationId, ApplicationSpecification> apps = new HashMap<>();
     for (ApplicationSpecification appSpec : allSpecs) {
-      ApplicationId applicationId = namespaceId.app(appSpec.getName(), appSpec.getAppVersion());
-      accessEnforcer.enforce(applicationId, authenticationContext.getPrincipal(), StandardPermission.DELETE);
-      apps.put(applicationId, appSpec);
+      apps.put(namespaceId.app(appSpec.getName(), appSpec.getAppVersion()), appSpec);
     }
+    accessEnforcer.enforceAll(apps.keySet(), authenticationContext.getPrincipal(),
+                              Collections.singleton(StandardPermission.DELETE));
 
     if (!runningPrograms.isEmpty()) {
       Set<String> activePrograms = new HashSet<>();
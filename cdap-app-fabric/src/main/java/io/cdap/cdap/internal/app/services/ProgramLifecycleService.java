@@ -102,6 +102,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -1056,7 +1057,7 @@ public class ProgramLifecycleService {
    */
   public List<ProgramRecord> list(NamespaceId namespaceId, ProgramType type) throws Exception {
     Collection<ApplicationSpecification> appSpecs = store.getAllApplications(namespaceId);
-    List<ProgramRecord> programRecords = new ArrayList<>();
+    Map<ProgramId, ProgramRecord> programRecords = new LinkedHashMap<>();
     for (ApplicationSpecification appSpec : appSpecs) {
       switch (type) {
         case MAPREDUCE:
@@ -1078,24 +1079,28 @@ public class ProgramLifecycleService {
           throw new Exception("Unknown program type: " + type.name());
       }
     }
-    return programRecords;
+    if (programRecords.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    // check the visibility of all programs at once
+    Set<? extends EntityId> visibleEntities = accessEnforcer.isVisible(programRecords.keySet(),
+                                                                       authenticationContext.getPrincipal());
+    return programRecords.entrySet().stream()
+      .filter(entry -> visibleEntities.contains(entry.getKey()))
+      .map(Map.Entry::getValue)
+      .collect(Collectors.toList());
   }
 
   private void createProgramRecords(NamespaceId namespaceId, String appId, ProgramType type,
                                     Iterable<? extends ProgramSpecification> programSpecs,
-                                    List<ProgramRecord> programRecords) throws Exception {
+                                    Map<ProgramId, ProgramRecord> programRecords) {
     for (ProgramSpecification programSpec : programSpecs) {
-      if (hasAccess(namespaceId.app(appId).program(type, programSpec.getName()))) {
-        programRecords.add(new ProgramRecord(type, appId, programSpec.getName(), programSpec.getDescription()));
-      }
+      programRecords.put(namespaceId.app(appId).program(type, programSpec.getName()),
+                         new ProgramRecord(type, appId, programSpec.getName(), programSpec.getDescription()));
     }
   }
 
-  private boolean hasAccess(ProgramId programId) throws Exception {
-    Principal principal = authenticationContext.getPrincipal();
-    return !accessEnforcer.isVisible(Collections.singleton(programId), principal).isEmpty();
-  }
-
   private void setWorkerInstances(ProgramId programId, int instances)
     throws ExecutionException, InterruptedException, BadRequestException {
     int oldInstances = store.getWorkerInstances(programId);
@@ -43,6 +43,7 @@ import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.internal.app.runtime.ProgramRunners;
 import io.cdap.cdap.internal.app.runtime.SimpleProgramOptions;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
+import io.cdap.cdap.internal.app.store.ActiveRunsView;
 import io.cdap.cdap.internal.app.store.AppMetadataStore;
 import io.cdap.cdap.internal.app.store.RunRecordDetail;
 import io.cdap.cdap.internal.provision.ProvisionRequest;
@@ -65,6 +66,7 @@ import io.cdap.cdap.security.spi.authentication.SecurityRequestContext;
 import io.cdap.cdap.spi.data.StructuredTableContext;
 import io.cdap.cdap.spi.data.TableNotFoundException;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -113,6 +115,10 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
   private final ProgramStateWriter programStateWriter;
   private final Queue<Runnable> tasks;
   private final MetricsCollectionService metricsCollectionService;
+  private final ActiveRunsView activeRunsView;
+  // Run records written by the batch of notifications being processed, applied to the activeRunsView after commit
+  private final List<RunRecordDetail> writtenRunRecords;
+  private final boolean binaryRunRecordEncoding;
   private Set<ProgramCompletionNotifier> programCompletionNotifiers;
 
   @Inject
@@ -121,7 +127,8 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
                                        ProvisionerNotifier provisionerNotifier,
                                        ProgramLifecycleService programLifecycleService,
                                        ProvisioningService provisioningService,
-                                       ProgramStateWriter programStateWriter, TransactionRunner transactionRunner) {
+                                       ProgramStateWriter programStateWriter, TransactionRunner transactionRunner,
+                                       ActiveRunsView activeRunsView) {
     super("program.status", cConf, cConf.get(Constants.AppFabric.PROGRAM_STATUS_EVENT_TOPIC),
           cConf.getInt(Constants.AppFabric.STATUS_EVENT_FETCH_SIZE),
           cConf.getLong(Constants.AppFabric.STATUS_EVENT_POLL_DELAY_MILLIS),
@@ -133,6 +140,9 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     this.programStateWriter = programStateWriter;
     this.tasks = new LinkedList<>();
     this.metricsCollectionService = metricsCollectionService;
+    this.activeRunsView = activeRunsView;
+    this.writtenRunRecords = new ArrayList<>();
+    this.binaryRunRecordEncoding = cConf.getBoolean(Constants.AppFabric.RUN_RECORD_BINARY_ENCODING_ENABLED);
     this.programCompletionNotifiers = Collections.emptySet();
   }
 
@@ -141,6 +151,13 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     this.programCompletionNotifiers = notifiers;
   }
 
+  @Override
+  protected void doShutdown() throws Exception {
+    super.doShutdown();
+    // Run records written after this service stopped are not applied, hence the view can no longer be served
+    activeRunsView.invalidate();
+  }
+
   @Nullable
   @Override
   protected String loadMessageId(StructuredTableContext context) throws IOException, TableNotFoundException {
@@ -153,22 +170,61 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     getAppMetadataStore(context).persistSubscriberState(getTopicId().getTopic(), "", messageId);
   }
 
+  @Nullable
+  @Override
+  protected String processMessages(Iterator<ImmutablePair<String, Notification>> messages) throws Exception {
+    activeRunsView.lockWrites();
+    try {
+      String lastMessageId = super.processMessages(messages);
+      // The batch is committed, hence the written run records can be applied to the view
+      activeRunsView.update(writtenRunRecords);
+      return lastMessageId;
+    } finally {
+      writtenRunRecords.clear();
+      activeRunsView.unlockWrites();
+    }
+  }
+
   @Override
   protected void processMessages(StructuredTableContext structuredTableContext,
                                  Iterator<ImmutablePair<String, Notification>> messages) throws Exception {
     ProgramHeartbeatTable heartbeatDataset = new ProgramHeartbeatTable(structuredTableContext);
     List<Runnable> tasks = new LinkedList<>();
+    List<RunRecordDetail> runRecords = new ArrayList<>();
     while (messages.hasNext()) {
       ImmutablePair<String, Notification> messagePair = messages.next();
       List<Runnable> runnables = processNotification(heartbeatDataset,
                                                      messagePair.getFirst().getBytes(StandardCharsets.UTF_8),
-                                                     messagePair.getSecond(), structuredTableContext);
+                                                     messagePair.getSecond(), structuredTableContext, runRecords);
       tasks.addAll(runnables);
     }
 
     // Only add post processing tasks if all messages are processed. If there is exception in the processNotifiation,
     // messages will be replayed.
     this.tasks.addAll(tasks);
+    // Replace the records of a previous attempt of the same transaction, which was rolled back
+    this.writtenRunRecords.clear();
+    this.writtenRunRecords.addAll(runRecords);
+  }
+
+  @Override
+  protected void preProcess() {
+    if (!activeRunsView.isEnabled() || activeRunsView.isLoaded()) {
+      return;
+    }
+    // Rebuild the view from the run records table. Holding the write lock, no committed run record can be missed by
+    // the rebuild. An invalidation in between fails the rebuild.
+    activeRunsView.lockWrites();
+    try {
+      long token = activeRunsView.beginRebuild();
+      Map<ProgramRunId, RunRecordDetail> activeRuns = TransactionRunners.run(
+        getTransactionRunner(), context -> AppMetadataStore.create(context).getActiveRuns(runRecord -> true));
+      if (activeRunsView.completeRebuild(token, activeRuns.values())) {
+        LOG.debug("Loaded {} active runs into the active runs view", activeRuns.size());
+      }
+    } finally {
+      activeRunsView.unlockWrites();
+    }
   }
 
   @Override
@@ -187,14 +243,17 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
    * @param messageIdBytes the raw message id in the TMS for the notification
    * @param notification the {@link Notification} to process
    * @param context context to get the table for operations
+   * @param runRecords a {@link List} for collecting the run records written while processing the notification
    * @return a {@link List} of {@link Runnable} tasks to run after the transactional processing of the whole
    *         messages batch is completed
    * @throws Exception if failed to process the given notification
    */
   private List<Runnable> processNotification(ProgramHeartbeatTable programHeartbeatTable,
                                              byte[] messageIdBytes, Notification notification,
-                                             StructuredTableContext context) throws Exception {
-    AppMetadataStore appMetadataStore = AppMetadataStore.create(context);
+                                             StructuredTableContext context,
+                                             List<RunRecordDetail> runRecords) throws Exception {
+    AppMetadataStore appMetadataStore = getAppMetadataStore(context);
+    appMetadataStore.setRunRecordListener(runRecords::add);
     Map<String, String> properties = notification.getProperties();
     // Required parameters
     String programRun = properties.get(ProgramOptionConstants.PROGRAM_RUN_ID);
@@ -695,6 +754,8 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
    * Returns an instance of {@link AppMetadataStore}.
    */
   private AppMetadataStore getAppMetadataStore(StructuredTableContext context) {
-    return AppMetadataStore.create(context);
+    AppMetadataStore store = AppMetadataStore.create(context);
+    store.setBinaryRunRecordEncoding(binaryRunRecordEncoding);
+    return store;
   }
 }
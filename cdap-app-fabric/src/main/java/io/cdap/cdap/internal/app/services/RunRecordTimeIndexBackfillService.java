@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.services;
+
+import com.google.inject.Inject;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.internal.app.store.AppMetadataStore;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service that adds the completed run records written before the run record time index existed to the index.
+ * It processes one batch of run records per transaction and stops itself once all run records are indexed.
+ */
+public class RunRecordTimeIndexBackfillService extends AbstractRetryableScheduledService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RunRecordTimeIndexBackfillService.class);
+
+  private final TransactionRunner transactionRunner;
+  private final int batchSize;
+  private AppMetadataStore.Cursor cursor;
+
+  @Inject
+  RunRecordTimeIndexBackfillService(CConfiguration cConf, TransactionRunner transactionRunner) {
+    super(RetryStrategies.fixDelay(5, TimeUnit.SECONDS));
+    this.transactionRunner = transactionRunner;
+    this.batchSize = cConf.getInt(Constants.AppFabric.RUN_RECORD_TIME_INDEX_BACKFILL_TX_BATCH_SIZE, 1000);
+    this.cursor = AppMetadataStore.Cursor.EMPTY;
+  }
+
+  @Override
+  protected void doStartUp() {
+    boolean ready = TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).isRunRecordTimeIndexReady();
+    });
+    if (ready) {
+      cursor = null;
+    } else {
+      LOG.info("Starting back-fill of the run record time index");
+    }
+  }
+
+  @Override
+  protected long runTask() {
+    if (cursor == null) {
+      stop();
+      return 0L;
+    }
+
+    cursor = TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).backfillRunRecordTimeIndex(cursor, batchSize);
+    });
+
+    if (cursor == null) {
+      LOG.info("Completed back-fill of the run record time index");
+      stop();
+    } else {
+      LOG.debug("Back-filled run record time index for a batch of {} run records", batchSize);
+    }
+    return 0L;
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * An in-memory view of the active program runs, which are the runs in PENDING, STARTING, RUNNING or SUSPENDED state.
+ *
+ * The program status subscriber rebuilds the view from the run records table when it starts. Afterwards, every writer
+ * of run records, which are the subscriber and the {@link DefaultStore}, applies the run records it wrote once its
+ * transaction is committed. Writers hold the {@link #lockWrites() write lock} from the start of the transaction until
+ * the records are applied, so that the records are applied in the order they were committed.
+ *
+ * All lookups return {@code null} when the view is not loaded, in which case the caller has to read from the run
+ * records table. Since updates are applied after the transaction commits, the view can briefly lag behind the
+ * table. Callers that need strict reads, for example checks made in the same transaction as a write, should always
+ * read from the table. The {@link #getGeneration() generation} is incremented on every change of the view, which
+ * allows callers to detect whether the view changed between two reads.
+ */
+@Singleton
+public class ActiveRunsView {
+
+  // The order of the run records table, which is keyed by program and then by start time from the latest
+  private static final Comparator<RunRecordDetail> STORAGE_ORDER =
+    Comparator.comparing((RunRecordDetail record) -> record.getProgramRunId().getNamespace())
+      .thenComparing(record -> record.getProgramRunId().getApplication())
+      .thenComparing(record -> record.getProgramRunId().getVersion())
+      .thenComparing(record -> record.getProgramRunId().getType().name())
+      .thenComparing(record -> record.getProgramRunId().getProgram())
+      .thenComparing(RunRecordDetail::getStartTs, Comparator.reverseOrder())
+      .thenComparing(record -> record.getProgramRunId().getRun());
+
+  private final boolean enabled;
+  // Not the monitor of this, so that lookups are not blocked by transactions of writers
+  private final Lock writeLock;
+
+  // All fields below are guarded by this. The maps are null when the view is not loaded.
+  private Map<ProgramRunId, RunRecordDetail> runs;
+  private Map<NamespaceId, Map<ProgramRunId, RunRecordDetail>> runsByNamespace;
+  private Map<ApplicationId, Map<ProgramRunId, RunRecordDetail>> runsByApplication;
+  private Map<ProgramId, Map<ProgramRunId, RunRecordDetail>> runsByProgram;
+  private Map<ProfileId, Map<ProgramRunId, RunRecordDetail>> runsByProfile;
+  private long generation;
+  private long invalidations;
+
+  @Inject
+  public ActiveRunsView(CConfiguration cConf) {
+    this.enabled = cConf.getBoolean(Constants.AppFabric.ACTIVE_RUNS_VIEW_ENABLED);
+    this.writeLock = new ReentrantLock();
+  }
+
+  /**
+   * Returns whether the view is enabled. A disabled view is never loaded.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns whether the view is loaded and serves lookups.
+   */
+  public synchronized boolean isLoaded() {
+    return runs != null;
+  }
+
+  /**
+   * Returns the generation of the view, which is incremented whenever the content of the view changes.
+   */
+  public synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Acquires the write lock, which must be held from the start of a transaction that writes run records until the
+   * written records are applied with {@link #update(Collection)}, and during a rebuild. This method does nothing if
+   * the view is disabled.
+   */
+  public void lockWrites() {
+    if (enabled) {
+      writeLock.lock();
+    }
+  }
+
+  /**
+   * Releases the write lock acquired by {@link #lockWrites()}.
+   */
+  public void unlockWrites() {
+    if (enabled) {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Marks the start of a rebuild of the view. The caller should read all active run records after calling this
+   * method and pass them to {@link #completeRebuild(long, Collection)} together with the returned token.
+   *
+   * @return a token to detect invalidations that happen during the rebuild
+   */
+  public synchronized long beginRebuild() {
+    return invalidations;
+  }
+
+  /**
+   * Completes a rebuild of the view with the given active run records. The view is not loaded if it was invalidated
+   * since the corresponding {@link #beginRebuild()} call, since the records may not include the invalidating change.
+   *
+   * @param token the token returned by {@link #beginRebuild()}
+   * @param records all the active run records
+   * @return {@code true} if the view is loaded, {@code false} otherwise
+   */
+  public synchronized boolean completeRebuild(long token, Collection<RunRecordDetail> records) {
+    if (!enabled || token != invalidations) {
+      return false;
+    }
+    runs = new HashMap<>();
+    runsByNamespace = new HashMap<>();
+    runsByApplication = new HashMap<>();
+    runsByProgram = new HashMap<>();
+    runsByProfile = new HashMap<>();
+    records.forEach(this::add);
+    generation++;
+    return true;
+  }
+
+  /**
+   * Applies run records that were written to the run records table. Records in active state are added to or
+   * replaced in the view, while records in end state are removed from it. This method must be called after the
+   * transaction that wrote the records is committed, while holding the {@link #lockWrites() write lock}.
+   *
+   * @param records the written run records, in the order they were written
+   */
+  public synchronized void update(Collection<RunRecordDetail> records) {
+    if (runs == null || records.isEmpty()) {
+      return;
+    }
+    for (RunRecordDetail record : records) {
+      remove(record.getProgramRunId());
+      if (!record.getStatus().isEndState()) {
+        add(record);
+      }
+    }
+    generation++;
+  }
+
+  /**
+   * Removes the runs of the given application, after its run records were deleted from the run records table. This
+   * method must be called while holding the {@link #lockWrites() write lock}.
+   */
+  public synchronized void removeRuns(ApplicationId applicationId) {
+    removeIndexed(runsByApplication, applicationId);
+  }
+
+  /**
+   * Removes the runs in the given namespace, after its run records were deleted from the run records table. This
+   * method must be called while holding the {@link #lockWrites() write lock}.
+   */
+  public synchronized void removeRuns(NamespaceId namespaceId) {
+    removeIndexed(runsByNamespace, namespaceId);
+  }
+
+  /**
+   * Invalidates the view. Lookups are not served until the view is rebuilt.
+   */
+  public synchronized void invalidate() {
+    runs = null;
+    runsByNamespace = null;
+    runsByApplication = null;
+    runsByProgram = null;
+    runsByProfile = null;
+    invalidations++;
+    generation++;
+  }
+
+  /**
+   * Returns all active runs that satisfy the given filter, or {@code null} if the view is not loaded.
+   */
+  @Nullable
+  public synchronized Map<ProgramRunId, RunRecordDetail> getActiveRuns(Predicate<RunRecordDetail> filter) {
+    return runs == null ? null : filter(runs.values(), filter);
+  }
+
+  /**
+   * Returns the active runs in the given namespace, or {@code null} if the view is not loaded.
+   */
+  @Nullable
+  public synchronized Map<ProgramRunId, RunRecordDetail> getActiveRuns(NamespaceId namespaceId) {
+    return runs == null ? null : lookup(runsByNamespace, namespaceId);
+  }
+
+  /**
+   * Returns the active runs in the given application, or {@code null} if the view is not loaded.
+   */
+  @Nullable
+  public synchronized Map<ProgramRunId, RunRecordDetail> getActiveRuns(ApplicationId applicationId) {
+    return runs == null ? null : lookup(runsByApplication, applicationId);
+  }
+
+  /**
+   * Returns the active runs of the given program, or {@code null} if the view is not loaded.
+   */
+  @Nullable
+  public synchronized Map<ProgramRunId, RunRecordDetail> getActiveRuns(ProgramId programId) {
+    return runs == null ? null : lookup(runsByProgram, programId);
+  }
+
+  /**
+   * Returns the active runs that use the given profile, or {@code null} if the view is not loaded.
+   */
+  @Nullable
+  public synchronized Map<ProgramRunId, RunRecordDetail> getActiveRuns(ProfileId profileId) {
+    return runs == null ? null : lookup(runsByProfile, profileId);
+  }
+
+  /**
+   * Counts the active runs outside of the system namespace, or returns {@code null} if the view is not loaded.
+   *
+   * @param limit count at most that many runs, or {@code null} for no limit
+   */
+  @Nullable
+  public synchronized Integer countActiveRuns(@Nullable Integer limit) {
+    if (runs == null) {
+      return null;
+    }
+    Map<ProgramRunId, RunRecordDetail> systemRuns = runsByNamespace.get(NamespaceId.SYSTEM);
+    int count = runs.size() - (systemRuns == null ? 0 : systemRuns.size());
+    return limit == null ? count : Math.min(count, limit);
+  }
+
+  private void add(RunRecordDetail record) {
+    ProgramRunId programRunId = record.getProgramRunId();
+    ProgramId programId = programRunId.getParent();
+    runs.put(programRunId, record);
+    runsByNamespace.computeIfAbsent(programId.getNamespaceId(), k -> new HashMap<>()).put(programRunId, record);
+    runsByApplication.computeIfAbsent(programId.getParent(), k -> new HashMap<>()).put(programRunId, record);
+    runsByProgram.computeIfAbsent(programId, k -> new HashMap<>()).put(programRunId, record);
+    if (record.getProfileId() != null) {
+      runsByProfile.computeIfAbsent(record.getProfileId(), k -> new HashMap<>()).put(programRunId, record);
+    }
+  }
+
+  private void remove(ProgramRunId programRunId) {
+    RunRecordDetail record = runs.remove(programRunId);
+    if (record == null) {
+      return;
+    }
+    ProgramId programId = programRunId.getParent();
+    removeFromIndex(runsByNamespace, programId.getNamespaceId(), programRunId);
+    removeFromIndex(runsByApplication, programId.getParent(), programRunId);
+    removeFromIndex(runsByProgram, programId, programRunId);
+    if (record.getProfileId() != null) {
+      removeFromIndex(runsByProfile, record.getProfileId(), programRunId);
+    }
+  }
+
+  private <K> void removeIndexed(Map<K, Map<ProgramRunId, RunRecordDetail>> index, K key) {
+    Map<ProgramRunId, RunRecordDetail> indexed = runs == null ? null : index.get(key);
+    if (indexed == null) {
+      return;
+    }
+    new ArrayList<>(indexed.keySet()).forEach(this::remove);
+    generation++;
+  }
+
+  private static <K> void removeFromIndex(Map<K, Map<ProgramRunId, RunRecordDetail>> index, K key,
+                                          ProgramRunId programRunId) {
+    Map<ProgramRunId, RunRecordDetail> indexed = index.get(key);
+    if (indexed != null) {
+      indexed.remove(programRunId);
+      if (indexed.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  private static <K> Map<ProgramRunId, RunRecordDetail> lookup(Map<K, Map<ProgramRunId, RunRecordDetail>> index,
+                                                               K key) {
+    Map<ProgramRunId, RunRecordDetail> indexed = index.get(key);
+    return indexed == null ? new LinkedHashMap<>() : filter(indexed.values(), record -> true);
+  }
+
+  /**
+   * Returns the records that satisfy the given filter, in the same order as they are stored in the run records table.
+   */
+  private static Map<ProgramRunId, RunRecordDetail> filter(Collection<RunRecordDetail> records,
+                                                           Predicate<RunRecordDetail> filter) {
+    List<RunRecordDetail> result = new ArrayList<>();
+    for (RunRecordDetail record : records) {
+      if (filter.test(record)) {
+        result.add(record);
+      }
+    }
+    result.sort(STORAGE_ORDER);
+    Map<ProgramRunId, RunRecordDetail> map = new LinkedHashMap<>();
+    for (RunRecordDetail record : result) {
+      map.put(record.getProgramRunId(), record);
+    }
+    return map;
+  }
+}
@@ -83,6 +83,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -121,6 +122,8 @@ public class AppMetadataStore {
 
   private static final String TYPE_COUNT = "runRecordCount";
   private static final String TYPE_RUN_RECORD_UPGRADE_COUNT = "runRecordUpgradeCount";
+  // Count type of the marker row that is written once the run record time index is fully populated
+  private static final String TYPE_RUN_RECORD_TIME_INDEX = "runRecordTimeIndex";
   private static final String SMALLEST_POSSIBLE_STRING = "";
 
   private static final Map<ProgramRunStatus, String> STATUS_TYPE_MAP = ImmutableMap.<ProgramRunStatus, String>builder()
@@ -134,23 +137,66 @@ public class AppMetadataStore {
     .put(ProgramRunStatus.REJECTED, TYPE_RUN_RECORD_COMPLETED)
     .build();
 
+  // Size of the time buckets of the run record time index. A completed run is indexed in every bucket it spans.
+  // A run that spans more than the maximum number of buckets is indexed in every coarse bucket it spans instead,
+  // each of which covers the maximum number of buckets, unless it spans more than the maximum number of coarse buckets.
+  private static final long RUN_TIME_INDEX_BUCKET_SECONDS = TimeUnit.DAYS.toSeconds(1);
+  private static final int RUN_TIME_INDEX_MAX_BUCKETS = 31;
+  private static final int RUN_TIME_INDEX_MAX_COARSE_BUCKETS = 400;
+  // Run status of the time index rows in coarse buckets
+  private static final String TYPE_RUN_RECORD_COMPLETED_COARSE = "runRecordCompletedCoarse";
+  // Bucket for completed runs that have no stop time or span more than the maximum number of coarse buckets,
+  // which is always included in time range queries
+  private static final long RUN_TIME_INDEX_OPEN_BUCKET = Long.MAX_VALUE;
+
   private final StructuredTableContext context;
+  @Nullable
+  private final ApplicationMetaCache appMetaCache;
   private StructuredTable applicationSpecificationTable;
   private StructuredTable workflowNodeStateTable;
   private StructuredTable runRecordsTable;
+  private StructuredTable runRecordsTimeIndexTable;
   private StructuredTable workflowsTable;
   private StructuredTable programCountsTable;
   private StructuredTable subscriberStateTable;
+  private Consumer<RunRecordDetail> runRecordListener;
+  private boolean binaryRunRecordEncoding;
 
   /**
    * Static method for creating an instance of {@link AppMetadataStore}.
    */
   public static AppMetadataStore create(StructuredTableContext context) {
-    return new AppMetadataStore(context);
+    return new AppMetadataStore(context, null);
+  }
+
+  /**
+   * Static method for creating an instance of {@link AppMetadataStore} that decodes application metadata through
+   * the given {@link ApplicationMetaCache}.
+   */
+  public static AppMetadataStore create(StructuredTableContext context, @Nullable ApplicationMetaCache appMetaCache) {
+    return new AppMetadataStore(context, appMetaCache);
   }
 
-  private AppMetadataStore(StructuredTableContext context) {
+  private AppMetadataStore(StructuredTableContext context, @Nullable ApplicationMetaCache appMetaCache) {
     this.context = context;
+    this.appMetaCache = appMetaCache;
+  }
+
+  /**
+   * Sets a listener that is called with every {@link RunRecordDetail} written by this instance. The listener is
+   * called within the transaction, hence it should only collect the records until the transaction is committed.
+   */
+  public void setRunRecordListener(@Nullable Consumer<RunRecordDetail> runRecordListener) {
+    this.runRecordListener = runRecordListener;
+  }
+
+  /**
+   * Sets whether run records are written by this instance in the binary encoding of {@link RunRecordDetailCodec}.
+   * Otherwise they are written as JSON, which older releases can read as well. Run records are read in either
+   * encoding.
+   */
+  public void setBinaryRunRecordEncoding(boolean binaryRunRecordEncoding) {
+    this.binaryRunRecordEncoding = binaryRunRecordEncoding;
   }
 
   private StructuredTable getApplicationSpecificationTable() {
@@ -186,6 +232,17 @@ public class AppMetadataStore {
     return runRecordsTable;
   }
 
+  private StructuredTable getRunRecordsTimeIndexTable() {
+    try {
+      if (runRecordsTimeIndexTable == null) {
+        runRecordsTimeIndexTable = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_TIME_INDEX);
+      }
+    } catch (TableNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+    return runRecordsTimeIndexTable;
+  }
+
   private StructuredTable getWorkflowsTable() {
     try {
       if (workflowsTable == null) {
@@ -228,8 +285,7 @@ public class AppMetadataStore {
   public ApplicationMeta getApplication(String namespaceId, String appId, String versionId) throws IOException {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
     return getApplicationSpecificationTable().read(fields)
-      .map(r -> GSON.fromJson(r.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD),
-                              ApplicationMeta.class))
+      .map(this::decodeApplicationMeta)
       .orElse(null);
   }
 
@@ -261,12 +317,7 @@ public class AppMetadataStore {
   }
 
   public List<ApplicationMeta> getAllApplications(String namespaceId) throws IOException {
-    return
-      scanWithRange(
-        getNamespaceRange(namespaceId),
-        ApplicationMeta.class,
-        getApplicationSpecificationTable(),
-        StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+    return scanApplications(getNamespaceRange(namespaceId));
   }
 
   public long getApplicationCount() throws IOException {
@@ -282,11 +333,7 @@ public class AppMetadataStore {
   }
 
   public List<ApplicationMeta> getAllAppVersions(String namespaceId, String appId) throws IOException {
-    return scanWithRange(
-      getNamespaceAndApplicationRange(namespaceId, appId),
-      ApplicationMeta.class,
-      getApplicationSpecificationTable(),
-      StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+    return scanApplications(getNamespaceAndApplicationRange(namespaceId, appId));
   }
 
   public List<ApplicationId> getAllAppVersionsAppIds(String namespaceId, String appId) throws IOException {
@@ -319,8 +366,7 @@ public class AppMetadataStore {
 
     for (StructuredRow row : getApplicationSpecificationTable().multiRead(multiKeys)) {
       ApplicationId appId = getApplicationIdFromRow(row);
-      result.put(appId, GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD),
-                                      ApplicationMeta.class));
+      result.put(appId, decodeApplicationMeta(appId, row));
     }
 
     return result;
@@ -373,11 +419,15 @@ public class AppMetadataStore {
     throws IOException {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
     getApplicationSpecificationTable().delete(fields);
+    invalidateAppMeta(new NamespaceId(namespaceId).app(appId, versionId));
   }
 
   public void deleteApplications(String namespaceId)
     throws IOException {
     getApplicationSpecificationTable().deleteAll(getNamespaceRange(namespaceId));
+    if (appMetaCache != null) {
+      appMetaCache.invalidateNamespace(namespaceId);
+    }
   }
 
   public void updateAppSpec(ApplicationId appId, ApplicationSpecification spec) throws IOException {
@@ -448,9 +498,8 @@ public class AppMetadataStore {
       // Update the parent Workflow run record by adding node id and program run id in the properties
       Map<String, String> properties = new HashMap<>(record.getProperties());
       properties.put(workflowNodeId, programRunId.getRun());
-      writeToStructuredTableWithPrimaryKeys(
-        runRecordFields, RunRecordDetail.builder(record).setProperties(properties).setSourceId(sourceId).build(),
-        getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+      writeRunRecord(TYPE_RUN_RECORD_ACTIVE,
+                     RunRecordDetail.builder(record).setProperties(properties).setSourceId(sourceId).build());
     }
   }
 
@@ -559,14 +608,12 @@ public class AppMetadataStore {
     // Delete the old run record
     delete(existing);
 
-    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId, existing.getStartTs());
     ProgramRunCluster cluster = new ProgramRunCluster(ProgramRunClusterStatus.PROVISIONED, null, numNodes);
     RunRecordDetail meta = RunRecordDetail.builder(existing)
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(TYPE_RUN_RECORD_ACTIVE, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONED, programRunId);
     return meta;
   }
@@ -597,16 +644,13 @@ public class AppMetadataStore {
 
     delete(existing);
 
-    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, existing.getStartTs());
-
     ProgramRunCluster cluster = new ProgramRunCluster(ProgramRunClusterStatus.DEPROVISIONING, null,
                                                       existing.getCluster().getNumNodes());
     RunRecordDetail meta = RunRecordDetail.builder(existing)
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(TYPE_RUN_RECORD_COMPLETED, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONING, programRunId);
     return meta;
   }
@@ -638,16 +682,13 @@ public class AppMetadataStore {
     }
 
     delete(existing);
-    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, existing.getStartTs());
-
     ProgramRunCluster cluster = new ProgramRunCluster(ProgramRunClusterStatus.DEPROVISIONED, endTs,
                                                       existing.getCluster().getNumNodes());
     RunRecordDetail meta = RunRecordDetail.builder(existing)
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(TYPE_RUN_RECORD_COMPLETED, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONED, programRunId);
     return meta;
   }
@@ -678,16 +719,13 @@ public class AppMetadataStore {
     }
 
     delete(existing);
-    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, existing.getStartTs());
-
     ProgramRunCluster cluster = new ProgramRunCluster(ProgramRunClusterStatus.ORPHANED, endTs,
                                                       existing.getCluster().getNumNodes());
     RunRecordDetail meta = RunRecordDetail.builder(existing)
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(TYPE_RUN_RECORD_COMPLETED, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.ORPHANED, programRunId);
     return meta;
   }
@@ -736,14 +774,28 @@ public class AppMetadataStore {
    * Writes a new {@link RunRecordDetail} and increments the run count of a program.
    */
   private void writeNewRunRecord(RunRecordDetail meta, String typeRunRecordCompleted) throws IOException {
-    List<Field<?>> fields = getProgramRunInvertedTimeKey(typeRunRecordCompleted,
-                                                         meta.getProgramRunId(), meta.getStartTs());
-    writeToStructuredTableWithPrimaryKeys(fields, meta, getRunRecordsTable(),
-                                          StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(typeRunRecordCompleted, meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, meta.getProgramRunId().getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
   }
 
+  /**
+   * Writes the given {@link RunRecordDetail} with the given record type. Completed run records are also added to the
+   * run record time index.
+   */
+  private void writeRunRecord(String recordType, RunRecordDetail meta) throws IOException {
+    List<Field<?>> key = getProgramRunInvertedTimeKey(recordType, meta.getProgramRunId(), meta.getStartTs());
+    String data = binaryRunRecordEncoding ? RunRecordDetailCodec.encode(meta) : GSON.toJson(meta);
+    key.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, data));
+    getRunRecordsTable().upsert(key);
+    if (TYPE_RUN_RECORD_COMPLETED.equals(recordType)) {
+      writeRunRecordTimeIndex(meta);
+    }
+    if (runRecordListener != null) {
+      runRecordListener.accept(meta);
+    }
+  }
+
   /**
    * Logs initialization of program run and persists program status to {@link ProgramRunStatus#STARTING}.
    * @param programRunId run id of the program
@@ -780,15 +832,13 @@ public class AppMetadataStore {
 
     // Delete the old run record
     delete(existing);
-    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId, existing.getStartTs());
     meta = RunRecordDetail.builder(existing)
       .setStatus(ProgramRunStatus.STARTING)
       .setSystemArgs(newSystemArgs)
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(TYPE_RUN_RECORD_ACTIVE, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.STARTING, programRunId);
     return meta;
   }
@@ -826,7 +876,6 @@ public class AppMetadataStore {
 
     // Delete the old run record
     delete(existing);
-    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId, existing.getStartTs());
 
     // The existing record's properties already contains the workflowRunId
     RunRecordDetail meta = RunRecordDetail.builder(existing)
@@ -835,8 +884,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(TYPE_RUN_RECORD_ACTIVE, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.RUNNING, programRunId);
     return meta;
   }
@@ -901,7 +949,6 @@ public class AppMetadataStore {
     }
     // Delete the old run record
     delete(existing);
-    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId, existing.getStartTs());
     RunRecordDetail.Builder builder = RunRecordDetail.builder(existing).setStatus(toStatus).setSourceId(sourceId);
     if (timestamp != -1) {
       if (action.equals("resume")) {
@@ -911,8 +958,7 @@ public class AppMetadataStore {
       }
     }
     RunRecordDetail meta = builder.build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(TYPE_RUN_RECORD_ACTIVE, meta);
     LOG.trace("Recorded {} for program {}", toStatus, programRunId);
     return meta;
   }
@@ -952,14 +998,12 @@ public class AppMetadataStore {
       addWorkflowNodeState(programRunId, systemArgs, runStatus, failureCause, sourceId);
     }
 
-    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, existing.getStartTs());
     RunRecordDetail meta = RunRecordDetail.builder(existing)
       .setStopTime(stopTs)
       .setStatus(runStatus)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(TYPE_RUN_RECORD_COMPLETED, meta);
     LOG.trace("Recorded {} for program {}", runStatus, programRunId);
     return meta;
   }
@@ -1018,11 +1062,27 @@ public class AppMetadataStore {
    * @throws IOException if failed to read run records
    */
   public Map<ProgramRunId, RunRecordDetail> getRuns(Set<ProgramRunId> programRunIds) throws IOException {
+    return getRuns(programRunIds, RunRecordProjection.FULL);
+  }
+
+  /**
+   * Reads run records for the given set of {@link ProgramRunId}, only decoding the parts of the run records
+   * defined by the given {@link RunRecordProjection}.
+   *
+   * @param programRunIds the set of program run ids to read
+   * @param projection the parts of the run records to read
+   * @return a {@link Map} from the program run id to the run record. If there is no run record
+   *         for a given program run id, an entry will be presented with a {@code null} value
+   * @throws IOException if failed to read run records
+   */
+  public Map<ProgramRunId, RunRecordDetail> getRuns(Set<ProgramRunId> programRunIds,
+                                                    RunRecordProjection projection) throws IOException {
     // Query active run record first
-    Map<ProgramRunId, RunRecordDetail> unfinishedRuns = getUnfinishedRuns(programRunIds);
+    Map<ProgramRunId, RunRecordDetail> unfinishedRuns = getUnfinishedRuns(programRunIds, projection);
     // For programs that are not running, fetch completed run
     Map<ProgramRunId, RunRecordDetail> completedRuns = getCompletedRuns(Sets.difference(programRunIds,
-                                                                                        unfinishedRuns.keySet()));
+                                                                                        unfinishedRuns.keySet()),
+                                                                        projection);
     Map<ProgramRunId, RunRecordDetail> result = new LinkedHashMap<>();
     for (ProgramRunId programRunId : programRunIds) {
       result.put(programRunId, unfinishedRuns.getOrDefault(programRunId, completedRuns.get(programRunId)));
@@ -1043,7 +1103,8 @@ public class AppMetadataStore {
     Map<ProgramRunId, RunRecordDetail> result = new HashMap<>();
     for (NamespaceId namespaceId : namespaces) {
       List<Field<?>> prefix = getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, namespaceId);
-      result.putAll(getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, filter));
+      result.putAll(getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, filter,
+                            RunRecordProjection.FULL));
     }
     return result;
   }
@@ -1058,7 +1119,7 @@ public class AppMetadataStore {
     try (CloseableIterator<RunRecordDetail> iterator = queryProgramRuns(
       Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null)),
       key -> !NamespaceId.SYSTEM.getNamespace().equals(key.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD)),
-      null, limit != null ? limit : Integer.MAX_VALUE)) {
+      null, limit != null ? limit : Integer.MAX_VALUE, RunRecordProjection.SUMMARY)) {
       iterator.forEachRemaining(m -> count.getAndIncrement());
     }
     return count.get();
@@ -1101,7 +1162,8 @@ public class AppMetadataStore {
    */
   public Map<ProgramRunId, RunRecordDetail> getActiveRuns(Predicate<RunRecordDetail> filter) throws IOException {
     List<Field<?>> prefix = getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null);
-    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, filter);
+    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, filter,
+                   RunRecordProjection.FULL);
   }
 
   /**
@@ -1113,7 +1175,8 @@ public class AppMetadataStore {
    */
   public Map<ProgramRunId, RunRecordDetail> getActiveRuns(NamespaceId namespaceId) throws IOException {
     List<Field<?>> prefix = getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, namespaceId);
-    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, null);
+    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, null,
+                   RunRecordProjection.FULL);
   }
 
   /**
@@ -1125,7 +1188,8 @@ public class AppMetadataStore {
    */
   public Map<ProgramRunId, RunRecordDetail> getActiveRuns(ApplicationId applicationId) throws IOException {
     List<Field<?>> prefix = getRunRecordApplicationPrefix(TYPE_RUN_RECORD_ACTIVE, applicationId);
-    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, null);
+    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, null,
+                   RunRecordProjection.FULL);
   }
 
   /**
@@ -1137,7 +1201,8 @@ public class AppMetadataStore {
    */
   public Map<ProgramRunId, RunRecordDetail> getActiveRuns(ProgramId programId) throws IOException {
     List<Field<?>> prefix = getRunRecordProgramPrefix(TYPE_RUN_RECORD_ACTIVE, programId);
-    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, null);
+    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, null,
+                   RunRecordProjection.FULL);
   }
 
   /**
@@ -1150,6 +1215,21 @@ public class AppMetadataStore {
    * @throws IOException if failed to fetch the run records.
    */
   public Map<ProgramId, Collection<RunRecordDetail>> getActiveRuns(Collection<ProgramId> ids) throws IOException {
+    return getActiveRuns(ids, RunRecordProjection.FULL);
+  }
+
+  /**
+   * Get active runs for the given programs, only decoding the parts of the run records defined by the given
+   * {@link RunRecordProjection}. Active runs means program run with status STARTING, PENDING, RUNNING or SUSPENDED.
+   *
+   * @param ids set of program ids to fetch for active run records
+   * @param projection the parts of the run records to read
+   * @return a map from {@link ProgramId} to a {@link Collection} of {@link RunRecordDetail}. It is guaranteed to have
+   *         an entry for each of the given program id.
+   * @throws IOException if failed to fetch the run records.
+   */
+  public Map<ProgramId, Collection<RunRecordDetail>> getActiveRuns(Collection<ProgramId> ids,
+                                                                   RunRecordProjection projection) throws IOException {
     Collection<Range> ranges = new ArrayList<>();
     Map<ProgramId, Collection<RunRecordDetail>> result = new LinkedHashMap<>();
 
@@ -1161,7 +1241,7 @@ public class AppMetadataStore {
     try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().multiScan(ranges, Integer.MAX_VALUE)) {
       while (iterator.hasNext()) {
         StructuredRow row = iterator.next();
-        RunRecordDetail meta = deserializeRunRecordMeta(row);
+        RunRecordDetail meta = deserializeRunRecordMeta(row, projection);
         result.get(meta.getProgramRunId().getParent()).add(meta);
       }
     }
@@ -1185,22 +1265,48 @@ public class AppMetadataStore {
                                                     long startTime, long endTime, int limit,
                                                     @Nullable Predicate<RunRecordDetail> filter)
     throws IOException {
+    return getRuns(programId, status, startTime, endTime, limit, filter, RunRecordProjection.FULL);
+  }
+
+  /**
+   * Get runs for an optional {@link ProgramId} that fits the given set of criteria, only decoding the parts of the
+   * run records defined by the given {@link RunRecordProjection}.
+   * If the program id is not provided, it fetches all runs that matches with the criteria.
+   *
+   * @param programId an optional program id to match
+   * @param status to filter by
+   * @param startTime the run has to be started on or after this time
+   * @param endTime the run has to be started before this time
+   * @param limit of number of records to return
+   * @param filter of RunRecordDetail to post filter by. It is applied to the projected run records
+   * @param projection the parts of the run records to read
+   * @return map of run id to run record meta
+   */
+  public Map<ProgramRunId, RunRecordDetail> getRuns(@Nullable ProgramId programId, ProgramRunStatus status,
+                                                    long startTime, long endTime, int limit,
+                                                    @Nullable Predicate<RunRecordDetail> filter,
+                                                    RunRecordProjection projection)
+    throws IOException {
     switch (status) {
       case ALL:
         Map<ProgramRunId, RunRecordDetail> runRecords = getProgramRuns(programId, status, startTime, endTime,
-                                                                       limit, filter, TYPE_RUN_RECORD_ACTIVE);
+                                                                       limit, filter, TYPE_RUN_RECORD_ACTIVE,
+                                                                       projection);
         if (runRecords.size() < limit) {
           runRecords.putAll(getProgramRuns(programId, status, startTime, endTime,
-                                           limit - runRecords.size(), filter, TYPE_RUN_RECORD_COMPLETED));
+                                           limit - runRecords.size(), filter, TYPE_RUN_RECORD_COMPLETED,
+                                           projection));
         }
         return runRecords;
       case PENDING:
       case STARTING:
       case RUNNING:
       case SUSPENDED:
-        return getProgramRuns(programId, status, startTime, endTime, limit, filter, TYPE_RUN_RECORD_ACTIVE);
+        return getProgramRuns(programId, status, startTime, endTime, limit, filter, TYPE_RUN_RECORD_ACTIVE,
+                              projection);
       default:
-        return getProgramRuns(programId, status, startTime, endTime, limit, filter, TYPE_RUN_RECORD_COMPLETED);
+        return getProgramRuns(programId, status, startTime, endTime, limit, filter, TYPE_RUN_RECORD_COMPLETED,
+                              projection);
     }
   }
 
@@ -1241,13 +1347,14 @@ public class AppMetadataStore {
   @Nullable
   public RunRecordDetail getRun(ProgramRunId programRun) throws IOException {
     // Query active run record first
-    RunRecordDetail running = getUnfinishedRuns(Collections.singleton(programRun)).get(programRun);
+    RunRecordDetail running = getUnfinishedRuns(Collections.singleton(programRun), RunRecordProjection.FULL)
+      .get(programRun);
     // If program is running, this will be non-null
     if (running != null) {
       return running;
     }
     // If program is not running, query completed run records
-    return getCompletedRuns(Collections.singleton(programRun)).get(programRun);
+    return getCompletedRuns(Collections.singleton(programRun), RunRecordProjection.FULL).get(programRun);
   }
 
   /**
@@ -1277,28 +1384,46 @@ public class AppMetadataStore {
 
   private void delete(RunRecordDetail record) throws IOException {
     ProgramRunId programRunId = record.getProgramRunId();
-    List<Field<?>> key = getProgramRunInvertedTimeKey(STATUS_TYPE_MAP.get(record.getStatus()), programRunId,
-                                                      record.getStartTs());
+    String recordType = STATUS_TYPE_MAP.get(record.getStatus());
+    List<Field<?>> key = getProgramRunInvertedTimeKey(recordType, programRunId, record.getStartTs());
     getRunRecordsTable().delete(key);
+    if (TYPE_RUN_RECORD_COMPLETED.equals(recordType)) {
+      deleteRunRecordTimeIndex(record);
+    }
+  }
+
+  /**
+   * Deletes all completed run records in the given range, together with their run record time index entries.
+   */
+  private void deleteCompletedRunRecords(Range range) throws IOException {
+    try (CloseableIterator<RunRecordDetail> iterator = queryProgramRuns(range, null, null, Integer.MAX_VALUE,
+                                                                        RunRecordProjection.SUMMARY)) {
+      while (iterator.hasNext()) {
+        deleteRunRecordTimeIndex(iterator.next());
+      }
+    }
+    getRunRecordsTable().deleteAll(range);
   }
 
   /**
    * @return run records for unfinished run
    */
-  private Map<ProgramRunId, RunRecordDetail> getUnfinishedRuns(Set<ProgramRunId> programRunIds) throws IOException {
+  private Map<ProgramRunId, RunRecordDetail> getUnfinishedRuns(Set<ProgramRunId> programRunIds,
+                                                               RunRecordProjection projection) throws IOException {
     List<List<Field<?>>> allKeys = new ArrayList<>();
     for (ProgramRunId programRunId : programRunIds) {
       allKeys.add(getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId,
                                                RunIds.getTime(programRunId.getRun(), TimeUnit.SECONDS)));
     }
     return getRunRecordsTable().multiRead(allKeys).stream()
-      .map(AppMetadataStore::deserializeRunRecordMeta)
+      .map(row -> deserializeRunRecordMeta(row, projection))
       .collect(Collectors.toMap(RunRecordDetail::getProgramRunId, r -> r, (r1, r2) -> {
         throw new IllegalStateException("Duplicate run record for " + r1.getProgramRunId());
       }, LinkedHashMap::new));
   }
 
-  private Map<ProgramRunId, RunRecordDetail> getCompletedRuns(Set<ProgramRunId> programRunIds) throws IOException {
+  private Map<ProgramRunId, RunRecordDetail> getCompletedRuns(Set<ProgramRunId> programRunIds,
+                                                              RunRecordProjection projection) throws IOException {
     List<List<Field<?>>> allKeys = new ArrayList<>();
     for (ProgramRunId programRunId : programRunIds) {
       List<Field<?>> keys = getRunRecordProgramPrefix(TYPE_RUN_RECORD_COMPLETED, programRunId.getParent());
@@ -1310,7 +1435,7 @@ public class AppMetadataStore {
       allKeys.add(keys);
     }
     return getRunRecordsTable().multiRead(allKeys).stream()
-      .map(AppMetadataStore::deserializeRunRecordMeta)
+      .map(row -> deserializeRunRecordMeta(row, projection))
       .collect(Collectors.toMap(RunRecordDetail::getProgramRunId, r -> r, (r1, r2) -> {
         throw new IllegalStateException("Duplicate run record for " + r1.getProgramRunId());
       }, LinkedHashMap::new));
@@ -1358,11 +1483,13 @@ public class AppMetadataStore {
    * @param keyPredicate to filter the row keys by. If null, then does not filter.
    * @param predicate to filter the runRecordMetas by. If null, then does not filter.
    * @param limit the maximum number of entries to return
+   * @param projection the parts of the run records to read
    */
   private CloseableIterator<RunRecordDetail> queryProgramRuns(Range range,
                                                               @Nullable Predicate<StructuredRow> keyPredicate,
                                                               @Nullable Predicate<RunRecordDetail> predicate,
-                                                              int limit) throws IOException {
+                                                              int limit,
+                                                              RunRecordProjection projection) throws IOException {
     CloseableIterator<StructuredRow> iterator = getRunRecordsTable()
       .scan(range, predicate == null && keyPredicate == null ? limit : Integer.MAX_VALUE);
 
@@ -1381,7 +1508,7 @@ public class AppMetadataStore {
           if (keyPredicate != null && !keyPredicate.test(row)) {
             continue;
           }
-          RunRecordDetail recordMeta = deserializeRunRecordMeta(row);
+          RunRecordDetail recordMeta = deserializeRunRecordMeta(row, projection);
           if (predicate == null || predicate.test(recordMeta)) {
             currentLimit--;
             return recordMeta;
@@ -1401,14 +1528,15 @@ public class AppMetadataStore {
                                                                 int limit, @Nullable Predicate<RunRecordDetail> filter,
                                                                 String recordType) throws IOException {
     List<Field<?>> prefix = getRunRecordApplicationPrefix(recordType, applicationId);
-    return getRuns(Range.singleton(prefix), status, limit, null, filter);
+    return getRuns(Range.singleton(prefix), status, limit, null, filter, RunRecordProjection.FULL);
   }
 
 
   private Map<ProgramRunId, RunRecordDetail> getProgramRuns(@Nullable ProgramId programId, ProgramRunStatus status,
                                                             long startTime, long endTime, int limit,
                                                             @Nullable Predicate<RunRecordDetail> filter,
-                                                            String recordType) throws IOException {
+                                                            String recordType,
+                                                            RunRecordProjection projection) throws IOException {
     List<Field<?>> prefix = getRunRecordProgramPrefix(recordType, programId);
     Range scanRange;
     Predicate<StructuredRow> keyFilter = null;
@@ -1421,17 +1549,19 @@ public class AppMetadataStore {
       scanRange = createRunRecordScanRange(prefix, startTime, endTime);
     }
 
-    return getRuns(scanRange, status, limit, keyFilter, filter);
+    return getRuns(scanRange, status, limit, keyFilter, filter, projection);
   }
 
   private Map<ProgramRunId, RunRecordDetail> getRuns(Range range, ProgramRunStatus status, int limit,
                                                      @Nullable Predicate<StructuredRow> keyFilter,
-                                                     @Nullable Predicate<RunRecordDetail> valueFilter)
+                                                     @Nullable Predicate<RunRecordDetail> valueFilter,
+                                                     RunRecordProjection projection)
     throws IOException {
 
     Map<ProgramRunId, RunRecordDetail> map = new LinkedHashMap<>();
     try (CloseableIterator<RunRecordDetail> iterator = queryProgramRuns(range, keyFilter, valueFilter,
-                                                                        getLimitByStatus(limit, status))) {
+                                                                        getLimitByStatus(limit, status),
+                                                                        projection)) {
       while (iterator.hasNext() && map.size() < limit) {
         RunRecordDetail meta = iterator.next();
         if (status == ProgramRunStatus.ALL || status == meta.getStatus()) {
@@ -1462,8 +1592,7 @@ public class AppMetadataStore {
     ApplicationId applicationId = new ApplicationId(namespaceId, appId, versionId);
     getRunRecordsTable()
       .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_ACTIVE, applicationId)));
-    getRunRecordsTable()
-      .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_COMPLETED, applicationId)));
+    deleteCompletedRunRecords(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_COMPLETED, applicationId)));
     getProgramCountsTable().deleteAll(Range.singleton(getCountApplicationPrefix(TYPE_COUNT, applicationId)));
     getProgramCountsTable().deleteAll(
       Range.singleton(getCountApplicationPrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, applicationId)));
@@ -1472,8 +1601,7 @@ public class AppMetadataStore {
   public void deleteProgramHistory(NamespaceId namespaceId) throws IOException {
     getRunRecordsTable().deleteAll(
       Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, namespaceId)));
-    getRunRecordsTable().deleteAll(Range.singleton(
-      getRunRecordNamespacePrefix(TYPE_RUN_RECORD_COMPLETED, namespaceId)));
+    deleteCompletedRunRecords(Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_COMPLETED, namespaceId)));
     getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(TYPE_COUNT, namespaceId)));
     getProgramCountsTable().deleteAll(Range.singleton(
       getCountNamespacePrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, namespaceId)));
@@ -1516,6 +1644,10 @@ public class AppMetadataStore {
    */
   public Set<RunId> getRunningInRangeCompleted(long startTimeInSecs, long endTimeInSecs)
     throws IOException {
+    if (isRunRecordTimeIndexReady()) {
+      return getRunningInRangeFromTimeIndex(startTimeInSecs, endTimeInSecs);
+    }
+    // The time index is still being back-filled. Fall back to scanning all completed run records.
     // This method scans a large amount of data and may timeout. However, the previous implementation would
     // simply return incomplete data. We have doubled the amount of time each transaction can take by using two
     // transactions - and can further get all namespaces from the smaller app spec table and do one transaction per
@@ -1535,6 +1667,58 @@ public class AppMetadataStore {
     return getRunningInRangeForStatus(TYPE_RUN_RECORD_ACTIVE, startTimeInSecs, endTimeInSecs);
   }
 
+  /**
+   * Adds run record time index entries for the completed run records, starting from the given cursor.
+   * Once all completed run records are indexed, the time index is marked as ready and will be used by
+   * {@link #getRunningInRangeCompleted(long, long)}. Run records written by state transitions are always indexed,
+   * hence this only needs to be done once for run records written before the index existed.
+   *
+   * @param cursor the cursor to start the scan. Use {@link Cursor#EMPTY} to start from the beginning
+   * @param limit maximum number of run records to index
+   * @return a {@link Cursor} to continue the back-fill from, or {@code null} if all run records are indexed
+   * @throws IOException if failed to read or write the storage
+   */
+  @Nullable
+  public Cursor backfillRunRecordTimeIndex(Cursor cursor, int limit) throws IOException {
+    Collection<Field<?>> begin = cursor.fields;
+    if (begin.isEmpty()) {
+      begin = getRunRecordStatusPrefix(TYPE_RUN_RECORD_COMPLETED);
+    }
+    Range range = Range.create(begin, cursor.bound,
+                               getRunRecordStatusPrefix(TYPE_RUN_RECORD_COMPLETED), Range.Bound.INCLUSIVE);
+
+    List<StructuredRow> rows = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().scan(range, limit)) {
+      iterator.forEachRemaining(rows::add);
+    }
+    for (StructuredRow row : rows) {
+      writeRunRecordTimeIndex(deserializeRunRecordMeta(row, RunRecordProjection.SUMMARY));
+      // Write the run record back unchanged, so that a concurrent deletion of the run record conflicts with this
+      // transaction. Otherwise a run record deleted after it was read here would leave orphan index entries.
+      List<Field<?>> fields = new ArrayList<>(row.getPrimaryKeys());
+      fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA,
+                                    row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA)));
+      getRunRecordsTable().upsert(fields);
+    }
+    if (rows.size() < limit) {
+      List<Field<?>> markerKey = getRunRecordTimeIndexMarkerKey();
+      markerKey.add(Fields.longField(StoreDefinition.AppMetadataStore.COUNTS, 1L));
+      getProgramCountsTable().upsert(markerKey);
+      return null;
+    }
+    return new Cursor(rows.get(rows.size() - 1).getPrimaryKeys(), Range.Bound.EXCLUSIVE);
+  }
+
+  /**
+   * Returns whether the run record time index contains all completed run records.
+   */
+  public boolean isRunRecordTimeIndexReady() throws IOException {
+    return getProgramCountsTable().read(getRunRecordTimeIndexMarkerKey())
+      .map(r -> r.getLong(StoreDefinition.AppMetadataStore.COUNTS))
+      .filter(count -> count > 0L)
+      .isPresent();
+  }
+
   /**
    * Get the run count of the given program.
    *
@@ -1614,18 +1798,112 @@ public class AppMetadataStore {
         (runRecordMeta.getStopTs() == null || runRecordMeta.getStopTs() >= startTimeInSecs);
 
     List<Field<?>> prefix = getRunRecordStatusPrefix(statusKey);
-    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, timeFilter).values().stream()
+    return getRuns(Range.singleton(prefix), ProgramRunStatus.ALL, Integer.MAX_VALUE, null, timeFilter,
+                   RunRecordProjection.SUMMARY).values().stream()
       .map(RunRecordDetail::getPid)
       .map(RunIds::fromString)
       .collect(Collectors.toSet());
   }
 
+  /**
+   * Returns the run ids of completed runs that were running between given start and end time by reading
+   * the time buckets of the run record time index that overlap with the given time range.
+   */
+  private Set<RunId> getRunningInRangeFromTimeIndex(long startTimeInSecs, long endTimeInSecs) throws IOException {
+    long startBucket = getRunTimeIndexBucket(startTimeInSecs);
+    long endBucket = getRunTimeIndexBucket(endTimeInSecs == Long.MIN_VALUE ? endTimeInSecs : endTimeInSecs - 1);
+
+    long firstBucket = Math.min(startBucket, endBucket);
+    long lastBucket = Math.max(startBucket, endBucket);
+
+    Set<RunId> result = new HashSet<>();
+    for (Range range : Arrays.asList(getRunRecordTimeIndexRange(TYPE_RUN_RECORD_COMPLETED, firstBucket, lastBucket),
+                                     getRunRecordTimeIndexRange(TYPE_RUN_RECORD_COMPLETED_COARSE,
+                                                                getRunTimeIndexCoarseBucket(firstBucket),
+                                                                getRunTimeIndexCoarseBucket(lastBucket)),
+                                     Range.singleton(getRunRecordTimeIndexBucketPrefix(TYPE_RUN_RECORD_COMPLETED,
+                                                                                      RUN_TIME_INDEX_OPEN_BUCKET)))) {
+      try (CloseableIterator<StructuredRow> iterator = getRunRecordsTimeIndexTable().scan(range, Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          Long startTs = row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME);
+          Long stopTs = row.getLong(StoreDefinition.AppMetadataStore.RUN_STOP_TIME);
+          if (startTs != null && startTs < endTimeInSecs && (stopTs == null || stopTs >= startTimeInSecs)) {
+            result.add(RunIds.fromString(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD)));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private Range getRunRecordTimeIndexRange(String type, long firstBucket, long lastBucket) {
+    return Range.create(getRunRecordTimeIndexBucketPrefix(type, firstBucket), Range.Bound.INCLUSIVE,
+                        getRunRecordTimeIndexBucketPrefix(type, lastBucket), Range.Bound.INCLUSIVE);
+  }
+
+  private void writeRunRecordTimeIndex(RunRecordDetail meta) throws IOException {
+    for (List<Field<?>> prefix : getRunTimeIndexBucketPrefixes(meta)) {
+      List<Field<?>> fields = getRunRecordTimeIndexKey(prefix, meta.getProgramRunId());
+      fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, meta.getStartTs()));
+      fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_STOP_TIME, meta.getStopTs()));
+      getRunRecordsTimeIndexTable().upsert(fields);
+    }
+  }
+
+  private void deleteRunRecordTimeIndex(RunRecordDetail meta) throws IOException {
+    for (List<Field<?>> prefix : getRunTimeIndexBucketPrefixes(meta)) {
+      getRunRecordsTimeIndexTable().delete(getRunRecordTimeIndexKey(prefix, meta.getProgramRunId()));
+    }
+  }
+
+  /**
+   * Returns the key prefixes of the time index buckets that the given run spans. A run that spans more than
+   * {@link #RUN_TIME_INDEX_MAX_BUCKETS} is kept in the coarse buckets it spans, and a run without stop time, or that
+   * spans more than {@link #RUN_TIME_INDEX_MAX_COARSE_BUCKETS}, is only kept in the open bucket. This bounds the
+   * number of index rows written for long running programs, and keeps the open bucket, which is read by every
+   * query, limited to run records with a missing or bogus time.
+   */
+  private List<List<Field<?>>> getRunTimeIndexBucketPrefixes(RunRecordDetail meta) {
+    Long stopTs = meta.getStopTs();
+    if (stopTs == null) {
+      return Collections.singletonList(getRunRecordTimeIndexBucketPrefix(TYPE_RUN_RECORD_COMPLETED,
+                                                                         RUN_TIME_INDEX_OPEN_BUCKET));
+    }
+    long startBucket = getRunTimeIndexBucket(meta.getStartTs());
+    long stopBucket = Math.max(startBucket, getRunTimeIndexBucket(stopTs));
+    String type = TYPE_RUN_RECORD_COMPLETED;
+    if (stopBucket - startBucket >= RUN_TIME_INDEX_MAX_BUCKETS) {
+      startBucket = getRunTimeIndexCoarseBucket(startBucket);
+      stopBucket = getRunTimeIndexCoarseBucket(stopBucket);
+      type = TYPE_RUN_RECORD_COMPLETED_COARSE;
+      if (stopBucket - startBucket >= RUN_TIME_INDEX_MAX_COARSE_BUCKETS) {
+        return Collections.singletonList(getRunRecordTimeIndexBucketPrefix(TYPE_RUN_RECORD_COMPLETED,
+                                                                           RUN_TIME_INDEX_OPEN_BUCKET));
+      }
+    }
+    List<List<Field<?>>> prefixes = new ArrayList<>();
+    for (long bucket = startBucket; bucket <= stopBucket; bucket++) {
+      prefixes.add(getRunRecordTimeIndexBucketPrefix(type, bucket));
+    }
+    return prefixes;
+  }
+
+  private long getRunTimeIndexBucket(long timeInSecs) {
+    return Math.floorDiv(timeInSecs, RUN_TIME_INDEX_BUCKET_SECONDS);
+  }
+
+  private long getRunTimeIndexCoarseBucket(long bucket) {
+    return Math.floorDiv(bucket, RUN_TIME_INDEX_MAX_BUCKETS);
+  }
+
   @VisibleForTesting
   // USE ONLY IN TESTS: WILL DELETE ALL METADATA STORE INFO
   public void deleteAllAppMetadataTables() throws IOException {
     deleteTable(getApplicationSpecificationTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getWorkflowNodeStateTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_STATUS);
+    deleteTable(getRunRecordsTimeIndexTable(), StoreDefinition.AppMetadataStore.RUN_STATUS);
     deleteTable(getWorkflowsTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getProgramCountsTable(), StoreDefinition.AppMetadataStore.COUNT_TYPE);
     deleteTable(getSubscriberStateTable(), StoreDefinition.AppMetadataStore.SUBSCRIBER_TOPIC);
@@ -1668,6 +1946,18 @@ public class AppMetadataStore {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD, serialized));
     getApplicationSpecificationTable().upsert(fields);
+    invalidateAppMeta(new NamespaceId(namespaceId).app(appId, versionId));
+  }
+
+  private List<ApplicationMeta> scanApplications(Range range) throws IOException {
+    List<ApplicationMeta> result = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = getApplicationSpecificationTable().scan(range,
+                                                                                           Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        result.add(decodeApplicationMeta(iterator.next()));
+      }
+    }
+    return result;
   }
 
   private List<Field<?>> getCountTypePrefix(String countType) {
@@ -1747,12 +2037,13 @@ public class AppMetadataStore {
   }
 
   private static RunRecordDetail deserializeRunRecordMeta(StructuredRow row) {
-    RunRecordDetail existing =
-      GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA), RunRecordDetail.class);
-    return RunRecordDetail.builder(existing)
-      .setProgramRunId(
-        getProgramIdFromRunRecordsPrimaryKeys(new ArrayList<>(row.getPrimaryKeys())).run(existing.getPid()))
-      .build();
+    return deserializeRunRecordMeta(row, RunRecordProjection.FULL);
+  }
+
+  private static RunRecordDetail deserializeRunRecordMeta(StructuredRow row, RunRecordProjection projection) {
+    return RunRecordDetailCodec.decode(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA),
+                                       getProgramIdFromRunRecordsPrimaryKeys(new ArrayList<>(row.getPrimaryKeys())),
+                                       projection);
   }
 
   private static ProgramId getProgramIdFromRunRecordsPrimaryKeys(List<Field<?>> primaryKeys) {
@@ -1796,6 +2087,30 @@ public class AppMetadataStore {
     return fields;
   }
 
+  private List<Field<?>> getRunRecordTimeIndexBucketPrefix(String type, long bucket) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS, type));
+    fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKET, bucket));
+    return fields;
+  }
+
+  private List<Field<?>> getRunRecordTimeIndexKey(List<Field<?>> bucketPrefix, ProgramRunId runId) {
+    List<Field<?>> fields = new ArrayList<>(bucketPrefix);
+    addProgramPrimaryKeys(runId.getParent(), fields);
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_FIELD, runId.getRun()));
+    return fields;
+  }
+
+  private List<Field<?>> getRunRecordTimeIndexMarkerKey() {
+    List<Field<?>> fields = getCountTypePrefix(TYPE_RUN_RECORD_TIME_INDEX);
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.VERSION_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD, SMALLEST_POSSIBLE_STRING));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, SMALLEST_POSSIBLE_STRING));
+    return fields;
+  }
+
   private List<Field<?>> getProgramCountPrimaryKeys(String type, ProgramId programId) {
     List<Field<?>> fields = new ArrayList<>();
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.COUNT_TYPE, type));
@@ -1815,6 +2130,34 @@ public class AppMetadataStore {
     };
   }
 
+  private ApplicationMeta decodeApplicationMeta(StructuredRow row) {
+    return decodeApplicationMeta(getApplicationIdFromRow(row), row);
+  }
+
+  private ApplicationMeta decodeApplicationMeta(ApplicationId appId, StructuredRow row) {
+    return decodeApplicationMeta(appId, row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD));
+  }
+
+  /**
+   * Decodes the given serialized {@link ApplicationMeta}, through the {@link ApplicationMetaCache} if there is one.
+   */
+  @Nullable
+  private ApplicationMeta decodeApplicationMeta(ApplicationId appId, @Nullable String serialized) {
+    if (serialized == null) {
+      return null;
+    }
+    if (appMetaCache == null) {
+      return GSON.fromJson(serialized, ApplicationMeta.class);
+    }
+    return appMetaCache.get(appId, serialized, json -> GSON.fromJson(json, ApplicationMeta.class));
+  }
+
+  private void invalidateAppMeta(ApplicationId appId) {
+    if (appMetaCache != null) {
+      appMetaCache.invalidate(appId);
+    }
+  }
+
   private static ApplicationId getApplicationIdFromRow(StructuredRow row) {
     return new NamespaceId(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD))
       .app(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD),
@@ -1837,7 +2180,7 @@ public class AppMetadataStore {
     }
   }
 
-  private static final class AppScanEntry implements Map.Entry<ApplicationId, ApplicationMeta> {
+  private final class AppScanEntry implements Map.Entry<ApplicationId, ApplicationMeta> {
 
     private final ApplicationId appId;
     private final String rawAppMeta;
@@ -1860,7 +2203,7 @@ public class AppMetadataStore {
       if (meta != null) {
         return meta;
       }
-      appMeta = meta = GSON.fromJson(rawAppMeta, ApplicationMeta.class);
+      appMeta = meta = decodeApplicationMeta(appId, rawAppMeta);
       return meta;
     }
 
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.api.app.ApplicationSpecification;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.internal.app.DefaultApplicationSpecification;
+import io.cdap.cdap.internal.schedule.ScheduleCreationSpec;
+import io.cdap.cdap.internal.schedule.constraint.Constraint;
+import io.cdap.cdap.proto.id.ApplicationId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A size bounded cache of deserialized {@link ApplicationMeta}, shared by the {@link AppMetadataStore} instances
+ * created with it. Each entry keeps the serialized form it was decoded from, and is only used when it is the same
+ * as the one currently stored. This makes the cache always consistent with the storage, even if the application is
+ * modified by another process or in a transaction that is later rolled back. Entries are also invalidated when
+ * the application is modified through the {@link AppMetadataStore} to free up memory early.
+ *
+ * The same {@link ApplicationMeta} instance is returned to all callers, hence the cached instances are made
+ * immutable before they are cached.
+ */
+@Singleton
+public final class ApplicationMetaCache {
+
+  // Maximum total number of characters of the serialized application metadata being cached
+  private static final long DEFAULT_MAX_WEIGHT = 16 * 1024 * 1024;
+
+  private final Cache<ApplicationId, CacheEntry> cache;
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
+  @Nullable
+  private final MetricsContext metricsContext;
+
+  @Inject
+  ApplicationMetaCache(MetricsCollectionService metricsCollectionService) {
+    this(DEFAULT_MAX_WEIGHT, metricsCollectionService.getContext(Collections.emptyMap()));
+  }
+
+  @VisibleForTesting
+  ApplicationMetaCache(long maxWeight, @Nullable MetricsContext metricsContext) {
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxWeight)
+      .<ApplicationId, CacheEntry>weigher((key, value) -> value.serialized.length())
+      .build();
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+    this.metricsContext = metricsContext;
+  }
+
+  /**
+   * Returns the {@link ApplicationMeta} for the given serialized form, decoding it only if the cached entry for the
+   * application was not decoded from the same serialized form.
+   *
+   * @param appId the application id
+   * @param serialized the application metadata as stored
+   * @param decoder function to decode the serialized form on cache miss
+   * @return the decoded {@link ApplicationMeta}, which must not be modified
+   */
+  ApplicationMeta get(ApplicationId appId, String serialized, Function<String, ApplicationMeta> decoder) {
+    CacheEntry entry = cache.getIfPresent(appId);
+    if (entry != null && entry.serialized.equals(serialized)) {
+      hitCount.increment();
+      emitMetric(Constants.Metrics.AppMetadataStore.APP_META_CACHE_HIT);
+      return entry.meta;
+    }
+
+    missCount.increment();
+    emitMetric(Constants.Metrics.AppMetadataStore.APP_META_CACHE_MISS);
+    ApplicationMeta meta = decoder.apply(serialized);
+    if (meta != null) {
+      meta = toImmutable(meta);
+      cache.put(appId, new CacheEntry(serialized, meta));
+    }
+    return meta;
+  }
+
+  /**
+   * Invalidates the cache entry for the given application.
+   */
+  void invalidate(ApplicationId appId) {
+    cache.invalidate(appId);
+  }
+
+  /**
+   * Invalidates the cache entries for all applications in the given namespace.
+   */
+  void invalidateNamespace(String namespace) {
+    cache.asMap().keySet().removeIf(appId -> appId.getNamespace().equals(namespace));
+  }
+
+  /**
+   * Returns the number of lookups that were served from the cache.
+   */
+  long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Returns the number of lookups that required decoding.
+   */
+  long getMissCount() {
+    return missCount.sum();
+  }
+
+  private void emitMetric(String name) {
+    if (metricsContext != null) {
+      metricsContext.increment(name, 1L);
+    }
+  }
+
+  /**
+   * Returns an {@link ApplicationMeta} that cannot be modified by the callers sharing it. The decoded
+   * {@link DefaultApplicationSpecification} and the program specifications in it only have immutable collections,
+   * except for the properties and constraints of the schedules, which are copied into immutable ones.
+   */
+  private static ApplicationMeta toImmutable(ApplicationMeta meta) {
+    ApplicationSpecification spec = meta.getSpec();
+    if (spec == null) {
+      return meta;
+    }
+    Map<String, ScheduleCreationSpec> schedules = new LinkedHashMap<>();
+    for (Map.Entry<String, ScheduleCreationSpec> entry : spec.getProgramSchedules().entrySet()) {
+      ScheduleCreationSpec schedule = entry.getValue();
+      Map<String, String> properties = schedule.getProperties() == null
+        ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(schedule.getProperties()));
+      List<Constraint> constraints = schedule.getConstraints() == null
+        ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(schedule.getConstraints()));
+      schedules.put(entry.getKey(), new ScheduleCreationSpec(schedule.getName(), schedule.getDescription(),
+                                                             schedule.getProgramName(), properties,
+                                                             schedule.getTrigger(), constraints,
+                                                             schedule.getTimeoutMillis()));
+    }
+    return new ApplicationMeta(meta.getId(), new DefaultApplicationSpecification(
+      spec.getName(), spec.getAppVersion(), spec.getAppCDAPVersion(), spec.getDescription(), spec.getConfiguration(),
+      spec.getArtifactId(), spec.getDatasetModules(), spec.getDatasets(), spec.getMapReduce(), spec.getSpark(),
+      spec.getWorkflows(), spec.getServices(), schedules, spec.getWorkers(), spec.getPlugins()));
+  }
+
+  /**
+   * An entry in the cache, which holds the decoded {@link ApplicationMeta} and the serialized form it was
+   * decoded from.
+   */
+  private static final class CacheEntry {
+    private final String serialized;
+    private final ApplicationMeta meta;
+
+    CacheEntry(String serialized, ApplicationMeta meta) {
+      this.serialized = serialized;
+      this.meta = meta;
+    }
+  }
+}
@@ -40,6 +40,8 @@ import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.ApplicationNotFoundException;
 import io.cdap.cdap.common.NotFoundException;
 import io.cdap.cdap.common.ProgramNotFoundException;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.dataset2.DatasetFramework;
 import io.cdap.cdap.internal.app.ForwardingApplicationSpecification;
 import io.cdap.cdap.proto.BasicThrowable;
@@ -61,6 +63,7 @@ import io.cdap.cdap.spi.data.StructuredTableContext;
 import io.cdap.cdap.spi.data.TableNotFoundException;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.spi.data.transaction.TxRunnable;
 import io.cdap.cdap.store.StoreDefinition;
 import org.apache.twill.api.RunId;
 import org.slf4j.Logger;
@@ -71,6 +74,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -78,6 +83,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -94,12 +100,75 @@ public class DefaultStore implements Store {
   private static final Map<String, String> EMPTY_STRING_MAP = Collections.emptyMap();
 
   private TransactionRunner transactionRunner;
+  private ActiveRunsView activeRunsView;
+  private ApplicationMetaCache appMetaCache;
+  private boolean binaryRunRecordEncoding;
 
   @Inject
   public DefaultStore(TransactionRunner transactionRunner) {
     this.transactionRunner = transactionRunner;
   }
 
+  /**
+   * Sets the {@link ActiveRunsView} for serving active run lookups from memory. Run records written or deleted through
+   * this store are applied to the view once the transaction is committed.
+   */
+  @Inject(optional = true)
+  void setActiveRunsView(ActiveRunsView activeRunsView) {
+    this.activeRunsView = activeRunsView;
+  }
+
+  /**
+   * Sets the {@link ApplicationMetaCache} for decoding application metadata read through this store.
+   */
+  @Inject(optional = true)
+  void setApplicationMetaCache(ApplicationMetaCache appMetaCache) {
+    this.appMetaCache = appMetaCache;
+  }
+
+  /**
+   * Sets the {@link CConfiguration}, which decides whether run records are written in the binary encoding. Without
+   * it, run records are written as JSON.
+   */
+  @Inject(optional = true)
+  void setConfiguration(CConfiguration cConf) {
+    this.binaryRunRecordEncoding = cConf.getBoolean(Constants.AppFabric.RUN_RECORD_BINARY_ENCODING_ENABLED);
+  }
+
+  /**
+   * Runs a transaction that writes run records, and applies the written run records to the {@link ActiveRunsView}
+   * once the transaction is committed.
+   */
+  private void writeRunRecords(RunRecordWriter writer) {
+    List<RunRecordDetail> written = new ArrayList<>();
+    updateActiveRuns(context -> {
+      // Drop the records of a previous attempt of the same transaction, which was rolled back
+      written.clear();
+      AppMetadataStore metaStore = getAppMetadataStore(context);
+      metaStore.setRunRecordListener(written::add);
+      writer.write(metaStore, context);
+    }, view -> view.update(written));
+  }
+
+  /**
+   * Runs a transaction that changes run records, and calls the given update of the {@link ActiveRunsView} once the
+   * transaction is committed. The write lock of the view is held in between, so that changes are applied to the view
+   * in the order they were committed.
+   */
+  private void updateActiveRuns(TxRunnable runnable, Consumer<ActiveRunsView> update) {
+    if (activeRunsView == null) {
+      TransactionRunners.run(transactionRunner, runnable);
+      return;
+    }
+    activeRunsView.lockWrites();
+    try {
+      TransactionRunners.run(transactionRunner, runnable);
+      update.accept(activeRunsView);
+    } finally {
+      activeRunsView.unlockWrites();
+    }
+  }
+
   /**
    * Adds datasets and types to the given {@link DatasetFramework} used by app mds.
    *
@@ -112,7 +181,9 @@ public class DefaultStore implements Store {
   }
 
   private AppMetadataStore getAppMetadataStore(StructuredTableContext context) {
-    return AppMetadataStore.create(context);
+    AppMetadataStore store = AppMetadataStore.create(context, appMetaCache);
+    store.setBinaryRunRecordEncoding(binaryRunRecordEncoding);
+    return store;
   }
 
   private WorkflowTable getWorkflowTable(StructuredTableContext context) throws TableNotFoundException {
@@ -136,30 +207,23 @@ public class DefaultStore implements Store {
   @Override
   public void setProvisioning(ProgramRunId id, Map<String, String> runtimeArgs,
                               Map<String, String> systemArgs, byte[] sourceId, ArtifactId artifactId) {
-    TransactionRunners.run(transactionRunner, context -> {
-      getAppMetadataStore(context).recordProgramProvisioning(id, runtimeArgs, systemArgs, sourceId, artifactId);
-    });
+    writeRunRecords((metaStore, context) -> metaStore.recordProgramProvisioning(id, runtimeArgs, systemArgs,
+                                                                                sourceId, artifactId));
   }
 
   @Override
   public void setProvisioned(ProgramRunId id, int numNodes, byte[] sourceId) {
-    TransactionRunners.run(transactionRunner, context -> {
-      getAppMetadataStore(context).recordProgramProvisioned(id, numNodes, sourceId);
-    });
+    writeRunRecords((metaStore, context) -> metaStore.recordProgramProvisioned(id, numNodes, sourceId));
   }
 
   @Override
   public void setStart(ProgramRunId id, @Nullable String twillRunId, Map<String, String> systemArgs, byte[] sourceId) {
-    TransactionRunners.run(transactionRunner, context -> {
-      getAppMetadataStore(context).recordProgramStart(id, twillRunId, systemArgs, sourceId);
-    });
+    writeRunRecords((metaStore, context) -> metaStore.recordProgramStart(id, twillRunId, systemArgs, sourceId));
   }
 
   @Override
   public void setRunning(ProgramRunId id, long runTime, String twillRunId, byte[] sourceId) {
-    TransactionRunners.run(transactionRunner, context -> {
-      getAppMetadataStore(context).recordProgramRunning(id, runTime, twillRunId, sourceId);
-    });
+    writeRunRecords((metaStore, context) -> metaStore.recordProgramRunning(id, runTime, twillRunId, sourceId));
   }
 
   @Override
@@ -171,8 +235,7 @@ public class DefaultStore implements Store {
   public void setStop(ProgramRunId id, long endTime, ProgramRunStatus runStatus,
                       BasicThrowable failureCause, byte[] sourceId) {
     Preconditions.checkArgument(runStatus != null, "Run state of program run should be defined");
-    TransactionRunners.run(transactionRunner, context -> {
-      AppMetadataStore metaStore = getAppMetadataStore(context);
+    writeRunRecords((metaStore, context) -> {
       metaStore.recordProgramStop(id, endTime, runStatus, failureCause, sourceId);
 
       // This block has been added so that completed workflow runs can be logged to the workflow dataset
@@ -247,16 +310,12 @@ public class DefaultStore implements Store {
 
   @Override
   public void setSuspend(ProgramRunId id, byte[] sourceId, long suspendTime) {
-    TransactionRunners.run(transactionRunner, context -> {
-      getAppMetadataStore(context).recordProgramSuspend(id, sourceId, suspendTime);
-    });
+    writeRunRecords((metaStore, context) -> metaStore.recordProgramSuspend(id, sourceId, suspendTime));
   }
 
   @Override
   public void setResume(ProgramRunId id, byte[] sourceId, long resumeTime) {
-    TransactionRunners.run(transactionRunner, context -> {
-      getAppMetadataStore(context).recordProgramResumed(id, sourceId, resumeTime);
-    });
+    writeRunRecords((metaStore, context) -> metaStore.recordProgramResumed(id, sourceId, resumeTime));
   }
 
   @Override
@@ -325,12 +384,21 @@ public class DefaultStore implements Store {
 
   @Override
   public int countActiveRuns(@Nullable Integer limit) {
+    Integer count = activeRunsView == null ? null : activeRunsView.countActiveRuns(limit);
+    if (count != null) {
+      return count;
+    }
     return TransactionRunners.run(transactionRunner,
                                   context -> (int) getAppMetadataStore(context).countActiveRuns(limit));
   }
 
   @Override
   public Map<ProgramRunId, RunRecordDetail> getActiveRuns(NamespaceId namespaceId) {
+    Map<ProgramRunId, RunRecordDetail> activeRuns = activeRunsView == null
+      ? null : activeRunsView.getActiveRuns(namespaceId);
+    if (activeRuns != null) {
+      return activeRuns;
+    }
     return TransactionRunners.run(transactionRunner, context -> {
       return getAppMetadataStore(context).getActiveRuns(namespaceId);
     });
@@ -339,6 +407,11 @@ public class DefaultStore implements Store {
   @Override
   public Map<ProgramRunId, RunRecordDetail> getActiveRuns(Set<NamespaceId> namespaces,
                                                           Predicate<RunRecordDetail> filter) {
+    Map<ProgramRunId, RunRecordDetail> activeRuns = activeRunsView == null ? null : activeRunsView.getActiveRuns(
+      record -> namespaces.contains(record.getProgramRunId().getNamespaceId()) && filter.test(record));
+    if (activeRuns != null) {
+      return activeRuns;
+    }
     return TransactionRunners.run(transactionRunner, context -> {
       return getAppMetadataStore(context).getActiveRuns(namespaces, filter);
     });
@@ -346,6 +419,11 @@ public class DefaultStore implements Store {
 
   @Override
   public Map<ProgramRunId, RunRecordDetail> getActiveRuns(ApplicationId applicationId) {
+    Map<ProgramRunId, RunRecordDetail> activeRuns = activeRunsView == null
+      ? null : activeRunsView.getActiveRuns(applicationId);
+    if (activeRuns != null) {
+      return activeRuns;
+    }
     return TransactionRunners.run(transactionRunner, context -> {
       return getAppMetadataStore(context).getActiveRuns(applicationId);
     });
@@ -353,6 +431,11 @@ public class DefaultStore implements Store {
 
   @Override
   public Map<ProgramRunId, RunRecordDetail> getActiveRuns(ProgramId programId) {
+    Map<ProgramRunId, RunRecordDetail> activeRuns = activeRunsView == null
+      ? null : activeRunsView.getActiveRuns(programId);
+    if (activeRuns != null) {
+      return activeRuns;
+    }
     return TransactionRunners.run(transactionRunner, context -> {
       return getAppMetadataStore(context).getActiveRuns(programId);
     });
@@ -363,10 +446,32 @@ public class DefaultStore implements Store {
     return TransactionRunners.run(transactionRunner, context -> {
       AppMetadataStore appMetadataStore = getAppMetadataStore(context);
       // Get the active runs for programs that exist
-      return getAppMetadataStore(context).getActiveRuns(appMetadataStore.filterProgramsExistence(programIds));
+      Set<ProgramId> existingPrograms = appMetadataStore.filterProgramsExistence(programIds);
+      Map<ProgramId, Collection<RunRecordDetail>> result = getActiveRunsFromView(existingPrograms);
+      return result == null ? appMetadataStore.getActiveRuns(existingPrograms) : result;
     });
   }
 
+  /**
+   * Returns the active runs of the given programs from the {@link ActiveRunsView}, or {@code null} if the view is not
+   * available.
+   */
+  @Nullable
+  private Map<ProgramId, Collection<RunRecordDetail>> getActiveRunsFromView(Collection<ProgramId> programIds) {
+    if (activeRunsView == null) {
+      return null;
+    }
+    Map<ProgramId, Collection<RunRecordDetail>> result = new LinkedHashMap<>();
+    for (ProgramId programId : programIds) {
+      Map<ProgramRunId, RunRecordDetail> activeRuns = activeRunsView.getActiveRuns(programId);
+      if (activeRuns == null) {
+        return null;
+      }
+      result.put(programId, new LinkedHashSet<>(activeRuns.values()));
+    }
+    return result;
+  }
+
   /**
    * Returns run record for a given run.
    *
@@ -490,22 +595,22 @@ public class DefaultStore implements Store {
   public void removeApplication(ApplicationId id) {
     LOG.trace("Removing application: namespace: {}, application: {}", id.getNamespace(), id.getApplication());
 
-    TransactionRunners.run(transactionRunner, context -> {
+    updateActiveRuns(context -> {
       AppMetadataStore metaStore = getAppMetadataStore(context);
       metaStore.deleteApplication(id.getNamespace(), id.getApplication(), id.getVersion());
       metaStore.deleteProgramHistory(id.getNamespace(), id.getApplication(), id.getVersion());
-    });
+    }, view -> view.removeRuns(id));
   }
 
   @Override
   public void removeAll(NamespaceId id) {
     LOG.trace("Removing all applications of namespace with id: {}", id.getNamespace());
 
-    TransactionRunners.run(transactionRunner, context -> {
+    updateActiveRuns(context -> {
       AppMetadataStore metaStore = getAppMetadataStore(context);
       metaStore.deleteApplications(id.getNamespace());
       metaStore.deleteProgramHistory(id);
-    });
+    }, view -> view.removeRuns(id));
   }
 
   @Override
@@ -602,6 +707,9 @@ public class DefaultStore implements Store {
       getAppMetadataStore(context).deleteAllAppMetadataTables();
       getWorkflowTable(context).deleteAll();
     });
+    if (activeRunsView != null) {
+      activeRunsView.invalidate();
+    }
   }
 
   private ApplicationSpecification getApplicationSpec(AppMetadataStore mds, ApplicationId id)
@@ -798,4 +906,11 @@ public class DefaultStore implements Store {
         return null;
     }
   }
+
+  /**
+   * Writes run records through an {@link AppMetadataStore} within a transaction.
+   */
+  private interface RunRecordWriter {
+    void write(AppMetadataStore metaStore, StructuredTableContext context) throws Exception;
+  }
 }
@@ -17,18 +17,24 @@
 package io.cdap.cdap.metadata;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.api.workflow.WorkflowActionNode;
 import io.cdap.cdap.api.workflow.WorkflowNode;
 import io.cdap.cdap.api.workflow.WorkflowSpecification;
 import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.metadata.lineage.AccessType;
 import io.cdap.cdap.data2.metadata.lineage.DefaultLineageStoreReader;
 import io.cdap.cdap.data2.metadata.lineage.Lineage;
@@ -43,15 +49,23 @@ import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.proto.id.ProgramRunId;
 import io.cdap.cdap.proto.id.WorkflowId;
 import org.apache.twill.api.RunId;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -60,7 +74,12 @@ import javax.annotation.Nullable;
 
 /**
  * Service to compute Lineage based on Dataset accesses of a Program stored in {@link DefaultLineageStoreReader}.
+ * The relations of all the datasets or programs at the same level of the lineage graph are read in batches, which
+ * are executed in parallel. Computed lineage is cached for a short period of time. While caching is enabled, the
+ * time window is widened to multiples of the cache expiry, so that requests for windows relative to the current
+ * time share the cached result.
  */
+@Singleton
 public class LineageAdmin {
 
   private static final Logger LOG = LoggerFactory.getLogger(LineageAdmin.class);
@@ -74,13 +93,46 @@ public class LineageAdmin {
       return Collections2.filter(relations, relation -> relation.getAccess() != AccessType.UNKNOWN);
     };
 
+  private static final int DEFAULT_BATCH_SIZE = 100;
+  private static final int DEFAULT_MAX_THREADS = 4;
+
   private final LineageStoreReader lineageStoreReader;
   private final Store store;
+  private final int batchSize;
+  private final ExecutorService executor;
+  private final Cache<LineageKey, Lineage> lineageCache;
+  private final long cacheGranularityMillis;
 
-  @Inject
+  @VisibleForTesting
   LineageAdmin(LineageStoreReader lineageStoreReader, Store store) {
+    this(lineageStoreReader, store, DEFAULT_BATCH_SIZE, DEFAULT_MAX_THREADS, 0L, 0L);
+  }
+
+  @Inject
+  LineageAdmin(CConfiguration cConf, LineageStoreReader lineageStoreReader, Store store) {
+    this(lineageStoreReader, store, cConf.getInt(Constants.Metadata.LINEAGE_BATCH_SIZE),
+         cConf.getInt(Constants.Metadata.LINEAGE_MAX_THREADS),
+         cConf.getLong(Constants.Metadata.LINEAGE_CACHE_SIZE),
+         cConf.getLong(Constants.Metadata.LINEAGE_CACHE_EXPIRY_SECONDS));
+  }
+
+  private LineageAdmin(LineageStoreReader lineageStoreReader, Store store, int batchSize, int maxThreads,
+                       long cacheSize, long cacheExpirySeconds) {
     this.lineageStoreReader = lineageStoreReader;
     this.store = store;
+    this.batchSize = batchSize;
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<>(),
+                                                         Threads.createDaemonThreadFactory("lineage-reader-%d"));
+    executor.allowCoreThreadTimeOut(true);
+    this.executor = executor;
+    // A cache with zero size or expiry doesn't retain anything
+    this.lineageCache = CacheBuilder.newBuilder()
+      .maximumSize(cacheExpirySeconds > 0 ? cacheSize : 0L)
+      .expireAfterWrite(cacheExpirySeconds, TimeUnit.SECONDS)
+      .build();
+    // A cached result is up to one expiry period stale, hence widening the window by the same period is acceptable
+    this.cacheGranularityMillis = cacheSize > 0 ? TimeUnit.SECONDS.toMillis(cacheExpirySeconds) : 0L;
   }
 
   /**
@@ -114,6 +166,27 @@ public class LineageAdmin {
   private Lineage doComputeLineage(DatasetId sourceData,
                                    long startMillis, long endMillis,
                                    int levels, @Nullable String rollup) {
+    if (cacheGranularityMillis <= 0) {
+      return readLineage(sourceData, startMillis, endMillis, levels, rollup);
+    }
+
+    // Round the window outwards, so that windows that only differ within the granularity share the same key
+    long start = Math.floorDiv(startMillis, cacheGranularityMillis) * cacheGranularityMillis;
+    long end = endMillis > Long.MAX_VALUE - cacheGranularityMillis
+      ? endMillis
+      : Math.floorDiv(endMillis + cacheGranularityMillis - 1, cacheGranularityMillis) * cacheGranularityMillis;
+    LineageKey key = new LineageKey(sourceData, start, end, levels, rollup);
+    Lineage lineage = lineageCache.getIfPresent(key);
+    if (lineage == null) {
+      lineage = readLineage(sourceData, start, end, levels, rollup);
+      lineageCache.put(key, lineage);
+    }
+    return lineage;
+  }
+
+  private Lineage readLineage(DatasetId sourceData,
+                              long startMillis, long endMillis,
+                              int levels, @Nullable String rollup) {
     LOG.trace("Computing lineage for data {}, startMillis {}, endMillis {}, levels {}",
               sourceData, startMillis, endMillis, levels);
     boolean rollUpWorkflow = rollup != null && rollup.contains("workflow");
@@ -139,44 +212,42 @@ public class LineageAdmin {
     for (int i = 0; i < levels; ++i) {
       LOG.trace("Level {}", i);
       toVisitPrograms.clear();
-      for (DatasetId d : toVisitDatasets) {
-        if (visitedDatasets.add(d)) {
-          LOG.trace("Visiting dataset {}", d);
-          // Fetch related programs, the programs will be the inner programs which access the datasets. For example,
-          // mapreduce or spark program in a workflow
-          Set<Relation> programRelations = lineageStoreReader.getRelations(d, scanRange.getStart(), scanRange.getEnd(),
-                                                                           scanRange.getFilter());
-          LOG.trace("Got program relations {}", programRelations);
-
-          // if we want to roll up lineage for workflow, we need to figure out what workflow these programs are related
-          // to and find out all the inner programs of that workflow, the workflow run id can also be used to
-          // determine if a dataset is local dataset. The local dataset always ends with the workflow run id
-          if (rollUpWorkflow) {
-            computeWorkflowInnerPrograms(toVisitPrograms, programWorkflowMap, programRelations);
-          }
-
-          // add to the relations, replace the inner program with the workflow using the map, ignore the
-          // local datasets relations, the local dataset always ends with the run id of the workflow
-          filterAndAddRelations(rollUpWorkflow, relations, programWorkflowMap, programRelations);
-          toVisitPrograms.addAll(programRelations.stream().map(Relation::getProgram).collect(Collectors.toSet()));
-        }
+      toVisitDatasets.removeAll(visitedDatasets);
+      visitedDatasets.addAll(toVisitDatasets);
+      LOG.trace("Visiting datasets {}", toVisitDatasets);
+      // Fetch related programs, the programs will be the inner programs which access the datasets. For example,
+      // mapreduce or spark program in a workflow
+      Set<Relation> programRelations = new HashSet<>();
+      readRelations(toVisitDatasets, datasets -> lineageStoreReader.getDatasetRelations(
+        datasets, scanRange.getStart(), scanRange.getEnd(), scanRange.getFilter())).forEach(programRelations::addAll);
+      LOG.trace("Got program relations {}", programRelations);
+
+      // if we want to roll up lineage for workflow, we need to figure out what workflow these programs are related
+      // to and find out all the inner programs of that workflow, the workflow run id can also be used to
+      // determine if a dataset is local dataset. The local dataset always ends with the workflow run id
+      if (rollUpWorkflow) {
+        computeWorkflowInnerPrograms(toVisitPrograms, programWorkflowMap, programRelations);
       }
 
+      // add to the relations, replace the inner program with the workflow using the map, ignore the
+      // local datasets relations, the local dataset always ends with the run id of the workflow
+      filterAndAddRelations(rollUpWorkflow, relations, programWorkflowMap, programRelations);
+      toVisitPrograms.addAll(programRelations.stream().map(Relation::getProgram).collect(Collectors.toSet()));
+
       toVisitDatasets.clear();
-      for (ProgramId p : toVisitPrograms) {
-        if (visitedPrograms.add(p)) {
-          LOG.trace("Visiting program {}", p);
-          // Fetch related datasets
-          Set<Relation> datasetRelations = lineageStoreReader.getRelations(p, scanRange.getStart(),
-                                                                           scanRange.getEnd(), scanRange.getFilter());
-          LOG.trace("Got data relations {}", datasetRelations);
-          Set<DatasetId> localDatasets = filterAndAddRelations(rollUpWorkflow, relations,
-                                                               programWorkflowMap, datasetRelations);
-          toVisitDatasets.addAll(
-            datasetRelations.stream().map(relation -> (DatasetId) relation.getData())
-              .filter(datasetId -> !localDatasets.contains(datasetId)).collect(Collectors.toSet()));
-        }
-      }
+      toVisitPrograms.removeAll(visitedPrograms);
+      visitedPrograms.addAll(toVisitPrograms);
+      LOG.trace("Visiting programs {}", toVisitPrograms);
+      // Fetch related datasets
+      Set<Relation> datasetRelations = new HashSet<>();
+      readRelations(toVisitPrograms, programs -> lineageStoreReader.getProgramRelations(
+        programs, scanRange.getStart(), scanRange.getEnd(), scanRange.getFilter())).forEach(datasetRelations::addAll);
+      LOG.trace("Got data relations {}", datasetRelations);
+      Set<DatasetId> localDatasets = filterAndAddRelations(rollUpWorkflow, relations,
+                                                           programWorkflowMap, datasetRelations);
+      toVisitDatasets.addAll(
+        datasetRelations.stream().map(relation -> (DatasetId) relation.getData())
+          .filter(datasetId -> !localDatasets.contains(datasetId)).collect(Collectors.toSet()));
     }
 
     Lineage lineage = new Lineage(
@@ -185,6 +256,40 @@ public class LineageAdmin {
     return lineage;
   }
 
+  /**
+   * Reads the relations of the given entities in batches of at most {@link #batchSize} entities. The batches are
+   * read in parallel if there are more than one.
+   *
+   * @return the relations of all the given entities
+   */
+  private <T> Collection<Set<Relation>> readRelations(Set<T> entities,
+                                                      Function<Collection<T>, Map<T, Set<Relation>>> reader) {
+    if (entities.isEmpty()) {
+      return new ArrayList<>();
+    }
+    if (entities.size() <= batchSize) {
+      return reader.apply(entities).values();
+    }
+    List<Future<Map<T, Set<Relation>>>> futures = new ArrayList<>();
+    for (List<T> batch : Iterables.partition(entities, batchSize)) {
+      futures.add(executor.submit(() -> reader.apply(batch)));
+    }
+    List<Set<Relation>> result = new ArrayList<>();
+    try {
+      for (Future<Map<T, Set<Relation>>> future : futures) {
+        result.addAll(future.get().values());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while reading lineage", e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+    return result;
+  }
+
   /**
    * Filter the relations based on the rollUp flag, if set to true, the method will replace the inner program with
    * the workflow using the map and ignore the local datasets relations. The local dataset always ends with the run
@@ -390,4 +495,41 @@ public class LineageAdmin {
       return relation;
     }
   }
+
+  /**
+   * Key for caching computed {@link Lineage}.
+   */
+  private static final class LineageKey {
+    private final DatasetId sourceData;
+    private final long startMillis;
+    private final long endMillis;
+    private final int levels;
+    private final String rollup;
+
+    private LineageKey(DatasetId sourceData, long startMillis, long endMillis, int levels, @Nullable String rollup) {
+      this.sourceData = sourceData;
+      this.startMillis = startMillis;
+      this.endMillis = endMillis;
+      this.levels = levels;
+      this.rollup = rollup;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      LineageKey other = (LineageKey) o;
+      return startMillis == other.startMillis && endMillis == other.endMillis && levels == other.levels
+        && Objects.equals(sourceData, other.sourceData) && Objects.equals(rollup, other.rollup);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(sourceData, startMillis, endMillis, levels, rollup);
+    }
+  }
 }
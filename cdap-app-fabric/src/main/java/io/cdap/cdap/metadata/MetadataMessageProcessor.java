@@ -33,4 +33,13 @@ public interface MetadataMessageProcessor {
    */
   void processMessage(MetadataMessage message, StructuredTableContext context) throws IOException, ConflictException;
 
+  /**
+   * Writes out any changes of the messages processed so far that the processor has not written yet. Processors
+   * that batch changes across messages must override this method. It is called after the last message of a fetch
+   * is processed, in the same transaction.
+   */
+  default void flush(StructuredTableContext context) throws IOException {
+    // no-op
+  }
+
 }
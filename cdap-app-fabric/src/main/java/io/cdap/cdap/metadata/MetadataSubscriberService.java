@@ -33,6 +33,7 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.service.RetryStrategies;
 import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.data2.metadata.lineage.AccessType;
 import io.cdap.cdap.data2.metadata.lineage.LineageTable;
 import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageInfo;
 import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageTable;
@@ -54,6 +55,7 @@ import io.cdap.cdap.proto.WorkflowNodeStateDetail;
 import io.cdap.cdap.proto.codec.EntityIdTypeAdapter;
 import io.cdap.cdap.proto.codec.OperationTypeAdapter;
 import io.cdap.cdap.proto.element.EntityType;
+import io.cdap.cdap.proto.id.DatasetId;
 import io.cdap.cdap.proto.id.EntityId;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.PluginId;
@@ -70,6 +72,7 @@ import io.cdap.cdap.spi.metadata.MetadataKind;
 import io.cdap.cdap.spi.metadata.MetadataMutation;
 import io.cdap.cdap.spi.metadata.MetadataStorage;
 import io.cdap.cdap.spi.metadata.MutationOptions;
+import io.cdap.cdap.spi.metadata.ScopedName;
 import io.cdap.cdap.spi.metadata.ScopedNameOfKind;
 import io.cdap.cdap.store.DefaultNamespaceStore;
 import io.cdap.cdap.store.NamespaceStore;
@@ -79,10 +82,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -321,6 +327,11 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
         LOG.warn("Unsupported metadata message type {}. Message ignored.", message.getType());
         continue;
       }
+      // Profile metadata updates are applied to the metadata storage directly. Flush the pending changes of the
+      // other processors first to preserve the order of updates to the same entity.
+      if (processor instanceof ProfileMetadataMessageProcessor) {
+        flush(processors.values(), structuredTableContext);
+      }
       try {
         processor.processMessage(message, structuredTableContext);
         conflictCount = 0;
@@ -339,13 +350,25 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
         throw e;
       }
     }
+    flush(processors.values(), structuredTableContext);
+  }
+
+  private void flush(Collection<MetadataMessageProcessor> processors,
+                     StructuredTableContext context) throws IOException {
+    for (MetadataMessageProcessor processor : processors) {
+      processor.flush(context);
+    }
   }
 
   /**
-   * The {@link MetadataMessageProcessor} for processing {@link DataAccessLineage}.
+   * The {@link MetadataMessageProcessor} for processing {@link DataAccessLineage}. Accesses of the same dataset by
+   * the same program run with the same access type are coalesced, keeping the access time of the last message.
    */
   private final class DataAccessLineageProcessor implements MetadataMessageProcessor {
 
+    private final Map<ImmutablePair<ProgramRunId, ImmutablePair<DatasetId, AccessType>>, Long> accesses =
+      new LinkedHashMap<>();
+
     DataAccessLineageProcessor() {}
 
     @Override
@@ -357,8 +380,22 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
 
       DataAccessLineage lineage = message.getPayload(GSON, DataAccessLineage.class);
       ProgramRunId programRunId = (ProgramRunId) message.getEntityId();
+      accesses.put(ImmutablePair.of(programRunId, ImmutablePair.of(lineage.getDatasetId(), lineage.getAccessType())),
+                   lineage.getAccessTime());
+    }
+
+    @Override
+    public void flush(StructuredTableContext context) throws IOException {
+      if (accesses.isEmpty()) {
+        return;
+      }
       LineageTable lineageTable = LineageTable.create(context);
-      lineageTable.addAccess(programRunId, lineage.getDatasetId(), lineage.getAccessType(), lineage.getAccessTime());
+      for (Map.Entry<ImmutablePair<ProgramRunId, ImmutablePair<DatasetId, AccessType>>, Long> entry
+        : accesses.entrySet()) {
+        ImmutablePair<DatasetId, AccessType> access = entry.getKey().getSecond();
+        lineageTable.addAccess(entry.getKey().getFirst(), access.getFirst(), access.getSecond(), entry.getValue());
+      }
+      accesses.clear();
     }
   }
 
@@ -391,10 +428,12 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
   }
 
   /**
-   * The {@link MetadataMessageProcessor} for processing {@link DatasetUsage}.
+   * The {@link MetadataMessageProcessor} for processing {@link DatasetUsage}. Duplicate usages are registered once.
    */
   private final class UsageProcessor implements MetadataMessageProcessor {
 
+    private final Set<ImmutablePair<ProgramId, DatasetId>> usages = new LinkedHashSet<>();
+
     UsageProcessor() {}
 
     @Override
@@ -405,8 +444,19 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
       }
       DatasetUsage usage = message.getPayload(GSON, DatasetUsage.class);
       ProgramId programId = (ProgramId) message.getEntityId();
+      usages.add(ImmutablePair.of(programId, usage.getDatasetId()));
+    }
+
+    @Override
+    public void flush(StructuredTableContext context) throws IOException {
+      if (usages.isEmpty()) {
+        return;
+      }
       UsageTable usageTable = new UsageTable(context);
-      usageTable.register(programId, usage.getDatasetId());
+      for (ImmutablePair<ProgramId, DatasetId> usage : usages) {
+        usageTable.register(usage.getFirst(), usage.getSecond());
+      }
+      usages.clear();
     }
   }
 
@@ -444,14 +494,54 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
 
   /**
    * The {@link MetadataMessageProcessor} for metadata operations. It receives operations and applies them to the
-   * metadata store.
+   * metadata store in batches. Consecutive updates of the same entity are merged into one mutation. A batch holds at
+   * most one mutation per entity, so that the metadata storage can apply it in bulk.
    */
   private class MetadataOperationProcessor extends MetadataValidator implements MetadataMessageProcessor {
 
+    private final Map<MetadataEntity, MetadataMutation> mutations = new LinkedHashMap<>();
+
     MetadataOperationProcessor(CConfiguration cConf) {
       super(cConf);
     }
 
+    @Override
+    public void flush(StructuredTableContext context) throws IOException {
+      applyMutations();
+    }
+
+    private void applyMutations() throws IOException {
+      if (mutations.isEmpty()) {
+        return;
+      }
+      metadataStorage.batch(new ArrayList<>(mutations.values()), MutationOptions.DEFAULT);
+      mutations.clear();
+    }
+
+    private void addMutation(MetadataMutation mutation) throws IOException {
+      MetadataMutation pending = mutations.get(mutation.getEntity());
+      if (pending == null) {
+        mutations.put(mutation.getEntity(), mutation);
+        return;
+      }
+      if (pending instanceof MetadataMutation.Update && mutation instanceof MetadataMutation.Update) {
+        mutations.put(mutation.getEntity(),
+                      merge((MetadataMutation.Update) pending, (MetadataMutation.Update) mutation));
+        return;
+      }
+      // Other mutations of the same entity depend on the result of the pending one
+      applyMutations();
+      mutations.put(mutation.getEntity(), mutation);
+    }
+
+    private MetadataMutation.Update merge(MetadataMutation.Update first, MetadataMutation.Update second) {
+      Set<ScopedName> tags = new HashSet<>(first.getUpdates().getTags());
+      tags.addAll(second.getUpdates().getTags());
+      Map<ScopedName, String> properties = new HashMap<>(first.getUpdates().getProperties());
+      properties.putAll(second.getUpdates().getProperties());
+      return new MetadataMutation.Update(first.getEntity(), new Metadata(tags, properties));
+    }
+
     @Override
     public void processMessage(MetadataMessage message, StructuredTableContext context) throws IOException {
       MetadataOperation operation = message.getPayload(GSON, MetadataOperation.class);
@@ -465,11 +555,11 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
           MetadataMutation mutation = new MetadataMutation.Create(
             entity, new Metadata(MetadataScope.SYSTEM, create.getTags(), create.getProperties()),
             MetadataMutation.Create.CREATE_DIRECTIVES);
-          metadataStorage.apply(mutation, MutationOptions.DEFAULT);
+          addMutation(mutation);
           break;
         }
         case DROP: {
-          metadataStorage.apply(new MetadataMutation.Drop(operation.getEntity()), MutationOptions.DEFAULT);
+          addMutation(new MetadataMutation.Drop(operation.getEntity()));
           break;
         }
         case PUT: {
@@ -481,8 +571,7 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
               validateProperties(entity, props);
               validateTags(entity, tags);
             }
-            metadataStorage.apply(
-              new MetadataMutation.Update(entity, new Metadata(put.getScope(), tags, props)), MutationOptions.DEFAULT);
+            addMutation(new MetadataMutation.Update(entity, new Metadata(put.getScope(), tags, props)));
           } catch (InvalidMetadataException e) {
             LOG.warn("Ignoring invalid metadata operation {} from TMS: {}", operation,
                      GSON.toJson(message.getRawPayload()), e);
@@ -500,23 +589,22 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
             delete.getTags().forEach(
               name -> toDelete.add(new ScopedNameOfKind(MetadataKind.TAG, delete.getScope(), name)));
           }
-          metadataStorage.apply(new MetadataMutation.Remove(entity, toDelete), MutationOptions.DEFAULT);
+          addMutation(new MetadataMutation.Remove(entity, toDelete));
           break;
         }
         case DELETE_ALL: {
           MetadataScope scope = ((MetadataOperation.DeleteAll) operation).getScope();
-          metadataStorage.apply(new MetadataMutation.Remove(entity, scope), MutationOptions.DEFAULT);
+          addMutation(new MetadataMutation.Remove(entity, scope));
           break;
         }
         case DELETE_ALL_PROPERTIES: {
           MetadataScope scope = ((MetadataOperation.DeleteAllProperties) operation).getScope();
-          metadataStorage.apply(new MetadataMutation.Remove(entity, scope, MetadataKind.PROPERTY),
-                                MutationOptions.DEFAULT);
+          addMutation(new MetadataMutation.Remove(entity, scope, MetadataKind.PROPERTY));
           break;
         }
         case DELETE_ALL_TAGS: {
           MetadataScope scope = ((MetadataOperation.DeleteAllTags) operation).getScope();
-          metadataStorage.apply(new MetadataMutation.Remove(entity, scope, MetadataKind.TAG), MutationOptions.DEFAULT);
+          addMutation(new MetadataMutation.Remove(entity, scope, MetadataKind.TAG));
           break;
         }
         default:
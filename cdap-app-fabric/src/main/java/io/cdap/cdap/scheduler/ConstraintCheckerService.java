@@ -16,12 +16,14 @@
 
 package io.cdap.cdap.scheduler;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.ConflictException;
@@ -31,15 +33,18 @@ import io.cdap.cdap.common.namespace.NamespaceQueryAdmin;
 import io.cdap.cdap.common.service.RetryStrategy;
 import io.cdap.cdap.internal.app.runtime.schedule.ScheduleTaskRunner;
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.CheckableConstraint;
+import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConcurrencyConstraint;
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConstraintContext;
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConstraintResult;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.Job;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobKey;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueue;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
 import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
 import io.cdap.cdap.internal.app.services.ProgramLifecycleService;
 import io.cdap.cdap.internal.app.services.PropertiesResolver;
 import io.cdap.cdap.internal.schedule.constraint.Constraint;
+import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.spi.data.transaction.TransactionException;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
@@ -48,16 +53,33 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * Polls the JobQueue, checks the jobs for constraint satisfaction, and launches them.
+ * Jobs with unsatisfied constraints are kept in a delay queue ordered by the time that their constraints can next be
+ * satisfied, so that only due jobs are checked. The whole job queue is only scanned when it is changed by the
+ * {@link ScheduleNotificationSubscriberService} or periodically as a fallback.
  */
+@Singleton
 class ConstraintCheckerService extends AbstractIdleService {
   private static final Logger LOG = LoggerFactory.getLogger(ConstraintCheckerService.class);
+  private static final long MIN_CHECK_DELAY_MILLIS = 1000L;
 
   private final Store store;
   private final ProgramLifecycleService lifecycleService;
@@ -65,6 +87,8 @@ class ConstraintCheckerService extends AbstractIdleService {
   private final NamespaceQueryAdmin namespaceQueryAdmin;
   private final CConfiguration cConf;
   private final TransactionRunner transactionRunner;
+  private final long fullScanIntervalMillis;
+  private final List<ConstraintCheckerThread> checkerThreads = new CopyOnWriteArrayList<>();
   private ScheduleTaskRunner taskRunner;
   private ListeningExecutorService taskExecutorService;
   private volatile boolean stopping = false;
@@ -81,6 +105,7 @@ class ConstraintCheckerService extends AbstractIdleService {
     this.namespaceQueryAdmin = namespaceQueryAdmin;
     this.cConf = cConf;
     this.transactionRunner = transactionRunner;
+    this.fullScanIntervalMillis = cConf.getLong(Constants.Scheduler.JOB_QUEUE_FULL_SCAN_INTERVAL_MILLIS);
   }
 
   @Override
@@ -92,7 +117,9 @@ class ConstraintCheckerService extends AbstractIdleService {
 
     int numPartitions = cConf.getInt(Constants.Scheduler.JOB_QUEUE_NUM_PARTITIONS);
     for (int partition = 0; partition < numPartitions; partition++) {
-      taskExecutorService.submit(new ConstraintCheckerThread(partition));
+      ConstraintCheckerThread thread = new ConstraintCheckerThread(partition);
+      checkerThreads.add(thread);
+      taskExecutorService.submit(thread);
     }
     LOG.info("Started ConstraintCheckerService. state: " + state());
   }
@@ -101,6 +128,10 @@ class ConstraintCheckerService extends AbstractIdleService {
   protected void shutDown() throws Exception {
     stopping = true;
     LOG.info("Stopping ConstraintCheckerService.");
+    // Wake up the checker threads, which may be waiting for the next due job
+    for (ConstraintCheckerThread thread : checkerThreads) {
+      thread.wakeup();
+    }
     try {
       // Shutdown the executor and wait for all pending task to be completed for max of 5 seconds
       taskExecutorService.shutdown();
@@ -115,10 +146,68 @@ class ConstraintCheckerService extends AbstractIdleService {
     LOG.info("Stopped ConstraintCheckerService.");
   }
 
+  /**
+   * Launches the program of a job that is ready to run.
+   */
+  @VisibleForTesting
+  void launch(Job job) throws Exception {
+    taskRunner.launch(job);
+  }
+
+  /**
+   * Notifies the checker threads that jobs were added to or updated in the job queue.
+   * This should only be called after the transaction that updated the job queue is committed.
+   */
+  void jobQueueChanged() {
+    for (ConstraintCheckerThread thread : checkerThreads) {
+      thread.jobQueueChanged = true;
+      thread.wakeup();
+    }
+  }
+
+  /**
+   * Notifies the checker threads that the run status of the given program has changed, so that jobs blocked by
+   * a {@link ConcurrencyConstraint} on that program can be checked again.
+   */
+  void programStatusChanged(ProgramId programId) {
+    for (ConstraintCheckerThread thread : checkerThreads) {
+      thread.programEvents.add(programId);
+      thread.wakeup();
+    }
+  }
+
+  /**
+   * A job that is pending constraint and the earliest time that its constraints should be checked again.
+   */
+  private static final class PendingCheck {
+    private final JobKey jobKey;
+    private final long checkTime;
+    @Nullable
+    private final ProgramId waitingProgram;
+
+    PendingCheck(JobKey jobKey, long checkTime, @Nullable ProgramId waitingProgram) {
+      this.jobKey = jobKey;
+      this.checkTime = checkTime;
+      this.waitingProgram = waitingProgram;
+    }
+  }
+
   private class ConstraintCheckerThread implements Runnable {
     private final RetryStrategy scheduleStrategy;
     private final int partition;
     private final Deque<Job> readyJobs = new ArrayDeque<>();
+    // Jobs with unsatisfied constraints, keyed by job. Only the entry in this map is valid for a job,
+    // entries in the delay queue that are not in this map are ignored when they are polled.
+    private final Map<JobKey, PendingCheck> pendingChecks = new HashMap<>();
+    private final PriorityQueue<PendingCheck> delayQueue =
+      new PriorityQueue<>(16, Comparator.comparingLong(check -> check.checkTime));
+    // Jobs blocked by a ConcurrencyConstraint, keyed by the program that they are waiting for
+    private final Map<ProgramId, Set<JobKey>> programWaiters = new HashMap<>();
+    private final Queue<ProgramId> programEvents = new ConcurrentLinkedQueue<>();
+    private final Semaphore wakeupSemaphore = new Semaphore(0);
+    // Start with a full scan to load the state of the jobs in the partition
+    private volatile boolean jobQueueChanged = true;
+    private long nextFullScanTime;
     private Job lastConsumed;
     private int failureCount;
 
@@ -136,9 +225,9 @@ class ConstraintCheckerService extends AbstractIdleService {
       while (!stopping) {
         try {
           long sleepTime = checkJobQueue();
-          // Don't sleep if sleepTime returned is 0
-          if (sleepTime > 0) {
-            TimeUnit.MILLISECONDS.sleep(sleepTime);
+          // Don't sleep if sleepTime returned is 0. Otherwise sleep until the next job is due or until woken up.
+          if (sleepTime > 0 && wakeupSemaphore.tryAcquire(sleepTime, TimeUnit.MILLISECONDS)) {
+            wakeupSemaphore.drainPermits();
           }
         } catch (InterruptedException e) {
           // sleep is interrupted, just exit without doing anything
@@ -146,17 +235,48 @@ class ConstraintCheckerService extends AbstractIdleService {
       }
     }
 
+    void wakeup() {
+      if (wakeupSemaphore.availablePermits() == 0) {
+        wakeupSemaphore.release();
+      }
+    }
+
     /**
-     * Check jobs in job queue for constraint satisfaction.
+     * Check jobs in job queue for constraint satisfaction. A full scan of the partition is only performed when
+     * the job queue was changed or when the full scan interval has elapsed. Otherwise only the jobs that are due
+     * for a constraint check are read.
      *
-     * @return sleep time in milliseconds before next fetch
+     * @return sleep time in milliseconds before next check
      */
     private long checkJobQueue() {
-      boolean emptyFetch = false;
       try {
-        emptyFetch = TransactionRunners.run(transactionRunner, context -> {
-          return checkJobConstraints(JobQueueTable.getJobQueue(context, cConf));
-        });
+        ProgramId programId;
+        while ((programId = programEvents.poll()) != null) {
+          Set<JobKey> waiters = programWaiters.remove(programId);
+          if (waiters != null) {
+            for (JobKey jobKey : waiters) {
+              // Check the job again immediately
+              addPendingCheck(jobKey, 0L, null);
+            }
+          }
+        }
+
+        if (lastConsumed != null || jobQueueChanged || System.currentTimeMillis() >= nextFullScanTime) {
+          if (lastConsumed == null) {
+            // Reset the flag before starting a new scan, so that changes made during the scan trigger another one
+            jobQueueChanged = false;
+          }
+          boolean completed = TransactionRunners.run(transactionRunner, context -> {
+            return checkJobConstraints(JobQueueTable.getJobQueue(context, cConf));
+          });
+          if (completed) {
+            nextFullScanTime = System.currentTimeMillis() + fullScanIntervalMillis;
+          }
+        } else {
+          TransactionRunners.run(transactionRunner, context -> {
+            checkDueJobs(JobQueueTable.getJobQueue(context, cConf));
+          });
+        }
 
         // run any ready jobs
         runReadyJobs();
@@ -172,31 +292,108 @@ class ConstraintCheckerService extends AbstractIdleService {
         return scheduleStrategy.nextRetry(failureCount, 0);
       }
 
-      // Sleep for 2 seconds if there's no jobs in the queue
-      return emptyFetch && readyJobs.isEmpty() ? 2000L : 0L;
+      // Continue immediately if the scan is not completed or if there are more pending events
+      if (lastConsumed != null || !readyJobs.isEmpty() || jobQueueChanged || !programEvents.isEmpty()) {
+        return 0L;
+      }
+
+      long nextCheckTime = nextFullScanTime;
+      PendingCheck check = peekPendingCheck();
+      if (check != null) {
+        nextCheckTime = Math.min(nextCheckTime, check.checkTime);
+      }
+      return Math.max(0L, nextCheckTime - System.currentTimeMillis());
     }
 
+    /**
+     * Scans the partition of the job queue, continuing from the last consumed job.
+     *
+     * @return {@code true} if the scan reached the end of the partition
+     */
     private boolean checkJobConstraints(JobQueue jobQueue) throws IOException {
-      boolean emptyScan = true;
-
       try (CloseableIterator<Job> jobQueueIter = jobQueue.getJobs(partition, lastConsumed)) {
         Stopwatch stopWatch = new Stopwatch().start();
         // limit the batches of the scan to 1000ms
         while (!stopping && stopWatch.elapsedMillis() < 1000) {
           if (!jobQueueIter.hasNext()) {
             lastConsumed = null;
-            return emptyScan;
+            return true;
           }
           Job job = jobQueueIter.next();
           lastConsumed = job;
-          emptyScan = false;
-          checkAndUpdateJob(jobQueue, job);
+          checkAndUpdateJob(jobQueue, job, false);
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Checks the constraints of the jobs that are due for a check.
+     */
+    private void checkDueJobs(JobQueue jobQueue) throws IOException {
+      Stopwatch stopWatch = new Stopwatch().start();
+      // limit the batches of the checks to 1000ms
+      while (!stopping && stopWatch.elapsedMillis() < 1000) {
+        PendingCheck check = peekPendingCheck();
+        if (check == null || check.checkTime > System.currentTimeMillis()) {
+          return;
+        }
+        delayQueue.poll();
+        removePendingCheck(check.jobKey);
+
+        Job job = jobQueue.getJob(check.jobKey);
+        if (job != null) {
+          checkAndUpdateJob(jobQueue, job, true);
         }
       }
-      return emptyScan;
     }
 
-    private void checkAndUpdateJob(JobQueue jobQueue, Job job) throws IOException {
+    /**
+     * Returns the pending check with the earliest check time, skipping over stale entries in the delay queue.
+     */
+    @Nullable
+    private PendingCheck peekPendingCheck() {
+      PendingCheck check = delayQueue.peek();
+      while (check != null && pendingChecks.get(check.jobKey) != check) {
+        delayQueue.poll();
+        check = delayQueue.peek();
+      }
+      return check;
+    }
+
+    private void addPendingCheck(JobKey jobKey, long checkTime, @Nullable ProgramId waitingProgram) {
+      removePendingCheck(jobKey);
+      PendingCheck check = new PendingCheck(jobKey, checkTime, waitingProgram);
+      pendingChecks.put(jobKey, check);
+      delayQueue.add(check);
+      if (waitingProgram != null) {
+        programWaiters.computeIfAbsent(waitingProgram, k -> new HashSet<>()).add(jobKey);
+      }
+    }
+
+    private void removePendingCheck(JobKey jobKey) {
+      PendingCheck check = pendingChecks.remove(jobKey);
+      if (check == null || check.waitingProgram == null) {
+        return;
+      }
+      Set<JobKey> waiters = programWaiters.get(check.waitingProgram);
+      if (waiters != null) {
+        waiters.remove(jobKey);
+        if (waiters.isEmpty()) {
+          programWaiters.remove(check.waitingProgram);
+        }
+      }
+    }
+
+    /**
+     * Checks a job and updates its state in the job queue.
+     *
+     * @param jobQueue the job queue
+     * @param job the job to check
+     * @param due {@code true} if the job is checked because it is due, otherwise the constraints are only checked
+     *            if the job has no pending check or if the pending check is due
+     */
+    private void checkAndUpdateJob(JobQueue jobQueue, Job job, boolean due) throws IOException {
       long now = System.currentTimeMillis();
       if (job.isToBeDeleted()) {
         // only delete jobs that are pending trigger or pending constraint. If pending launch, the launcher will delete
@@ -210,22 +407,35 @@ class ConstraintCheckerService extends AbstractIdleService {
             now - job.getDeleteTimeMillis() > 2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS))) {
           jobQueue.deleteJob(job);
         }
+        removePendingCheck(job.getJobKey());
         return;
       }
-      if (now - job.getCreationTime() >= job.getSchedule().getTimeoutMillis() +
-        2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS) {
+      long timeoutTime = job.getCreationTime() + job.getSchedule().getTimeoutMillis() +
+        2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS;
+      if (now >= timeoutTime) {
         LOG.info("Deleted job {}, due to timeout value of {}.", job.getJobKey(), job.getSchedule().getTimeoutMillis());
         jobQueue.deleteJob(job);
+        removePendingCheck(job.getJobKey());
         return;
       }
       if (job.getState() != Job.State.PENDING_CONSTRAINT) {
+        removePendingCheck(job.getJobKey());
         return;
       }
-      ConstraintResult.SatisfiedState satisfiedState = constraintsSatisfied(job, now);
-      if (satisfiedState == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
+      PendingCheck pendingCheck = pendingChecks.get(job.getJobKey());
+      if (!due && pendingCheck != null && pendingCheck.checkTime > now) {
+        // The constraints of this job won't be satisfied before the pending check time
         return;
       }
-      if (satisfiedState == ConstraintResult.SatisfiedState.NEVER_SATISFIED) {
+
+      ConstraintCheck check = constraintsSatisfied(job, now);
+      if (check.satisfiedState == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
+        // Check again when the constraints can be satisfied, but not later than when the job times out
+        addPendingCheck(job.getJobKey(), Math.min(check.nextCheckTime, timeoutTime), check.waitingProgram);
+        return;
+      }
+      removePendingCheck(job.getJobKey());
+      if (check.satisfiedState == ConstraintResult.SatisfiedState.NEVER_SATISFIED) {
         jobQueue.deleteJob(job);
         return;
       }
@@ -270,7 +480,7 @@ class ConstraintCheckerService extends AbstractIdleService {
       }
 
       try {
-        taskRunner.launch(job);
+        launch(job);
       } catch (ConflictException e) {
         LOG.error("Skip job {} because it was rejected while launching: {}", job.getJobKey(), e.getMessage());
       } catch (Exception e) {
@@ -283,8 +493,11 @@ class ConstraintCheckerService extends AbstractIdleService {
       return true;
     }
 
-    private ConstraintResult.SatisfiedState constraintsSatisfied(Job job, long now) {
+    private ConstraintCheck constraintsSatisfied(Job job, long now) {
       ConstraintResult.SatisfiedState satisfiedState = ConstraintResult.SatisfiedState.SATISFIED;
+      // All constraints have to be satisfied, hence the job can't be satisfied before the latest next check time
+      long nextCheckTime = now;
+      ProgramId waitingProgram = null;
 
       ConstraintContext constraintContext = new ConstraintContext(job, now, store);
       for (Constraint constraint : job.getSchedule().getConstraints()) {
@@ -299,14 +512,38 @@ class ConstraintCheckerService extends AbstractIdleService {
         ConstraintResult result = abstractConstraint.check(job.getSchedule(), constraintContext);
         if (result.getSatisfiedState() == ConstraintResult.NEVER_SATISFIED.getSatisfiedState()) {
           // if any of the constraints are NEVER_SATISFIED, return NEVER_SATISFIED
-          return ConstraintResult.NEVER_SATISFIED.getSatisfiedState();
+          return new ConstraintCheck(ConstraintResult.SatisfiedState.NEVER_SATISFIED, now, null);
         }
         if (result.getSatisfiedState() == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
           satisfiedState = ConstraintResult.SatisfiedState.NOT_SATISFIED;
+          Long resultNextCheckTime = result.getNextCheckTime();
+          nextCheckTime = Math.max(nextCheckTime, resultNextCheckTime == null ? now : resultNextCheckTime);
+          if (constraint instanceof ConcurrencyConstraint) {
+            // The concurrency constraint can become satisfied as soon as a run of the program finishes
+            waitingProgram = job.getSchedule().getProgramId();
+          }
         }
       }
-      return satisfiedState;
+      // Avoid checking the job again in a tight loop if a constraint doesn't provide a meaningful next check time
+      return new ConstraintCheck(satisfiedState, Math.max(nextCheckTime, now + MIN_CHECK_DELAY_MILLIS),
+                                 waitingProgram);
     }
+  }
+
+  /**
+   * The result of checking all the constraints of a job.
+   */
+  private static final class ConstraintCheck {
+    private final ConstraintResult.SatisfiedState satisfiedState;
+    private final long nextCheckTime;
+    @Nullable
+    private final ProgramId waitingProgram;
 
+    ConstraintCheck(ConstraintResult.SatisfiedState satisfiedState, long nextCheckTime,
+                    @Nullable ProgramId waitingProgram) {
+      this.satisfiedState = satisfiedState;
+      this.nextCheckTime = nextCheckTime;
+      this.waitingProgram = waitingProgram;
+    }
   }
 }
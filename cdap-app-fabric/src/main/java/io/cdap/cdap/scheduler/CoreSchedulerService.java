@@ -69,9 +69,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -95,11 +97,13 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   private final Store appMetaStore;
   private final Impersonator impersonator;
   private final TransactionRunner transactionRunner;
+  private final ScheduleTriggerIndex triggerIndex;
 
   @Inject
   CoreSchedulerService(TimeSchedulerService timeSchedulerService,
                        ScheduleNotificationSubscriberService scheduleNotificationSubscriberService,
                        ConstraintCheckerService constraintCheckerService,
+                       ScheduleTriggerIndex triggerIndex,
                        MessagingService messagingService,
                        CConfiguration cConf, Store store, Impersonator impersonator,
                        TransactionRunner transactionRunner) {
@@ -110,6 +114,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
     this.appMetaStore = store;
     this.impersonator = impersonator;
     this.transactionRunner = transactionRunner;
+    this.triggerIndex = triggerIndex;
     // Use a retry on failure service to make it resilience to transient service unavailability during startup
     this.internalService = new RetryOnStartFailureService(() -> new AbstractIdleService() {
 
@@ -123,6 +128,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
         timeSchedulerService.startAndWait();
         cleanupJobs();
         constraintCheckerService.startAndWait();
+        triggerIndex.startAndWait();
         scheduleNotificationSubscriberService.startAndWait();
         startedLatch.countDown();
         LOG.info("Started core scheduler service.");
@@ -131,6 +137,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       @Override
       protected void shutDown() {
         scheduleNotificationSubscriberService.stopAndWait();
+        triggerIndex.stopAndWait();
         constraintCheckerService.stopAndWait();
         timeSchedulerService.stopAndWait();
         LOG.info("Stopped core scheduler service.");
@@ -224,6 +231,9 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
           schedule.getProgramId().getProgram(), schedule.getProgramId().getType()));
       }
     }
+    List<ScheduleId> scheduleIds = new ArrayList<>();
+    schedules.forEach(schedule -> scheduleIds.add(schedule.getScheduleId()));
+    triggerIndex.beginUpdate();
     try {
       execute((StoreAndProfileTxRunnable<Void, Exception>) (store, profileDataset) -> {
         long updatedTime = store.addSchedules(schedules);
@@ -271,6 +281,8 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       throw e;
     } catch (Exception e) {
       throw Throwables.propagate(e);
+    } finally {
+      triggerIndex.endUpdate(scheduleIds);
     }
   }
 
@@ -302,6 +314,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   @Override
   public void enableSchedule(ScheduleId scheduleId) throws NotFoundException, ConflictException {
     checkStarted();
+    triggerIndex.beginUpdate();
     try {
       execute((StoreTxRunnable<Void, Exception>) store -> {
         enableScheduleInternal(store, scheduleId);
@@ -314,12 +327,15 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       throw new RuntimeException("Exception occurs when enabling schedule " + scheduleId, e);
     } catch (Exception e) {
       throw Throwables.propagate(e);
+    } finally {
+      triggerIndex.endUpdate(Collections.singleton(scheduleId));
     }
   }
 
   @Override
   public void disableSchedule(ScheduleId scheduleId) throws NotFoundException, ConflictException {
     checkStarted();
+    triggerIndex.beginUpdate();
     try {
       execute((StoreAndQueueTxRunnable<Void, Exception>) (store, queue) -> {
         ProgramScheduleRecord record = store.getScheduleRecord(scheduleId);
@@ -338,6 +354,8 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       throw new RuntimeException("Exception occurs when enabling schedule " + scheduleId, e);
     } catch (Exception e) {
       throw Throwables.propagate(e);
+    } finally {
+      triggerIndex.endUpdate(Collections.singleton(scheduleId));
     }
   }
 
@@ -375,6 +393,17 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   @Override
   public void deleteSchedules(Iterable<? extends ScheduleId> scheduleIds) throws NotFoundException {
     checkStarted();
+    List<ScheduleId> deletedIds = new ArrayList<>();
+    scheduleIds.forEach(deletedIds::add);
+    triggerIndex.beginUpdate();
+    try {
+      deleteSchedulesInternal(scheduleIds);
+    } finally {
+      triggerIndex.endUpdate(deletedIds);
+    }
+  }
+
+  private void deleteSchedulesInternal(Iterable<? extends ScheduleId> scheduleIds) throws NotFoundException {
     execute((StoreQueueAndProfileTxRunnable<Void, Exception>) (store, queue, profileDataset) -> {
       long deleteTime = System.currentTimeMillis();
       List<ProgramSchedule> toNotify = new ArrayList<>();
@@ -405,6 +434,16 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   @Override
   public void deleteSchedules(ApplicationId appId) {
     checkStarted();
+    triggerIndex.beginUpdate();
+    Set<ScheduleId> scheduleIds = triggerIndex.getScheduleIds(appId);
+    try {
+      deleteSchedulesInternal(appId);
+    } finally {
+      triggerIndex.endUpdate(scheduleIds);
+    }
+  }
+
+  private void deleteSchedulesInternal(ApplicationId appId) {
     execute((StoreQueueAndProfileTxRunnable<Void, Exception>) (store, queue, profileDataset) -> {
       long deleteTime = System.currentTimeMillis();
       List<ProgramSchedule> schedules = store.listSchedules(appId);
@@ -436,6 +475,16 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   @Override
   public void deleteSchedules(ProgramId programId) {
     checkStarted();
+    triggerIndex.beginUpdate();
+    Set<ScheduleId> scheduleIds = triggerIndex.getScheduleIds(programId.getParent());
+    try {
+      deleteSchedulesInternal(programId);
+    } finally {
+      triggerIndex.endUpdate(scheduleIds);
+    }
+  }
+
+  private void deleteSchedulesInternal(ProgramId programId) {
     execute((StoreQueueAndProfileTxRunnable<Void, Exception>) (store, queue, profileDataset) -> {
       long deleteTime = System.currentTimeMillis();
       List<ProgramSchedule> schedules = store.listSchedules(programId);
@@ -467,11 +516,17 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   @Override
   public void modifySchedulesTriggeredByDeletedProgram(ProgramId programId) {
     checkStarted();
-    execute((StoreAndQueueTxRunnable<Void, Exception>) (store, queue) -> {
-      List<ProgramSchedule> deletedSchedules = store.modifySchedulesTriggeredByDeletedProgram(programId);
-      deletedSchedules.forEach(adminEventPublisher::publishScheduleDeletion);
-      return null;
-    }, RuntimeException.class);
+    triggerIndex.beginUpdate();
+    Set<ScheduleId> scheduleIds = triggerIndex.getScheduleIdsTriggeredBy(programId);
+    try {
+      execute((StoreAndQueueTxRunnable<Void, Exception>) (store, queue) -> {
+        List<ProgramSchedule> deletedSchedules = store.modifySchedulesTriggeredByDeletedProgram(programId);
+        deletedSchedules.forEach(adminEventPublisher::publishScheduleDeletion);
+        return null;
+      }, RuntimeException.class);
+    } finally {
+      triggerIndex.endUpdate(scheduleIds);
+    }
   }
 
   @Override
@@ -528,6 +583,10 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   @Override
   public Collection<ProgramScheduleRecord> findSchedules(String triggerKey) {
     checkStarted();
+    Collection<ProgramScheduleRecord> schedules = triggerIndex.findSchedules(triggerKey);
+    if (schedules != null) {
+      return schedules;
+    }
     return execute(store -> store.findSchedules(triggerKey), RuntimeException.class);
   }
 
@@ -535,12 +594,15 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   public void reEnableSchedules(NamespaceId namespaceId, long startTimeMillis, long endTimeMillis)
     throws ConflictException {
     checkStarted();
+    Set<ScheduleId> enabledIds = new HashSet<>();
+    triggerIndex.beginUpdate();
     try {
       execute((StoreTxRunnable<Void, Exception>) store -> {
         List<ProgramSchedule> schedules = store.listSchedulesSuspended(namespaceId, startTimeMillis, endTimeMillis);
         List<ScheduleId> scheduleIds =
           schedules.stream().map(schedule -> schedule.getScheduleId()).collect(Collectors.toList());
         for (ScheduleId scheduleId : scheduleIds) {
+          enabledIds.add(scheduleId);
           enableScheduleInternal(store, scheduleId);
         }
         return null;
@@ -552,6 +614,8 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       throw new RuntimeException("Exception occurs when enabling schedules", e);
     } catch (Exception e) {
       throw Throwables.propagate(e);
+    } finally {
+      triggerIndex.endUpdate(enabledIds);
     }
   }
 
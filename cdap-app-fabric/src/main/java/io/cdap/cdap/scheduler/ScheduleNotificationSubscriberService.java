@@ -49,9 +49,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -68,16 +71,22 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
   private final CConfiguration cConf;
   private final MessagingService messagingService;
   private final MetricsCollectionService metricsCollectionService;
+  private final ConstraintCheckerService constraintCheckerService;
+  private final ScheduleTriggerIndex triggerIndex;
   private final List<Service> subscriberServices;
   private ScheduledExecutorService subscriberExecutor;
 
   @Inject
   ScheduleNotificationSubscriberService(CConfiguration cConf, MessagingService messagingService,
                                         MetricsCollectionService metricsCollectionService,
-                                        TransactionRunner transactionRunner) {
+                                        TransactionRunner transactionRunner,
+                                        ConstraintCheckerService constraintCheckerService,
+                                        ScheduleTriggerIndex triggerIndex) {
     this.cConf = cConf;
     this.messagingService = messagingService;
     this.metricsCollectionService = metricsCollectionService;
+    this.constraintCheckerService = constraintCheckerService;
+    this.triggerIndex = triggerIndex;
     this.subscriberServices = Arrays.asList(new SchedulerEventSubscriberService(transactionRunner),
                                             new DataEventSubscriberService(transactionRunner),
                                             new ProgramStatusEventSubscriberService(transactionRunner));
@@ -120,6 +129,9 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
    */
   private abstract class AbstractSchedulerSubscriberService extends AbstractNotificationSubscriberService {
 
+    // Whether the job queue was updated by the last batch of messages
+    private boolean jobQueueChanged;
+
     AbstractSchedulerSubscriberService(String name, String topic, int fetchSize,
                                        TransactionRunner transactionRunner) {
       super(name, cConf, topic, fetchSize, cConf.getLong(Constants.Scheduler.EVENT_POLL_DELAY_MILLIS),
@@ -143,11 +155,41 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       ProgramScheduleStoreDataset scheduleStore = getScheduleStore(structuredTableContext);
       JobQueueTable jobQueue = getJobQueue(structuredTableContext);
 
+      // Reset at the start of the batch, since the transaction could be retried
+      jobQueueChanged = false;
       while (messages.hasNext()) {
         processNotification(scheduleStore, jobQueue, messages.next().getSecond());
       }
     }
 
+    @Override
+    protected void postProcess() {
+      // Only signal the constraint checker after the job queue changes are committed
+      if (jobQueueChanged) {
+        jobQueueChanged = false;
+        constraintCheckerService.jobQueueChanged();
+      }
+    }
+
+    /**
+     * Adds a notification to the job queue for the given schedule.
+     */
+    protected void addNotification(JobQueueTable jobQueue, ProgramScheduleRecord schedule,
+                                   Notification notification) throws IOException {
+      jobQueue.addNotification(schedule, notification);
+      jobQueueChanged = true;
+    }
+
+    /**
+     * Finds the schedules with the given trigger key, from the {@link ScheduleTriggerIndex} if it is available,
+     * otherwise from the schedule store.
+     */
+    protected Collection<ProgramScheduleRecord> findSchedules(ProgramScheduleStoreDataset scheduleStore,
+                                                              String triggerKey) throws IOException {
+      Collection<ProgramScheduleRecord> schedules = triggerIndex.findSchedules(triggerKey);
+      return schedules == null ? scheduleStore.findSchedules(triggerKey) : schedules;
+    }
+
     @Override
     protected ScheduledExecutorService executor() {
       return subscriberExecutor;
@@ -206,7 +248,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
         LOG.warn("Ignore notification that doesn't have a schedule {} associated with, {}", scheduleId, notification);
         return;
       }
-      jobQueue.addNotification(record, notification);
+      addNotification(jobQueue, record, notification);
     }
   }
 
@@ -230,8 +272,8 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       }
       DatasetId datasetId = DatasetId.fromString(datasetIdString);
       for (ProgramScheduleRecord schedule :
-        scheduleStore.findSchedules(Schedulers.triggerKeyForPartition(datasetId))) {
-        jobQueue.addNotification(schedule, notification);
+        findSchedules(scheduleStore, Schedulers.triggerKeyForPartition(datasetId))) {
+        addNotification(jobQueue, schedule, notification);
       }
     }
   }
@@ -241,12 +283,32 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
    */
   private final class ProgramStatusEventSubscriberService extends AbstractSchedulerSubscriberService {
 
+    // Programs with run status changes in the last batch of messages
+    private final Set<ProgramId> changedPrograms = new HashSet<>();
+
     ProgramStatusEventSubscriberService(TransactionRunner transactionRunner) {
       // Fetch transactionally since publishing from AppMetadataStore is transactional.
       super("scheduler.program.event", cConf.get(Constants.AppFabric.PROGRAM_STATUS_RECORD_EVENT_TOPIC),
             cConf.getInt(Constants.Scheduler.PROGRAM_STATUS_EVENT_FETCH_SIZE), transactionRunner);
     }
 
+    @Override
+    protected void processMessages(StructuredTableContext structuredTableContext,
+                                   Iterator<ImmutablePair<String, Notification>> messages) throws IOException {
+      changedPrograms.clear();
+      super.processMessages(structuredTableContext, messages);
+    }
+
+    @Override
+    protected void postProcess() {
+      super.postProcess();
+      // Jobs blocked by the concurrency constraint of these programs may become ready
+      for (ProgramId programId : changedPrograms) {
+        constraintCheckerService.programStatusChanged(programId);
+      }
+      changedPrograms.clear();
+    }
+
     @Override
     protected void processNotification(ProgramScheduleStoreDataset scheduleStore,
                                        JobQueueTable jobQueue, Notification notification) throws IOException {
@@ -268,10 +330,11 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
 
       ProgramRunId programRunId = GSON.fromJson(programRunIdString, ProgramRunId.class);
       ProgramId programId = programRunId.getParent();
+      changedPrograms.add(programId);
       String triggerKeyForProgramStatus = Schedulers.triggerKeyForProgramStatus(programId, programStatus);
 
-      for (ProgramScheduleRecord schedule : scheduleStore.findSchedules(triggerKeyForProgramStatus)) {
-        jobQueue.addNotification(schedule, notification);
+      for (ProgramScheduleRecord schedule : findSchedules(scheduleStore, triggerKeyForProgramStatus)) {
+        addNotification(jobQueue, schedule, notification);
       }
     }
   }
@@ -0,0 +1,314 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.api.ProgramStatus;
+import io.cdap.cdap.common.NotFoundException;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.store.ProgramScheduleStoreDataset;
+import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
+import io.cdap.cdap.internal.app.runtime.schedule.trigger.SatisfiableTrigger;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ScheduleId;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * In-memory index from trigger key to the schedule records that have a trigger with that key, used to avoid
+ * scanning the trigger index of the {@link ProgramScheduleStoreDataset} for every notification.
+ *
+ * The index is loaded from the schedule store in the background after startup. All modifications of schedules
+ * made by the {@link CoreSchedulerService} are wrapped by {@link #beginUpdate()} and
+ * {@link #endUpdate(Collection)}, which re-reads the modified schedules from the store after the transaction.
+ * Every update increments a generation counter, which a load compares before installing its result, so that a load
+ * that ran concurrently with an update is discarded and retried. Lookups return {@code null} while the index is not
+ * loaded or an update is in progress, in which case the caller has to read from the schedule store.
+ */
+@Singleton
+class ScheduleTriggerIndex extends AbstractIdleService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScheduleTriggerIndex.class);
+  private static final int LOAD_BATCH_SIZE = 1000;
+  private static final long LOAD_RETRY_DELAY_MILLIS = 5000L;
+
+  private final TransactionRunner transactionRunner;
+  private final boolean enabled;
+  // Serializes the re-reads of updated schedules so that an older read is never installed after a newer one
+  private final Object refreshLock = new Object();
+
+  // All fields below are guarded by this
+  private Map<String, Map<ScheduleId, ProgramScheduleRecord>> recordsByTriggerKey;
+  private Map<ScheduleId, ProgramScheduleRecord> records;
+  private long generation;
+  private int pendingUpdates;
+  private boolean loaded;
+  private boolean loadScheduled;
+  private ScheduledExecutorService executor;
+
+  @Inject
+  ScheduleTriggerIndex(CConfiguration cConf, TransactionRunner transactionRunner) {
+    this.transactionRunner = transactionRunner;
+    this.enabled = cConf.getBoolean(Constants.Scheduler.TRIGGER_INDEX_ENABLED);
+    this.recordsByTriggerKey = new HashMap<>();
+    this.records = new HashMap<>();
+  }
+
+  @Override
+  protected void startUp() {
+    if (!enabled) {
+      return;
+    }
+    synchronized (this) {
+      executor = Executors.newSingleThreadScheduledExecutor(
+        Threads.createDaemonThreadFactory("schedule-trigger-index"));
+      scheduleLoad(0L);
+    }
+  }
+
+  @Override
+  protected void shutDown() {
+    synchronized (this) {
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+      // A load that is still running is discarded when it completes, since the generation changed
+      generation++;
+      loadScheduled = false;
+      loaded = false;
+      recordsByTriggerKey = new HashMap<>();
+      records = new HashMap<>();
+    }
+  }
+
+  /**
+   * Finds all schedules that have a trigger with the given trigger key.
+   *
+   * @return the schedule records, or {@code null} if the index is not available and the schedule store needs to be
+   *         used instead
+   */
+  @Nullable
+  synchronized Collection<ProgramScheduleRecord> findSchedules(String triggerKey) {
+    if (!loaded || pendingUpdates > 0) {
+      return null;
+    }
+    Map<ScheduleId, ProgramScheduleRecord> found = recordsByTriggerKey.get(triggerKey);
+    return found == null ? Collections.emptyList() : new ArrayList<>(found.values());
+  }
+
+  /**
+   * Returns the ids of the indexed schedules of the given application.
+   */
+  synchronized Set<ScheduleId> getScheduleIds(ApplicationId appId) {
+    return records.keySet().stream()
+      .filter(scheduleId -> scheduleId.getParent().equals(appId))
+      .collect(Collectors.toSet());
+  }
+
+  /**
+   * Returns the ids of the indexed schedules that are triggered by the status of the given program.
+   */
+  synchronized Set<ScheduleId> getScheduleIdsTriggeredBy(ProgramId programId) {
+    Set<ScheduleId> scheduleIds = new HashSet<>();
+    for (ProgramStatus status : ProgramStatus.values()) {
+      Map<ScheduleId, ProgramScheduleRecord> found =
+        recordsByTriggerKey.get(Schedulers.triggerKeyForProgramStatus(programId, status));
+      if (found != null) {
+        scheduleIds.addAll(found.keySet());
+      }
+    }
+    return scheduleIds;
+  }
+
+  /**
+   * Marks the start of an update to the schedule store. Lookups are not served by the index until the
+   * corresponding {@link #endUpdate(Collection)} is called.
+   */
+  synchronized void beginUpdate() {
+    pendingUpdates++;
+    generation++;
+  }
+
+  /**
+   * Marks the end of an update to the schedule store, after the transaction of the update is completed, whether it
+   * succeeded or not. The given schedules are re-read from the store to update the index.
+   *
+   * @param scheduleIds the ids of the schedules that may have been added, modified or deleted by the update
+   */
+  void endUpdate(Collection<ScheduleId> scheduleIds) {
+    try {
+      if (isLoaded() && !scheduleIds.isEmpty()) {
+        synchronized (refreshLock) {
+          Map<ScheduleId, ProgramScheduleRecord> updated = new HashMap<>();
+          TransactionRunners.run(transactionRunner, context -> {
+            ProgramScheduleStoreDataset store = Schedulers.getScheduleStore(context);
+            updated.clear();
+            for (ScheduleId scheduleId : scheduleIds) {
+              try {
+                updated.put(scheduleId, store.getScheduleRecord(scheduleId));
+              } catch (NotFoundException e) {
+                updated.put(scheduleId, null);
+              }
+            }
+          });
+          synchronized (this) {
+            // The index may have been stopped or invalidated while reading
+            if (loaded) {
+              updated.forEach((scheduleId, record) -> {
+                removeRecord(scheduleId);
+                if (record != null) {
+                  addRecord(record);
+                }
+              });
+            }
+          }
+        }
+      }
+    } catch (Exception e) {
+      LOG.warn("Failed to update the schedule trigger index. It will be reloaded.", e);
+      synchronized (this) {
+        loaded = false;
+        scheduleLoad(LOAD_RETRY_DELAY_MILLIS);
+      }
+    } finally {
+      synchronized (this) {
+        pendingUpdates--;
+        generation++;
+      }
+    }
+  }
+
+  private synchronized boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Schedules a load of the index if there is none scheduled.
+   */
+  private synchronized void scheduleLoad(long delayMillis) {
+    if (executor == null || loadScheduled) {
+      return;
+    }
+    loadScheduled = true;
+    executor.schedule(this::load, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Loads all schedule records from the store in batches. The result is only installed if there was no update
+   * since the load started. Otherwise the load is retried.
+   */
+  private void load() {
+    long startGeneration;
+    synchronized (this) {
+      loadScheduled = false;
+      startGeneration = generation;
+    }
+
+    Map<String, Map<ScheduleId, ProgramScheduleRecord>> newRecordsByTriggerKey = new HashMap<>();
+    Map<ScheduleId, ProgramScheduleRecord> newRecords = new HashMap<>();
+    try {
+      List<ProgramScheduleRecord> batch = new ArrayList<>();
+      ScheduleId cursor = null;
+      do {
+        ScheduleId after = cursor;
+        cursor = TransactionRunners.run(transactionRunner, context -> {
+          batch.clear();
+          return Schedulers.getScheduleStore(context).scanScheduleRecords(after, LOAD_BATCH_SIZE, batch::add);
+        });
+        for (ProgramScheduleRecord record : batch) {
+          addRecord(newRecordsByTriggerKey, newRecords, record);
+        }
+      } while (cursor != null);
+    } catch (Exception e) {
+      LOG.warn("Failed to load the schedule trigger index. Will retry in {} ms.", LOAD_RETRY_DELAY_MILLIS, e);
+      scheduleLoad(LOAD_RETRY_DELAY_MILLIS);
+      return;
+    }
+
+    synchronized (this) {
+      if (executor == null) {
+        LOG.debug("Schedule trigger index is stopped. Discarding the loaded schedules.");
+        return;
+      }
+      if (generation != startGeneration || pendingUpdates > 0) {
+        LOG.debug("Schedules were updated while loading the schedule trigger index. Reloading.");
+        scheduleLoad(0L);
+        return;
+      }
+      recordsByTriggerKey = newRecordsByTriggerKey;
+      records = newRecords;
+      loaded = true;
+    }
+    LOG.info("Loaded schedule trigger index with {} schedules", newRecords.size());
+  }
+
+  private void addRecord(ProgramScheduleRecord record) {
+    addRecord(recordsByTriggerKey, records, record);
+  }
+
+  private void removeRecord(ScheduleId scheduleId) {
+    ProgramScheduleRecord record = records.remove(scheduleId);
+    if (record == null) {
+      return;
+    }
+    for (String triggerKey : getTriggerKeys(record)) {
+      Map<ScheduleId, ProgramScheduleRecord> found = recordsByTriggerKey.get(triggerKey);
+      if (found != null) {
+        found.remove(scheduleId);
+        if (found.isEmpty()) {
+          recordsByTriggerKey.remove(triggerKey);
+        }
+      }
+    }
+  }
+
+  private static void addRecord(Map<String, Map<ScheduleId, ProgramScheduleRecord>> recordsByTriggerKey,
+                                Map<ScheduleId, ProgramScheduleRecord> records, ProgramScheduleRecord record) {
+    ScheduleId scheduleId = record.getSchedule().getScheduleId();
+    records.put(scheduleId, record);
+    for (String triggerKey : getTriggerKeys(record)) {
+      recordsByTriggerKey.computeIfAbsent(triggerKey, k -> new HashMap<>()).put(scheduleId, record);
+    }
+  }
+
+  private static Set<String> getTriggerKeys(ProgramScheduleRecord record) {
+    return ((SatisfiableTrigger) record.getSchedule().getTrigger()).getTriggerKeys();
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.schedule;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link TimingWheel}.
+ */
+public class TimingWheelTest {
+
+  @Test
+  public void testExpiration() {
+    TimingWheel<String> wheel = new TimingWheel<>(1000L, 4, 10500L);
+    Assert.assertEquals(10000L, wheel.getCurrentTime());
+
+    // Already expired within the current tick
+    Assert.assertFalse(wheel.add("expired", 10999L));
+
+    Assert.assertTrue(wheel.add("a", 11000L));
+    Assert.assertTrue(wheel.add("b", 13500L));
+    // Beyond the first level of the wheel
+    Assert.assertTrue(wheel.add("c", 30000L));
+    // Beyond the second level of the wheel
+    Assert.assertTrue(wheel.add("d", 100000L));
+    Assert.assertEquals(4, wheel.size());
+
+    Assert.assertEquals(Collections.singletonList("a"), wheel.advance(11000L));
+    Assert.assertEquals(Collections.emptyList(), wheel.advance(12999L));
+    Assert.assertEquals(Collections.singletonList("b"), wheel.advance(13000L));
+    Assert.assertEquals(Collections.emptyList(), wheel.advance(29999L));
+    Assert.assertEquals(Collections.singletonList("c"), wheel.advance(30000L));
+    Assert.assertEquals(Collections.singletonList("d"), wheel.advance(200000L));
+    Assert.assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testRandomExpirations() {
+    Random random = new Random();
+    long startTime = System.currentTimeMillis();
+    TimingWheel<Long> wheel = new TimingWheel<>(1000L, 8, startTime);
+
+    List<Long> expirations = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      long expiration = wheel.getCurrentTime() + 1000L + (long) random.nextInt(Integer.MAX_VALUE);
+      expirations.add(expiration);
+      Assert.assertTrue(wheel.add(expiration, expiration));
+    }
+    Collections.sort(expirations);
+
+    // Advance in random steps and verify each item expires in the tick of its expiration time, in order
+    List<Long> expired = new ArrayList<>();
+    long time = startTime;
+    while (wheel.size() > 0) {
+      long previousTime = time;
+      time += random.nextInt(10000000);
+      for (long expiration : wheel.advance(time)) {
+        Assert.assertTrue(expiration < time + 1000L);
+        Assert.assertTrue(expiration > previousTime);
+        expired.add(expiration);
+      }
+    }
+    Assert.assertEquals(expirations, expired);
+  }
+
+  @Test
+  public void testAddWhileAdvancing() {
+    TimingWheel<String> wheel = new TimingWheel<>(1000L, 4, 0L);
+    wheel.add("a", 5000L);
+    Assert.assertEquals(Collections.singletonList("a"), wheel.advance(5000L));
+    // Adding relative to the new current time of the wheel
+    wheel.add("b", 7000L);
+    wheel.add("c", 6000L);
+    Assert.assertEquals(Arrays.asList("c", "b"), wheel.advance(7000L));
+  }
+}
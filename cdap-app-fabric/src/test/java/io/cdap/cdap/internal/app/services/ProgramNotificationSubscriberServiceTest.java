@@ -18,6 +18,8 @@ package io.cdap.cdap.internal.app.services;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.inject.Injector;
 import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.api.artifact.ArtifactId;
@@ -25,6 +27,7 @@ import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
 import io.cdap.cdap.api.metrics.MetricDataQuery;
 import io.cdap.cdap.api.metrics.MetricStore;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.metrics.MetricTimeSeries;
 import io.cdap.cdap.api.workflow.NodeStatus;
 import io.cdap.cdap.app.program.ProgramDescriptor;
@@ -34,18 +37,25 @@ import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.id.Id;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.common.utils.ProjectInfo;
 import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.internal.AppFabricTestHelper;
+import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.DefaultApplicationSpecification;
 import io.cdap.cdap.internal.app.runtime.BasicArguments;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.internal.app.runtime.SimpleProgramOptions;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.app.runtime.workflow.WorkflowStateWriter;
+import io.cdap.cdap.internal.app.store.ActiveRunsView;
 import io.cdap.cdap.internal.app.store.AppMetadataStore;
 import io.cdap.cdap.internal.app.store.RunRecordDetail;
 import io.cdap.cdap.internal.profile.ProfileService;
+import io.cdap.cdap.internal.provision.ProvisionerNotifier;
+import io.cdap.cdap.internal.provision.ProvisioningService;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.proto.Notification;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.WorkflowNodeStateDetail;
@@ -64,6 +74,7 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -74,12 +85,14 @@ import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Tests program run state persistence.
  */
 public class ProgramNotificationSubscriberServiceTest {
   private static final String SYSTEM_METRIC_PREFIX = "system.";
+  private static final Gson GSON = ApplicationSpecificationAdapter.addTypeAdapters(new GsonBuilder()).create();
 
   private static Injector injector;
   private static CConfiguration cConf;
@@ -369,6 +382,67 @@ public class ProgramNotificationSubscriberServiceTest {
     heartbeatDatasetStatusCheck(stopTime, ProgramRunStatus.COMPLETED);
   }
 
+  @Test
+  public void testActiveRunsViewNotUpdatedOnFailedCommit() throws Exception {
+    // A transaction runner that rolls back the transaction after the messages are processed, as a failed commit does
+    AtomicBoolean failCommit = new AtomicBoolean();
+    TransactionRunner failingTxRunner = runnable -> transactionRunner.run(context -> {
+      runnable.run(context);
+      if (failCommit.get()) {
+        throw new IOException("Failed to commit");
+      }
+    });
+    ActiveRunsView activeRunsView = new ActiveRunsView(cConf);
+    ProgramNotificationSubscriberService subscriber = new ProgramNotificationSubscriberService(
+      injector.getInstance(MessagingService.class), cConf, injector.getInstance(MetricsCollectionService.class),
+      injector.getInstance(ProvisionerNotifier.class), injector.getInstance(ProgramLifecycleService.class),
+      injector.getInstance(ProvisioningService.class), programStateWriter, failingTxRunner, activeRunsView);
+
+    // Load the view from the run records table
+    subscriber.preProcess();
+    Assert.assertTrue(activeRunsView.isLoaded());
+    long generation = activeRunsView.getGeneration();
+
+    ProgramId programId = NamespaceId.DEFAULT.app("viewapp").program(ProgramType.SERVICE, "s");
+    ProgramRunId runId = programId.run(RunIds.generate());
+    ArtifactId artifactId = NamespaceId.DEFAULT.artifact("testArtifact", "1.0").toApiArtifactId();
+    ApplicationSpecification appSpec = new DefaultApplicationSpecification(
+      "viewapp", "1.0.0", ProjectInfo.getVersion().toString(), "desc", null, artifactId,
+      Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+      Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+      Collections.emptyMap());
+    Map<String, String> systemArguments = ImmutableMap.of(ProgramOptionConstants.SKIP_PROVISIONING, "true",
+                                                          SystemArguments.PROFILE_NAME,
+                                                          ProfileId.NATIVE.getScopedName());
+    Notification notification = new Notification(Notification.Type.PROGRAM_STATUS, ImmutableMap.of(
+      ProgramOptionConstants.PROGRAM_RUN_ID, GSON.toJson(runId),
+      ProgramOptionConstants.PROGRAM_STATUS, ProgramRunStatus.STARTING.name(),
+      ProgramOptionConstants.USER_OVERRIDES, GSON.toJson(Collections.emptyMap()),
+      ProgramOptionConstants.SYSTEM_OVERRIDES, GSON.toJson(systemArguments),
+      ProgramOptionConstants.PROGRAM_DESCRIPTOR, GSON.toJson(new ProgramDescriptor(programId, appSpec))));
+    List<ImmutablePair<String, Notification>> messages =
+      Collections.singletonList(ImmutablePair.of("message1", notification));
+
+    failCommit.set(true);
+    try {
+      subscriber.processMessages(messages.iterator());
+      Assert.fail("Expected the commit to fail");
+    } catch (IOException e) {
+      // expected
+    }
+    // Neither the table nor the view has the run
+    Assert.assertNull(TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).getRun(runId);
+    }));
+    Assert.assertEquals(generation, activeRunsView.getGeneration());
+    Assert.assertEquals(Collections.emptyMap(), activeRunsView.getActiveRuns(programId));
+
+    // The view is updated once the batch is committed
+    failCommit.set(false);
+    subscriber.processMessages(messages.iterator());
+    Assert.assertEquals(ProgramRunStatus.STARTING, activeRunsView.getActiveRuns(programId).get(runId).getStatus());
+  }
+
   private void checkProgramStatus(ArtifactId artifactId, ProgramRunId runId, ProgramRunStatus expectedStatus)
     throws InterruptedException, ExecutionException, TimeoutException {
     Tasks.waitFor(expectedStatus, () -> TransactionRunners.run(transactionRunner, context -> {
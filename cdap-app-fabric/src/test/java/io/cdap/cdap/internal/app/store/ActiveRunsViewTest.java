@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ActiveRunsView}.
+ */
+public class ActiveRunsViewTest {
+
+  private static final ProgramId PROGRAM1 = new ProgramId("ns", "app1", ProgramType.WORKFLOW, "workflow");
+  private static final ProgramId PROGRAM2 = new ProgramId("ns", "app2", ProgramType.SPARK, "spark");
+  private static final ProgramId SYSTEM_PROGRAM = NamespaceId.SYSTEM.app("app").service("service");
+  private static final ProfileId PROFILE = NamespaceId.SYSTEM.profile("native");
+
+  @Test
+  public void testUpdates() {
+    ActiveRunsView view = new ActiveRunsView(CConfiguration.create());
+    Assert.assertFalse(view.isLoaded());
+    Assert.assertNull(view.getActiveRuns(PROGRAM1));
+    Assert.assertNull(view.countActiveRuns(null));
+
+    RunRecordDetail run1 = createRecord(PROGRAM1, 1000L, ProgramRunStatus.RUNNING);
+    RunRecordDetail system = createRecord(SYSTEM_PROGRAM, 1000L, ProgramRunStatus.RUNNING);
+    Assert.assertTrue(view.completeRebuild(view.beginRebuild(), Arrays.asList(run1, system)));
+    Assert.assertTrue(view.isLoaded());
+    Assert.assertEquals(1, (int) view.countActiveRuns(null));
+
+    // Updates are applied in order, and the latest run of a program comes first
+    RunRecordDetail run2 = createRecord(PROGRAM1, 2000L, ProgramRunStatus.PENDING);
+    RunRecordDetail run3 = createRecord(PROGRAM2, 3000L, ProgramRunStatus.STARTING);
+    long generation = view.getGeneration();
+    view.update(Arrays.asList(run2, run3, RunRecordDetail.builder(run2).setStatus(ProgramRunStatus.STARTING).build()));
+    Assert.assertTrue(view.getGeneration() > generation);
+
+    Assert.assertEquals(Arrays.asList(run2.getProgramRunId(), run1.getProgramRunId()),
+                        new ArrayList<>(view.getActiveRuns(PROGRAM1).keySet()));
+    Assert.assertEquals(ProgramRunStatus.STARTING,
+                        view.getActiveRuns(PROGRAM1).get(run2.getProgramRunId()).getStatus());
+    Assert.assertEquals(Collections.singleton(run3.getProgramRunId()),
+                        view.getActiveRuns(PROGRAM2.getParent()).keySet());
+    Assert.assertEquals(3, view.getActiveRuns(new NamespaceId("ns")).size());
+    Assert.assertEquals(4, view.getActiveRuns(PROFILE).size());
+    Assert.assertEquals(2, (int) view.countActiveRuns(2));
+
+    // Runs in end state are removed
+    view.update(Arrays.asList(RunRecordDetail.builder(run1).setStatus(ProgramRunStatus.COMPLETED).build(),
+                              RunRecordDetail.builder(run3).setStatus(ProgramRunStatus.KILLED).build()));
+    Assert.assertEquals(Collections.singleton(run2.getProgramRunId()), view.getActiveRuns(PROGRAM1).keySet());
+    Assert.assertTrue(view.getActiveRuns(PROGRAM2).isEmpty());
+    Assert.assertEquals(1, view.getActiveRuns(record -> record.getStatus() == ProgramRunStatus.STARTING).size());
+    Assert.assertEquals(1, (int) view.countActiveRuns(null));
+  }
+
+  @Test
+  public void testStorageOrder() {
+    ActiveRunsView view = new ActiveRunsView(CConfiguration.create());
+    RunRecordDetail run1 = createRecord(PROGRAM1, 1000L, ProgramRunStatus.RUNNING);
+    RunRecordDetail run2 = createRecord(PROGRAM2, 3000L, ProgramRunStatus.RUNNING);
+    RunRecordDetail run3 = createRecord(PROGRAM1, 2000L, ProgramRunStatus.RUNNING);
+    Assert.assertTrue(view.completeRebuild(view.beginRebuild(), Arrays.asList(run1, run2, run3)));
+
+    // Runs are ordered by program first, as in the run records table, rather than by start time across programs
+    List<ProgramRunId> expected = Arrays.asList(run3.getProgramRunId(), run1.getProgramRunId(),
+                                                run2.getProgramRunId());
+    Assert.assertEquals(expected, new ArrayList<>(view.getActiveRuns(new NamespaceId("ns")).keySet()));
+    Assert.assertEquals(expected, new ArrayList<>(view.getActiveRuns(PROFILE).keySet()));
+    Assert.assertEquals(expected, new ArrayList<>(view.getActiveRuns(record -> true).keySet()));
+  }
+
+  @Test
+  public void testRemoveRuns() {
+    ActiveRunsView view = new ActiveRunsView(CConfiguration.create());
+    RunRecordDetail run1 = createRecord(PROGRAM1, 1000L, ProgramRunStatus.RUNNING);
+    RunRecordDetail run2 = createRecord(PROGRAM2, 2000L, ProgramRunStatus.RUNNING);
+    RunRecordDetail system = createRecord(SYSTEM_PROGRAM, 1000L, ProgramRunStatus.RUNNING);
+    Assert.assertTrue(view.completeRebuild(view.beginRebuild(), Arrays.asList(run1, run2, system)));
+
+    view.removeRuns(PROGRAM1.getParent());
+    Assert.assertTrue(view.getActiveRuns(PROGRAM1).isEmpty());
+    Assert.assertEquals(Collections.singleton(run2.getProgramRunId()),
+                        view.getActiveRuns(new NamespaceId("ns")).keySet());
+    Assert.assertEquals(2, view.getActiveRuns(PROFILE).size());
+
+    view.removeRuns(new NamespaceId("ns"));
+    Assert.assertTrue(view.getActiveRuns(PROGRAM2).isEmpty());
+    Assert.assertEquals(Collections.singleton(system.getProgramRunId()), view.getActiveRuns(PROFILE).keySet());
+    Assert.assertEquals(0, (int) view.countActiveRuns(null));
+  }
+
+  @Test
+  public void testInvalidation() {
+    ActiveRunsView view = new ActiveRunsView(CConfiguration.create());
+    RunRecordDetail run = createRecord(PROGRAM1, 1000L, ProgramRunStatus.RUNNING);
+    Assert.assertTrue(view.completeRebuild(view.beginRebuild(), Collections.singleton(run)));
+
+    view.invalidate();
+    Assert.assertNull(view.getActiveRuns(PROGRAM1));
+    view.update(Collections.singleton(createRecord(PROGRAM1, 2000L, ProgramRunStatus.RUNNING)));
+    Assert.assertFalse(view.isLoaded());
+
+    // An invalidation during a rebuild fails the rebuild
+    long token = view.beginRebuild();
+    view.invalidate();
+    Assert.assertFalse(view.completeRebuild(token, Collections.singleton(run)));
+    Assert.assertFalse(view.isLoaded());
+
+    Assert.assertTrue(view.completeRebuild(view.beginRebuild(), Collections.singleton(run)));
+    Assert.assertEquals(Collections.singleton(run.getProgramRunId()), view.getActiveRuns(PROGRAM1).keySet());
+  }
+
+  @Test
+  public void testDisabled() {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setBoolean(Constants.AppFabric.ACTIVE_RUNS_VIEW_ENABLED, false);
+    ActiveRunsView view = new ActiveRunsView(cConf);
+    Assert.assertFalse(view.isEnabled());
+    Assert.assertFalse(view.completeRebuild(view.beginRebuild(), Collections.emptyList()));
+    Assert.assertNull(view.getActiveRuns(PROGRAM1));
+  }
+
+  private RunRecordDetail createRecord(ProgramId programId, long startTime, ProgramRunStatus status) {
+    return RunRecordDetail.builder()
+      .setProgramRunId(programId.run(RunIds.generate().getId()))
+      .setStartTime(startTime)
+      .setStatus(status)
+      .setProfileId(PROFILE)
+      .setSourceId(new byte[0])
+      .build();
+  }
+}
@@ -18,11 +18,14 @@ package io.cdap.cdap.internal.app.store;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.gson.Gson;
 import io.cdap.cdap.AllProgramsApp;
 import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.AppFabricTestHelper;
 import io.cdap.cdap.internal.app.deploy.Specifications;
@@ -34,8 +37,14 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
 import org.apache.twill.api.RunId;
 import org.junit.Assert;
 import org.junit.Before;
@@ -67,6 +76,7 @@ import java.util.stream.Stream;
  */
 public abstract class AppMetadataStoreTest {
   protected static TransactionRunner transactionRunner;
+  private static final Gson GSON = new Gson();
   private static final List<ProgramRunStatus> STOP_STATUSES =
     ImmutableList.of(ProgramRunStatus.COMPLETED, ProgramRunStatus.FAILED, ProgramRunStatus.KILLED);
   private static final ArtifactId ARTIFACT_ID = NamespaceId.DEFAULT.artifact("testArtifact", "1.0").toApiArtifactId();
@@ -322,6 +332,75 @@ public abstract class AppMetadataStoreTest {
             TimeUnit.MILLISECONDS.toSeconds(1000), TimeUnit.MILLISECONDS.toSeconds(10000));
   }
 
+  @Test
+  public void testRunningInRangeWithTimeIndex() {
+    // Add runs that start every half day and last up to three days. The last three runs span more days than the
+    // maximum number of index buckets, two of them with a start time of zero. The last one also spans more than the
+    // maximum number of coarse buckets.
+    long halfDay = TimeUnit.HOURS.toSeconds(12);
+    List<ProgramRunId> runs = new ArrayList<>();
+    for (int i = 1; i <= 43; i++) {
+      ProgramId program = NamespaceId.DEFAULT.app("app" + (i % 3)).program(ProgramType.WORKFLOW, "program");
+      long startTs = i >= 42 ? 0L : i * halfDay;
+      long stopTs = i == 43 ? 30000 * halfDay : i > 40 ? 1500 * halfDay : startTs + (i % 7) * halfDay;
+      ProgramRunId programRunId = program.run(RunIds.generate(TimeUnit.SECONDS.toMillis(startTs)));
+      runs.add(programRunId);
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+        recordProvisionAndStart(programRunId, metadataStoreDataset);
+        metadataStoreDataset.recordProgramRunning(programRunId, startTs, null,
+                                                  AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        metadataStoreDataset.recordProgramStop(programRunId, stopTs, ProgramRunStatus.COMPLETED, null,
+                                               AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      });
+    }
+
+    // Back-fill the index in batches. It shouldn't be used until all run records are indexed.
+    AtomicReference<AppMetadataStore.Cursor> cursor = new AtomicReference<>(AppMetadataStore.Cursor.EMPTY);
+    while (cursor.get() != null) {
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+        Assert.assertFalse(metadataStoreDataset.isRunRecordTimeIndexReady());
+        cursor.set(metadataStoreDataset.backfillRunRecordTimeIndex(cursor.get(), 7));
+      });
+    }
+
+    List<long[]> ranges = Arrays.asList(new long[] { 0, Long.MAX_VALUE },
+                                        new long[] { 3 * halfDay, 4 * halfDay },
+                                        new long[] { 3 * halfDay + 100, 9 * halfDay - 100 },
+                                        new long[] { 30 * halfDay, 30 * halfDay },
+                                        new long[] { 45 * halfDay, 60 * halfDay },
+                                        new long[] { 60 * halfDay, 70 * halfDay },
+                                        new long[] { 1000 * halfDay, 1001 * halfDay },
+                                        new long[] { 1500 * halfDay, 1600 * halfDay },
+                                        new long[] { 20000 * halfDay, 20001 * halfDay });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      Assert.assertTrue(metadataStoreDataset.isRunRecordTimeIndexReady());
+      for (long[] range : ranges) {
+        Assert.assertEquals(metadataStoreDataset.getRunningInRangeForStatus("runRecordCompleted", range[0], range[1]),
+                            metadataStoreDataset.getRunningInRangeCompleted(range[0], range[1]));
+      }
+      // Only the long runs, which are kept in the coarse buckets and the open bucket, overlap with this range
+      Set<RunId> longRuns = runs.subList(40, 43).stream()
+        .map(runId -> RunIds.fromString(runId.getRun()))
+        .collect(Collectors.toSet());
+      Assert.assertEquals(longRuns, metadataStoreDataset.getRunningInRangeCompleted(1000 * halfDay, 1001 * halfDay));
+    });
+
+    // Deleting program history should remove the runs from the index as well
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      metadataStoreDataset.deleteProgramHistory(NamespaceId.DEFAULT.getNamespace(), "app1",
+                                                ApplicationId.DEFAULT_VERSION);
+      Set<RunId> expected = runs.stream()
+        .filter(runId -> !runId.getApplication().equals("app1"))
+        .map(runId -> RunIds.fromString(runId.getRun()))
+        .collect(Collectors.toSet());
+      Assert.assertEquals(expected, metadataStoreDataset.getRunningInRangeCompleted(0, Long.MAX_VALUE));
+    });
+  }
+
   private void runScan(final Set<Long> expected, final long startTime, final long stopTime) {
     TransactionRunners.run(transactionRunner, context -> {
       AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
@@ -876,6 +955,143 @@ public abstract class AppMetadataStoreTest {
     });
   }
 
+  @Test
+  public void testMixedRunRecordEncodings() {
+    ProgramId program = NamespaceId.DEFAULT.app("mixedApp").workflow("program");
+    Map<String, String> runtimeArgs = ImmutableMap.of("key", "value");
+    List<ProgramRunId> runs = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      runs.add(program.run(RunIds.generate(runIdTime.incrementAndGet() * 1000)));
+    }
+
+    // The first two runs are active and the last two are completed
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      store.setBinaryRunRecordEncoding(true);
+      for (ProgramRunId run : runs) {
+        long startTime = RunIds.getTime(run.getRun(), TimeUnit.SECONDS);
+        store.recordProgramProvisioning(run, runtimeArgs, SINGLETON_PROFILE_MAP,
+                                        AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()), ARTIFACT_ID);
+        store.recordProgramProvisioned(run, 0, AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        store.recordProgramStart(run, null, SINGLETON_PROFILE_MAP,
+                                 AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        store.recordProgramRunning(run, startTime, null,
+                                   AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      }
+      for (ProgramRunId run : runs.subList(2, 4)) {
+        store.recordProgramStop(run, RunIds.getTime(run.getRun(), TimeUnit.SECONDS) + 10,
+                                ProgramRunStatus.COMPLETED, null,
+                                AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      }
+    });
+
+    // Rewrite one active and one completed run record in the JSON form used before the binary encoding
+    Set<ProgramRunId> jsonRuns = ImmutableSet.of(runs.get(1), runs.get(3));
+    Map<ProgramRunId, RunRecordDetail> expected = new HashMap<>();
+    TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS);
+      List<List<Field<?>>> jsonRows = new ArrayList<>();
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          String data = row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+          Assert.assertTrue(data.startsWith("#"));
+          RunRecordDetail record = RunRecordDetailCodec.decode(data, program, RunRecordProjection.FULL);
+          expected.put(record.getProgramRunId(), record);
+          if (jsonRuns.contains(record.getProgramRunId())) {
+            List<Field<?>> fields = new ArrayList<>(row.getPrimaryKeys());
+            fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, GSON.toJson(record)));
+            jsonRows.add(fields);
+          }
+        }
+      }
+      for (List<Field<?>> fields : jsonRows) {
+        table.upsert(fields);
+      }
+    });
+    Assert.assertEquals(new HashSet<>(runs), expected.keySet());
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertEquals(expected, store.getRuns(expected.keySet()));
+      for (ProgramRunId run : runs) {
+        Assert.assertEquals(runtimeArgs, store.getRun(run).getUserArgs());
+        Assert.assertEquals(SINGLETON_PROFILE_MAP, store.getRun(run).getSystemArgs());
+      }
+
+      // Projection reads skip the properties and the system arguments of both forms
+      Map<ProgramRunId, RunRecordDetail> summaries = new HashMap<>();
+      summaries.putAll(store.getRuns(expected.keySet(), RunRecordProjection.SUMMARY));
+      Assert.assertEquals(summaries, store.getRuns(program, ProgramRunStatus.ALL, 0, Long.MAX_VALUE,
+                                                   Integer.MAX_VALUE, null, RunRecordProjection.SUMMARY));
+      Assert.assertEquals(ImmutableSet.of(runs.get(0), runs.get(1)),
+                          store.getActiveRuns(Collections.singleton(program), RunRecordProjection.SUMMARY)
+                            .get(program).stream().map(RunRecordDetail::getProgramRunId).collect(Collectors.toSet()));
+      for (ProgramRunId run : runs) {
+        RunRecordDetail summary = summaries.get(run);
+        Assert.assertEquals(RunRecordDetail.builder(expected.get(run)).setProperties(Collections.emptyMap()).build(),
+                            summary);
+        Assert.assertTrue(summary.getSystemArgs().isEmpty());
+        Assert.assertTrue(summary.getUserArgs().isEmpty());
+      }
+      Assert.assertEquals(2, store.getActiveRuns(NamespaceId.DEFAULT).size());
+
+      // A run record in JSON form is written in the binary form on its next update
+      store.setBinaryRunRecordEncoding(true);
+      store.recordProgramStop(runs.get(1), RunIds.getTime(runs.get(1).getRun(), TimeUnit.SECONDS) + 10,
+                              ProgramRunStatus.COMPLETED, null,
+                              AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS);
+      Map<ProgramRunId, String> encodings = new HashMap<>();
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          String data = iterator.next().getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+          RunRecordDetail record = RunRecordDetailCodec.decode(data, program, RunRecordProjection.SUMMARY);
+          encodings.put(record.getProgramRunId(), data.substring(0, 1));
+        }
+      }
+      Assert.assertEquals(ImmutableMap.of(runs.get(0), "#", runs.get(1), "#", runs.get(2), "#", runs.get(3), "{"),
+                          encodings);
+
+      AppMetadataStore store = AppMetadataStore.create(context);
+      Assert.assertEquals(ProgramRunStatus.COMPLETED, store.getRun(runs.get(1)).getStatus());
+      Assert.assertEquals(runtimeArgs, store.getRun(runs.get(1)).getUserArgs());
+      Assert.assertEquals(1, store.getActiveRuns(NamespaceId.DEFAULT).size());
+    });
+  }
+
+  @Test
+  public void testJsonRunRecordEncodingByDefault() {
+    ProgramRunId run = NamespaceId.DEFAULT.app("jsonApp").workflow("program")
+      .run(RunIds.generate(runIdTime.incrementAndGet() * 1000));
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      store.recordProgramProvisioning(run, ImmutableMap.of("key", "value"), SINGLETON_PROFILE_MAP,
+                                      AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()), ARTIFACT_ID);
+    });
+
+    // Run records are written as JSON unless the binary encoding is enabled, so that older releases can read them
+    TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS);
+      int count = 0;
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          String data = iterator.next().getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+          RunRecordDetail record = RunRecordDetailCodec.decode(data, run.getParent(), RunRecordProjection.SUMMARY);
+          if (run.equals(record.getProgramRunId())) {
+            Assert.assertTrue(data.startsWith("{"));
+            count++;
+          }
+        }
+      }
+      Assert.assertEquals(1, count);
+      Assert.assertEquals(ImmutableMap.of("key", "value"), AppMetadataStore.create(context).getRun(run).getUserArgs());
+    });
+  }
+
   private List<ProgramRunId> addProgramCount(ProgramId programId, int count) throws Exception {
     List<ProgramRunId> runIds = new ArrayList<>();
     for (int i = 0; i < count; i++) {
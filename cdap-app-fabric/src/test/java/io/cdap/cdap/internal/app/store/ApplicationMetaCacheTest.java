@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import io.cdap.cdap.internal.app.DefaultApplicationSpecification;
+import io.cdap.cdap.internal.schedule.ScheduleCreationSpec;
+import io.cdap.cdap.internal.schedule.constraint.Constraint;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Unit tests for {@link ApplicationMetaCache}.
+ */
+public class ApplicationMetaCacheTest {
+
+  @Test
+  public void testValidation() {
+    ApplicationMetaCache cache = new ApplicationMetaCache(1024, null);
+    AtomicInteger decodeCount = new AtomicInteger();
+    Function<String, ApplicationMeta> decoder = s -> {
+      decodeCount.incrementAndGet();
+      return new ApplicationMeta(s, null);
+    };
+
+    ApplicationId appId = NamespaceId.DEFAULT.app("app");
+    ApplicationMeta meta = cache.get(appId, "v1", decoder);
+    Assert.assertEquals("v1", meta.getId());
+    Assert.assertSame(meta, cache.get(appId, "v1", decoder));
+    Assert.assertEquals(1, decodeCount.get());
+
+    // A different serialized form must not be served from the cache
+    Assert.assertEquals("v2", cache.get(appId, "v2", decoder).getId());
+    Assert.assertEquals(2, decodeCount.get());
+    Assert.assertEquals(1L, cache.getHitCount());
+    Assert.assertEquals(2L, cache.getMissCount());
+  }
+
+  @Test
+  public void testInvalidation() {
+    ApplicationMetaCache cache = new ApplicationMetaCache(1024, null);
+    AtomicInteger decodeCount = new AtomicInteger();
+    Function<String, ApplicationMeta> decoder = s -> {
+      decodeCount.incrementAndGet();
+      return new ApplicationMeta(s, null);
+    };
+
+    ApplicationId app1 = NamespaceId.DEFAULT.app("app1");
+    ApplicationId app2 = NamespaceId.DEFAULT.app("app2");
+    ApplicationId app3 = new NamespaceId("ns").app("app3");
+    cache.get(app1, "app1", decoder);
+    cache.get(app2, "app2", decoder);
+    cache.get(app3, "app3", decoder);
+    Assert.assertEquals(3, decodeCount.get());
+
+    cache.invalidate(app1);
+    cache.get(app1, "app1", decoder);
+    cache.get(app2, "app2", decoder);
+    Assert.assertEquals(4, decodeCount.get());
+
+    cache.invalidateNamespace(NamespaceId.DEFAULT.getNamespace());
+    cache.get(app1, "app1", decoder);
+    cache.get(app2, "app2", decoder);
+    cache.get(app3, "app3", decoder);
+    Assert.assertEquals(6, decodeCount.get());
+  }
+
+  @Test
+  public void testImmutable() {
+    ApplicationMetaCache cache = new ApplicationMetaCache(1024, null);
+    Map<String, String> properties = new HashMap<>();
+    properties.put("key", "value");
+    ScheduleCreationSpec schedule = new ScheduleCreationSpec("schedule", "", "workflow", properties, null,
+                                                             new ArrayList<Constraint>(), 1000L);
+    Function<String, ApplicationMeta> decoder = s -> new ApplicationMeta(s, new DefaultApplicationSpecification(
+      "app", "1.0", null, "", null, null, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+      Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+      Collections.singletonMap("schedule", schedule), Collections.emptyMap(), Collections.emptyMap()));
+
+    // The instance shared by all callers cannot be modified
+    ApplicationMeta meta = cache.get(NamespaceId.DEFAULT.app("app"), "v1", decoder);
+    ScheduleCreationSpec cached = meta.getSpec().getProgramSchedules().get("schedule");
+    Assert.assertEquals(properties, cached.getProperties());
+    try {
+      cached.getProperties().put("key", "other");
+      Assert.fail("Expected the cached properties to be immutable");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      meta.getSpec().getProgramSchedules().clear();
+      Assert.fail("Expected the cached schedules to be immutable");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    Assert.assertSame(meta, cache.get(NamespaceId.DEFAULT.app("app"), "v1", decoder));
+  }
+}
@@ -144,6 +144,9 @@ public abstract class RemotePrivilegesTestBase {
     accessEnforcer.enforce(APP, ALICE, StandardPermission.UPDATE);
     accessEnforcer.enforce(PROGRAM, ALICE, ApplicationPermission.EXECUTE);
     accessEnforcer.enforceOnParent(EntityType.PROFILE, NS, ALICE, StandardPermission.LIST);
+    accessEnforcer.enforceAll(ImmutableSet.of(NS, APP), ALICE, Collections.singleton(StandardPermission.UPDATE));
+    assertUnauthorized(() -> accessEnforcer.enforceAll(ImmutableSet.of(NS, APP), ALICE,
+                                                       Collections.singleton(StandardPermission.DELETE)));
     assertUnauthorized(() -> accessEnforcer.enforce(NS, BOB, StandardPermission.UPDATE));
     assertUnauthorized(() -> accessEnforcer.enforceOnParent(EntityType.PROFILE, NS, BOB, StandardPermission.LIST));
     assertUnauthorized(() -> accessEnforcer.enforceOnParent(EntityType.PROFILE, NS, ALICE, StandardPermission.CREATE));
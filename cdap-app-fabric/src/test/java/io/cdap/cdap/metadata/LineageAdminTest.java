@@ -28,6 +28,8 @@ import io.cdap.cdap.api.workflow.WorkflowNode;
 import io.cdap.cdap.api.workflow.WorkflowSpecification;
 import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.utils.ProjectInfo;
 import io.cdap.cdap.data2.metadata.lineage.AccessType;
 import io.cdap.cdap.data2.metadata.lineage.DefaultLineageStoreReader;
@@ -58,6 +60,7 @@ import org.junit.Test;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -606,6 +609,68 @@ public class LineageAdminTest extends AppFabricTestBase {
                                                     System.currentTimeMillis() + 10000, 100));
   }
 
+  @Test
+  public void testBatchedLineageWithCache() {
+    TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
+    LineageStoreReader lineageReader = new DefaultLineageStoreReader(transactionRunner);
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner);
+    Store store = getInjector().getInstance(Store.class);
+
+    // Use small batches so that every level of the lineage graph is read in multiple batches
+    CConfiguration cConf = CConfiguration.copy(getInjector().getInstance(CConfiguration.class));
+    cConf.setInt(Constants.Metadata.LINEAGE_BATCH_SIZE, 3);
+    cConf.setInt(Constants.Metadata.LINEAGE_MAX_THREADS, 2);
+    cConf.setLong(Constants.Metadata.LINEAGE_CACHE_SIZE, 10L);
+    cConf.setLong(Constants.Metadata.LINEAGE_CACHE_EXPIRY_SECONDS, 600L);
+    LineageAdmin lineageAdmin = new LineageAdmin(cConf, lineageReader, store);
+
+    // Ten programs read the source dataset and each writes an intermediate dataset,
+    // which are all read by one program that writes the target dataset
+    DatasetId source = new DatasetId("default", "source");
+    DatasetId target = new DatasetId("default", "target");
+    ProgramRunId joinRun = new ProgramId("default", "join", ProgramType.SPARK, "join")
+      .run(RunIds.generate(System.currentTimeMillis()).getId());
+    addRuns(store, joinRun);
+    lineageWriter.addAccess(joinRun, target, AccessType.WRITE);
+    Set<Relation> relations = new HashSet<>();
+    relations.add(new Relation(target, joinRun.getParent(), AccessType.WRITE, twillRunId(joinRun)));
+    for (int i = 0; i < 10; i++) {
+      DatasetId intermediate = new DatasetId("default", "intermediate" + i);
+      ProgramRunId run = new ProgramId("default", "app" + i, ProgramType.MAPREDUCE, "mr" + i)
+        .run(RunIds.generate(System.currentTimeMillis()).getId());
+      addRuns(store, run);
+      lineageWriter.addAccess(run, source, AccessType.READ);
+      lineageWriter.addAccess(run, intermediate, AccessType.WRITE);
+      lineageWriter.addAccess(joinRun, intermediate, AccessType.READ);
+      relations.add(new Relation(source, run.getParent(), AccessType.READ, twillRunId(run)));
+      relations.add(new Relation(intermediate, run.getParent(), AccessType.WRITE, twillRunId(run)));
+      relations.add(new Relation(intermediate, joinRun.getParent(), AccessType.READ, twillRunId(joinRun)));
+    }
+
+    // Align the end of the window to the cache granularity
+    long granularity = TimeUnit.SECONDS.toMillis(600L);
+    long endMillis = ((System.currentTimeMillis() + 10000) / granularity + 1) * granularity;
+    Lineage expectedLineage = new Lineage(relations);
+    Assert.assertEquals(expectedLineage, lineageAdmin.computeLineage(target, 500, endMillis, 100));
+    Assert.assertEquals(expectedLineage, lineageAdmin.computeLineage(source, 500, endMillis, 100));
+    // The result is the same as reading each level in one batch
+    Assert.assertEquals(expectedLineage,
+                        new LineageAdmin(lineageReader, store).computeLineage(target, 500, endMillis, 100));
+
+    // A new access in the same time window is not seen in the cached result
+    ProgramRunId lateRun = new ProgramId("default", "late", ProgramType.SPARK, "late")
+      .run(RunIds.generate(System.currentTimeMillis()).getId());
+    addRuns(store, lateRun);
+    lineageWriter.addAccess(lateRun, target, AccessType.READ);
+    Relation lateRelation = new Relation(target, lateRun.getParent(), AccessType.READ, twillRunId(lateRun));
+    Assert.assertEquals(expectedLineage, lineageAdmin.computeLineage(target, 500, endMillis, 100));
+    // Windows that round to the same granularity share the cached result
+    Assert.assertEquals(expectedLineage, lineageAdmin.computeLineage(target, 501, endMillis - 1, 100));
+
+    // Lineage for different levels is computed and cached separately
+    Assert.assertTrue(lineageAdmin.computeLineage(target, 500, endMillis, 99).getRelations().contains(lateRelation));
+  }
+
   @Test
   public void testScanRange() {
     Set<RunId> runIds = ImmutableSet.of(
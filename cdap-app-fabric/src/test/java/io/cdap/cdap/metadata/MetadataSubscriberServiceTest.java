@@ -19,6 +19,9 @@ package io.cdap.cdap.metadata;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.PrivateModule;
@@ -44,10 +47,12 @@ import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.service.RetryStrategyType;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.config.PreferencesService;
 import io.cdap.cdap.data2.metadata.lineage.AccessType;
 import io.cdap.cdap.data2.metadata.lineage.LineageStoreReader;
+import io.cdap.cdap.data2.metadata.lineage.LineageTable;
 import io.cdap.cdap.data2.metadata.lineage.field.EndPointField;
 import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageInfo;
 import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageReader;
@@ -55,11 +60,14 @@ import io.cdap.cdap.data2.metadata.writer.FieldLineageWriter;
 import io.cdap.cdap.data2.metadata.writer.LineageWriter;
 import io.cdap.cdap.data2.metadata.writer.MessagingLineageWriter;
 import io.cdap.cdap.data2.metadata.writer.MessagingMetadataPublisher;
+import io.cdap.cdap.data2.metadata.writer.MetadataMessage;
 import io.cdap.cdap.data2.metadata.writer.MetadataOperation;
 import io.cdap.cdap.data2.metadata.writer.MetadataPublisher;
 import io.cdap.cdap.data2.registry.MessagingUsageWriter;
 import io.cdap.cdap.data2.registry.UsageRegistry;
+import io.cdap.cdap.data2.registry.UsageTable;
 import io.cdap.cdap.data2.registry.UsageWriter;
+import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.deploy.Specifications;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramSchedule;
@@ -93,6 +101,10 @@ import io.cdap.cdap.proto.id.WorkflowId;
 import io.cdap.cdap.proto.metadata.lineage.ProgramRunOperations;
 import io.cdap.cdap.proto.profile.Profile;
 import io.cdap.cdap.scheduler.ProgramScheduleService;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.StructuredTableContext;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import io.cdap.cdap.spi.metadata.Metadata;
 import io.cdap.cdap.spi.metadata.MetadataConstants;
 import io.cdap.cdap.spi.metadata.MetadataMutation;
@@ -106,6 +118,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -117,6 +131,8 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 
 /**
@@ -124,6 +140,9 @@ import javax.annotation.Nullable;
  */
 public class MetadataSubscriberServiceTest extends AppFabricTestBase {
 
+  private static final Gson GSON = new Gson();
+  private static final Gson APP_SPEC_GSON = ApplicationSpecificationAdapter.addTypeAdapters(new GsonBuilder()).create();
+
   private final DatasetId dataset1 = NamespaceId.DEFAULT.dataset("dataset1");
   private final DatasetId dataset2 = NamespaceId.DEFAULT.dataset("dataset2");
   private final DatasetId dataset3 = NamespaceId.DEFAULT.dataset("dataset3");
@@ -417,6 +436,61 @@ public class MetadataSubscriberServiceTest extends AppFabricTestBase {
     waitForMetadata(entity, metadataStorage, 0, 0);
   }
 
+  @Test
+  public void testBatchedMetadataOrderAcrossProfileMessage() throws Exception {
+    ApplicationSpecification appSpec = Specifications.from(new AppWithWorkflow());
+    ApplicationId appId = NamespaceId.DEFAULT.app("OrderingApp");
+    MetadataEntity workflowEntity = appId.workflow("SampleWorkflow").toMetadataEntity();
+    MetadataStorage mds = getInjector().getInstance(MetadataStorage.class);
+
+    // The profile is set before the application deletion removes it, and another property is set after it.
+    // All updates of the workflow are processed in one fetch.
+    List<MetadataMessage> messages = Arrays.asList(
+      createOperationMessage(new MetadataOperation.Put(workflowEntity, MetadataScope.SYSTEM,
+                                                       ImmutableMap.of("profile", "USER:MyProfile"),
+                                                       Collections.emptySet())),
+      createOperationMessage(new MetadataOperation.Put(workflowEntity, ImmutableMap.of("user", "value"),
+                                                       Collections.emptySet())),
+      new MetadataMessage(MetadataMessage.Type.ENTITY_DELETION, appId, APP_SPEC_GSON.toJsonTree(appSpec)),
+      createOperationMessage(new MetadataOperation.Put(workflowEntity, MetadataScope.SYSTEM,
+                                                       ImmutableMap.of("key", "value"), Collections.emptySet())));
+    try {
+      processMessages(messages, context -> context);
+
+      Metadata metadata = mds.read(new Read(workflowEntity));
+      Assert.assertEquals(ImmutableMap.of("key", "value"), metadata.getProperties(MetadataScope.SYSTEM));
+      Assert.assertEquals(ImmutableMap.of("user", "value"), metadata.getProperties(MetadataScope.USER));
+    } finally {
+      mds.apply(new MetadataMutation.Drop(workflowEntity), MutationOptions.DEFAULT);
+    }
+  }
+
+  @Test
+  public void testBatchedLineageAndUsage() throws Exception {
+    ProgramId service2 = NamespaceId.DEFAULT.app("app4").program(ProgramType.SERVICE, "service2");
+    ProgramRunId run = service2.run(RunIds.generate());
+    List<MetadataMessage> messages = Arrays.asList(
+      createLineageMessage(run, dataset1, AccessType.READ, 1000L),
+      createUsageMessage(service2, dataset1),
+      createLineageMessage(run, dataset2, AccessType.WRITE, 1500L),
+      createLineageMessage(run, dataset1, AccessType.READ, 2000L),
+      createUsageMessage(service2, dataset1),
+      createUsageMessage(service2, dataset2));
+
+    // Count the rows written, each access is written to the dataset and the program index of the lineage table
+    AtomicInteger upserts = new AtomicInteger();
+    processMessages(messages, context -> tableId -> countUpserts(context.getTable(tableId), upserts));
+    Assert.assertEquals(2 * 2 + 2, upserts.get());
+
+    // Duplicate accesses keep the access time of the last message
+    TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
+    TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertEquals(ImmutableSet.of(1500L, 2000L),
+                          new HashSet<>(LineageTable.create(context).getAccessTimesForRun(run)));
+      Assert.assertEquals(ImmutableSet.of(dataset1, dataset2), new UsageTable(context).getDatasets(service2));
+    });
+  }
+
   @Test
   public void testProfileMetadata() throws Exception {
     Injector injector = getInjector();
@@ -613,6 +687,56 @@ public class MetadataSubscriberServiceTest extends AppFabricTestBase {
     }
   }
 
+  private void processMessages(List<MetadataMessage> messages,
+                               Function<StructuredTableContext, StructuredTableContext> contextFunction) {
+    MetadataSubscriberService subscriber = getInjector().getInstance(MetadataSubscriberService.class);
+    TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
+    TransactionRunners.run(transactionRunner, context -> {
+      List<ImmutablePair<String, MetadataMessage>> messagesWithIds = new ArrayList<>();
+      for (MetadataMessage message : messages) {
+        messagesWithIds.add(ImmutablePair.of(Integer.toString(messagesWithIds.size()), message));
+      }
+      subscriber.processMessages(contextFunction.apply(context), messagesWithIds.iterator());
+    });
+  }
+
+  private MetadataMessage createOperationMessage(MetadataOperation operation) {
+    return new MetadataMessage(MetadataMessage.Type.METADATA_OPERATION, NamespaceId.SYSTEM,
+                               GSON.toJsonTree(operation));
+  }
+
+  private MetadataMessage createLineageMessage(ProgramRunId run, DatasetId datasetId,
+                                               AccessType accessType, long accessTime) {
+    JsonObject lineage = new JsonObject();
+    lineage.addProperty("accessTime", accessTime);
+    lineage.addProperty("accessType", accessType.name());
+    lineage.add("datasetId", GSON.toJsonTree(datasetId));
+    return new MetadataMessage(MetadataMessage.Type.LINEAGE, run, lineage);
+  }
+
+  private MetadataMessage createUsageMessage(ProgramId programId, DatasetId datasetId) {
+    JsonObject usage = new JsonObject();
+    usage.add("datasetId", GSON.toJsonTree(datasetId));
+    return new MetadataMessage(MetadataMessage.Type.USAGE, programId, usage);
+  }
+
+  /**
+   * Returns a {@link StructuredTable} that counts the upsert calls to the given table.
+   */
+  private static StructuredTable countUpserts(StructuredTable table, AtomicInteger upserts) {
+    return (StructuredTable) Proxy.newProxyInstance(
+      StructuredTable.class.getClassLoader(), new Class<?>[] { StructuredTable.class }, (proxy, method, args) -> {
+        if ("upsert".equals(method.getName())) {
+          upserts.incrementAndGet();
+        }
+        try {
+          return method.invoke(table, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      });
+  }
+
   @Nullable
   private String getProfileProperty(MetadataStorage mds, NamespacedEntityId workflowId) throws IOException {
     return mds.read(new Read(workflowId.toMetadataEntity()))
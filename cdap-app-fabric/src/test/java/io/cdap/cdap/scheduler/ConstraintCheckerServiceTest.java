@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Scopes;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.dataset.lib.PartitionKey;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.LocalLocationModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.namespace.InMemoryNamespaceAdmin;
+import io.cdap.cdap.common.namespace.NamespaceQueryAdmin;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.data.runtime.StorageModule;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.data2.dataset2.DatasetDefinitionRegistryFactory;
+import io.cdap.cdap.data2.dataset2.DatasetFramework;
+import io.cdap.cdap.data2.dataset2.DefaultDatasetDefinitionRegistryFactory;
+import io.cdap.cdap.data2.dataset2.InMemoryDatasetFramework;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramSchedule;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleMeta;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleStatus;
+import io.cdap.cdap.internal.app.runtime.schedule.constraint.DelayConstraint;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.Job;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobKey;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
+import io.cdap.cdap.internal.app.runtime.schedule.trigger.PartitionTrigger;
+import io.cdap.cdap.internal.schedule.constraint.Constraint;
+import io.cdap.cdap.proto.Notification;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.WorkflowId;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.TableAlreadyExistsException;
+import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.TransactionSystemClient;
+import org.apache.tephra.inmemory.InMemoryTxSystemClient;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link ConstraintCheckerService}.
+ */
+public class ConstraintCheckerServiceTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static final WorkflowId WORKFLOW_ID = NamespaceId.DEFAULT.app("app").workflow("wf");
+  private static final DatasetId DATASET_ID = NamespaceId.DEFAULT.dataset("pfs");
+  private static final long LONG_SCAN_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static TransactionManager txManager;
+  private static CConfiguration cConf;
+  private static TransactionRunner transactionRunner;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException, TableAlreadyExistsException {
+    cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
+    cConf.set(Constants.Dataset.DATA_STORAGE_IMPLEMENTATION, Constants.Dataset.DATA_STORAGE_NOSQL);
+    cConf.setInt(Constants.Scheduler.JOB_QUEUE_NUM_PARTITIONS, 1);
+
+    txManager = new TransactionManager(new Configuration());
+    txManager.startAndWait();
+
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      new LocalLocationModule(),
+      new SystemDatasetRuntimeModule().getInMemoryModules(),
+      new StorageModule(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(DatasetDefinitionRegistryFactory.class)
+            .to(DefaultDatasetDefinitionRegistryFactory.class).in(Scopes.SINGLETON);
+          bind(DatasetFramework.class).to(InMemoryDatasetFramework.class);
+          bind(NamespaceQueryAdmin.class).to(InMemoryNamespaceAdmin.class).in(Scopes.SINGLETON);
+          bind(TransactionSystemClient.class).toInstance(new InMemoryTxSystemClient(txManager));
+          bind(MetricsCollectionService.class).to(NoOpMetricsCollectionService.class).in(Scopes.SINGLETON);
+        }
+      }
+    );
+
+    injector.getInstance(StructuredTableRegistry.class).initialize();
+    StructuredTableAdmin tableAdmin = injector.getInstance(StructuredTableAdmin.class);
+    transactionRunner = injector.getInstance(TransactionRunner.class);
+
+    StoreDefinition.JobQueueStore.createTables(tableAdmin, false);
+    StoreDefinition.AppMetadataStore.createTables(tableAdmin, false);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    txManager.stopAndWait();
+  }
+
+  @After
+  public void tearDown() {
+    TransactionRunners.run(transactionRunner, context -> {
+      JobQueueTable jobQueue = JobQueueTable.getJobQueue(context, cConf);
+      try (CloseableIterator<Job> iterator = jobQueue.fullScan()) {
+        while (iterator.hasNext()) {
+          jobQueue.deleteJob(iterator.next());
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testCheckOnJobQueueChange() throws Exception {
+    TestConstraintCheckerService service = createService(LONG_SCAN_INTERVAL_MILLIS);
+    service.startAndWait();
+    try {
+      // A job that is ready is launched as soon as the checker is notified of the job queue change
+      JobKey jobKey = addJob("schedule1", Collections.emptyList());
+      service.jobQueueChanged();
+      Assert.assertEquals(jobKey, service.launched.poll(10, TimeUnit.SECONDS));
+
+      // Without a notification, the job queue is not scanned again before the full scan interval elapses
+      jobKey = addJob("schedule2", Collections.emptyList());
+      Assert.assertNull(service.launched.poll(2, TimeUnit.SECONDS));
+      service.jobQueueChanged();
+      Assert.assertEquals(jobKey, service.launched.poll(10, TimeUnit.SECONDS));
+      waitForEmptyJobQueue();
+    } finally {
+      service.stopAndWait();
+    }
+  }
+
+  @Test
+  public void testFullScan() throws Exception {
+    TestConstraintCheckerService service = createService(500L);
+    service.startAndWait();
+    try {
+      // A job that won't be ready for an hour is kept pending
+      JobKey pendingJobKey = addJob("schedule1",
+                                    Collections.singletonList(new DelayConstraint(1, TimeUnit.HOURS)));
+      service.jobQueueChanged();
+      Assert.assertNull(service.launched.poll(2, TimeUnit.SECONDS));
+      Assert.assertEquals(1, getAllJobs().size());
+
+      // Deletion of the schedule is picked up by the periodic full scan without any notification
+      TransactionRunners.run(transactionRunner, context -> {
+        JobQueueTable.getJobQueue(context, cConf).markJobsForDeletion(pendingJobKey.getScheduleId(),
+                                                                      System.currentTimeMillis());
+      });
+      waitForEmptyJobQueue();
+
+      // So is a new job
+      JobKey jobKey = addJob("schedule2", Collections.emptyList());
+      Assert.assertEquals(jobKey, service.launched.poll(10, TimeUnit.SECONDS));
+      Assert.assertNull(service.launched.poll(1, TimeUnit.SECONDS));
+    } finally {
+      service.stopAndWait();
+    }
+  }
+
+  @Test
+  public void testRestart() throws Exception {
+    TestConstraintCheckerService service = createService(LONG_SCAN_INTERVAL_MILLIS);
+    service.startAndWait();
+    JobKey jobKey;
+    try {
+      jobKey = addJob("schedule1", Collections.singletonList(new DelayConstraint(3, TimeUnit.SECONDS)));
+      service.jobQueueChanged();
+    } finally {
+      service.stopAndWait();
+    }
+    Assert.assertTrue(service.launched.isEmpty());
+
+    // The pending state of the job is rebuilt by the first scan of a new service, hence the job is launched when
+    // the delay has passed without any notification
+    TestConstraintCheckerService newService = createService(LONG_SCAN_INTERVAL_MILLIS);
+    newService.startAndWait();
+    try {
+      Assert.assertEquals(jobKey, newService.launched.poll(10, TimeUnit.SECONDS));
+      waitForEmptyJobQueue();
+    } finally {
+      newService.stopAndWait();
+    }
+  }
+
+  private TestConstraintCheckerService createService(long fullScanIntervalMillis) {
+    CConfiguration serviceConf = CConfiguration.copy(cConf);
+    serviceConf.setLong(Constants.Scheduler.JOB_QUEUE_FULL_SCAN_INTERVAL_MILLIS, fullScanIntervalMillis);
+    return new TestConstraintCheckerService(serviceConf);
+  }
+
+  /**
+   * Adds a job to the job queue that satisfies its trigger, hence is pending on the given constraints.
+   */
+  private JobKey addJob(String scheduleName, List<? extends Constraint> constraints) {
+    ProgramSchedule schedule = new ProgramSchedule(scheduleName, "", WORKFLOW_ID, ImmutableMap.of(),
+                                                   new PartitionTrigger(DATASET_ID, 1), constraints);
+    PartitionKey partitionKey = PartitionKey.builder().addIntField("part1", 1).build();
+    TransactionRunners.run(transactionRunner, context -> {
+      JobQueueTable.getJobQueue(context, cConf).addNotification(
+        new ProgramScheduleRecord(schedule, new ProgramScheduleMeta(ProgramScheduleStatus.SCHEDULED, 0L)),
+        Notification.forPartitions(DATASET_ID, ImmutableList.of(partitionKey)));
+    });
+    List<Job> jobs = getAllJobs();
+    Job job = jobs.stream().filter(j -> j.getSchedule().getName().equals(scheduleName)).findFirst().orElse(null);
+    Assert.assertNotNull(job);
+    Assert.assertEquals(Job.State.PENDING_CONSTRAINT, job.getState());
+    return job.getJobKey();
+  }
+
+  private void waitForEmptyJobQueue() throws Exception {
+    Tasks.waitFor(true, () -> getAllJobs().isEmpty(), 10, TimeUnit.SECONDS);
+  }
+
+  private List<Job> getAllJobs() {
+    return TransactionRunners.run(transactionRunner, context -> {
+      try (CloseableIterator<Job> iterator = JobQueueTable.getJobQueue(context, cConf).fullScan()) {
+        return Lists.newArrayList(iterator);
+      }
+    });
+  }
+
+  /**
+   * A {@link ConstraintCheckerService} that records the jobs being launched instead of launching the programs.
+   */
+  private static final class TestConstraintCheckerService extends ConstraintCheckerService {
+
+    private final BlockingQueue<JobKey> launched = new LinkedBlockingQueue<>();
+
+    TestConstraintCheckerService(CConfiguration cConf) {
+      super(null, null, null, null, cConf, transactionRunner);
+    }
+
+    @Override
+    void launch(Job job) {
+      launched.add(job.getJobKey());
+    }
+  }
+}
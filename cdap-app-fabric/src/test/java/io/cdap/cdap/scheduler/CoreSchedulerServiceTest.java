@@ -18,6 +18,7 @@ package io.cdap.cdap.scheduler;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Service;
@@ -57,10 +58,12 @@ import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.internal.app.runtime.SimpleProgramOptions;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramSchedule;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleStatus;
 import io.cdap.cdap.internal.app.runtime.schedule.TriggeringScheduleInfoAdapter;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.Job;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
+import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.PartitionTrigger;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.TimeTrigger;
 import io.cdap.cdap.internal.app.services.http.AppFabricTestBase;
@@ -99,10 +102,13 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.TemporaryFolder;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 public class CoreSchedulerServiceTest extends AppFabricTestBase {
@@ -152,7 +158,15 @@ public class CoreSchedulerServiceTest extends AppFabricTestBase {
   private static TransactionRunner transactionRunner;
 
   @BeforeClass
-  public static void setup() {
+  public static void beforeClass() throws Throwable {
+    initializeAndStartServices(createBasicCConf());
+    setup();
+  }
+
+  /**
+   * Starts the scheduler after the services are started.
+   */
+  protected static void setup() {
     cConf = getInjector().getInstance(CConfiguration.class);
     scheduler = getInjector().getInstance(Scheduler.class);
     if (scheduler instanceof Service) {
@@ -256,6 +270,65 @@ public class CoreSchedulerServiceTest extends AppFabricTestBase {
     Assert.assertEquals(ImmutableList.of(psched2), scheduler.listSchedules(PROG2_ID));
   }
 
+  @Test
+  public void testFindSchedules() throws Exception {
+    DatasetId ds1Id = NS_ID.dataset("findds1");
+    DatasetId ds2Id = NS_ID.dataset("findds2");
+    String ds1Key = Schedulers.triggerKeyForPartition(ds1Id);
+    String ds2Key = Schedulers.triggerKeyForPartition(ds2Id);
+    ProgramSchedule fsched1 = new ProgramSchedule("fsched1", "partition schedule", PROG1_ID, Collections.emptyMap(),
+                                                  new PartitionTrigger(ds1Id, 1), Collections.emptyList());
+    ProgramSchedule fsched2 = new ProgramSchedule("fsched2", "partition schedule", PROG2_ID, Collections.emptyMap(),
+                                                  new PartitionTrigger(ds1Id, 2), Collections.emptyList());
+    scheduler.addSchedules(ImmutableList.of(fsched1, fsched2));
+    assertFindSchedules(ds1Key, fsched1, fsched2);
+    assertFindSchedules(ds2Key);
+
+    // Changing the trigger of a schedule moves it to the new trigger key
+    ProgramSchedule updated = new ProgramSchedule("fsched2", "partition schedule", PROG2_ID, Collections.emptyMap(),
+                                                  new PartitionTrigger(ds2Id, 1), Collections.emptyList());
+    scheduler.updateSchedule(updated);
+    assertFindSchedules(ds1Key, fsched1);
+    assertFindSchedules(ds2Key, updated);
+
+    // The schedule status is part of the records found
+    scheduler.enableSchedule(fsched1.getScheduleId());
+    Assert.assertEquals(ProgramScheduleStatus.SCHEDULED,
+                        Iterables.getOnlyElement(scheduler.findSchedules(ds1Key)).getMeta().getStatus());
+    scheduler.disableSchedule(fsched1.getScheduleId());
+    Assert.assertEquals(ProgramScheduleStatus.SUSPENDED,
+                        Iterables.getOnlyElement(scheduler.findSchedules(ds1Key)).getMeta().getStatus());
+
+    scheduler.deleteSchedule(fsched1.getScheduleId());
+    assertFindSchedules(ds1Key);
+    scheduler.deleteSchedules(APP2_ID);
+    assertFindSchedules(ds2Key);
+  }
+
+  /**
+   * Asserts that the scheduler finds the given schedules for the trigger key, and that the trigger index serves
+   * the lookup if it is enabled.
+   */
+  private void assertFindSchedules(String triggerKey, ProgramSchedule... expected) throws Exception {
+    Set<ProgramSchedule> expectedSchedules = ImmutableSet.copyOf(expected);
+    Assert.assertEquals(expectedSchedules, toSchedules(scheduler.findSchedules(triggerKey)));
+
+    ScheduleTriggerIndex triggerIndex = getInjector().getInstance(ScheduleTriggerIndex.class);
+    if (cConf.getBoolean(Constants.Scheduler.TRIGGER_INDEX_ENABLED)) {
+      // The index is loaded in the background after the scheduler starts
+      Tasks.waitFor(expectedSchedules, () -> {
+        Collection<ProgramScheduleRecord> records = triggerIndex.findSchedules(triggerKey);
+        return records == null ? null : toSchedules(records);
+      }, 10, TimeUnit.SECONDS);
+    } else {
+      Assert.assertNull(triggerIndex.findSchedules(triggerKey));
+    }
+  }
+
+  private static Set<ProgramSchedule> toSchedules(Collection<ProgramScheduleRecord> records) {
+    return records.stream().map(ProgramScheduleRecord::getSchedule).collect(Collectors.toSet());
+  }
+
   private static void verifyNotFound(Scheduler scheduler, ScheduleId scheduleId) {
     try {
       scheduler.getSchedule(scheduleId);
@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.junit.BeforeClass;
+
+/**
+ * Runs the {@link CoreSchedulerServiceTest} with the in-memory {@link ScheduleTriggerIndex} disabled, so that
+ * schedules are always looked up from the schedule store.
+ */
+public class CoreSchedulerServiceWithoutTriggerIndexTest extends CoreSchedulerServiceTest {
+
+  @BeforeClass
+  public static void beforeClass() throws Throwable {
+    CConfiguration cConf = createBasicCConf();
+    cConf.setBoolean(Constants.Scheduler.TRIGGER_INDEX_ENABLED, false);
+    initializeAndStartServices(cConf);
+    setup();
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.ProgramStatus;
+import io.cdap.cdap.api.schedule.Trigger;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramSchedule;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
+import io.cdap.cdap.internal.app.runtime.schedule.trigger.PartitionTrigger;
+import io.cdap.cdap.internal.app.runtime.schedule.trigger.ProgramStatusTrigger;
+import io.cdap.cdap.internal.app.services.http.AppFabricTestBase;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ScheduleId;
+import io.cdap.cdap.proto.id.WorkflowId;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Tests for {@link ScheduleTriggerIndex}.
+ */
+public class ScheduleTriggerIndexTest extends AppFabricTestBase {
+
+  private static final NamespaceId NS_ID = new NamespaceId("triggerindextest");
+  private static final ApplicationId APP1_ID = NS_ID.app("app1");
+  private static final ApplicationId APP2_ID = NS_ID.app("app2");
+  private static final WorkflowId PROG1_ID = APP1_ID.workflow("wf1");
+  private static final WorkflowId PROG2_ID = APP2_ID.workflow("wf2");
+  private static final DatasetId DS1_ID = NS_ID.dataset("ds1");
+  private static final DatasetId DS2_ID = NS_ID.dataset("ds2");
+
+  private static CConfiguration cConf;
+  private static TransactionRunner transactionRunner;
+
+  @BeforeClass
+  public static void setup() {
+    cConf = CConfiguration.copy(getInjector().getInstance(CConfiguration.class));
+    transactionRunner = getInjector().getInstance(TransactionRunner.class);
+  }
+
+  @Test
+  public void testAddUpdateDelete() throws Exception {
+    ProgramSchedule sched1 = createSchedule("sched1", PROG1_ID, new PartitionTrigger(DS1_ID, 1));
+    ProgramSchedule sched2 = createSchedule("sched2", PROG2_ID, new PartitionTrigger(DS1_ID, 2));
+    ProgramSchedule sched3 = createSchedule("sched3", PROG2_ID,
+                                           new ProgramStatusTrigger(PROG1_ID, ProgramStatus.COMPLETED));
+    String ds1Key = Schedulers.triggerKeyForPartition(DS1_ID);
+    String ds2Key = Schedulers.triggerKeyForPartition(DS2_ID);
+    String prog1Key = Schedulers.triggerKeyForProgramStatus(PROG1_ID, ProgramStatus.COMPLETED);
+
+    // Schedules existing before the start are loaded in the background
+    addSchedules(null, sched1);
+    ScheduleTriggerIndex index = new ScheduleTriggerIndex(cConf, transactionRunner);
+    index.startAndWait();
+    try {
+      Tasks.waitFor(true, () -> index.findSchedules(ds1Key) != null, 10, TimeUnit.SECONDS);
+      Assert.assertEquals(ImmutableSet.of(sched1), getSchedules(index.findSchedules(ds1Key)));
+      Assert.assertEquals(Collections.emptySet(), getSchedules(index.findSchedules(ds2Key)));
+
+      // Lookups are not served while an update is in progress
+      index.beginUpdate();
+      Assert.assertNull(index.findSchedules(ds1Key));
+      try {
+        addSchedules(null, sched2, sched3);
+      } finally {
+        index.endUpdate(Arrays.asList(sched2.getScheduleId(), sched3.getScheduleId()));
+      }
+      Assert.assertEquals(ImmutableSet.of(sched1, sched2), getSchedules(index.findSchedules(ds1Key)));
+      Assert.assertEquals(ImmutableSet.of(sched3), getSchedules(index.findSchedules(prog1Key)));
+      Assert.assertEquals(ImmutableSet.of(sched1.getScheduleId()), index.getScheduleIds(APP1_ID));
+      Assert.assertEquals(ImmutableSet.of(sched2.getScheduleId(), sched3.getScheduleId()),
+                          index.getScheduleIds(APP2_ID));
+      Assert.assertEquals(ImmutableSet.of(sched3.getScheduleId()), index.getScheduleIdsTriggeredBy(PROG1_ID));
+
+      // Updating the trigger of a schedule moves it to the new trigger key
+      ProgramSchedule updatedSched2 = createSchedule("sched2", PROG2_ID, new PartitionTrigger(DS2_ID, 1));
+      index.beginUpdate();
+      try {
+        TransactionRunners.run(transactionRunner, context -> {
+          Schedulers.getScheduleStore(context).updateSchedule(updatedSched2);
+        });
+      } finally {
+        index.endUpdate(Collections.singleton(updatedSched2.getScheduleId()));
+      }
+      Assert.assertEquals(ImmutableSet.of(sched1), getSchedules(index.findSchedules(ds1Key)));
+      Assert.assertEquals(ImmutableSet.of(updatedSched2), getSchedules(index.findSchedules(ds2Key)));
+
+      // Deleted schedules are removed from all trigger keys
+      index.beginUpdate();
+      try {
+        deleteSchedules(sched1.getScheduleId(), sched3.getScheduleId());
+      } finally {
+        index.endUpdate(Arrays.asList(sched1.getScheduleId(), sched3.getScheduleId()));
+      }
+      Assert.assertEquals(Collections.emptySet(), getSchedules(index.findSchedules(ds1Key)));
+      Assert.assertEquals(Collections.emptySet(), getSchedules(index.findSchedules(prog1Key)));
+      Assert.assertEquals(ImmutableSet.of(updatedSched2), getSchedules(index.findSchedules(ds2Key)));
+      Assert.assertEquals(Collections.emptySet(), index.getScheduleIds(APP1_ID));
+      Assert.assertEquals(Collections.emptySet(), index.getScheduleIdsTriggeredBy(PROG1_ID));
+
+      // A failed update leaves the index consistent with the store
+      index.beginUpdate();
+      try {
+        addSchedules(new IllegalStateException("Rollback"), sched1);
+        Assert.fail("Expected the transaction to fail");
+      } catch (IllegalStateException e) {
+        // expected
+      } finally {
+        index.endUpdate(Collections.singleton(sched1.getScheduleId()));
+      }
+      Assert.assertEquals(Collections.emptySet(), getSchedules(index.findSchedules(ds1Key)));
+    } finally {
+      index.stopAndWait();
+      deleteSchedules(sched2.getScheduleId());
+    }
+
+    // The index is not used after it is stopped
+    Assert.assertNull(index.findSchedules(ds2Key));
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    CConfiguration disabledConf = CConfiguration.copy(cConf);
+    disabledConf.setBoolean(Constants.Scheduler.TRIGGER_INDEX_ENABLED, false);
+    ScheduleTriggerIndex index = new ScheduleTriggerIndex(disabledConf, transactionRunner);
+    index.startAndWait();
+    try {
+      ProgramSchedule sched = createSchedule("sched", PROG1_ID, new PartitionTrigger(DS1_ID, 1));
+      index.beginUpdate();
+      try {
+        addSchedules(null, sched);
+      } finally {
+        index.endUpdate(Collections.singleton(sched.getScheduleId()));
+      }
+      // Lookups always fall back to the schedule store
+      Assert.assertNull(index.findSchedules(Schedulers.triggerKeyForPartition(DS1_ID)));
+      deleteSchedules(sched.getScheduleId());
+    } finally {
+      index.stopAndWait();
+    }
+  }
+
+  private ProgramSchedule createSchedule(String name, WorkflowId programId,
+                                         Trigger trigger) {
+    return new ProgramSchedule(name, "", programId, Collections.emptyMap(), trigger, Collections.emptyList());
+  }
+
+  /**
+   * Adds the given schedules to the store. If a failure is given, it is thrown after the schedules are added to
+   * roll back the transaction.
+   */
+  private void addSchedules(@Nullable RuntimeException failure, ProgramSchedule... schedules) {
+    TransactionRunners.run(transactionRunner, context -> {
+      Schedulers.getScheduleStore(context).addSchedules(Arrays.asList(schedules));
+      if (failure != null) {
+        throw failure;
+      }
+    });
+  }
+
+  private void deleteSchedules(ScheduleId... scheduleIds) {
+    TransactionRunners.run(transactionRunner, context -> {
+      Schedulers.getScheduleStore(context).deleteSchedules(Arrays.asList(scheduleIds), null);
+    });
+  }
+
+  private Set<ProgramSchedule> getSchedules(@Nullable Collection<ProgramScheduleRecord> records) {
+    Assert.assertNotNull(records);
+    List<ProgramSchedule> schedules = records.stream()
+      .map(ProgramScheduleRecord::getSchedule)
+      .collect(Collectors.toList());
+    Set<ProgramSchedule> result = ImmutableSet.copyOf(schedules);
+    Assert.assertEquals(schedules.size(), result.size());
+    return result;
+  }
+}
@@ -91,6 +91,7 @@ import io.cdap.cdap.etl.mock.batch.aggregator.IdentityAggregator;
 import io.cdap.cdap.etl.mock.batch.joiner.MockJoiner;
 import io.cdap.cdap.etl.mock.condition.MockCondition;
 import io.cdap.cdap.etl.mock.test.HydratorTestBase;
+import io.cdap.cdap.etl.mock.transform.BatchIdentityTransform;
 import io.cdap.cdap.etl.mock.transform.DropNullTransform;
 import io.cdap.cdap.etl.mock.transform.FilterErrorTransform;
 import io.cdap.cdap.etl.mock.transform.FlattenErrorTransform;
@@ -1981,6 +1982,74 @@ public class DataPipelineTest extends HydratorTestBase {
     validateMetric(3, appId, "sink2.records.in");
   }
 
+  @Test
+  public void testMapRedBatchTransformToMultipleSinks() throws Exception {
+    testBatchTransformToMultipleSinks(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSparkBatchTransformToMultipleSinks() throws Exception {
+    testBatchTransformToMultipleSinks(Engine.SPARK);
+  }
+
+  private void testBatchTransformToMultipleSinks(Engine engine) throws Exception {
+    /*
+     *                       |--> batch --> sink1
+     * source --> identity --|
+     *                       |--> sink2
+     *
+     * With stage consolidation, batch, sink1 and sink2 are grouped together in Spark. Since the batch size is 2 and
+     * there are 3 records, the last batch of a partition is only transformed when the group is flushed.
+     */
+    File outputDir = TMP_FOLDER.newFolder();
+    String output1 = new File(outputDir, "sink1").getAbsolutePath();
+    String output2 = new File(outputDir, "sink2").getAbsolutePath();
+    Schema schema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("name", Schema.of(Schema.Type.STRING))
+    );
+    String sourceName = String.format("btInput-%s", engine);
+    String sink1Name = String.format("btOutput1-%s", engine);
+    String sink2Name = String.format("btOutput2-%s", engine);
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName, schema)))
+      .addStage(new ETLStage("identity", IdentityTransform.getPlugin()))
+      .addStage(new ETLStage("batch", BatchIdentityTransform.getPlugin(2)))
+      .addStage(new ETLStage("sink1", MockExternalSink.getPlugin(sink1Name, sink1Name, output1)))
+      .addStage(new ETLStage("sink2", MockExternalSink.getPlugin(sink2Name, sink2Name, output2)))
+      .addConnection("source", "identity")
+      .addConnection("identity", "batch")
+      .addConnection("identity", "sink2")
+      .addConnection("batch", "sink1")
+      .setEngine(engine)
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("BatchTransformApp-" + engine);
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    StructuredRecord recordSamuel = StructuredRecord.builder(schema).set("name", "samuel").build();
+    StructuredRecord recordBob = StructuredRecord.builder(schema).set("name", "bob").build();
+    StructuredRecord recordJane = StructuredRecord.builder(schema).set("name", "jane").build();
+    DataSetManager<Table> inputManager = getDataset(NamespaceId.DEFAULT.dataset(sourceName));
+    MockSource.writeInput(inputManager, ImmutableList.of(recordSamuel, recordBob, recordJane));
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    Map<String, String> args = Collections.singletonMap(io.cdap.cdap.etl.common.Constants.CONSOLIDATE_STAGES, "true");
+    workflowManager.startAndWaitForRun(args, ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    // both sinks should get all records, including the ones of partial batches
+    Set<StructuredRecord> expected = ImmutableSet.of(recordSamuel, recordBob, recordJane);
+    Assert.assertEquals(expected, Sets.newHashSet(MockExternalSink.readOutput(output1, schema)));
+    Assert.assertEquals(expected, Sets.newHashSet(MockExternalSink.readOutput(output2, schema)));
+
+    validateMetric(3, appId, "source.records.out");
+    validateMetric(3, appId, "batch.records.in");
+    validateMetric(3, appId, "batch.records.out");
+    validateMetric(3, appId, "sink1.records.in");
+    validateMetric(3, appId, "sink2.records.in");
+  }
+
   @Test
   public void testMapRedSequentialAggregators() throws Exception {
     testSequentialAggregators(Engine.MAPREDUCE);
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.List;
+
+/**
+ * Optional interface for a {@link Transform} that can transform multiple input objects at once. A transform that
+ * implements this interface is given the input objects in batches of at most {@link #getBatchSize()} objects,
+ * which allows it to amortize the cost of lookups or external calls across the whole batch.
+ *
+ * Since input objects are buffered until a batch is complete, the pipeline may call
+ * {@link #transformBatch(List, Emitter)} at a later time than the input objects were produced, and outputs of a batch
+ * are only passed to the next stage after the whole batch is transformed. The input objects of a batch are always
+ * from the same partition of the data.
+ *
+ * @param <IN> Type of input object
+ * @param <OUT> Type of output object
+ */
+@Beta
+public interface BatchTransformation<IN, OUT> {
+
+  /**
+   * The default maximum number of input objects in a batch.
+   */
+  int DEFAULT_BATCH_SIZE = 1000;
+
+  /**
+   * Transform a batch of input objects and emit output using {@link Emitter}.
+   *
+   * @param inputs the input objects to be transformed. The list is only valid during this method invocation.
+   * @param emitter {@link Emitter} to emit data to the next stage
+   * @throws Exception if there's an error during this method invocation
+   */
+  void transformBatch(List<IN> inputs, Emitter<OUT> emitter) throws Exception;
+
+  /**
+   * Returns the maximum number of input objects in a batch.
+   */
+  default int getBatchSize() {
+    return DEFAULT_BATCH_SIZE;
+  }
+}
@@ -236,6 +236,17 @@ public class ETLMapReduce extends AbstractMapReduce {
       }
     }
 
+    @Override
+    protected void cleanup(Mapper.Context context) {
+      // transform the records still buffered by batch transforms while the outputs are still open
+      try {
+        transformRunner.flush();
+      } catch (StageFailureException e) {
+        PIPELINE_LOG.error("{}", e.getMessage(), e.getCause());
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+
     @Override
     public void destroy() {
       transformRunner.destroy();
@@ -274,6 +285,17 @@ public class ETLMapReduce extends AbstractMapReduce {
       }
     }
 
+    @Override
+    protected void cleanup(Context context) {
+      // transform the records still buffered by batch transforms while the outputs are still open
+      try {
+        transformRunner.flush();
+      } catch (StageFailureException e) {
+        PIPELINE_LOG.error("{}", e.getMessage(), e.getCause());
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+
     @Override
     public void destroy() {
       transformRunner.destroy();
@@ -53,6 +53,7 @@ import io.cdap.cdap.etl.common.NoErrorEmitter;
 import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
 import io.cdap.cdap.etl.common.PipelineRuntime;
 import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.StageCounters;
 import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.common.TrackedTransform;
 import io.cdap.cdap.etl.common.TransformExecutor;
@@ -231,7 +232,8 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
                                                                            StageMetrics stageMetrics,
                                                                            DataTracer dataTracer,
                                                                            StageStatisticsCollector collector) {
-    return new TrackedTransform<>(transform, stageMetrics, Constants.Metrics.RECORDS_IN, null, dataTracer, collector);
+    return new TrackedTransform<>(transform, stageMetrics, Constants.Metrics.RECORDS_IN, null, dataTracer, collector,
+                                  StageCounters.DEFAULT_FLUSH_INTERVAL);
   }
 
   private static <IN, OUT> TrackedTransform<IN, OUT> getTrackedAggregateStep(Transformation<IN, OUT> transform,
@@ -240,14 +242,15 @@ public class MapReduceTransformExecutorFactory<T> extends TransformExecutorFacto
                                                                              StageStatisticsCollector collector) {
     // 'aggregator.groups' is the number of groups output by the aggregator
     return new TrackedTransform<>(transform, stageMetrics, Constants.Metrics.AGG_GROUPS, Constants.Metrics.RECORDS_OUT,
-                                  dataTracer, collector);
+                                  dataTracer, collector, StageCounters.DEFAULT_FLUSH_INTERVAL);
   }
 
   private static <IN, OUT> TrackedTransform<IN, OUT> getTrackedMergeStep(Transformation<IN, OUT> transform,
                                                                          StageMetrics stageMetrics,
                                                                          DataTracer dataTracer,
                                                                          StageStatisticsCollector collector) {
-    return new TrackedTransform<>(transform, stageMetrics, null, Constants.Metrics.RECORDS_OUT, dataTracer, collector);
+    return new TrackedTransform<>(transform, stageMetrics, null, Constants.Metrics.RECORDS_OUT, dataTracer, collector,
+                                  StageCounters.DEFAULT_FLUSH_INTERVAL);
   }
 
   /**
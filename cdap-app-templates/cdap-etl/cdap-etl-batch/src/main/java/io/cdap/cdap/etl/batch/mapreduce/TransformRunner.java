@@ -141,6 +141,14 @@ public class TransformRunner<KEY, VALUE> {
     transformExecutor.runOneIteration(input);
   }
 
+  /**
+   * Transforms all records that are buffered by batch transforms. This must be called after the last call to
+   * {@link #transform(Object, Object)}.
+   */
+  public void flush() {
+    transformExecutor.flush();
+  }
+
   public void destroy() {
     Destroyables.destroyQuietly(transformExecutor);
   }
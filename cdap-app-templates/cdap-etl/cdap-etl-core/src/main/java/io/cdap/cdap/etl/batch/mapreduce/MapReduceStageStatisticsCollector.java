@@ -63,6 +63,6 @@ public class MapReduceStageStatisticsCollector implements StageStatisticsCollect
 
   @Override
   public void incrementErrorRecordCount(long n) {
-    context.getCounter(Constants.StageStatistics.PREFIX, inputRecordCountKey).increment(n);
+    context.getCounter(Constants.StageStatistics.PREFIX, errorRecordCountKey).increment(n);
   }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import io.cdap.cdap.etl.api.StageMetrics;
+
+import javax.annotation.Nullable;
+
+/**
+ * Counts the records going into and out of a stage in plain fields, and emits the counts to the {@link StageMetrics}
+ * and the {@link StageStatisticsCollector} when flushed. This keeps the per record cost of metrics to a field
+ * increment, while the metrics system and the statistics collector are only called once per flush.
+ *
+ * The counts are flushed by {@link #processed(int)} once the given number of records were processed since the last
+ * flush. Counts that are not flushed yet are lost unless {@link #flush()} is called once all records are processed.
+ *
+ * This class is not thread safe. Each instance must only be used by the thread that runs the stage.
+ */
+public final class StageCounters {
+
+  /**
+   * The default number of processed records between two flushes for stages that are flushed at the end.
+   */
+  public static final int DEFAULT_FLUSH_INTERVAL = 1000;
+
+  private final StageMetrics metrics;
+  private final StageStatisticsCollector collector;
+  private final String metricInName;
+  private final String metricOutName;
+  private final boolean collectInput;
+  private final boolean collectOutput;
+  private final int flushInterval;
+  private int inputs;
+  private int outputs;
+  private int errors;
+  private int alerts;
+  private int pending;
+
+  /**
+   * Creates counters that are flushed after every {@code flushInterval} processed records.
+   *
+   * @param metrics the metrics to emit the counts to
+   * @param collector the statistics collector to emit the input, output and error counts to
+   * @param metricInName the metric name for input records, or {@code null} to not count input records
+   * @param metricOutName the metric name for output records, or {@code null} to not count output records
+   * @param flushInterval the number of processed records between two flushes, {@code 1} flushes after every record
+   */
+  public StageCounters(StageMetrics metrics, StageStatisticsCollector collector, @Nullable String metricInName,
+                       @Nullable String metricOutName, int flushInterval) {
+    this.metrics = metrics;
+    this.collector = collector;
+    this.metricInName = metricInName;
+    this.metricOutName = metricOutName;
+    this.collectInput = Constants.Metrics.RECORDS_IN.equals(metricInName);
+    this.collectOutput = Constants.Metrics.RECORDS_OUT.equals(metricOutName);
+    this.flushInterval = Math.max(1, flushInterval);
+  }
+
+  /**
+   * Returns the metric name for output records, or {@code null} if output records are not counted.
+   */
+  @Nullable
+  public String getMetricOutName() {
+    return metricOutName;
+  }
+
+  public void countInput(int count) {
+    inputs += count;
+  }
+
+  public void countOutput() {
+    outputs++;
+  }
+
+  public void countError() {
+    errors++;
+  }
+
+  public void countAlert() {
+    alerts++;
+  }
+
+  /**
+   * Marks the given number of records as processed, flushing the counts if enough records were processed since
+   * the last flush.
+   */
+  public void processed(int count) {
+    pending += count;
+    if (pending >= flushInterval) {
+      flush();
+    }
+  }
+
+  /**
+   * Emits all counts that were not emitted yet.
+   */
+  public void flush() {
+    pending = 0;
+    if (inputs > 0 && metricInName != null) {
+      metrics.count(metricInName, inputs);
+      if (collectInput) {
+        collector.incrementInputRecordCount(inputs);
+      }
+    }
+    if (outputs > 0 && metricOutName != null) {
+      metrics.count(metricOutName, outputs);
+      if (collectOutput) {
+        collector.incrementOutputRecordCount(outputs);
+      }
+    }
+    if (errors > 0) {
+      metrics.count(Constants.Metrics.RECORDS_ERROR, errors);
+      collector.incrementErrorRecordCount(errors);
+    }
+    if (alerts > 0) {
+      metrics.count(Constants.Metrics.RECORDS_ALERT, alerts);
+    }
+    inputs = 0;
+    outputs = 0;
+    errors = 0;
+    alerts = 0;
+  }
+}
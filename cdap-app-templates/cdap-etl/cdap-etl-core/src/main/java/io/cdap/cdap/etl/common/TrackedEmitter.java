@@ -30,25 +30,45 @@ import java.util.Map;
  */
 public class TrackedEmitter<T> implements Emitter<T> {
   private final Emitter<T> delegate;
-  private final StageMetrics stageMetrics;
+  private final StageCounters counters;
   private final String emitMetricName;
   private final DataTracer dataTracer;
-  private final StageStatisticsCollector collector;
+  private final boolean flushEachRecord;
 
   public TrackedEmitter(Emitter<T> delegate, StageMetrics stageMetrics, String emitMetricName, DataTracer dataTracer,
                         StageStatisticsCollector collector) {
+    this(delegate, new StageCounters(stageMetrics, collector, null, emitMetricName, 1), dataTracer, true);
+  }
+
+  /**
+   * Creates an emitter that counts the emitted records in the given {@link StageCounters}, which are flushed by
+   * the owner of the counters.
+   */
+  public TrackedEmitter(Emitter<T> delegate, StageCounters counters, DataTracer dataTracer) {
+    this(delegate, counters, dataTracer, false);
+  }
+
+  private TrackedEmitter(Emitter<T> delegate, StageCounters counters, DataTracer dataTracer,
+                         boolean flushEachRecord) {
     this.delegate = delegate;
-    this.stageMetrics = stageMetrics;
-    this.emitMetricName = emitMetricName;
+    this.counters = counters;
+    this.emitMetricName = counters.getMetricOutName();
     this.dataTracer = dataTracer;
-    this.collector = collector;
+    this.flushEachRecord = flushEachRecord;
+  }
+
+  /**
+   * Returns the emitter that this emitter delegates to.
+   */
+  public Emitter<T> getDelegate() {
+    return delegate;
   }
 
   @Override
   public void emit(T value) {
-    stageMetrics.count(emitMetricName, 1);
-    if (emitMetricName.equals(Constants.Metrics.RECORDS_OUT)) {
-      collector.incrementOutputRecordCount();
+    counters.countOutput();
+    if (flushEachRecord) {
+      counters.flush();
     }
     if (dataTracer.isEnabled()) {
       dataTracer.info(emitMetricName, value);
@@ -58,8 +78,10 @@ public class TrackedEmitter<T> implements Emitter<T> {
 
   @Override
   public void emitError(InvalidEntry<T> value) {
-    stageMetrics.count(Constants.Metrics.RECORDS_ERROR, 1);
-    collector.incrementErrorRecordCount();
+    counters.countError();
+    if (flushEachRecord) {
+      counters.flush();
+    }
     if (dataTracer.isEnabled()) {
       dataTracer.info(Constants.Metrics.RECORDS_ERROR, value);
     }
@@ -68,7 +90,10 @@ public class TrackedEmitter<T> implements Emitter<T> {
 
   @Override
   public void emitAlert(Map<String, String> payload) {
-    stageMetrics.count(Constants.Metrics.RECORDS_ALERT, 1);
+    counters.countAlert();
+    if (flushEachRecord) {
+      counters.flush();
+    }
     if (dataTracer.isEnabled()) {
       dataTracer.info(Constants.Metrics.RECORDS_ALERT, payload);
     }
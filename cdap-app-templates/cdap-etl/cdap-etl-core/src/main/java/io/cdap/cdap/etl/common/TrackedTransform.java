@@ -17,27 +17,37 @@
 package io.cdap.cdap.etl.common;
 
 import io.cdap.cdap.api.preview.DataTracer;
+import io.cdap.cdap.etl.api.BatchTransformation;
 import io.cdap.cdap.etl.api.Destroyable;
 import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.api.Transformation;
 
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
  * A {@link Transformation} that delegates transform operations while emitting metrics
  * around how many records were input into the transform and output by it.
  *
+ * Batches of records can be transformed with {@link #transformBatch(List, Emitter)}, which emits metrics once per
+ * batch. If the delegate is a {@link BatchTransformation}, the whole batch is passed to it, otherwise the records of
+ * the batch are transformed one by one.
+ *
+ * Records are counted in {@link StageCounters}, which are flushed to the metrics after every
+ * {@code metricsFlushInterval} records. With an interval larger than one, the owner of the transform must call
+ * {@link #flushMetrics()} once all records are transformed.
+ *
  * @param <IN> Type of input object
  * @param <OUT> Type of output object
  */
 public class TrackedTransform<IN, OUT> implements Transformation<IN, OUT>, Destroyable {
   private final Transformation<IN, OUT> transform;
-  private final StageMetrics metrics;
-  private final String metricInName;
+  private final StageCounters counters;
   private final String metricOutName;
   private final DataTracer dataTracer;
-  private final StageStatisticsCollector collector;
+  // reused across calls as long as the transform is called with the same emitter
+  private TrackedEmitter<OUT> trackedEmitter;
 
   public TrackedTransform(Transformation<IN, OUT> transform, StageMetrics metrics, DataTracer dataTracer) {
     this(transform, metrics, dataTracer, new NoopStageStatisticsCollector());
@@ -55,24 +65,78 @@ public class TrackedTransform<IN, OUT> implements Transformation<IN, OUT>, Destr
 
   public TrackedTransform(Transformation<IN, OUT> transform, StageMetrics metrics, @Nullable String metricInName,
                           @Nullable String metricOutName, DataTracer dataTracer, StageStatisticsCollector collector) {
+    this(transform, metrics, metricInName, metricOutName, dataTracer, collector, 1);
+  }
+
+  /**
+   * Creates a transform that emits metrics after every {@code metricsFlushInterval} transformed records.
+   */
+  public TrackedTransform(Transformation<IN, OUT> transform, StageMetrics metrics, @Nullable String metricInName,
+                          @Nullable String metricOutName, DataTracer dataTracer, StageStatisticsCollector collector,
+                          int metricsFlushInterval) {
     this.transform = transform;
-    this.metrics = metrics;
-    this.metricInName = metricInName;
+    this.counters = new StageCounters(metrics, collector, metricInName, metricOutName, metricsFlushInterval);
     this.metricOutName = metricOutName;
     this.dataTracer = dataTracer;
-    this.collector = collector;
   }
 
   @Override
   public void transform(IN input, Emitter<OUT> emitter) throws Exception {
-    if (metricInName != null) {
-      metrics.count(metricInName, 1);
-      if (metricInName.equals(Constants.Metrics.RECORDS_IN)) {
-        collector.incrementInputRecordCount();
+    counters.countInput(1);
+    try {
+      transform.transform(input, getTrackedEmitter(emitter));
+    } finally {
+      counters.processed(1);
+    }
+  }
+
+  /**
+   * Returns whether the delegate transform is a {@link BatchTransformation}.
+   */
+  public boolean isBatchTransformation() {
+    return transform instanceof BatchTransformation;
+  }
+
+  /**
+   * Returns the maximum number of records to pass to {@link #transformBatch(List, Emitter)}, which is {@code 1} if
+   * the delegate transform is not a {@link BatchTransformation}.
+   */
+  public int getBatchSize() {
+    return isBatchTransformation() ? Math.max(1, ((BatchTransformation<?, ?>) transform).getBatchSize()) : 1;
+  }
+
+  /**
+   * Transforms a batch of records, emitting the metrics of the whole batch at once.
+   *
+   * @param inputs the records to transform
+   * @param emitter {@link Emitter} to emit the output of the batch to
+   * @throws Exception if there's an error transforming the records
+   */
+  @SuppressWarnings("unchecked")
+  public void transformBatch(List<IN> inputs, Emitter<OUT> emitter) throws Exception {
+    if (inputs.isEmpty()) {
+      return;
+    }
+    counters.countInput(inputs.size());
+    try {
+      Emitter<OUT> outputEmitter = getTrackedEmitter(emitter);
+      if (isBatchTransformation()) {
+        ((BatchTransformation<IN, OUT>) transform).transformBatch(inputs, outputEmitter);
+      } else {
+        for (IN input : inputs) {
+          transform.transform(input, outputEmitter);
+        }
       }
+    } finally {
+      counters.processed(inputs.size());
     }
-    transform.transform(input, metricOutName == null ? emitter :
-      new TrackedEmitter<>(emitter, metrics, metricOutName, dataTracer, collector));
+  }
+
+  /**
+   * Emits the metrics of all records transformed since the last time metrics were emitted.
+   */
+  public void flushMetrics() {
+    counters.flush();
   }
 
   @Override
@@ -81,4 +145,14 @@ public class TrackedTransform<IN, OUT> implements Transformation<IN, OUT>, Destr
       ((Destroyable) transform).destroy();
     }
   }
+
+  private Emitter<OUT> getTrackedEmitter(Emitter<OUT> emitter) {
+    if (metricOutName == null) {
+      return emitter;
+    }
+    if (trackedEmitter == null || trackedEmitter.getDelegate() != emitter) {
+      trackedEmitter = new TrackedEmitter<>(emitter, counters, dataTracer);
+    }
+    return trackedEmitter;
+  }
 }
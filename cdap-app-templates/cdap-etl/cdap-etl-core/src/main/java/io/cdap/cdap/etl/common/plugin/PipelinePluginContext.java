@@ -21,6 +21,7 @@ import io.cdap.cdap.api.macro.MacroEvaluator;
 import io.cdap.cdap.api.metrics.Metrics;
 import io.cdap.cdap.api.plugin.PluginContext;
 import io.cdap.cdap.api.plugin.PluginProperties;
+import io.cdap.cdap.etl.api.BatchTransformation;
 import io.cdap.cdap.etl.api.ErrorTransform;
 import io.cdap.cdap.etl.api.SplitterTransform;
 import io.cdap.cdap.etl.api.StageMetrics;
@@ -93,6 +94,8 @@ public class PipelinePluginContext implements PluginContext {
       return new WrappedBatchSink<>((BatchSink) plugin, caller, operationTimer);
     } else if (plugin instanceof ErrorTransform) {
       return new WrappedErrorTransform<>((ErrorTransform) plugin, caller, operationTimer);
+    } else if (plugin instanceof Transform && plugin instanceof BatchTransformation) {
+      return new WrappedBatchTransform<>((Transform) plugin, caller, operationTimer);
     } else if (plugin instanceof Transform) {
       return new WrappedTransform<>((Transform) plugin, caller, operationTimer);
     } else if (plugin instanceof BatchReducibleAggregator) {
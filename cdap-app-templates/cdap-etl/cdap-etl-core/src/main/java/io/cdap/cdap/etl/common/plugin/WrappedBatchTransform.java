@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common.plugin;
+
+import io.cdap.cdap.etl.api.BatchTransformation;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.Transform;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Wrapper around a {@link Transform} that is also a {@link BatchTransformation}, which keeps the batch contract
+ * visible to the pipeline so that the wrapped transform is still given its input in batches.
+ *
+ * @param <IN> type of input
+ * @param <OUT> type of output
+ */
+public class WrappedBatchTransform<IN, OUT> extends WrappedTransform<IN, OUT> implements BatchTransformation<IN, OUT> {
+  private final BatchTransformation<IN, OUT> batchTransform;
+  private final Caller caller;
+  private final OperationTimer operationTimer;
+
+  @SuppressWarnings("unchecked")
+  public WrappedBatchTransform(Transform<IN, OUT> transform, Caller caller, OperationTimer operationTimer) {
+    super(transform, caller, operationTimer);
+    this.batchTransform = (BatchTransformation<IN, OUT>) transform;
+    this.caller = caller;
+    this.operationTimer = operationTimer;
+  }
+
+  @Override
+  public void transformBatch(List<IN> inputs, Emitter<OUT> emitter) throws Exception {
+    operationTimer.start();
+    try {
+      caller.call((Callable<Void>) () -> {
+        batchTransform.transformBatch(inputs, new UntimedEmitter<>(emitter, operationTimer));
+        return null;
+      });
+    } finally {
+      operationTimer.reset();
+    }
+  }
+
+  @Override
+  public int getBatchSize() {
+    return caller.callUnchecked(batchTransform::getBatchSize);
+  }
+}
@@ -21,6 +21,7 @@ import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.Transformation;
 import io.cdap.cdap.etl.common.Destroyables;
 import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.TrackedTransform;
 
 
 /**
@@ -45,6 +46,13 @@ public class DirectOutputPipeStage<T> extends PipeStage<RecordInfo<T>> {
     transform.transform(input, emitter);
   }
 
+  @Override
+  protected void flushInput() {
+    if (transform instanceof TrackedTransform) {
+      ((TrackedTransform) transform).flushMetrics();
+    }
+  }
+
   @Override
   public void destroy() {
     if (transform instanceof Destroyable) {
@@ -22,7 +22,8 @@ import io.cdap.cdap.etl.api.Destroyable;
 
 /**
  * A stage in the PipeTransformExecutor. Pipe transforms should send each output record immediately to all output stages
- * without buffering anything in memory.
+ * without buffering anything in memory. The only exception are stages of batch transforms, which buffer input records
+ * until a batch is complete, and send the remaining records through when they are {@link #flush() flushed}.
  *
  * @param <T> type of input record
  */
@@ -42,19 +43,38 @@ public abstract class PipeStage<T> implements Destroyable {
   public void consume(T input) {
     try {
       consumeInput(input);
-    } catch (StageFailureException e) {
-      // Another stage has already failed, just throw the exception as-is
-      throw e;
     } catch (Exception e) {
-      Throwable rootCause = Throwables.getRootCause(e);
-      // Create StageFailureException to save the Stage information
-      throw new StageFailureException(
-        String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
-                        "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
-        rootCause);
+      throw toStageFailure(e);
+    }
+  }
+
+  /**
+   * Processes any input records buffered by this stage and sends the output to the relevant output transforms.
+   * This is called once all input records were consumed.
+   *
+   * @throws StageFailureException if there was an exception processing the buffered input
+   */
+  public void flush() {
+    try {
+      flushInput();
+    } catch (Exception e) {
+      throw toStageFailure(e);
     }
   }
 
+  private StageFailureException toStageFailure(Exception e) {
+    if (e instanceof StageFailureException) {
+      // Another stage has already failed, just throw the exception as-is
+      return (StageFailureException) e;
+    }
+    Throwable rootCause = Throwables.getRootCause(e);
+    // Create StageFailureException to save the Stage information
+    return new StageFailureException(
+      String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
+                      "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
+      rootCause);
+  }
+
   /**
    * Consume an input record, throwing an exception if there is a failure
    *
@@ -62,4 +82,13 @@ public abstract class PipeStage<T> implements Destroyable {
    * @throws Exception if there was a failure processing the input
    */
   protected abstract void consumeInput(T input) throws Exception;
+
+  /**
+   * Processes any buffered input records, throwing an exception if there is a failure
+   *
+   * @throws Exception if there was a failure processing the buffered input
+   */
+  protected void flushInput() throws Exception {
+    // no-op
+  }
 }
@@ -20,6 +20,8 @@ import io.cdap.cdap.etl.api.Destroyable;
 import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.RecordType;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,10 +33,24 @@ import java.util.Set;
 public class PipeTransformExecutor<IN> implements Destroyable {
   private final Set<String> startingPoints;
   private final Map<String, PipeStage> pipeStages;
+  private final List<String> topologicalOrder;
 
   public PipeTransformExecutor(Map<String, PipeStage> pipeStages, Set<String> startingPoints) {
+    this(pipeStages, startingPoints, new ArrayList<>(pipeStages.keySet()));
+  }
+
+  /**
+   * Creates an executor for the given stages.
+   *
+   * @param pipeStages stage name to {@link PipeStage} of all stages
+   * @param startingPoints names of the stages that receive the input
+   * @param topologicalOrder names of all stages in topological order, which is the order stages are flushed in
+   */
+  public PipeTransformExecutor(Map<String, PipeStage> pipeStages, Set<String> startingPoints,
+                               List<String> topologicalOrder) {
     this.pipeStages = pipeStages;
     this.startingPoints = startingPoints;
+    this.topologicalOrder = topologicalOrder;
   }
 
   public void runOneIteration(IN input) {
@@ -44,6 +60,16 @@ public class PipeTransformExecutor<IN> implements Destroyable {
     }
   }
 
+  /**
+   * Processes the input buffered by any stage. Stages are flushed in topological order, so that the output of a
+   * flushed stage is also processed by all stages after it.
+   */
+  public void flush() {
+    for (String stageName : topologicalOrder) {
+      pipeStages.get(stageName).flush();
+    }
+  }
+
   @Override
   public void destroy() {
     for (PipeStage stage : pipeStages.values()) {
@@ -33,6 +33,7 @@ import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultStageMetrics;
 import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
 import io.cdap.cdap.etl.common.PipelinePhase;
+import io.cdap.cdap.etl.common.StageCounters;
 import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.common.TrackedMultiOutputTransform;
 import io.cdap.cdap.etl.common.TrackedTransform;
@@ -40,6 +41,7 @@ import io.cdap.cdap.etl.common.TransformExecutor;
 import io.cdap.cdap.etl.planner.Dag;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -104,8 +106,9 @@ public abstract class TransformExecutorFactory<T> {
     // we emit metrics for records into alert publishers when the actual alerts are published,
     // not when we write the alerts to the temporary dataset
     String recordsInMetric = AlertPublisher.PLUGIN_TYPE.equals(pluginType) ? null : Constants.Metrics.RECORDS_IN;
+    // the pipe flushes the metrics once all records are processed
     return new TrackedTransform<>(transformation, stageMetrics, recordsInMetric, Constants.Metrics.RECORDS_OUT,
-                                  getDataTracer(stageName), collector);
+                                  getDataTracer(stageName), collector, StageCounters.DEFAULT_FLUSH_INTERVAL);
   }
 
   /**
@@ -124,6 +127,7 @@ public abstract class TransformExecutorFactory<T> {
     // dag is null if the pipeline phase contains a single stage.
     List<String> traversalOrder = pipelineDag == null ?
       Collections.singletonList(pipeline.iterator().next().getName()) : pipelineDag.getTopologicalOrder();
+    List<String> topologicalOrder = new ArrayList<>(traversalOrder);
     Collections.reverse(traversalOrder);
 
     Map<String, PipeStage> pipeStages = new HashMap<>();
@@ -133,7 +137,7 @@ public abstract class TransformExecutorFactory<T> {
 
     // sourceStageName will be null in reducers, so need to handle that case
     Set<String> startingPoints = (sourceStageName == null) ? pipeline.getSources() : Sets.newHashSet(sourceStageName);
-    return new PipeTransformExecutor<>(pipeStages, startingPoints);
+    return new PipeTransformExecutor<>(pipeStages, startingPoints, topologicalOrder);
   }
 
   private PipeStage getPipeStage(PipelinePhase pipeline, String stageName,
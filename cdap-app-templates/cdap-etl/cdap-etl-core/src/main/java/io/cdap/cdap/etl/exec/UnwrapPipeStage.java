@@ -21,27 +21,67 @@ import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.Transformation;
 import io.cdap.cdap.etl.common.Destroyables;
 import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.TrackedTransform;
+
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
  * Processing any stages that can be represented as a Transformation. Gets the value from a RecordInfo before
- * passing it on to the underlying transformation.
+ * passing it on to the underlying transformation. If the transformation is a {@link TrackedTransform} of a
+ * batch transform, values are buffered and passed on in batches.
  *
  * @param <T> type of input object
  */
 public class UnwrapPipeStage<T> extends PipeStage<RecordInfo<T>> {
   private final Transformation<T, Object> transform;
   private final Emitter<Object> emitter;
+  private final TrackedTransform<T, Object> trackedTransform;
+  private final TrackedTransform<T, Object> batchTransform;
+  private final int batchSize;
+  private final List<T> batch;
 
   public UnwrapPipeStage(String stageName, Transformation<T, Object> transform, Emitter<Object> emitter) {
     super(stageName);
     this.transform = transform;
     this.emitter = emitter;
+    this.trackedTransform = transform instanceof TrackedTransform ? (TrackedTransform<T, Object>) transform : null;
+    if (trackedTransform != null && trackedTransform.isBatchTransformation()) {
+      this.batchTransform = trackedTransform;
+      this.batchSize = batchTransform.getBatchSize();
+      this.batch = new ArrayList<>(batchSize);
+    } else {
+      this.batchTransform = null;
+      this.batchSize = 1;
+      this.batch = null;
+    }
   }
 
   @Override
   public void consumeInput(RecordInfo<T> input) throws Exception {
-    transform.transform(input.getValue(), emitter);
+    if (batchTransform == null) {
+      transform.transform(input.getValue(), emitter);
+      return;
+    }
+    batch.add(input.getValue());
+    if (batch.size() >= batchSize) {
+      flushInput();
+    }
+  }
+
+  @Override
+  protected void flushInput() throws Exception {
+    if (batchTransform != null && !batch.isEmpty()) {
+      try {
+        batchTransform.transformBatch(batch, emitter);
+      } finally {
+        batch.clear();
+      }
+    }
+    if (trackedTransform != null) {
+      trackedTransform.flushMetrics();
+    }
   }
 
   @Override
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.internal.app.preview.NoopDataTracerFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StageCounters} and the metrics emitted by {@link TrackedTransform}.
+ */
+public class StageCountersTest {
+
+  @Test
+  public void testFlushInterval() {
+    MockMetrics metrics = new MockMetrics();
+    StageCounters counters = new StageCounters(new DefaultStageMetrics(metrics, "stage"),
+                                               new NoopStageStatisticsCollector(), Constants.Metrics.RECORDS_IN,
+                                               Constants.Metrics.RECORDS_OUT, 3);
+    for (int i = 0; i < 2; i++) {
+      counters.countInput(1);
+      counters.countOutput();
+      counters.countOutput();
+      counters.countError();
+      counters.processed(1);
+    }
+    // nothing is emitted before the interval is reached
+    Assert.assertEquals(0, metrics.getCount("stage.records.in"));
+
+    counters.countInput(1);
+    counters.countAlert();
+    counters.processed(1);
+    Assert.assertEquals(3, metrics.getCount("stage.records.in"));
+    Assert.assertEquals(4, metrics.getCount("stage.records.out"));
+    Assert.assertEquals(2, metrics.getCount("stage.records.error"));
+    Assert.assertEquals(1, metrics.getCount("stage.records.alert"));
+
+    counters.countInput(1);
+    counters.processed(1);
+    counters.flush();
+    Assert.assertEquals(4, metrics.getCount("stage.records.in"));
+    Assert.assertEquals(4, metrics.getCount("stage.records.out"));
+  }
+
+  @Test
+  public void testTrackedTransform() throws Exception {
+    MockMetrics metrics = new MockMetrics();
+    TrackedTransform<Integer, Integer> transform = new TrackedTransform<>(
+      new Transform<Integer, Integer>() {
+        @Override
+        public void transform(Integer input, Emitter<Integer> emitter) {
+          if (input < 0) {
+            emitter.emitError(new InvalidEntry<>(1, "negative", input));
+          } else {
+            emitter.emit(input);
+          }
+        }
+      }, new DefaultStageMetrics(metrics, "stage"), Constants.Metrics.RECORDS_IN, Constants.Metrics.RECORDS_OUT,
+      new NoopDataTracerFactory().getDataTracer(null, "stage"), new NoopStageStatisticsCollector(), 10);
+
+    DefaultEmitter<Integer> emitter = new DefaultEmitter<>();
+    for (int i = -2; i < 3; i++) {
+      transform.transform(i, emitter);
+    }
+    Assert.assertEquals(3, emitter.getEntries().size());
+    Assert.assertEquals(2, emitter.getErrors().size());
+    Assert.assertEquals(0, metrics.getCount("stage.records.in"));
+
+    transform.flushMetrics();
+    Assert.assertEquals(5, metrics.getCount("stage.records.in"));
+    Assert.assertEquals(3, metrics.getCount("stage.records.out"));
+    Assert.assertEquals(2, metrics.getCount("stage.records.error"));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.exec;
+
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.app.preview.DataTracerFactory;
+import io.cdap.cdap.etl.api.BatchTransformation;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.common.DefaultEmitter;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
+import io.cdap.cdap.etl.common.MockMetrics;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.RecordType;
+import io.cdap.cdap.etl.common.TrackedTransform;
+import io.cdap.cdap.internal.app.preview.NoopDataTracerFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for batch transforms in {@link UnwrapPipeStage}.
+ */
+public class UnwrapPipeStageTest {
+
+  private final DataTracerFactory dataTracerFactory = new NoopDataTracerFactory();
+
+  @Test
+  public void testBatchTransform() {
+    MockMetrics metrics = new MockMetrics();
+    EvenFilter filter = new EvenFilter();
+    DefaultEmitter<Object> emitter = new DefaultEmitter<>();
+    UnwrapPipeStage<Integer> stage = new UnwrapPipeStage<>(
+      "filter", new TrackedTransform<>(filter, new DefaultStageMetrics(metrics, "filter"),
+                                       dataTracerFactory.getDataTracer(null, "filter")), emitter);
+
+    for (int i = 0; i < 7; i++) {
+      stage.consume(RecordInfo.builder(i, "source", RecordType.OUTPUT).build());
+    }
+    // two full batches were transformed, the last record is buffered
+    Assert.assertEquals(ImmutableList.of(3, 3), filter.batchSizes);
+    Assert.assertEquals(ImmutableList.of(0, 2, 4), new ArrayList<>(emitter.getEntries()));
+    Assert.assertEquals(3, emitter.getErrors().size());
+    Assert.assertEquals(6, metrics.getCount("filter.records.in"));
+    Assert.assertEquals(3, metrics.getCount("filter.records.out"));
+    Assert.assertEquals(3, metrics.getCount("filter.records.error"));
+
+    stage.flush();
+    Assert.assertEquals(ImmutableList.of(3, 3, 1), filter.batchSizes);
+    Assert.assertEquals(ImmutableList.of(0, 2, 4, 6), new ArrayList<>(emitter.getEntries()));
+    Assert.assertEquals(7, metrics.getCount("filter.records.in"));
+    Assert.assertEquals(4, metrics.getCount("filter.records.out"));
+
+    // nothing left to flush
+    stage.flush();
+    Assert.assertEquals(3, filter.batchSizes.size());
+  }
+
+  @Test
+  public void testBatchFallback() throws Exception {
+    MockMetrics metrics = new MockMetrics();
+    TrackedTransform<Integer, Object> transform = new TrackedTransform<>(
+      new Transform<Integer, Object>() {
+        @Override
+        public void transform(Integer input, Emitter<Object> emitter) {
+          emitter.emit(input);
+          emitter.emit(input);
+        }
+      }, new DefaultStageMetrics(metrics, "double"), dataTracerFactory.getDataTracer(null, "double"));
+    Assert.assertFalse(transform.isBatchTransformation());
+    Assert.assertEquals(1, transform.getBatchSize());
+
+    DefaultEmitter<Object> emitter = new DefaultEmitter<>();
+    transform.transformBatch(ImmutableList.of(1, 2), emitter);
+    Assert.assertEquals(ImmutableList.of(1, 1, 2, 2), new ArrayList<>(emitter.getEntries()));
+    Assert.assertEquals(2, metrics.getCount("double.records.in"));
+    Assert.assertEquals(4, metrics.getCount("double.records.out"));
+  }
+
+  /**
+   * Batch transform that emits even numbers and emits errors for odd numbers.
+   */
+  private static class EvenFilter extends Transform<Integer, Object> implements BatchTransformation<Integer, Object> {
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @Override
+    public void transform(Integer input, Emitter<Object> emitter) {
+      if (input % 2 == 0) {
+        emitter.emit(input);
+      } else {
+        emitter.emitError(new InvalidEntry<>(1, "odd", input));
+      }
+    }
+
+    @Override
+    public void transformBatch(List<Integer> inputs, Emitter<Object> emitter) {
+      batchSizes.add(inputs.size());
+      for (Integer input : inputs) {
+        transform(input, emitter);
+      }
+    }
+
+    @Override
+    public int getBatchSize() {
+      return 3;
+    }
+  }
+}
@@ -54,12 +54,12 @@ import io.cdap.cdap.etl.spark.function.AggregatorInitializeFunction;
 import io.cdap.cdap.etl.spark.function.AggregatorMergePartitionFunction;
 import io.cdap.cdap.etl.spark.function.AggregatorMergeValueFunction;
 import io.cdap.cdap.etl.spark.function.AggregatorReduceGroupByFunction;
+import io.cdap.cdap.etl.spark.function.BatchTransformFunction;
 import io.cdap.cdap.etl.spark.function.CountingFunction;
 import io.cdap.cdap.etl.spark.function.FunctionCache;
 import io.cdap.cdap.etl.spark.function.MultiOutputTransformFunction;
 import io.cdap.cdap.etl.spark.function.MultiSinkFunction;
 import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
-import io.cdap.cdap.etl.spark.function.TransformFunction;
 import io.cdap.cdap.etl.spark.join.JoinExpressionRequest;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaPairRDD;
@@ -76,6 +76,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Tuple2;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -141,7 +142,7 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
   @Override
   public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector) {
     PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
-    return wrap(rdd.flatMap(new TransformFunction<T>(
+    return wrap(rdd.mapPartitions(new BatchTransformFunction<T>(
       pluginFunctionContext, functionCacheFactory.newCache())));
   }
 
@@ -249,10 +250,10 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
     return new Runnable() {
       @Override
       public void run() {
-        PairFlatMapFunction<T, String, KeyValue<Object, Object>> multiSinkFunction =
-          (PairFlatMapFunction<T, String, KeyValue<Object, Object>>)
+        PairFlatMapFunction<Iterator<T>, String, KeyValue<Object, Object>> multiSinkFunction =
+          (PairFlatMapFunction<Iterator<T>, String, KeyValue<Object, Object>>)
             new MultiSinkFunction(sec, phaseSpec, group, collectors);
-        JavaPairRDD<String, KeyValue<Object, Object>> taggedOutput = rdd.flatMapToPair(multiSinkFunction);
+        JavaPairRDD<String, KeyValue<Object, Object>> taggedOutput = rdd.mapPartitionsToPair(multiSinkFunction);
         for (String outputName : sinkFactory.writeCombinedRDD(taggedOutput, sec, sinks)) {
           recordLineage(outputName);
         }
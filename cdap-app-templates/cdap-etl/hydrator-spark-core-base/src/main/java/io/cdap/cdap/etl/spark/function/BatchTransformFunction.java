@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.function;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import io.cdap.cdap.etl.api.BatchTransformation;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.StageCounters;
+import io.cdap.cdap.etl.common.TrackedTransform;
+import io.cdap.cdap.etl.spark.CombinedEmitter;
+import org.apache.spark.api.java.function.FlatMapFunction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Function that uses a Transform to transform a whole partition. If the Transform is a {@link BatchTransformation},
+ * the records of the partition are passed to it in batches, otherwise they are transformed one by one.
+ * The output is computed lazily as it is consumed, so that at most one batch of output is held in memory.
+ * Non-serializable fields are lazily created since this is used in a Spark closure.
+ *
+ * @param <T> type of input object
+ */
+public class BatchTransformFunction<T> implements FlatMapFunction<Iterator<T>, RecordInfo<Object>> {
+  private final PluginFunctionContext pluginFunctionContext;
+  private final FunctionCache functionCache;
+  private transient TrackedTransform<T, Object> transform;
+  private transient CombinedEmitter<Object> emitter;
+
+  public BatchTransformFunction(PluginFunctionContext pluginFunctionContext, FunctionCache functionCache) {
+    this.pluginFunctionContext = pluginFunctionContext;
+    this.functionCache = functionCache;
+  }
+
+  @Override
+  public Iterator<RecordInfo<Object>> call(Iterator<T> input) throws Exception {
+    if (transform == null) {
+      Transform<T, Object> plugin = pluginFunctionContext.createAndInitializePlugin(functionCache);
+      transform = new TrackedTransform<>(plugin, pluginFunctionContext.createStageMetrics(),
+                                         pluginFunctionContext.getDataTracer(),
+                                         pluginFunctionContext.getStageStatisticsCollector(),
+                                         StageCounters.DEFAULT_FLUSH_INTERVAL);
+      emitter = new CombinedEmitter<>(pluginFunctionContext.getStageName());
+    }
+
+    int batchSize = transform.getBatchSize();
+    List<T> batch = new ArrayList<>(batchSize);
+    return new AbstractIterator<RecordInfo<Object>>() {
+      private Iterator<RecordInfo<Object>> output = Collections.emptyIterator();
+
+      @Override
+      protected RecordInfo<Object> computeNext() {
+        while (!output.hasNext()) {
+          if (!input.hasNext()) {
+            transform.flushMetrics();
+            return endOfData();
+          }
+          batch.clear();
+          while (batch.size() < batchSize && input.hasNext()) {
+            batch.add(input.next());
+          }
+          emitter.reset();
+          try {
+            if (transform.isBatchTransformation()) {
+              transform.transformBatch(batch, emitter);
+            } else {
+              // per record fallback
+              transform.transform(batch.get(0), emitter);
+            }
+          } catch (Exception e) {
+            throw Throwables.propagate(e);
+          }
+          output = emitter.getEmitted().iterator();
+        }
+        return output.next();
+      }
+    };
+  }
+}
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.etl.spark.function;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Sets;
 import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.cdap.api.macro.MacroEvaluator;
@@ -70,9 +71,11 @@ import javax.annotation.Nullable;
  * be sent to the right underlying stages. This is why the input is a RecordInfo.
  *
  * This function is meant to be executed right before saving the Spark collection using a Multi OutputFormat that
- * delegates to underlying output formats.
+ * delegates to underlying output formats. It is applied to whole partitions so that the branch executors can be
+ * flushed once all records of a partition are processed, which emits buffered records and stage metrics.
  */
-public class MultiSinkFunction implements PairFlatMapFunction<RecordInfo<Object>, String, KeyValue<Object, Object>> {
+public class MultiSinkFunction
+  implements PairFlatMapFunction<Iterator<RecordInfo<Object>>, String, KeyValue<Object, Object>> {
   private final PipelineRuntime pipelineRuntime;
   private final PhaseSpec phaseSpec;
   private final Set<String> group;
@@ -101,7 +104,7 @@ public class MultiSinkFunction implements PairFlatMapFunction<RecordInfo<Object>
   }
 
   @Override
-  public Iterator<Tuple2<String, KeyValue<Object, Object>>> call(RecordInfo<Object> input) throws Exception {
+  public Iterator<Tuple2<String, KeyValue<Object, Object>>> call(Iterator<RecordInfo<Object>> input) throws Exception {
     if (branchExecutors == null) {
       // branch executors must be created lazily here instead of passed into the constructor to ensure that
       // they are not serialized in the function. This ensures that macros are evaluated each run instead of just for
@@ -109,6 +112,28 @@ public class MultiSinkFunction implements PairFlatMapFunction<RecordInfo<Object>
       initializeBranchExecutors();
     }
 
+    return new AbstractIterator<Tuple2<String, KeyValue<Object, Object>>>() {
+      private Iterator<Tuple2<String, KeyValue<Object, Object>>> output = Collections.emptyIterator();
+      private boolean flushed;
+
+      @Override
+      protected Tuple2<String, KeyValue<Object, Object>> computeNext() {
+        while (!output.hasNext()) {
+          if (input.hasNext()) {
+            output = process(input.next());
+          } else if (!flushed) {
+            flushed = true;
+            output = flush();
+          } else {
+            return endOfData();
+          }
+        }
+        return output.next();
+      }
+    };
+  }
+
+  private Iterator<Tuple2<String, KeyValue<Object, Object>>> process(RecordInfo<Object> input) {
     /*
        Input records are a union of RecordInfo<Object> from all possible inputs to the group.
        For example, suppose the pipeline looks like:
@@ -143,6 +168,14 @@ public class MultiSinkFunction implements PairFlatMapFunction<RecordInfo<Object>
     return emitter.getEntries().iterator();
   }
 
+  private Iterator<Tuple2<String, KeyValue<Object, Object>>> flush() {
+    emitter.reset();
+    for (PipeTransformExecutor<Object> branchExecutor : branchExecutors.values()) {
+      branchExecutor.flush();
+    }
+    return emitter.getEntries().iterator();
+  }
+
   private void initializeBranchExecutors() {
     emitter = new DefaultEmitter<>();
     PipelinePluginInstantiator pluginInstantiator =
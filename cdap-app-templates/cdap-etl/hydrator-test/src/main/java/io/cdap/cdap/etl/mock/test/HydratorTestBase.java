@@ -68,6 +68,7 @@ import io.cdap.cdap.etl.mock.connector.FileConnector;
 import io.cdap.cdap.etl.mock.spark.Window;
 import io.cdap.cdap.etl.mock.spark.compute.StringValueFilterCompute;
 import io.cdap.cdap.etl.mock.transform.AllErrorTransform;
+import io.cdap.cdap.etl.mock.transform.BatchIdentityTransform;
 import io.cdap.cdap.etl.mock.transform.DoubleTransform;
 import io.cdap.cdap.etl.mock.transform.DropNullTransform;
 import io.cdap.cdap.etl.mock.transform.FieldsPrefixTransform;
@@ -108,7 +109,7 @@ public class HydratorTestBase extends TestBase {
     NullFieldSplitterTransform.PLUGIN_CLASS, TMSAlertPublisher.PLUGIN_CLASS, NullAlertTransform.PLUGIN_CLASS,
     MockCondition.PLUGIN_CLASS, MockSource.PLUGIN_CLASS, MockSink.PLUGIN_CLASS,
     DistinctReducibleAggregator.PLUGIN_CLASS, FieldCountReducibleAggregator.PLUGIN_CLASS,
-    FileConnector.PLUGIN_CLASS
+    FileConnector.PLUGIN_CLASS, BatchIdentityTransform.PLUGIN_CLASS
   );
   private static final Set<PluginClass> STREAMING_MOCK_PLUGINS = ImmutableSet.of(
     io.cdap.cdap.etl.mock.spark.streaming.MockSource.PLUGIN_CLASS,
@@ -160,7 +161,8 @@ public class HydratorTestBase extends TestBase {
                       FieldCountAggregator.class, IdentityAggregator.class, FieldsPrefixTransform.class,
                       StringValueFilterCompute.class, NodeStatesAction.class, LookupTransform.class,
                       NullFieldSplitterTransform.class, NullAlertTransform.class,
-                      IncapableSource.class, IncapableSink.class, FileMoveAction.class);
+                      IncapableSource.class, IncapableSink.class, FileMoveAction.class,
+                      BatchIdentityTransform.class);
   }
 
   protected static void setupStreamingArtifacts(ArtifactId artifactId, Class<?> appClass) throws Exception {
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.mock.transform;
+
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.plugin.PluginClass;
+import io.cdap.cdap.api.plugin.PluginConfig;
+import io.cdap.cdap.api.plugin.PluginPropertyField;
+import io.cdap.cdap.etl.api.BatchTransformation;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.StageConfigurer;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.proto.v2.ETLPlugin;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identity transform that only supports transforming records in batches, for testing.
+ */
+@Plugin(type = Transform.PLUGIN_TYPE)
+@Name(BatchIdentityTransform.NAME)
+public class BatchIdentityTransform extends Transform<StructuredRecord, StructuredRecord>
+  implements BatchTransformation<StructuredRecord, StructuredRecord> {
+  public static final String NAME = "BatchIdentity";
+  public static final PluginClass PLUGIN_CLASS = getPluginClass();
+  private final Config config;
+
+  public BatchIdentityTransform(Config config) {
+    this.config = config;
+  }
+
+  @Override
+  public void configurePipeline(PipelineConfigurer pipelineConfigurer) {
+    if (config.batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be at least 1.");
+    }
+    StageConfigurer stageConfigurer = pipelineConfigurer.getStageConfigurer();
+    stageConfigurer.setOutputSchema(stageConfigurer.getInputSchema());
+  }
+
+  @Override
+  public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
+    // should never happen, here to test that the pipeline passes the records in batches
+    throw new IllegalStateException("Records must be transformed in batches.");
+  }
+
+  @Override
+  public void transformBatch(List<StructuredRecord> inputs, Emitter<StructuredRecord> emitter) {
+    if (inputs.isEmpty() || inputs.size() > config.batchSize) {
+      throw new IllegalStateException(String.format("Batch of %d records is not within the batch size of %d.",
+                                                    inputs.size(), config.batchSize));
+    }
+    for (StructuredRecord input : inputs) {
+      emitter.emit(input);
+    }
+  }
+
+  @Override
+  public int getBatchSize() {
+    return config.batchSize;
+  }
+
+  /**
+   * Config for plugin
+   */
+  public static class Config extends PluginConfig {
+    private int batchSize;
+  }
+
+  public static ETLPlugin getPlugin(int batchSize) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("batchSize", Integer.toString(batchSize));
+    return new ETLPlugin(NAME, Transform.PLUGIN_TYPE, properties, null);
+  }
+
+  private static PluginClass getPluginClass() {
+    Map<String, PluginPropertyField> properties = new HashMap<>();
+    properties.put("batchSize", new PluginPropertyField("batchSize", "", "int", true, false));
+    return PluginClass.builder().setName(NAME).setType(Transform.PLUGIN_TYPE)
+             .setDescription("").setClassName(BatchIdentityTransform.class.getName()).setProperties(properties)
+             .setConfigFieldName("config").build();
+  }
+}
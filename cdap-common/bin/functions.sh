@@ -345,13 +345,46 @@ cdap_set_java () {
       die "JAVA_HOME is not set and 'java' was not found in your PATH. Please set JAVA_HOME to the location of your Java install"
     fi
   fi
-  __java_version=$("${__java}" -version 2>&1 | grep version | awk '{print $3}' | awk -F '.' '{print $2}')
+  # Versions are reported as "1.8.0_292" up to Java 8 and as "11.0.11" since Java 9
+  __java_version=$("${__java}" -version 2>&1 | grep version | awk '{print $3}' | tr -d '"' | awk -F '[.-]' '{ if ($1 == 1) print $2; else print $1 }')
   if [[ -z ${__java_version} ]]; then
     die "Could not detect Java version. Aborting..."
   elif [[ ${__java_version} -lt 8 ]]; then
     die "Java version not supported. Please install Java 8 - other versions of Java are not supported."
   fi
   export JAVA=${__java}
+  export JAVA_MAJOR_VERSION=${__java_version}
+  return 0
+}
+
+#
+# cdap_set_cds_opts <name>
+# Sets CDS_OPTS for the JDK Class Data Sharing archive of the given process name, using CLASSPATH and JAVA_MAJOR_VERSION.
+# Archives are kept in CDAP_CDS_DIR (default: ${CDAP_HOME}/cds) and require Java 11 or later. If CDAP_CDS_TRAIN is true,
+# the classes loaded by the process are recorded for creating the archive with "cdap setup cds". Otherwise, the archive
+# is used if it exists. The JVM falls back to regular class loading if the archive doesn't match the CLASSPATH.
+#
+cdap_set_cds_opts() {
+  local readonly __name=${1} __dir=${CDAP_CDS_DIR:-${CDAP_HOME}/cds}
+  local __entry __entries __cp
+  CDS_OPTS=
+  if [[ -z ${JAVA_MAJOR_VERSION} ]] || [[ ${JAVA_MAJOR_VERSION} -lt 11 ]]; then
+    return 0
+  fi
+  if [[ ${CDAP_CDS_TRAIN} == true ]]; then
+    mkdir -p "${__dir}" || return 1
+    # The archive can only contain classes from the leading jar files of the CLASSPATH, not from directories
+    IFS=: read -ra __entries <<< "${CLASSPATH}"
+    for __entry in "${__entries[@]}"; do
+      [[ -f ${__entry} ]] || break
+      __cp+=${__cp:+:}${__entry}
+    done
+    echo "${__cp}" > "${__dir}"/${__name}.classpath || return 1
+    CDS_OPTS="-XX:DumpLoadedClassList=${__dir}/${__name}.classlist"
+  elif [[ -f ${__dir}/${__name}.jsa ]]; then
+    CDS_OPTS="-Xshare:auto -XX:SharedArchiveFile=${__dir}/${__name}.jsa"
+  fi
+  export CDS_OPTS
   return 0
 }
 
@@ -823,7 +856,8 @@ cdap_start_java() {
   fi
   "${JAVA}" -version 2>>${__logfile}
   ulimit -a >>${__logfile}
-  __defines+=" ${JVM_OPTS[@]}"
+  cdap_set_cds_opts ${CDAP_SERVICE} || logecho "$(date) [WARN] Could not setup Class Data Sharing"
+  __defines+=" ${CDS_OPTS} ${JVM_OPTS[@]}"
   echo "$(date) Running: ${JAVA} ${__defines} -cp ${CLASSPATH} ${MAIN_CLASS} ${MAIN_CLASS_ARGS} ${@}" >>${__logfile}
   # Start our JVM
   nohup nice -n ${NICENESS} "${JAVA}" ${__defines} -cp ${CLASSPATH} ${MAIN_CLASS} ${MAIN_CLASS_ARGS} ${@} </dev/null >>${__logfile} 2>&1 &
@@ -887,12 +921,14 @@ cdap_exec_class() {
   # Add proper HBase compatibility to CLASSPATH
   cdap_set_hbase || exit 1
   cdap_create_local_dir || die "Could not create local directory"
+  # Use the Class Data Sharing archive named by the simple class name
+  cdap_set_cds_opts ${__class##*.} || echo "$(date) [WARN] Could not setup Class Data Sharing"
   if [[ -n ${__args} ]] && [[ ${__args} != '' ]]; then
     echo "$(date) Running class ${__class} with arguments: ${__args}"
   else
     echo "$(date) Running class ${__class}"
   fi
-  exec "${JAVA}" ${JAVA_HEAPMAX} -Dhive.classpath=${HIVE_CLASSPATH} -Duser.dir=${LOCAL_DIR} -Djava.io.tmpdir=${TEMP_DIR} ${OPTS} -cp ${CLASSPATH} ${__class} ${__args}
+  exec "${JAVA}" ${JAVA_HEAPMAX} ${CDS_OPTS} -Dhive.classpath=${HIVE_CLASSPATH} -Duser.dir=${LOCAL_DIR} -Djava.io.tmpdir=${TEMP_DIR} ${OPTS} -cp ${CLASSPATH} ${__class} ${__args}
 }
 
 #
@@ -1085,6 +1121,8 @@ cdap_sdk_start() {
   CLASSPATH=$(find "${CDAP_HOME}/lib" -type f | sort | tr '\n' ':')
   CLASSPATH="${CLASSPATH}:${CDAP_HOME}/conf/"
 
+  cdap_set_cds_opts sandbox || echo "[WARN] Could not setup Class Data Sharing"
+
   # SDK requires us to be in CDAP_HOME
   cd "${CDAP_HOME}"
 
@@ -1092,12 +1130,12 @@ cdap_sdk_start() {
   echo -n "$(date) Starting CDAP Sandbox ..."
   if ${__foreground}; then
     # this eval is needed to get around the double quote issue in KILL_ON_OOM_OPTS
-    eval "nice -1 \"${JAVA}\" ${KILL_ON_OOM_OPTS} ${JVM_OPTS[@]} ${ROUTER_OPTS} -classpath \"${CLASSPATH}\" io.cdap.cdap.StandaloneMain | tee -a \"${LOG_DIR}\"/cdap.log"
+    eval "nice -1 \"${JAVA}\" ${KILL_ON_OOM_OPTS} ${CDS_OPTS} ${JVM_OPTS[@]} ${ROUTER_OPTS} -classpath \"${CLASSPATH}\" io.cdap.cdap.StandaloneMain | tee -a \"${LOG_DIR}\"/cdap.log"
     __ret=${?}
     return ${__ret}
   else
     # this eval is needed to get around the double quote issue in KILL_ON_OOM_OPTS
-    eval "nohup nice -1 \"${JAVA}\" ${KILL_ON_OOM_OPTS} ${JVM_OPTS[@]} ${ROUTER_OPTS} -classpath \"${CLASSPATH}\" io.cdap.cdap.StandaloneMain </dev/null >>\"${LOG_DIR}\"/cdap.log 2>&1 &"
+    eval "nohup nice -1 \"${JAVA}\" ${KILL_ON_OOM_OPTS} ${CDS_OPTS} ${JVM_OPTS[@]} ${ROUTER_OPTS} -classpath \"${CLASSPATH}\" io.cdap.cdap.StandaloneMain </dev/null >>\"${LOG_DIR}\"/cdap.log 2>&1 &"
     __ret=${?}
     __pid=${!}
     sleep 2 # wait for JVM spin up
@@ -1336,10 +1374,9 @@ cdap_setup() {
   local __component=${1}
   shift
 
-  # currently, only ever need to setup coprocessors
   # in the future, we might want to add more commands, like 'smoketest'
-  if [[ ${__component} != 'coprocessors' ]]; then
-    die "Setup component must be 'coprocessors'"
+  if [[ ${__component} != 'coprocessors' ]] && [[ ${__component} != 'cds' ]]; then
+    die "Setup component must be 'coprocessors' or 'cds'"
   fi
 
   cdap_setup_${__component} ${@}
@@ -1357,6 +1394,69 @@ cdap_setup_coprocessors() {
   return ${__ret}
 }
 
+#
+# cdap_setup_cds_train_sandbox
+# Starts and stops the CDAP Sandbox with CDAP_CDS_TRAIN=true to record its loaded classes. The Sandbox data and logs
+# directories of the training run are links to a throwaway directory, which is deleted afterwards, so that the run
+# leaves no data, logs or messaging state behind. Fails if the Sandbox already has data or logs.
+#
+cdap_setup_cds_train_sandbox() {
+  local readonly __tmpdir __dir __ret=0
+  for __dir in data logs; do
+    if [[ -e ${CDAP_HOME}/${__dir} ]] || [[ -L ${CDAP_HOME}/${__dir} ]]; then
+      echo "[ERROR] Training requires a CDAP Sandbox without data and logs, but ${CDAP_HOME}/${__dir} exists"
+      return 1
+    fi
+  done
+  __tmpdir=$(mktemp -d) || return 1
+  for __dir in data logs; do
+    mkdir "${__tmpdir}"/${__dir} && ln -s "${__tmpdir}"/${__dir} "${CDAP_HOME}"/${__dir} || __ret=1
+  done
+  if [[ ${__ret} -eq 0 ]]; then
+    echo "$(date) Starting CDAP Sandbox to record loaded classes"
+    CDAP_CDS_TRAIN=true "${0}" sandbox start || __ret=1
+    "${0}" sandbox stop || __ret=1
+  fi
+  for __dir in data logs; do
+    if [[ -L ${CDAP_HOME}/${__dir} ]]; then
+      rm -f "${CDAP_HOME}"/${__dir}
+    fi
+  done
+  rm -rf "${__tmpdir}"
+  return ${__ret}
+}
+
+#
+# cdap_setup_cds [sandbox]
+# Creates JDK Class Data Sharing archives from the classes recorded by processes started with CDAP_CDS_TRAIN=true.
+# If "sandbox" is given, the CDAP Sandbox is first started and stopped to record its classes.
+#
+cdap_setup_cds() {
+  local readonly __training=${1} __dir=${CDAP_CDS_DIR:-${CDAP_HOME}/cds}
+  local __classlist __name __ret=0
+  cdap_set_java || return 1
+  if [[ ${JAVA_MAJOR_VERSION} -lt 11 ]]; then
+    die "Class Data Sharing archives require Java 11 or later"
+  fi
+  if [[ ${__training} == sandbox ]]; then
+    cdap_setup_cds_train_sandbox || return 1
+  elif [[ -n ${__training} ]]; then
+    die "Usage: ${0} setup cds [sandbox]"
+  fi
+  for __classlist in "${__dir}"/*.classlist; do
+    [[ -f ${__classlist} ]] || continue
+    __name=$(basename "${__classlist}" .classlist)
+    if [[ ! -f ${__dir}/${__name}.classpath ]]; then
+      echo "[WARN] Missing classpath for ${__classlist}, skipping"
+      continue
+    fi
+    echo "$(date) Creating Class Data Sharing archive ${__dir}/${__name}.jsa"
+    "${JAVA}" -Xshare:dump -XX:SharedClassListFile="${__classlist}" -XX:SharedArchiveFile="${__dir}"/${__name}.jsa \
+      -cp "$(<"${__dir}"/${__name}.classpath)" || __ret=1
+  done
+  return ${__ret}
+}
+
 # cdap_tx_debugger
 cdap_tx_debugger() {
   local readonly __path __libexec __lib __script="$(basename ${0}):cdap_tx_debugger"
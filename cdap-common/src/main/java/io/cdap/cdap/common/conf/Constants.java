@@ -207,6 +207,9 @@ public final class Constants {
     public static final String MAPREDUCE_STATUS_REPORT_INTERVAL_SECONDS = "mapreduce.status.report.interval.seconds";
     public static final String PROGRAM_RUNID_CORRECTOR_INTERVAL_SECONDS = "app.program.runid.corrector.interval";
     public static final String PROGRAM_RUNID_CORRECTOR_TX_BATCH_SIZE = "app.program.runid.corrector.tx.batch.size";
+    public static final String RUN_RECORD_TIME_INDEX_BACKFILL_TX_BATCH_SIZE =
+      "app.program.run.record.time.index.backfill.tx.batch.size";
+    public static final String RUN_RECORD_BINARY_ENCODING_ENABLED = "app.program.run.record.binary.encoding.enabled";
     public static final String LOCAL_DATASET_DELETER_INTERVAL_SECONDS = "app.program.local.dataset.deleter.interval";
     public static final String LOCAL_DATASET_DELETER_INITIAL_DELAY_SECONDS
       = "app.program.local.dataset.deleter.initial.delay";
@@ -216,6 +219,9 @@ public final class Constants {
     public static final String SPARK_EVENT_LOGS_ENABLED = "app.program.spark.event.logs.enabled";
     public static final String SPARK_EVENT_LOGS_DIR = "app.program.spark.event.logs.dir";
     public static final String SPARK_COMPAT = "app.program.spark.compat";
+    public static final String SPARK_ARCHIVE_CACHE_ENABLED = "app.program.spark.archive.cache.enabled";
+    public static final String SPARK_ARCHIVE_CACHE_RETENTION_SECONDS =
+      "app.program.spark.archive.cache.retention.seconds";
     public static final String RUNTIME_EXT_DIR = "app.program.runtime.extensions.dir";
     public static final String PROGRAM_MAX_START_SECONDS = "app.program.max.start.seconds";
     public static final String PROGRAM_MAX_STOP_SECONDS = "app.program.max.stop.seconds";
@@ -225,6 +231,7 @@ public final class Constants {
     public static final String PROGRAM_TRANSACTION_CONTROL = "app.program.transaction.control";
     public static final String MAX_CONCURRENT_RUNS = "app.max.concurrent.runs";
     public static final String PROGRAM_LAUNCH_THREADS = "app.program.launch.threads";
+    public static final String ACTIVE_RUNS_VIEW_ENABLED = "app.program.active.runs.view.enabled";
 
     // A boolean value cConf entry to tell whether a ProgramRunner is running remotely (i.e. not inside app-fabric)
     // This config is not present in the cdap-default.xml as it is only set internally by CDAP.
@@ -418,6 +425,19 @@ public final class Constants {
     public static final String PROGRAM_STATUS_EVENT_FETCH_SIZE = "scheduler.program.status.event.fetch.size";
 
     public static final String JOB_QUEUE_NUM_PARTITIONS = "scheduler.job.queue.num.partitions";
+    public static final String JOB_QUEUE_FULL_SCAN_INTERVAL_MILLIS = "scheduler.job.queue.full.scan.interval.millis";
+
+    /**
+     * Implementation of the time scheduler, either "quartz" or "timing.wheel"
+     */
+    public static final String TIME_SCHEDULER_TYPE = "scheduler.time.scheduler.type";
+    public static final String TIME_WHEEL_TICK_MILLIS = "scheduler.time.wheel.tick.millis";
+    public static final String TIME_WHEEL_BATCH_SIZE = "scheduler.time.wheel.batch.size";
+
+    /**
+     * Whether schedule lookups by trigger key are served from an in-memory index
+     */
+    public static final String TRIGGER_INDEX_ENABLED = "scheduler.trigger.index.enabled";
   }
 
   /**
@@ -506,6 +526,10 @@ public final class Constants {
 
     public static final String DATA_EVENT_TOPIC = "data.event.topic";
 
+    // Dataset instance meta cache in programs
+    public static final String META_CACHE_EXPIRY_SECONDS = "dataset.meta.cache.expiry.secs";
+    public static final String META_CACHE_POLL_INTERVAL_MS = "dataset.meta.cache.poll.interval.ms";
+
     public static final String DATA_STORAGE_IMPLEMENTATION = "data.storage.implementation";
     public static final String DATA_STORAGE_NOSQL = "nosql";
     public static final String DATA_STORAGE_SQL = "postgresql";
@@ -621,6 +645,9 @@ public final class Constants {
     public static final String SERVER_BOSS_THREADS = "router.server.boss.threads";
     public static final String SERVER_WORKER_THREADS = "router.server.worker.threads";
     public static final String CONNECTION_TIMEOUT_SECS = "router.connection.idle.timeout.secs";
+    public static final String CONNECTION_POOL_MAX_IDLE = "router.connection.pool.max.idle.per.endpoint";
+    public static final String CONNECTION_POOL_IDLE_TIMEOUT_SECS = "router.connection.pool.idle.timeout.secs";
+    public static final String ENDPOINT_STRATEGY = "router.endpoint.strategy";
     public static final String ROUTER_AUDIT_PATH_CHECK_ENABLED = "router.audit.path.check.enabled";
     public static final String ROUTER_AUDIT_LOG_ENABLED = "router.audit.log.enabled";
 
@@ -629,6 +656,9 @@ public final class Constants {
      */
     public static final String DEFAULT_ROUTER_PORT = "11015";
 
+    public static final String ENDPOINT_STRATEGY_RANDOM = "random";
+    public static final String ENDPOINT_STRATEGY_LEAST_REQUESTS = "least.requests";
+
     public static final String DONT_ROUTE_SERVICE = "dont-route-to-service";
     public static final String AUDIT_LOGGER_NAME = "http-access";
   }
@@ -837,6 +867,14 @@ public final class Constants {
       public static final String RUN_TIME_SECONDS = "preview.run.seconds";
     }
 
+    /**
+     * App metadata store metrics
+     */
+    public static final class AppMetadataStore {
+      public static final String APP_META_CACHE_HIT = "appmetadata.cache.hit";
+      public static final String APP_META_CACHE_MISS = "appmetadata.cache.miss";
+    }
+
     /**
      * Structured table metrics
      */
@@ -1047,6 +1085,8 @@ public final class Constants {
     public static final String TOKEN_DIGEST_KEY_EXPIRATION = "security.token.digest.key.expiration.ms";
     /** Parent znode used for secret key distribution in ZooKeeper. */
     public static final String DIST_KEY_PARENT_ZNODE = "security.token.distributed.parent.znode";
+    /** Maximum number of validated access tokens to cache, 0 to disable caching. */
+    public static final String TOKEN_VALIDATION_CACHE_SIZE = "security.token.validation.cache.size";
     /**
      * Comma separated URL's that clients should use to communicate with the Authentication Server.
      * Each URL should follow the format protocol://host:port. Leave empty to use the default URL generated by
@@ -1325,6 +1365,18 @@ public final class Constants {
   public static final String CFG_DATA_LEVELDB_CACHESIZE = "data.local.storage.cachesize";
   public static final String CFG_DATA_LEVELDB_FSYNC = "data.local.storage.fsync";
 
+  /**
+   * The embedded key-value store used for local messaging storage. Local tables always use LevelDB.
+   */
+  public enum LocalStorageEngine {
+    LEVELDB,
+    ROCKSDB
+  }
+  public static final String CFG_DATA_LOCAL_STORAGE_ENGINE = "data.local.storage.engine";
+  public static final String CFG_DATA_ROCKSDB_BLOOM_BITS_PER_KEY = "data.local.storage.rocksdb.bloom.bits.per.key";
+  public static final String CFG_DATA_ROCKSDB_COMPACTION_STYLE = "data.local.storage.rocksdb.compaction.style";
+  public static final String CFG_DATA_ROCKSDB_MAX_BACKGROUND_JOBS = "data.local.storage.rocksdb.max.background.jobs";
+
   /**
    * Defaults for Data Fabric.
    */
@@ -1332,6 +1384,7 @@ public final class Constants {
   public static final int DEFAULT_DATA_LEVELDB_BLOCKSIZE = 1024;
   public static final long DEFAULT_DATA_LEVELDB_CACHESIZE = 1024 * 1024 * 100;
   public static final boolean DEFAULT_DATA_LEVELDB_FSYNC = true;
+  public static final LocalStorageEngine DEFAULT_DATA_LOCAL_STORAGE_ENGINE = LocalStorageEngine.LEVELDB;
 
   /**
    * Used for upgrade and backwards compatability
@@ -1408,6 +1461,11 @@ public final class Constants {
     public static final String MESSAGING_POLL_DELAY_MILLIS = "metadata.messaging.poll.delay.millis";
     public static final String MESSAGING_RETRIES_ON_CONFLICT = "metadata.messaging.retries.on.conflict";
 
+    public static final String LINEAGE_BATCH_SIZE = "metadata.lineage.batch.size";
+    public static final String LINEAGE_MAX_THREADS = "metadata.lineage.max.threads";
+    public static final String LINEAGE_CACHE_SIZE = "metadata.lineage.cache.size";
+    public static final String LINEAGE_CACHE_EXPIRY_SECONDS = "metadata.lineage.cache.expiry.seconds";
+
     public static final String STORAGE_PROVIDER_IMPLEMENTATION = "metadata.storage.implementation";
     public static final String STORAGE_PROVIDER_NOSQL = "nosql";
     public static final String STORAGE_PROVIDER_ELASTICSEARCH = "elastic";
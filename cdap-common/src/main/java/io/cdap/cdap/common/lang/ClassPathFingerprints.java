@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.lang;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+
+/**
+ * Computes fingerprints of classpaths, which are used to key data derived from the classpath that is persisted
+ * across processes.
+ */
+final class ClassPathFingerprints {
+
+  // Fingerprints computed by this process, since many classloaders share the same classpath
+  private static final Map<List<URL>, String> FINGERPRINTS = new ConcurrentHashMap<>();
+
+  /**
+   * Returns a fingerprint computed from the names and sizes of the given jars, and the name, size and CRC of every
+   * entry in them. Only the central directory of each jar is read, which is much cheaper than hashing the content
+   * while still changing whenever any entry changes. The fingerprint of a classpath is only computed once per process.
+   *
+   * @return a hex string, or {@code null} if any of the URLs is not a local jar file or cannot be read
+   */
+  @Nullable
+  static String get(Collection<URL> classPath) {
+    String fingerprint = FINGERPRINTS.computeIfAbsent(new ArrayList<>(classPath), urls -> {
+      Hasher hasher = Hashing.sha256().newHasher();
+      for (URL url : urls) {
+        File file;
+        try {
+          file = new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+          return "";
+        }
+        if (!file.isFile()) {
+          return "";
+        }
+        hasher.putString(file.getName(), StandardCharsets.UTF_8).putLong(file.length());
+        try (ZipFile zipFile = new ZipFile(file)) {
+          Enumeration<? extends ZipEntry> entries = zipFile.entries();
+          while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            hasher.putString(entry.getName(), StandardCharsets.UTF_8).putLong(entry.getSize()).putLong(entry.getCrc());
+          }
+        } catch (IOException e) {
+          return "";
+        }
+      }
+      return hasher.hash().toString();
+    });
+    return fingerprint.isEmpty() ? null : fingerprint;
+  }
+
+  private ClassPathFingerprints() {
+    // no-op
+  }
+}
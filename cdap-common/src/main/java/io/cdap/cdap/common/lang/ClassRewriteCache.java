@@ -0,0 +1,273 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.lang;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * An on-disk cache of bytecode rewritten by {@link InterceptableClassLoader}. The cache directory is set with the
+ * {@value #CACHE_DIR_PROPERTY} system property, for example through {@code app.program.jvm.opts}. It can be
+ * populated by running programs once with a writable directory, for example when building an image, and then be
+ * shared read-only by all containers, in which case new entries are silently not written.
+ *
+ * Entries are keyed by a fingerprint of the rewriter, which covers the classpath of the classloader and its
+ * rewrite configuration, the class name and the original bytecode. Hence an entry is never used for a different
+ * rewriter implementation or input.
+ */
+public final class ClassRewriteCache {
+
+  /**
+   * The system property for the directory of the cache. Caching is disabled if it is not set.
+   */
+  public static final String CACHE_DIR_PROPERTY = "cdap.class.rewrite.cache.dir";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ClassRewriteCache.class);
+  private static final String MBEAN_DOMAIN = "io.cdap.cdap";
+  private static final String MBEAN_TYPE = "ClassRewriteCache";
+
+  private static final Stats STATS = new Stats();
+  private static volatile ClassRewriteCache defaultCache;
+
+  private final Path cacheDir;
+
+  /**
+   * Returns the cache configured by the {@value #CACHE_DIR_PROPERTY} system property, or {@code null} if caching
+   * is not enabled.
+   */
+  @Nullable
+  static ClassRewriteCache getDefault() {
+    String dir = System.getProperty(CACHE_DIR_PROPERTY);
+    if (dir == null || dir.isEmpty()) {
+      return null;
+    }
+    ClassRewriteCache cache = defaultCache;
+    if (cache == null || !cache.cacheDir.equals(Paths.get(dir))) {
+      cache = defaultCache = new ClassRewriteCache(Paths.get(dir));
+      STATS.register();
+    }
+    return cache;
+  }
+
+  ClassRewriteCache(Path cacheDir) {
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * Computes the fingerprint of a rewriter from the classpath of the classloader and its rewrite configuration.
+   *
+   * @return the fingerprint, or {@code null} if the classpath contains entries that are not jar files, whose
+   *         content is not fingerprinted
+   */
+  @Nullable
+  static String getRewriterFingerprint(Class<?> classLoaderClass, String rewriteConfig, URL[] classpath) {
+    String classpathFingerprint = ClassPathFingerprints.get(Arrays.asList(classpath));
+    if (classpathFingerprint == null) {
+      return null;
+    }
+    return Hashing.sha256().newHasher()
+      .putString(classLoaderClass.getName(), StandardCharsets.UTF_8)
+      .putString(rewriteConfig, StandardCharsets.UTF_8)
+      .putString(classpathFingerprint, StandardCharsets.UTF_8)
+      .hash().toString();
+  }
+
+  /**
+   * Returns the cache key for rewriting the given class with the given rewriter.
+   */
+  static String getKey(String rewriterFingerprint, String className, byte[] bytecode) {
+    return Hashing.sha256().newHasher()
+      .putString(rewriterFingerprint, StandardCharsets.UTF_8)
+      .putString(className, StandardCharsets.UTF_8)
+      .putBytes(bytecode)
+      .hash().toString();
+  }
+
+  /**
+   * Returns the cached entry for the given key, or {@code null} if there is no such entry.
+   */
+  @Nullable
+  Entry get(String key) {
+    Path path = getPath(key);
+    try (DataInputStream is = new DataInputStream(Files.newInputStream(path))) {
+      long rewriteNanos = is.readLong();
+      byte[] bytecode = is.readBoolean() ? ByteStreams.toByteArray(is) : null;
+      STATS.hits.incrementAndGet();
+      STATS.savedNanos.addAndGet(rewriteNanos);
+      return new Entry(bytecode);
+    } catch (NoSuchFileException e) {
+      STATS.misses.incrementAndGet();
+      return null;
+    } catch (IOException e) {
+      LOG.debug("Failed to read cached bytecode from {}", path, e);
+      STATS.misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /**
+   * Stores the result of rewriting a class in the cache. Failures are ignored, since the cache may be read-only.
+   *
+   * @param key the cache key
+   * @param bytecode the rewritten bytecode, or {@code null} if the class was not rewritten
+   * @param rewriteNanos the time it took to rewrite the class
+   */
+  void put(String key, @Nullable byte[] bytecode, long rewriteNanos) {
+    Path path = getPath(key);
+    try {
+      Files.createDirectories(path.getParent());
+      // Write to a temporary file and move, so that concurrent readers never see a partial entry
+      Path tmpPath = Files.createTempFile(path.getParent(), key, ".tmp");
+      try {
+        try (DataOutputStream os = new DataOutputStream(Files.newOutputStream(tmpPath))) {
+          os.writeLong(rewriteNanos);
+          os.writeBoolean(bytecode != null);
+          if (bytecode != null) {
+            os.write(bytecode);
+          }
+        }
+        Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpPath);
+      }
+    } catch (IOException | UnsupportedOperationException e) {
+      LOG.trace("Failed to cache bytecode in {}", path, e);
+    }
+  }
+
+  private Path getPath(String key) {
+    return cacheDir.resolve(key.substring(0, 2)).resolve(key + ".class");
+  }
+
+  /**
+   * Returns the total number of cache hits in this process.
+   */
+  public static long getTotalHits() {
+    return sumAttribute("Hits");
+  }
+
+  /**
+   * Returns the total rewrite time in milliseconds that was saved by cache hits in this process.
+   */
+  public static long getTotalSavedMillis() {
+    return sumAttribute("SavedMillis");
+  }
+
+  /**
+   * Sums an attribute over all {@link StatsMXBean}s. There can be more than one, since this class can be loaded
+   * by multiple classloaders in the same process.
+   */
+  private static long sumAttribute(String attribute) {
+    MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+    long sum = 0L;
+    try {
+      for (ObjectName name : mbs.queryNames(new ObjectName(MBEAN_DOMAIN + ":type=" + MBEAN_TYPE + ",*"), null)) {
+        sum += (Long) mbs.getAttribute(name, attribute);
+      }
+    } catch (JMException e) {
+      LOG.debug("Failed to get class rewrite cache attribute {}", attribute, e);
+    }
+    return sum;
+  }
+
+  /**
+   * A cached rewrite result.
+   */
+  static final class Entry {
+    private final byte[] bytecode;
+
+    private Entry(@Nullable byte[] bytecode) {
+      this.bytecode = bytecode;
+    }
+
+    /**
+     * Returns the rewritten bytecode, or {@code null} if the class does not need rewriting.
+     */
+    @Nullable
+    byte[] getBytecode() {
+      return bytecode;
+    }
+  }
+
+  /**
+   * MXBean for the cache statistics.
+   */
+  public interface StatsMXBean {
+    long getHits();
+
+    long getMisses();
+
+    long getSavedMillis();
+  }
+
+  private static final class Stats implements StatsMXBean {
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+    private volatile boolean registered;
+
+    @Override
+    public long getHits() {
+      return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+      return misses.get();
+    }
+
+    @Override
+    public long getSavedMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(savedNanos.get());
+    }
+
+    synchronized void register() {
+      if (registered) {
+        return;
+      }
+      registered = true;
+      try {
+        ObjectName name = new ObjectName(String.format("%s:type=%s,id=%x", MBEAN_DOMAIN, MBEAN_TYPE,
+                                                       System.identityHashCode(ClassRewriteCache.class)));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+      } catch (JMException e) {
+        LOG.debug("Failed to register class rewrite cache statistics", e);
+      }
+    }
+  }
+}
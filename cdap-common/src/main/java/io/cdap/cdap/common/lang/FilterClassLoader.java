@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.common.lang;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 
 import java.io.IOException;
@@ -24,7 +25,6 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -35,6 +35,9 @@ public final class FilterClassLoader extends ClassLoader {
 
   private final ClassLoader extensionClassLoader;
   private final Filter filter;
+  // Names of classes that are known to be not loadable from this ClassLoader. A child ClassLoader delegates every
+  // class it loads to this ClassLoader first, so remembering them avoids repeated lookups for the same name.
+  private final RejectedClassNames rejectedClasses = new RejectedClassNames();
 
   /**
    * Represents filtering  that the {@link FilterClassLoader} needs to apply.
@@ -58,16 +61,7 @@ public final class FilterClassLoader extends ClassLoader {
    */
   public static Filter defaultFilter() {
     final Set<String> visibleResources = ProgramResources.getVisibleResources();
-    final Set<String> visiblePackages = new HashSet<>();
-    for (String resource : visibleResources) {
-      if (resource.endsWith(".class")) {
-        int idx = resource.lastIndexOf('/');
-        // Ignore empty package
-        if (idx > 0) {
-          visiblePackages.add(resource.substring(0, idx).replace('/', '.'));
-        }
-      }
-    }
+    final Set<String> visiblePackages = ProgramResources.getVisiblePackages();
     return new Filter() {
       @Override
       public boolean acceptResource(String resource) {
@@ -105,8 +99,16 @@ public final class FilterClassLoader extends ClassLoader {
     this.filter = filter;
   }
 
+  @VisibleForTesting
+  RejectedClassNames getRejectedClasses() {
+    return rejectedClasses;
+  }
+
   @Override
   protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    if (rejectedClasses.contains(name)) {
+      throw new ClassNotFoundException(name);
+    }
     // Try to load it from bootstrap class loader first
     try {
       return extensionClassLoader.loadClass(name);
@@ -114,6 +116,7 @@ public final class FilterClassLoader extends ClassLoader {
       if (filter.acceptResource(classNameToResourceName(name))) {
         return super.loadClass(name, resolve);
       }
+      rejectedClasses.add(name);
       throw e;
     }
   }
@@ -16,26 +16,34 @@
 
 package io.cdap.cdap.common.lang;
 
+import com.google.common.io.ByteStreams;
 import io.cdap.cdap.common.lang.jar.BundleJarUtil;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.jar.Manifest;
 import javax.annotation.Nullable;
 
 /**
- * A {@link URLClassLoader} that can optionally rewrite the the bytecode.
+ * A {@link URLClassLoader} that can optionally rewrite the the bytecode. The rewritten bytecode is cached on disk
+ * by the {@link ClassRewriteCache} if it is enabled.
  */
 public abstract class InterceptableClassLoader extends URLClassLoader implements ClassRewriter {
 
   private final Map<String, Manifest> manifests = new HashMap<>();
+  private final ClassRewriteCache rewriteCache;
+  private String rewriterFingerprint;
 
   public InterceptableClassLoader(URL[] urls, ClassLoader parent) {
     super(urls, parent);
+    this.rewriteCache = ClassRewriteCache.getDefault();
   }
 
   @Override
@@ -51,7 +59,7 @@ public abstract class InterceptableClassLoader extends URLClassLoader implements
       throw new ClassNotFoundException("Failed to find resource for class " + name);
     }
     try (InputStream is = resource.openStream()) {
-      byte[] bytecode = rewriteClass(name, is);
+      byte[] bytecode = rewriteClass(name, is, resource);
 
       // If no rewriting is needed, just load the name normally.
       if (bytecode == null) {
@@ -74,6 +82,55 @@ public abstract class InterceptableClassLoader extends URLClassLoader implements
     }
   }
 
+  /**
+   * Rewrites the given class, using the {@link ClassRewriteCache} if it is enabled.
+   */
+  @Nullable
+  private byte[] rewriteClass(String name, InputStream is, URL resource) throws IOException {
+    String fingerprint = rewriteCache == null ? null : getRewriterFingerprint();
+    if (fingerprint == null) {
+      return rewriteClass(name, is);
+    }
+
+    byte[] original = ByteStreams.toByteArray(is);
+    String key = ClassRewriteCache.getKey(fingerprint, name, original);
+    ClassRewriteCache.Entry entry = rewriteCache.get(key);
+    if (entry != null) {
+      return entry.getBytecode();
+    }
+    long startTime = System.nanoTime();
+    byte[] bytecode = rewriteClass(name, new ByteArrayInputStream(original));
+    rewriteCache.put(key, bytecode, System.nanoTime() - startTime);
+    return bytecode;
+  }
+
+  /**
+   * Returns the fingerprint of this rewriter, which covers the classpath of this classloader, the rewriter
+   * implementation and {@link #getRewriteConfig()}, or {@code null} if it cannot be computed.
+   */
+  @Nullable
+  private synchronized String getRewriterFingerprint() {
+    if (rewriterFingerprint == null) {
+      URL[] urls = getURLs();
+      CodeSource codeSource = getClass().getProtectionDomain().getCodeSource();
+      if (codeSource != null && codeSource.getLocation() != null) {
+        urls = Arrays.copyOf(urls, urls.length + 1);
+        urls[urls.length - 1] = codeSource.getLocation();
+      }
+      String fingerprint = ClassRewriteCache.getRewriterFingerprint(getClass(), getRewriteConfig(), urls);
+      rewriterFingerprint = fingerprint == null ? "" : fingerprint;
+    }
+    return rewriterFingerprint.isEmpty() ? null : rewriterFingerprint;
+  }
+
+  /**
+   * Returns a string describing any configuration that affects how classes are rewritten, other than the
+   * classpath of this classloader. It is included in the key of the {@link ClassRewriteCache}.
+   */
+  protected String getRewriteConfig() {
+    return "";
+  }
+
   /**
    * Implementation to decide whether a class loading needs to be intercepted by this class.
    *
@@ -34,6 +34,8 @@ public class PackageFilterClassLoader extends ClassLoader {
 
   private final Predicate<String> predicate;
   private final ClassLoader bootstrapClassLoader;
+  // Names of classes that are known to be not loadable from this ClassLoader
+  private final RejectedClassNames rejectedClasses = new RejectedClassNames();
 
   /**
    * Constructs a new instance that only allow class's package name passes the given {@link Predicate}.
@@ -48,10 +50,14 @@ public class PackageFilterClassLoader extends ClassLoader {
 
   @Override
   protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    if (rejectedClasses.contains(name)) {
+      throw new ClassNotFoundException("Loading of class " + name + " not allowed");
+    }
     try {
       return bootstrapClassLoader.loadClass(name);
     } catch (ClassNotFoundException e) {
       if (!predicate.test(getClassPackage(name))) {
+        rejectedClasses.add(name);
         throw new ClassNotFoundException("Loading of class " + name + " not allowed");
       }
 
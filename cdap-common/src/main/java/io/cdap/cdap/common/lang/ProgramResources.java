@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.common.lang;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
@@ -27,21 +28,42 @@ import io.cdap.cdap.common.internal.guava.ClassPath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import javax.ws.rs.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
 
 /**
  * Helper class to maintain list of resources that are visible to user programs.
  */
 public final class ProgramResources {
 
+  /**
+   * The system property for the directory that holds the index of visible resources. If it is set, the visible
+   * resources are computed once for a given CDAP classpath and then read from the index, instead of scanning and
+   * tracing the classpath in every process. The directory can be populated ahead of time and be read-only.
+   */
+  public static final String INDEX_DIR_PROPERTY = "cdap.program.resources.index.dir";
+
   private static final Logger LOG = LoggerFactory.getLogger(ProgramResources.class);
 
   private static final List<String> HADOOP_PACKAGES = ImmutableList.of("org.apache.hadoop.");
@@ -57,6 +79,8 @@ public final class ProgramResources {
 
   // Contains set of resources that are always visible to all program type.
   private static Set<String> baseResources;
+  // Contains set of packages of the classes in the baseResources.
+  private static Set<String> basePackages;
 
   /**
    * Returns a Set of resource names that are visible through to user program.
@@ -65,8 +89,20 @@ public final class ProgramResources {
     if (baseResources != null) {
       return baseResources;
     }
+    // Everything should be traceable in the same ClassLoader of this class, which is the CDAP system ClassLoader
+    ClassLoader classLoader = ProgramResources.class.getClassLoader();
+    Path indexFile = getIndexFile(classLoader);
+    if (indexFile != null) {
+      baseResources = readIndex(indexFile);
+      if (baseResources != null) {
+        return baseResources;
+      }
+    }
     try {
-      baseResources = createBaseResources();
+      baseResources = createBaseResources(classLoader);
+      if (indexFile != null) {
+        writeIndex(indexFile, baseResources);
+      }
     } catch (IOException e) {
       LOG.error("Failed to determine base visible resources to user program", e);
       baseResources = ImmutableSet.of();
@@ -74,15 +110,106 @@ public final class ProgramResources {
     return baseResources;
   }
 
+  /**
+   * Returns a Set of package names of the classes that are visible through to user program.
+   */
+  public static synchronized Set<String> getVisiblePackages() {
+    if (basePackages != null) {
+      return basePackages;
+    }
+    Set<String> packages = new HashSet<>();
+    for (String resource : getVisibleResources()) {
+      if (resource.endsWith(".class")) {
+        int idx = resource.lastIndexOf('/');
+        // Ignore empty package
+        if (idx > 0) {
+          packages.add(resource.substring(0, idx).replace('/', '.'));
+        }
+      }
+    }
+    basePackages = Collections.unmodifiableSet(packages);
+    return basePackages;
+  }
+
+  /**
+   * Returns the index file for the classpath of the given {@link ClassLoader}, or {@code null} if there is no
+   * index directory configured or the classpath cannot be fingerprinted.
+   */
+  @Nullable
+  private static Path getIndexFile(ClassLoader classLoader) {
+    String indexDir = System.getProperty(INDEX_DIR_PROPERTY);
+    if (indexDir == null || indexDir.isEmpty()) {
+      return null;
+    }
+    String fingerprint = ClassPathFingerprints.get(ClassLoaders.getClassLoaderURLs(classLoader, new ArrayList<>()));
+    if (fingerprint == null) {
+      LOG.debug("Not using the visible resources index since the classpath of {} contains non-jar entries",
+                classLoader);
+      return null;
+    }
+    return Paths.get(indexDir, "visible-resources-" + fingerprint + ".gz");
+  }
+
+  /**
+   * Reads the set of resource names from the given index file.
+   *
+   * @return the set of resource names, or {@code null} if the index doesn't exist or cannot be read
+   */
+  @VisibleForTesting
+  @Nullable
+  static Set<String> readIndex(Path indexFile) {
+    Set<String> result = new HashSet<>();
+    try (BufferedReader reader = new BufferedReader(
+      new InputStreamReader(new GZIPInputStream(Files.newInputStream(indexFile)), StandardCharsets.UTF_8))) {
+      String line = reader.readLine();
+      while (line != null) {
+        result.add(line);
+        line = reader.readLine();
+      }
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      LOG.warn("Failed to read visible resources index from {}", indexFile, e);
+      return null;
+    }
+    LOG.debug("Read {} visible resources from index {}", result.size(), indexFile);
+    return Collections.unmodifiableSet(result);
+  }
+
+  /**
+   * Writes the set of resource names to the given index file. Failures are ignored since the index directory may be
+   * read-only.
+   */
+  @VisibleForTesting
+  static void writeIndex(Path indexFile, Set<String> resources) {
+    try {
+      Files.createDirectories(indexFile.getParent());
+      // Write to a temporary file and move, so that concurrent readers never see a partial index
+      Path tmpFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+      try {
+        try (Writer writer = new BufferedWriter(
+          new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(tmpFile)), StandardCharsets.UTF_8))) {
+          for (String resource : resources) {
+            writer.write(resource);
+            writer.write('\n');
+          }
+        }
+        Files.move(tmpFile, indexFile, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+      LOG.debug("Wrote {} visible resources to index {}", resources.size(), indexFile);
+    } catch (IOException | UnsupportedOperationException e) {
+      LOG.debug("Failed to write visible resources index to {}", indexFile, e);
+    }
+  }
+
   /**
    * Returns a Set of resources name that are visible through the cdap-api module as well as Hadoop classes.
    * This includes all classes+resources in cdap-api plus all classes+resources that cdap-api
    * depends on (for example, sl4j, gson, etc).
    */
-  private static Set<String> createBaseResources() throws IOException {
-    // Everything should be traceable in the same ClassLoader of this class, which is the CDAP system ClassLoader
-    ClassLoader classLoader = ProgramResources.class.getClassLoader();
-
+  private static Set<String> createBaseResources(ClassLoader classLoader) throws IOException {
     // Gather resources information for cdap-api classes
     // Add everything in cdap-api as visible resources
     // Trace dependencies for cdap-api classes
@@ -90,8 +217,9 @@ public final class ProgramResources {
     result.addAll(ClassPathResources.getResourcesWithDependencies(classLoader, SystemServiceConfigurer.class));
 
     // Gather resources for javax.ws.rs classes. They are not traceable from the api classes.
-    Iterables.addAll(result, Iterables.transform(ClassPathResources.getClassPathResources(classLoader, Path.class),
-                                                 ClassPathResources.RESOURCE_INFO_TO_RESOURCE_NAME));
+    Iterables.addAll(result,
+                     Iterables.transform(ClassPathResources.getClassPathResources(classLoader, javax.ws.rs.Path.class),
+                                         ClassPathResources.RESOURCE_INFO_TO_RESOURCE_NAME));
 
     // Gather Hadoop classes and resources
     getResources(ClassPath.from(classLoader, JAR_ONLY_URI),
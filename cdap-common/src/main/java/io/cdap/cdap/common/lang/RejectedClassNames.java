@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.lang;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded set of class names that a filtering {@link ClassLoader} rejected, so that repeated lookups of the same
+ * name fail without going through the parent and the filter again. Once the set is full, the least recently
+ * rejected name is evicted. This class is not thread safe; callers synchronize on the owning {@link ClassLoader}.
+ */
+final class RejectedClassNames {
+
+  @VisibleForTesting
+  static final int MAX_SIZE = 10000;
+
+  private final Map<String, Boolean> names = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > MAX_SIZE;
+    }
+  };
+
+  /**
+   * Returns whether the given class name was rejected before.
+   */
+  boolean contains(String className) {
+    return names.get(className) != null;
+  }
+
+  /**
+   * Remembers the given class name as rejected.
+   */
+  void add(String className) {
+    names.put(className, Boolean.TRUE);
+  }
+
+  @VisibleForTesting
+  int size() {
+    return names.size();
+  }
+}
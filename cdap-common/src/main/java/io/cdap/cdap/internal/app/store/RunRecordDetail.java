@@ -96,12 +96,10 @@ public final class RunRecordDetail extends RunRecord {
       return userArgs;
     }
     Map<String, String> properties = getProperties();
-    if (properties != null) {
-      String runtimeArgs = properties.get("runtimeArgs");
-      if (runtimeArgs != null) {
-        userArgs = new LinkedHashMap<>(new Gson().fromJson(runtimeArgs,
-                                                           new TypeToken<Map<String, String>>() { }.getType()));
-      }
+    String runtimeArgs = properties == null ? null : properties.get("runtimeArgs");
+    if (runtimeArgs != null) {
+      userArgs = new LinkedHashMap<>(new Gson().fromJson(runtimeArgs,
+                                                         new TypeToken<Map<String, String>>() { }.getType()));
     } else {
       userArgs = Collections.emptyMap();
     }
@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes and decodes {@link RunRecordDetail} for storage in the run records table.
+ *
+ * Run records are encoded in a versioned binary format, which is stored as text with the {@link #BINARY_PREFIX}
+ * followed by the Base64 of the binary. The binary starts with a header that contains all the fixed size fields
+ * of the record, followed by the properties and the system arguments, each prefixed by its length in bytes. Since
+ * the properties and the system arguments usually make up most of the record, they are only decoded when requested
+ * by the {@link RunRecordProjection}, and skipped otherwise.
+ *
+ * Run records that are stored as JSON, either by releases before the binary format was introduced or because the
+ * binary format is not enabled, are decoded with {@link Gson}.
+ */
+public final class RunRecordDetailCodec {
+
+  // JSON always starts with '{', hence the prefix never matches a JSON encoded record
+  private static final String BINARY_PREFIX = "#";
+  private static final int VERSION_1 = 1;
+  private static final Gson GSON = new Gson();
+
+  private RunRecordDetailCodec() {
+    // no-op
+  }
+
+  /**
+   * Encodes the given {@link RunRecordDetail} with the latest version of the binary format. The program run id is
+   * not encoded, as it is part of the key in the run records table.
+   */
+  public static String encode(RunRecordDetail record) {
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bos);
+      output.writeByte(VERSION_1);
+      encodeHeader(output, record);
+      encodeSection(output, record.getProperties());
+      encodeSection(output, record.getSystemArgs());
+      output.close();
+      return BINARY_PREFIX + Base64.getEncoder().encodeToString(bos.toByteArray());
+    } catch (IOException e) {
+      // Shouldn't happen since it is writing to memory
+      throw new IllegalStateException("Failed to encode run record " + record.getProgramRunId(), e);
+    }
+  }
+
+  /**
+   * Decodes a {@link RunRecordDetail} that was encoded either with {@link #encode(RunRecordDetail)} or as JSON.
+   *
+   * @param data the encoded run record
+   * @param programId the id of the program that the run belongs to
+   * @param projection the parts of the run record to decode
+   * @return the decoded {@link RunRecordDetail}
+   */
+  public static RunRecordDetail decode(String data, ProgramId programId, RunRecordProjection projection) {
+    if (!data.startsWith(BINARY_PREFIX)) {
+      RunRecordDetail existing = GSON.fromJson(data, RunRecordDetail.class);
+      RunRecordDetail.Builder builder = RunRecordDetail.builder(existing)
+        .setProgramRunId(programId.run(existing.getPid()));
+      if (projection == RunRecordProjection.SUMMARY) {
+        builder.setProperties(Collections.emptyMap()).setSystemArgs(null);
+      }
+      return builder.build();
+    }
+
+    byte[] bytes = Base64.getDecoder().decode(data.substring(BINARY_PREFIX.length()));
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      int version = input.readByte();
+      if (version != VERSION_1) {
+        throw new IllegalArgumentException("Unsupported run record encoding version " + version
+                                             + " for run record of program " + programId);
+      }
+      RunRecordDetail.Builder builder = decodeHeader(input, programId);
+      if (projection == RunRecordProjection.FULL) {
+        builder.setProperties(decodeSection(input));
+        builder.setSystemArgs(decodeSection(input));
+      }
+      return builder.build();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to decode run record of program " + programId, e);
+    }
+  }
+
+  private static void encodeHeader(DataOutputStream output, RunRecordDetail record) throws IOException {
+    writeString(output, record.getPid());
+    output.writeLong(record.getStartTs());
+    writeNullableLong(output, record.getRunTs());
+    writeNullableLong(output, record.getStopTs());
+    writeNullableLong(output, record.getSuspendTs());
+    writeNullableLong(output, record.getResumeTs());
+    writeString(output, record.getStatus() == null ? null : record.getStatus().name());
+    writeString(output, record.getTwillRunId());
+
+    ProgramRunCluster cluster = record.getCluster();
+    output.writeBoolean(cluster != null);
+    if (cluster != null) {
+      writeString(output, cluster.getStatus() == null ? null : cluster.getStatus().name());
+      writeNullableLong(output, cluster.getEnd());
+      output.writeBoolean(cluster.getNumNodes() != null);
+      if (cluster.getNumNodes() != null) {
+        output.writeInt(cluster.getNumNodes());
+      }
+    }
+
+    ProfileId profileId = record.getProfileId();
+    output.writeBoolean(profileId != null);
+    if (profileId != null) {
+      writeString(output, profileId.getNamespace());
+      writeString(output, profileId.getProfile());
+    }
+
+    writeBytes(output, record.getSourceId());
+
+    ArtifactId artifactId = record.getArtifactId();
+    output.writeBoolean(artifactId != null);
+    if (artifactId != null) {
+      writeString(output, artifactId.getName());
+      writeString(output, artifactId.getVersion().getVersion());
+      writeString(output, artifactId.getScope().name());
+    }
+
+    writeString(output, record.getPrincipal());
+  }
+
+  private static RunRecordDetail.Builder decodeHeader(DataInputStream input, ProgramId programId) throws IOException {
+    RunRecordDetail.Builder builder = RunRecordDetail.builder()
+      .setProgramRunId(programId.run(readString(input)))
+      .setStartTime(input.readLong())
+      .setRunTime(readNullableLong(input))
+      .setStopTime(readNullableLong(input))
+      .setSuspendTime(readNullableLong(input))
+      .setResumeTime(readNullableLong(input));
+    String status = readString(input);
+    builder.setStatus(status == null ? null : ProgramRunStatus.valueOf(status))
+      .setTwillRunId(readString(input));
+
+    if (input.readBoolean()) {
+      String clusterStatus = readString(input);
+      Long end = readNullableLong(input);
+      Integer numNodes = input.readBoolean() ? input.readInt() : null;
+      builder.setCluster(new ProgramRunCluster(
+        clusterStatus == null ? null : ProgramRunClusterStatus.valueOf(clusterStatus), end, numNodes));
+    }
+    if (input.readBoolean()) {
+      builder.setProfileId(new ProfileId(readString(input), readString(input)));
+    }
+    builder.setSourceId(readBytes(input));
+    if (input.readBoolean()) {
+      builder.setArtifactId(new ArtifactId(readString(input), new ArtifactVersion(readString(input)),
+                                           ArtifactScope.valueOf(readString(input))));
+    }
+    return builder.setPrincipal(readString(input));
+  }
+
+  private static void encodeSection(DataOutputStream output, Map<String, String> map) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream section = new DataOutputStream(bos);
+    section.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      writeString(section, entry.getKey());
+      writeString(section, entry.getValue());
+    }
+    section.close();
+    output.writeInt(bos.size());
+    bos.writeTo(output);
+  }
+
+  private static Map<String, String> decodeSection(DataInputStream input) throws IOException {
+    // The section length is only needed for skipping the section
+    input.readInt();
+    int size = input.readInt();
+    Map<String, String> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      map.put(readString(input), readString(input));
+    }
+    return map;
+  }
+
+  private static void writeNullableLong(DataOutputStream output, @Nullable Long value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeLong(value);
+    }
+  }
+
+  @Nullable
+  private static Long readNullableLong(DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readLong() : null;
+  }
+
+  private static void writeString(DataOutputStream output, @Nullable String value) throws IOException {
+    writeBytes(output, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Nullable
+  private static String readString(DataInputStream input) throws IOException {
+    byte[] bytes = readBytes(input);
+    return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeBytes(DataOutputStream output, @Nullable byte[] bytes) throws IOException {
+    if (bytes == null) {
+      output.writeInt(-1);
+      return;
+    }
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  @Nullable
+  private static byte[] readBytes(DataInputStream input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+/**
+ * Defines which parts of a {@link RunRecordDetail} are read from the store.
+ */
+public enum RunRecordProjection {
+
+  /**
+   * All fields of the run record.
+   */
+  FULL,
+
+  /**
+   * All fields except the properties and the system arguments, which are returned as empty maps. Since the runtime
+   * arguments are kept in the properties, {@link RunRecordDetail#getUserArgs()} returns an empty map as well.
+   */
+  SUMMARY
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.lang;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Unit tests for {@link ClassRewriteCache}.
+ */
+public class ClassRewriteCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testGetPut() throws IOException {
+    ClassRewriteCache cache = new ClassRewriteCache(TEMP_FOLDER.newFolder().toPath());
+
+    byte[] original = new byte[] { 1, 2, 3 };
+    String key = ClassRewriteCache.getKey("rewriter", "a.B", original);
+    Assert.assertNull(cache.get(key));
+
+    byte[] rewritten = new byte[] { 4, 5, 6, 7 };
+    cache.put(key, rewritten, 1000L);
+    ClassRewriteCache.Entry entry = cache.get(key);
+    Assert.assertNotNull(entry);
+    Assert.assertArrayEquals(rewritten, entry.getBytecode());
+
+    // Classes that are not rewritten are cached as well
+    String unchangedKey = ClassRewriteCache.getKey("rewriter", "a.C", original);
+    cache.put(unchangedKey, null, 1000L);
+    entry = cache.get(unchangedKey);
+    Assert.assertNotNull(entry);
+    Assert.assertNull(entry.getBytecode());
+
+    // The key depends on the rewriter, the class name and the original bytecode
+    Assert.assertNotEquals(key, ClassRewriteCache.getKey("rewriter2", "a.B", original));
+    Assert.assertNotEquals(key, ClassRewriteCache.getKey("rewriter", "a.B", new byte[] { 1, 2 }));
+    Assert.assertNotEquals(key, unchangedKey);
+  }
+
+  @Test
+  public void testNotWritable() throws IOException {
+    // A cache directory that cannot be created behaves like an empty read-only cache
+    File file = TEMP_FOLDER.newFile();
+    ClassRewriteCache cache = new ClassRewriteCache(file.toPath().resolve("cache"));
+    String key = ClassRewriteCache.getKey("rewriter", "a.B", new byte[] { 1 });
+    cache.put(key, new byte[] { 2 }, 1000L);
+    Assert.assertNull(cache.get(key));
+  }
+
+  @Test
+  public void testRewriterFingerprint() throws IOException {
+    File jar = createJar(new File(TEMP_FOLDER.newFolder(), "test.jar"), "content a");
+    URL[] urls = new URL[] { jar.toURI().toURL() };
+
+    String fingerprint = ClassRewriteCache.getRewriterFingerprint(getClass(), "", urls);
+    Assert.assertNotNull(fingerprint);
+    Assert.assertEquals(fingerprint, ClassRewriteCache.getRewriterFingerprint(getClass(), "", urls));
+    Assert.assertNotEquals(fingerprint, ClassRewriteCache.getRewriterFingerprint(getClass(), "config", urls));
+    Assert.assertNotEquals(fingerprint, ClassRewriteCache.getRewriterFingerprint(Object.class, "", urls));
+
+    // Jars with the same name, entries and sizes that only differ in the entry content have different fingerprints
+    File jar1 = createJar(new File(TEMP_FOLDER.newFolder(), "same.jar"), "content b");
+    File jar2 = createJar(new File(TEMP_FOLDER.newFolder(), "same.jar"), "content c");
+    String fingerprint1 = ClassRewriteCache.getRewriterFingerprint(getClass(), "", new URL[] { jar1.toURI().toURL() });
+    String fingerprint2 = ClassRewriteCache.getRewriterFingerprint(getClass(), "", new URL[] { jar2.toURI().toURL() });
+    Assert.assertNotNull(fingerprint1);
+    Assert.assertNotEquals(fingerprint1, fingerprint2);
+
+    // Directories and files that are not jars cannot be fingerprinted
+    URL[] dirUrls = new URL[] { TEMP_FOLDER.newFolder().toURI().toURL() };
+    Assert.assertNull(ClassRewriteCache.getRewriterFingerprint(getClass(), "", dirUrls));
+    File notJar = TEMP_FOLDER.newFile("notjar.jar");
+    Files.write("content d", notJar, Charsets.UTF_8);
+    Assert.assertNull(ClassRewriteCache.getRewriterFingerprint(getClass(), "", new URL[] { notJar.toURI().toURL() }));
+  }
+
+  private File createJar(File file, String content) throws IOException {
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file))) {
+      output.putNextEntry(new JarEntry("test.txt"));
+      output.write(content.getBytes(StandardCharsets.UTF_8));
+      output.closeEntry();
+    }
+    return file;
+  }
+}
@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.ws.rs.PUT;
 
 /**
@@ -36,6 +37,56 @@ public class FilterClassLoaderTest {
     classLoader.loadClass(FilterClassLoader.class.getName());
   }
 
+  @Test
+  public void testRejectedClassRemembered() throws ClassNotFoundException {
+    // Count how often the filter is consulted to verify that rejections are memoized
+    FilterClassLoader.Filter defaultFilter = FilterClassLoader.defaultFilter();
+    AtomicInteger filterCalls = new AtomicInteger();
+    FilterClassLoader classLoader = new FilterClassLoader(getClass().getClassLoader(), new FilterClassLoader.Filter() {
+      @Override
+      public boolean acceptResource(String resource) {
+        filterCalls.incrementAndGet();
+        return defaultFilter.acceptResource(resource);
+      }
+
+      @Override
+      public boolean acceptPackage(String packageName) {
+        return defaultFilter.acceptPackage(packageName);
+      }
+    });
+
+    // Loading a hidden class repeatedly should consistently fail, while only consulting the filter once
+    for (int i = 0; i < 3; i++) {
+      try {
+        classLoader.loadClass(FilterClassLoader.class.getName());
+        Assert.fail("Expected " + FilterClassLoader.class.getName() + " to be hidden");
+      } catch (ClassNotFoundException e) {
+        // expected
+      }
+    }
+    Assert.assertEquals(1, filterCalls.get());
+    Assert.assertTrue(classLoader.getRejectedClasses().contains(FilterClassLoader.class.getName()));
+
+    // Visible classes are not remembered as rejected
+    Assert.assertSame(Application.class, classLoader.loadClass(Application.class.getName()));
+    Assert.assertFalse(classLoader.getRejectedClasses().contains(Application.class.getName()));
+  }
+
+  @Test
+  public void testRejectedClassesBounded() {
+    RejectedClassNames rejectedClasses = new RejectedClassNames();
+    for (int i = 0; i <= RejectedClassNames.MAX_SIZE; i++) {
+      rejectedClasses.add("a.B" + i);
+      // Keep the first name recently used, so that it survives the eviction
+      Assert.assertTrue(rejectedClasses.contains("a.B0"));
+    }
+    Assert.assertEquals(RejectedClassNames.MAX_SIZE, rejectedClasses.size());
+    Assert.assertTrue(rejectedClasses.contains("a.B0"));
+    // The least recently used name is evicted
+    Assert.assertFalse(rejectedClasses.contains("a.B1"));
+    Assert.assertTrue(rejectedClasses.contains("a.B" + RejectedClassNames.MAX_SIZE));
+  }
+
   @Test
   public void testAPIVisible() throws ClassNotFoundException {
     FilterClassLoader classLoader = FilterClassLoader.create(this.getClass().getClassLoader());
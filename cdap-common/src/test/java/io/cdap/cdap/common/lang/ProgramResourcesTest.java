@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.lang;
+
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.app.Application;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link ProgramResources}.
+ */
+public class ProgramResourcesTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testIndexRoundTrip() throws IOException {
+    Path indexFile = TEMP_FOLDER.newFolder().toPath().resolve("dir").resolve("visible-resources.gz");
+    Assert.assertNull(ProgramResources.readIndex(indexFile));
+
+    Set<String> resources = ImmutableSet.of("io/cdap/cdap/api/app/Application.class", "META-INF/MANIFEST.MF",
+                                            "org/slf4j/Logger.class");
+    ProgramResources.writeIndex(indexFile, resources);
+    Assert.assertEquals(resources, ProgramResources.readIndex(indexFile));
+
+    // Writing again replaces the index
+    resources = ImmutableSet.of("org/slf4j/Logger.class");
+    ProgramResources.writeIndex(indexFile, resources);
+    Assert.assertEquals(resources, ProgramResources.readIndex(indexFile));
+
+    // An empty set can be indexed as well
+    ProgramResources.writeIndex(indexFile, ImmutableSet.of());
+    Assert.assertEquals(ImmutableSet.of(), ProgramResources.readIndex(indexFile));
+
+    // No temporary files are left behind
+    try (Stream<Path> files = Files.list(indexFile.getParent())) {
+      Assert.assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  public void testInvalidIndex() throws IOException {
+    // An index that is not gzipped is ignored
+    Path indexFile = TEMP_FOLDER.newFile().toPath();
+    Files.write(indexFile, "io/cdap/cdap/api/app/Application.class".getBytes(StandardCharsets.UTF_8));
+    Assert.assertNull(ProgramResources.readIndex(indexFile));
+
+    // Failing to write the index is ignored, e.g. if the index directory cannot be created
+    File file = TEMP_FOLDER.newFile();
+    Path unwritable = file.toPath().resolve("visible-resources.gz");
+    ProgramResources.writeIndex(unwritable, ImmutableSet.of("org/slf4j/Logger.class"));
+    Assert.assertNull(ProgramResources.readIndex(unwritable));
+  }
+
+  @Test
+  public void testVisiblePackages() {
+    Set<String> packages = ProgramResources.getVisiblePackages();
+    Assert.assertSame(packages, ProgramResources.getVisiblePackages());
+    Assert.assertTrue(packages.contains(Application.class.getPackage().getName()));
+
+    // The packages are the ones of the visible classes, excluding the default package
+    Set<String> expected = new HashSet<>();
+    for (String resource : ProgramResources.getVisibleResources()) {
+      int idx = resource.lastIndexOf('/');
+      if (resource.endsWith(".class") && idx > 0) {
+        expected.add(resource.substring(0, idx).replace('/', '.'));
+      }
+    }
+    Assert.assertEquals(expected, packages);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link RunRecordDetailCodec}.
+ */
+public class RunRecordDetailCodecTest {
+
+  private static final ProgramId PROGRAM_ID = new ProgramId("ns", "app", ProgramType.WORKFLOW, "workflow");
+
+  @Test
+  public void testEncodeDecode() {
+    RunRecordDetail record = RunRecordDetail.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate().getId()))
+      .setStartTime(1000L)
+      .setRunTime(1010L)
+      .setStopTime(2000L)
+      .setStatus(ProgramRunStatus.COMPLETED)
+      .setTwillRunId("twill")
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.DEPROVISIONED, 2010L, 3))
+      .setProfileId(NamespaceId.SYSTEM.profile("dataproc"))
+      .setSourceId(new byte[] { 1, 2, 3 })
+      .setArtifactId(new ArtifactId("artifact", new ArtifactVersion("1.0.0"), ArtifactScope.USER))
+      .setPrincipal("user")
+      .setProperties(ImmutableMap.of("runtimeArgs", "{\"key\":\"value\"}", "workflowrunid", "run"))
+      .setSystemArgs(ImmutableMap.of("profile", "SYSTEM:dataproc", "unicode", "é中"))
+      .build();
+
+    String encoded = RunRecordDetailCodec.encode(record);
+    Assert.assertEquals(record, RunRecordDetailCodec.decode(encoded, PROGRAM_ID, RunRecordProjection.FULL));
+    Assert.assertEquals(record.getSystemArgs(),
+                        RunRecordDetailCodec.decode(encoded, PROGRAM_ID, RunRecordProjection.FULL).getSystemArgs());
+
+    RunRecordDetail summary = RunRecordDetailCodec.decode(encoded, PROGRAM_ID, RunRecordProjection.SUMMARY);
+    Assert.assertEquals(RunRecordDetail.builder(record).setProperties(Collections.emptyMap()).build(), summary);
+    Assert.assertTrue(summary.getSystemArgs().isEmpty());
+    Assert.assertTrue(summary.getUserArgs().isEmpty());
+  }
+
+  @Test
+  public void testNullableFields() {
+    RunRecordDetail record = RunRecordDetail.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate().getId()))
+      .setStartTime(1000L)
+      .setStatus(ProgramRunStatus.PENDING)
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.PROVISIONING, null, null))
+      .setProfileId(new ProfileId("ns", "profile"))
+      .setSourceId(new byte[0])
+      .build();
+
+    Assert.assertEquals(record, RunRecordDetailCodec.decode(RunRecordDetailCodec.encode(record), PROGRAM_ID,
+                                                            RunRecordProjection.FULL));
+  }
+
+  @Test
+  public void testPropertiesOrder() {
+    Map<String, String> properties = ImmutableMap.of("z", "1", "workflowrunid", "run", "a", "2", "m", "3");
+    RunRecordDetail record = RunRecordDetail.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate().getId()))
+      .setStartTime(1000L)
+      .setStatus(ProgramRunStatus.RUNNING)
+      .setSourceId(new byte[0])
+      .setProperties(properties)
+      .build();
+
+    RunRecordDetail decoded = RunRecordDetailCodec.decode(RunRecordDetailCodec.encode(record), PROGRAM_ID,
+                                                          RunRecordProjection.FULL);
+    Assert.assertEquals(new ArrayList<>(properties.keySet()), new ArrayList<>(decoded.getProperties().keySet()));
+  }
+
+  @Test
+  public void testDecodeJson() {
+    Map<String, String> systemArgs = ImmutableMap.of("profile", "SYSTEM:native");
+    RunRecordDetail record = RunRecordDetail.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate().getId()))
+      .setStartTime(1000L)
+      .setStatus(ProgramRunStatus.RUNNING)
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.PROVISIONED, null, 2))
+      .setProfileId(NamespaceId.SYSTEM.profile("native"))
+      .setSourceId(new byte[] { 4, 5 })
+      .setProperties(ImmutableMap.of("runtimeArgs", "{}"))
+      .setSystemArgs(systemArgs)
+      .build();
+
+    // Run records written before the binary encoding are stored as JSON
+    String json = new Gson().toJson(record);
+    RunRecordDetail decoded = RunRecordDetailCodec.decode(json, PROGRAM_ID, RunRecordProjection.FULL);
+    Assert.assertEquals(record, decoded);
+    Assert.assertEquals(systemArgs, decoded.getSystemArgs());
+
+    RunRecordDetail summary = RunRecordDetailCodec.decode(json, PROGRAM_ID, RunRecordProjection.SUMMARY);
+    Assert.assertTrue(summary.getProperties().isEmpty());
+    Assert.assertTrue(summary.getSystemArgs().isEmpty());
+    Assert.assertEquals(ProgramRunStatus.RUNNING, summary.getStatus());
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.datafabric.dataset;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import io.cdap.cdap.api.dataset.DatasetManagementException;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.messaging.TopicNotFoundException;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.messaging.MessageFetcher;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.proto.DatasetMeta;
+import io.cdap.cdap.proto.audit.AuditMessage;
+import io.cdap.cdap.proto.codec.AuditMessageTypeAdapter;
+import io.cdap.cdap.proto.codec.EntityIdTypeAdapter;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.EntityId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * A cache of {@link DatasetMeta} for programs, which look up the same dataset instances repeatedly. Entries are
+ * invalidated by the audit messages that the dataset service publishes to TMS when an instance is changed. The
+ * audit topic is polled from a background thread, which is started on first access, so that lookups never wait for
+ * TMS. If the topic cannot be read, the cache is cleared, so that stale entries are not served. If audit publishing
+ * is disabled, there is nothing to invalidate entries from, hence nothing is cached.
+ */
+public class DatasetMetaCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DatasetMetaCache.class);
+  private static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(AuditMessage.class, new AuditMessageTypeAdapter())
+    .registerTypeAdapter(EntityId.class, new EntityIdTypeAdapter())
+    .create();
+  private static final int FETCH_LIMIT = 1000;
+
+  static final String METRIC_WARM_COUNT = "dataset.meta.lookup.warm.count";
+  static final String METRIC_WARM_MICROS = "dataset.meta.lookup.warm.micros";
+  static final String METRIC_COLD_COUNT = "dataset.meta.lookup.cold.count";
+  static final String METRIC_COLD_MICROS = "dataset.meta.lookup.cold.micros";
+
+  /**
+   * Loads a {@link DatasetMeta} on cache miss.
+   */
+  public interface Loader {
+    @Nullable
+    DatasetMeta load() throws DatasetManagementException;
+  }
+
+  @Nullable
+  private final Cache<DatasetId, DatasetMeta> cache;
+  private final MessagingService messagingService;
+  private final TopicId auditTopic;
+  private final long pollIntervalMillis;
+  private final MetricsContext metricsContext;
+  private final long startTime;
+  private final AtomicBoolean pollerStarted;
+  // Incremented on every invalidation, so that a meta loaded concurrently with an invalidation is not cached
+  private final AtomicLong invalidations;
+  private byte[] lastMessageId;
+
+  public DatasetMetaCache(CConfiguration cConf, MessagingService messagingService, MetricsContext metricsContext) {
+    this.cache = cConf.getBoolean(Constants.Audit.ENABLED)
+      ? CacheBuilder.newBuilder()
+          .expireAfterWrite(cConf.getLong(Constants.Dataset.META_CACHE_EXPIRY_SECONDS), TimeUnit.SECONDS)
+          .<DatasetId, DatasetMeta>build()
+      : null;
+    this.messagingService = messagingService;
+    this.auditTopic = NamespaceId.SYSTEM.topic(cConf.get(Constants.Audit.TOPIC));
+    this.pollIntervalMillis = cConf.getLong(Constants.Dataset.META_CACHE_POLL_INTERVAL_MS);
+    this.metricsContext = metricsContext;
+    // Only changes made after this cache is created are relevant
+    this.startTime = System.currentTimeMillis();
+    this.pollerStarted = new AtomicBoolean();
+    this.invalidations = new AtomicLong();
+  }
+
+  /**
+   * Returns the {@link DatasetMeta} of the given dataset instance, using the given {@link Loader} if it is not
+   * cached. A {@code null} result is not cached, so that newly created instances are found.
+   */
+  @Nullable
+  public DatasetMeta get(DatasetId datasetId, Loader loader) throws DatasetManagementException {
+    long startNanos = System.nanoTime();
+    if (cache == null) {
+      DatasetMeta meta = loader.load();
+      emitMetrics(METRIC_COLD_COUNT, METRIC_COLD_MICROS, startNanos);
+      return meta;
+    }
+
+    startPoller();
+    DatasetMeta meta = cache.getIfPresent(datasetId);
+    if (meta != null) {
+      emitMetrics(METRIC_WARM_COUNT, METRIC_WARM_MICROS, startNanos);
+      return meta;
+    }
+    long invalidationCount = invalidations.get();
+    meta = loader.load();
+    if (meta != null && invalidationCount == invalidations.get()) {
+      cache.put(datasetId, meta);
+    }
+    emitMetrics(METRIC_COLD_COUNT, METRIC_COLD_MICROS, startNanos);
+    return meta;
+  }
+
+  /**
+   * Removes the given dataset instance from the cache.
+   */
+  public void invalidate(DatasetId datasetId) {
+    if (cache != null) {
+      invalidations.incrementAndGet();
+      cache.invalidate(datasetId);
+    }
+  }
+
+  /**
+   * Removes all dataset instances in the given namespace from the cache.
+   */
+  public void invalidate(NamespaceId namespaceId) {
+    if (cache != null) {
+      invalidations.incrementAndGet();
+      cache.asMap().keySet().removeIf(datasetId -> datasetId.getParent().equals(namespaceId));
+    }
+  }
+
+  private void emitMetrics(String countMetric, String latencyMetric, long startNanos) {
+    metricsContext.increment(countMetric, 1L);
+    metricsContext.increment(latencyMetric, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+  }
+
+  /**
+   * Starts polling the audit topic in a daemon thread, which ends with the program container.
+   */
+  private void startPoller() {
+    if (!pollerStarted.compareAndSet(false, true)) {
+      return;
+    }
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("dataset-meta-cache-poller"));
+    executor.scheduleWithFixedDelay(this::processChanges, pollIntervalMillis, pollIntervalMillis,
+                                    TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Invalidates the cached dataset instances that were changed according to the audit messages published since
+   * the last poll.
+   */
+  @VisibleForTesting
+  synchronized void processChanges() {
+    if (cache == null) {
+      return;
+    }
+    try {
+      int count;
+      do {
+        count = 0;
+        MessageFetcher fetcher = messagingService.prepareFetch(auditTopic).setLimit(FETCH_LIMIT);
+        if (lastMessageId == null) {
+          fetcher.setStartTime(startTime);
+        } else {
+          fetcher.setStartMessage(lastMessageId, false);
+        }
+        try (CloseableIterator<RawMessage> iterator = fetcher.fetch()) {
+          while (iterator.hasNext()) {
+            RawMessage message = iterator.next();
+            lastMessageId = message.getId();
+            count++;
+            processAuditMessage(message);
+          }
+        }
+      } while (count == FETCH_LIMIT);
+    } catch (TopicNotFoundException | IOException | RuntimeException e) {
+      LOG.debug("Failed to fetch audit messages from {}. Clearing the dataset meta cache.", auditTopic, e);
+      invalidations.incrementAndGet();
+      cache.invalidateAll();
+    }
+  }
+
+  private void processAuditMessage(RawMessage message) {
+    AuditMessage auditMessage;
+    try {
+      auditMessage = GSON.fromJson(new String(message.getPayload(), StandardCharsets.UTF_8), AuditMessage.class);
+    } catch (JsonSyntaxException e) {
+      LOG.trace("Ignoring invalid audit message", e);
+      return;
+    }
+    MetadataEntity entity = auditMessage.getEntity();
+    if (entity == null || !MetadataEntity.DATASET.equals(entity.getType())) {
+      return;
+    }
+    String namespace = entity.getValue(MetadataEntity.NAMESPACE);
+    String dataset = entity.getValue(MetadataEntity.DATASET);
+    if (namespace != null && dataset != null) {
+      LOG.trace("Invalidating cached meta of dataset {}.{} on {}", namespace, dataset, auditMessage.getType());
+      invalidate(new NamespaceId(namespace).dataset(dataset));
+    }
+  }
+}
@@ -83,6 +83,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
   private final CConfiguration cConf;
   private final LoadingCache<NamespaceId, DatasetServiceClient> clientCache;
   private final DatasetDefinitionRegistryFactory registryFactory;
+  private DatasetMetaCache metaCache;
 
   @Inject
   public RemoteDatasetFramework(final CConfiguration cConf, final DiscoveryServiceClient discoveryClient,
@@ -98,6 +99,14 @@ public class RemoteDatasetFramework implements DatasetFramework {
     this.registryFactory = registryFactory;
   }
 
+  /**
+   * Sets the {@link DatasetMetaCache} for caching dataset instance lookups. It is only bound in program containers.
+   */
+  @Inject(optional = true)
+  public void setDatasetMetaCache(DatasetMetaCache metaCache) {
+    this.metaCache = metaCache;
+  }
+
   @Override
   public void addModule(DatasetModuleId moduleId, DatasetModule module) throws DatasetManagementException {
     Class<?> moduleClass = DatasetModules.getDatasetModuleClass(module);
@@ -152,6 +161,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
     throws DatasetManagementException {
     clientCache.getUnchecked(datasetInstanceId.getParent())
       .updateInstance(datasetInstanceId.getEntityName(), props);
+    invalidate(datasetInstanceId);
   }
 
   @Override
@@ -169,15 +179,13 @@ public class RemoteDatasetFramework implements DatasetFramework {
   @Nullable
   @Override
   public DatasetSpecification getDatasetSpec(DatasetId datasetInstanceId) throws DatasetManagementException {
-    DatasetMeta meta = clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName());
+    DatasetMeta meta = getInstance(datasetInstanceId);
     return meta == null ? null : meta.getSpec();
   }
 
   @Override
   public boolean hasInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
-    return clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName()) != null;
+    return getInstance(datasetInstanceId) != null;
   }
 
   @Override
@@ -193,16 +201,21 @@ public class RemoteDatasetFramework implements DatasetFramework {
   @Override
   public void truncateInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
     clientCache.getUnchecked(datasetInstanceId.getParent()).truncateInstance(datasetInstanceId.getEntityName());
+    invalidate(datasetInstanceId);
   }
 
   @Override
   public void deleteInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
     clientCache.getUnchecked(datasetInstanceId.getParent()).deleteInstance(datasetInstanceId.getEntityName());
+    invalidate(datasetInstanceId);
   }
 
   @Override
   public void deleteAllInstances(NamespaceId namespaceId) throws DatasetManagementException {
     clientCache.getUnchecked(namespaceId).deleteInstances();
+    if (metaCache != null) {
+      metaCache.invalidate(namespaceId);
+    }
   }
 
   @Override
@@ -217,8 +230,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
                                              @Nullable ClassLoader parentClassLoader,
                                              DatasetClassLoaderProvider classLoaderProvider)
     throws DatasetManagementException, IOException {
-    DatasetMeta instanceInfo = clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName());
+    DatasetMeta instanceInfo = getInstance(datasetInstanceId);
     if (instanceInfo == null) {
       return null;
     }
@@ -235,7 +247,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
                                           @Nullable Iterable<? extends EntityId> owners, AccessType accessType)
     throws DatasetManagementException, IOException {
 
-    DatasetMeta datasetMeta = clientCache.getUnchecked(id.getParent()).getInstance(id.getEntityName());
+    DatasetMeta datasetMeta = getInstance(id);
     if (datasetMeta == null) {
       return null;
     }
@@ -249,6 +261,24 @@ public class RemoteDatasetFramework implements DatasetFramework {
     // no-op. The RemoteDatasetFramework doesn't need to do anything. The lineage should be recorded before this point.
   }
 
+  /**
+   * Returns the {@link DatasetMeta} of the given dataset instance, or {@code null} if it doesn't exist.
+   */
+  @Nullable
+  private DatasetMeta getInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
+    DatasetServiceClient client = clientCache.getUnchecked(datasetInstanceId.getParent());
+    if (metaCache == null) {
+      return client.getInstance(datasetInstanceId.getEntityName());
+    }
+    return metaCache.get(datasetInstanceId, () -> client.getInstance(datasetInstanceId.getEntityName()));
+  }
+
+  private void invalidate(DatasetId datasetInstanceId) {
+    if (metaCache != null) {
+      metaCache.invalidate(datasetInstanceId);
+    }
+  }
+
   private Location createDeploymentJar(Class<?> clz) throws IOException {
     File tempDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
                             cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
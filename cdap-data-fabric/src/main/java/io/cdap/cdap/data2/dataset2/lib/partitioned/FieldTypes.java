@@ -103,6 +103,22 @@ public class FieldTypes {
     }
   }
 
+  /**
+   * @return the number of bytes of every value of this field type, or -1 if the length of the values is variable.
+   */
+  public static int determineFixedLengthInBytes(FieldType type) {
+    switch(type) {
+      case STRING:
+        return -1;
+      case LONG:
+        return Bytes.SIZEOF_LONG;
+      case INT:
+        return Bytes.SIZEOF_INT;
+      default:
+        throw new IllegalArgumentException("Unhandled field type: " + type.name());
+    }
+  }
+
   /**
    * Deserialize a value of this field type, starting at given offset in the byte array, consuming
    * the given number of bytes.
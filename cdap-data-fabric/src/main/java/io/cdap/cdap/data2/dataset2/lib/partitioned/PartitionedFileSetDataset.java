@@ -57,19 +57,23 @@ import io.cdap.cdap.api.dataset.lib.PartitionMetadata;
 import io.cdap.cdap.api.dataset.lib.PartitionOutput;
 import io.cdap.cdap.api.dataset.lib.PartitionedFileSet;
 import io.cdap.cdap.api.dataset.lib.PartitionedFileSetArguments;
+import io.cdap.cdap.api.dataset.lib.PartitionedFileSetProperties;
 import io.cdap.cdap.api.dataset.lib.Partitioning;
 import io.cdap.cdap.api.dataset.lib.Partitioning.FieldType;
 import io.cdap.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
 import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.logging.LogSamplers;
 import io.cdap.cdap.common.logging.Loggers;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data.RuntimeProgramContext;
 import io.cdap.cdap.data.RuntimeProgramContextAware;
 import io.cdap.cdap.data2.dataset2.lib.file.FileSetDataset;
+import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.explore.client.ExploreFacade;
 import io.cdap.cdap.proto.id.DatasetId;
 import org.apache.tephra.Transaction;
@@ -79,13 +83,16 @@ import org.apache.twill.filesystem.Location;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -129,6 +136,7 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private static final byte[] LAST_MODIFICATION_TIME_COL = { 'm' };
   private static final byte[] RELATIVE_PATH = { 'p' };
   private static final byte[] METADATA_PREFIX = { 'm', '.' };
+  private static final byte[] INDEXED_FIELD_PREFIX = { 'k', '.' };
 
   protected final FileSet files;
   protected final DatasetSpecification spec;
@@ -138,6 +146,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
   protected final Partitioning partitioning;
   private final IndexedTable partitionsTable;
   private final Provider<ExploreFacade> exploreFacadeProvider;
+  // the index column of each indexed partitioning field, in the order of the partitioning
+  private final Map<String, byte[]> indexedFieldColumns;
 
   private final DatasetId datasetInstanceId;
 
@@ -165,6 +175,13 @@ public class PartitionedFileSetDataset extends AbstractDataset
     this.runtimeArguments = arguments;
     this.partitioning = partitioning;
     this.exploreFacadeProvider = exploreFacadeProvider;
+    this.indexedFieldColumns = new LinkedHashMap<>();
+    Set<String> indexedFields = PartitionedFileSetProperties.getIndexedFields(spec.getProperties());
+    for (String fieldName : partitioning.getFields().keySet()) {
+      if (indexedFields.contains(fieldName)) {
+        indexedFieldColumns.put(fieldName, getIndexColumn(fieldName));
+      }
+    }
     this.datasetInstanceId = new DatasetId(datasetContext.getNamespaceId(), name);
   }
 
@@ -356,6 +373,10 @@ public class PartitionedFileSetDataset extends AbstractDataset
     if (!appending) {
       put.add(RELATIVE_PATH, Bytes.toBytes(path));
       put.add(CREATION_TIME_COL, nowInMillis);
+      for (Map.Entry<String, byte[]> entry : indexedFieldColumns.entrySet()) {
+        put.add(entry.getValue(),
+                FieldTypes.toBytes(key.getField(entry.getKey()), partitioning.getFields().get(entry.getKey())));
+      }
     }
     put.add(LAST_MODIFICATION_TIME_COL, nowInMillis);
 
@@ -759,13 +780,29 @@ public class PartitionedFileSetDataset extends AbstractDataset
   protected void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata) {
     byte[] startKey = generateStartKey(filter);
     byte[] endKey = generateStopKey(filter);
+    if (filter != null && startKey == null && endKey == null) {
+      // the leading field is not constrained, so the scan would cover all partitions. Use a field index instead,
+      // if the filter has a condition on an indexed field.
+      Scanner indexScanner = scanByFieldIndex(filter);
+      if (indexScanner != null) {
+        getPartitions(filter, consumer, decodeMetadata, indexScanner, Long.MAX_VALUE);
+        return;
+      }
+    }
     getPartitions(filter, consumer, decodeMetadata, startKey, endKey, Long.MAX_VALUE);
   }
 
   private void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata,
                              @Nullable byte[] startKey, @Nullable byte[] endKey, long limit) {
+    // conditions on fields after the leading fields are pushed down to the table as a fuzzy row filter, if possible
+    Scan scan = new Scan(startKey, endKey, generateFuzzyRowFilter(filter, partitioning));
+    getPartitions(filter, consumer, decodeMetadata, partitionsTable.scan(scan), limit);
+  }
+
+  private void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata,
+                             Scanner partitionScanner, long limit) {
     long count = 0L;
-    try (Scanner scanner = partitionsTable.scan(startKey, endKey)) {
+    try (Scanner scanner = partitionScanner) {
       while (count < limit) {
         Row row = scanner.next();
         if (row == null) {
@@ -794,6 +831,41 @@ public class PartitionedFileSetDataset extends AbstractDataset
     }
   }
 
+  /**
+   * Returns a scanner over the partitions that satisfy the condition of the filter for one of the indexed fields,
+   * or {@code null} if the filter has no usable condition on an indexed field. Single value conditions are
+   * preferred over range conditions, because they are more selective.
+   */
+  @Nullable
+  private Scanner scanByFieldIndex(PartitionFilter filter) {
+    String rangeField = null;
+    for (Map.Entry<String, byte[]> entry : indexedFieldColumns.entrySet()) {
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(entry.getKey());
+      if (condition == null) {
+        continue;
+      }
+      FieldType fieldType = partitioning.getFields().get(entry.getKey());
+      if (condition.isSingleValue()) {
+        byte[] value = toBytesIfValid(condition.getValue(), fieldType);
+        if (value != null) {
+          return partitionsTable.readByIndex(entry.getValue(), value);
+        }
+      } else if (rangeField == null
+        && (condition.getLower() == null || toBytesIfValid(condition.getLower(), fieldType) != null)
+        && (condition.getUpper() == null || toBytesIfValid(condition.getUpper(), fieldType) != null)) {
+        rangeField = entry.getKey();
+      }
+    }
+    if (rangeField == null) {
+      return null;
+    }
+    PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(rangeField);
+    FieldType fieldType = partitioning.getFields().get(rangeField);
+    byte[] lower = condition.getLower() == null ? null : FieldTypes.toBytes(condition.getLower(), fieldType);
+    byte[] upper = condition.getUpper() == null ? null : FieldTypes.toBytes(condition.getUpper(), fieldType);
+    return partitionsTable.scanByIndex(indexedFieldColumns.get(rangeField), lower, upper);
+  }
+
   private PartitionMetadata metadataFromRow(Row row) {
     Map<String, String> metadata = new HashMap<>();
     for (Map.Entry<byte[], byte[]> entry : row.getColumns().entrySet()) {
@@ -1306,6 +1378,85 @@ public class PartitionedFileSetDataset extends AbstractDataset
     return stopKey;
   }
 
+  /**
+   * Generates a fuzzy row filter that matches the single value conditions of the partition filter at their position
+   * in the row key. This allows the table to skip non-matching partitions for conditions on fields that follow an
+   * unconstrained field, which cannot be expressed by the start and stop key of the scan. The position of a field in
+   * the row key is only known if all preceding fields are either of fixed length or have a single value condition,
+   * so conditions after the first unconstrained string field are only evaluated by {@link PartitionFilter#match}.
+   *
+   * @return the fuzzy row filter, or {@code null} if no condition can be pushed down beyond the start and stop key
+   */
+  @Nullable
+  @VisibleForTesting
+  static FuzzyRowFilter generateFuzzyRowFilter(@Nullable PartitionFilter filter, Partitioning partitioning) {
+    if (filter == null) {
+      return null;
+    }
+    ByteArrayOutputStream fuzzyKey = new ByteArrayOutputStream();
+    ByteArrayOutputStream fuzzyMask = new ByteArrayOutputStream();
+    // length of the fuzzy key up to the end of the last field with a single value condition
+    int fixedLength = 0;
+    boolean hasWildcard = false;
+    boolean needed = false;
+    boolean first = true;
+    for (Map.Entry<String, FieldType> entry : partitioning.getFields().entrySet()) {
+      FieldType fieldType = entry.getValue();
+      if (!first) {
+        // the \0 separator between two fields is fixed
+        fuzzyKey.write(0);
+        fuzzyMask.write(0);
+      }
+      first = false;
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(entry.getKey());
+      byte[] value = condition != null && condition.isSingleValue()
+        ? toBytesIfValid(condition.getValue(), fieldType) : null;
+      if (value != null) {
+        fuzzyKey.write(value, 0, value.length);
+        fuzzyMask.write(new byte[value.length], 0, value.length);
+        fixedLength = fuzzyKey.size();
+        needed = needed || hasWildcard;
+        continue;
+      }
+      int length = FieldTypes.determineFixedLengthInBytes(fieldType);
+      if (length < 0) {
+        break; // the positions of the following fields depend on the length of this field's value
+      }
+      byte[] wildcard = new byte[length];
+      fuzzyKey.write(wildcard, 0, length);
+      Arrays.fill(wildcard, (byte) 1);
+      fuzzyMask.write(wildcard, 0, length);
+      hasWildcard = true;
+    }
+    if (!needed) {
+      return null;
+    }
+    return new FuzzyRowFilter(Collections.singletonList(
+      ImmutablePair.of(Arrays.copyOf(fuzzyKey.toByteArray(), fixedLength),
+                       Arrays.copyOf(fuzzyMask.toByteArray(), fixedLength))));
+  }
+
+  /**
+   * Converts a value of a partition filter condition to bytes, or returns {@code null} if the value is not valid for
+   * the field type. Such a condition cannot match any partition.
+   */
+  @Nullable
+  private static byte[] toBytesIfValid(Comparable value, FieldType fieldType) {
+    try {
+      fieldType.validate(value);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    return FieldTypes.toBytes(value, fieldType);
+  }
+
+  /**
+   * Returns the column of the partitions table that holds the value of the given field for indexing.
+   */
+  static byte[] getIndexColumn(String fieldName) {
+    return Bytes.concat(INDEXED_FIELD_PREFIX, Bytes.toBytes(fieldName));
+  }
+
   @VisibleForTesting
   static PartitionKey parseRowKey(byte[] rowKey, Partitioning partitioning) {
     PartitionKey.Builder builder = PartitionKey.builder();
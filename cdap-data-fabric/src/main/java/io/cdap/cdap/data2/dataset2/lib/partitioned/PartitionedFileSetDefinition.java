@@ -49,6 +49,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Defines the partitioned dataset type. At this time, the partitions are not managed by the
@@ -92,7 +93,7 @@ public class PartitionedFileSetDefinition
     // define the columns for indexing on the partitionsTable
     DatasetProperties indexedTableProperties = DatasetProperties.builder()
       .addAll(properties.getProperties())
-      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS)
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, getIndexedColumns(partitioning, properties.getProperties()))
       .build();
 
     Map<String, String> pfsProperties = new HashMap<>(properties.getProperties());
@@ -134,13 +135,20 @@ public class PartitionedFileSetDefinition
       throw new IncompatibleUpdateException(String.format(
         "Partitioning cannot be changed. Existing: %s, new: %s", oldPartitioning, newPartitioning));
     }
+    // partitions added before a field was indexed would not be found through the index
+    Set<String> oldIndexedFields = PartitionedFileSetProperties.getIndexedFields(currentSpec.getProperties());
+    Set<String> newIndexedFields = PartitionedFileSetProperties.getIndexedFields(properties.getProperties());
+    if (!oldIndexedFields.equals(newIndexedFields)) {
+      throw new IncompatibleUpdateException(String.format(
+        "Indexed partitioning fields cannot be changed. Existing: %s, new: %s", oldIndexedFields, newIndexedFields));
+    }
 
     Map<String, String> pfsProperties = new HashMap<>(properties.getProperties());
 
     // define the columns for indexing on the partitionsTable
     DatasetProperties indexedTableProperties = DatasetProperties.builder()
       .addAll(properties.getProperties())
-      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS)
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, getIndexedColumns(newPartitioning, properties.getProperties()))
       .build();
 
     // only set the default base path property if the default was set the last time it was configured,
@@ -194,6 +202,20 @@ public class PartitionedFileSetDefinition
                                          getExploreProvider());
   }
 
+  /**
+   * Returns the columns to index in the partitions table: the write pointer and creation time columns, plus one
+   * column for each indexed partitioning field.
+   */
+  private static String getIndexedColumns(Partitioning partitioning, Map<String, String> properties) {
+    StringBuilder columns = new StringBuilder(INDEXED_COLS);
+    for (String fieldName : PartitionedFileSetProperties.getIndexedFields(properties)) {
+      Preconditions.checkArgument(partitioning.getFields().containsKey(fieldName),
+                                  "Indexed field '%s' is not a field of the partitioning %s", fieldName, partitioning);
+      columns.append(',').append(Bytes.toString(PartitionedFileSetDataset.getIndexColumn(fieldName)));
+    }
+    return columns.toString();
+  }
+
   // if the arguments do not contain an output location, generate one from the partition key (if present)
   protected static Map<String, String> updateArgumentsIfNeeded(Map<String, String> arguments,
                                                                Partitioning partitioning) {
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.messaging.store.leveldb.LocalStorageMigrator;
+import io.cdap.cdap.messaging.store.leveldb.RocksDBFactory;
+import org.iq80.leveldb.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts the local messaging storage of CDAP Local Sandbox to the storage engine configured by
+ * {@link Constants#CFG_DATA_LOCAL_STORAGE_ENGINE}, or to the engine given as the only argument. Local tables always
+ * use LevelDB, hence they are not converted. It must be run while CDAP is stopped.
+ */
+public final class LocalStorageMigrationTool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalStorageMigrationTool.class);
+
+  private final CConfiguration cConf;
+  private final Constants.LocalStorageEngine targetEngine;
+
+  LocalStorageMigrationTool(CConfiguration cConf, Constants.LocalStorageEngine targetEngine) {
+    this.cConf = cConf;
+    this.targetEngine = targetEngine;
+  }
+
+  /**
+   * Converts all messaging databases that are not stored with the target engine.
+   *
+   * @return the number of databases converted
+   */
+  int run() throws IOException {
+    int converted = 0;
+    try (RocksDBFactory rocksDBFactory = new RocksDBFactory(cConf)) {
+      LocalStorageMigrator migrator = new LocalStorageMigrator(rocksDBFactory, targetEngine);
+
+      File messagingDir = new File(cConf.get(Constants.MessagingSystem.LOCAL_DATA_DIR));
+      if (messagingDir.isDirectory()) {
+        converted += migrator.migrate(messagingDir, createOptions());
+      }
+    }
+    return converted;
+  }
+
+  private Options createOptions() {
+    return new Options()
+      .blockSize(cConf.getInt(Constants.CFG_DATA_LEVELDB_BLOCKSIZE, Constants.DEFAULT_DATA_LEVELDB_BLOCKSIZE))
+      .cacheSize(cConf.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE))
+      .createIfMissing(true)
+      .errorIfExists(false);
+  }
+
+  public static void main(String[] args) throws IOException {
+    CConfiguration cConf = CConfiguration.create();
+    Constants.LocalStorageEngine targetEngine = args.length > 0
+      ? Constants.LocalStorageEngine.valueOf(args[0].toUpperCase())
+      : cConf.getEnum(Constants.CFG_DATA_LOCAL_STORAGE_ENGINE, Constants.DEFAULT_DATA_LOCAL_STORAGE_ENGINE);
+
+    int converted = new LocalStorageMigrationTool(cConf, targetEngine).run();
+    LOG.info("Converted {} databases to {}", converted, targetEngine);
+  }
+}
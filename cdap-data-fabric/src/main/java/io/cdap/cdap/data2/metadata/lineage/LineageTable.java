@@ -40,9 +40,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
@@ -172,6 +177,44 @@ public class LineageTable {
                          filter);
   }
 
+  /**
+   * Fetch program-dataset access information for a set of datasets for a given period, using a single scan over
+   * the key ranges of all the datasets.
+   *
+   * @param datasetInstances datasets for which to fetch access information
+   * @param start start time period
+   * @param end end time period
+   * @param filter filter to be applied on result set
+   * @return program-dataset access information of each of the given datasets
+   */
+  public Map<DatasetId, Set<Relation>> getDatasetRelations(Collection<DatasetId> datasetInstances, long start,
+                                                           long end, Predicate<Relation> filter) throws IOException {
+    return multiScanRelations(getDatasetTable(), datasetInstances,
+                              datasetInstance -> Range.create(getDatasetScanStartKey(datasetInstance, end),
+                                                              Range.Bound.INCLUSIVE,
+                                                              getDatasetScanEndKey(datasetInstance, start),
+                                                              Range.Bound.INCLUSIVE),
+                              relation -> (DatasetId) relation.getData(), filter);
+  }
+
+  /**
+   * Fetch program-dataset access information for a set of programs for a given period, using a single scan over
+   * the key ranges of all the programs.
+   *
+   * @param programs programs for which to fetch access information
+   * @param start start time period
+   * @param end end time period
+   * @param filter filter to be applied on result set
+   * @return program-dataset access information of each of the given programs
+   */
+  public Map<ProgramId, Set<Relation>> getProgramRelations(Collection<ProgramId> programs, long start, long end,
+                                                           Predicate<Relation> filter) throws IOException {
+    return multiScanRelations(getProgramTable(), programs,
+                              program -> Range.create(getProgramScanStartKey(program, end), Range.Bound.INCLUSIVE,
+                                                      getProgramScanEndKey(program, start), Range.Bound.INCLUSIVE),
+                              Relation::getProgram, filter);
+  }
+
   /**
    * @return a set of access times (for program and data it accesses) associated with a program run.
    */
@@ -207,6 +250,32 @@ public class LineageTable {
     return builder.build();
   }
 
+  private <K> Map<K, Set<Relation>> multiScanRelations(StructuredTable table, Collection<K> keys,
+                                                       Function<K, Range> rangeFunction,
+                                                       Function<Relation, K> keyFunction,
+                                                       Predicate<Relation> filter) throws IOException {
+    Map<K, Set<Relation>> result = new HashMap<>();
+    List<Range> ranges = new ArrayList<>();
+    for (K key : keys) {
+      if (result.put(key, new HashSet<>()) == null) {
+        ranges.add(rangeFunction.apply(key));
+      }
+    }
+    if (ranges.isEmpty()) {
+      return result;
+    }
+    try (CloseableIterator<StructuredRow> iterator = table.multiScan(ranges, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        Relation relation = toRelation(iterator.next());
+        Set<Relation> relations = result.get(keyFunction.apply(relation));
+        if (relations != null && filter.test(relation)) {
+          relations.add(relation);
+        }
+      }
+    }
+    return result;
+  }
+
   private List<Field<?>> getDatasetKey(DatasetId datasetInstance, ProgramRunId run, AccessType accessType) {
     List<Field<?>> fields = new ArrayList<>();
     addDataset(fields, datasetInstance);
@@ -43,6 +43,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -55,6 +56,13 @@ import javax.annotation.Nullable;
 
 /**
  * Dataset to store/retrieve field level lineage information.
+ *
+ * Besides the summaries per lineage checksum, the incoming and outgoing summaries of each endpoint are also
+ * materialized per day, based on the start time of the program runs. A day has one row per endpoint and lineage
+ * checksum, which is only written by the first run with that checksum on that day. Summary queries read the
+ * materialized rows for the days that are fully covered by the query range, and only resolve the per run checksums
+ * for the partial days at the boundaries of the range. Days before the materialization started are always resolved
+ * through the checksums.
  */
 public class FieldLineageTable {
 
@@ -65,16 +73,21 @@ public class FieldLineageTable {
 
   private static final String INCOMING_DIRECTION_MARKER = "i";
   private static final String OUTGOING_DIRECTION_MARKER = "o";
+  private static final long SUMMARY_BUCKET_MILLIS = TimeUnit.DAYS.toMillis(1);
 
   private static final Type SET_FIELD_TYPE = new TypeToken<HashSet<String>>() { }.getType();
   private static final Type SET_ENDPOINT_FIELD_TYPE = new TypeToken<HashSet<EndPointField>>() { }.getType();
   private static final Type SET_OPERATION_TYPE = new TypeToken<HashSet<Operation>>() { }.getType();
+  private static final Type MAP_FIELD_SUMMARY_TYPE =
+    new TypeToken<HashMap<String, HashSet<EndPointField>>>() { }.getType();
 
   private final StructuredTableContext structuredTableContext;
   private StructuredTable endpointChecksumTable;
   private StructuredTable operationsTable;
   private StructuredTable destinationFieldsTable;
   private StructuredTable summaryFieldsTable;
+  private StructuredTable summaryBucketsTable;
+  private StructuredTable summaryBucketWritesTable;
 
   private FieldLineageTable(StructuredTableContext structuredTableContext) {
     this.structuredTableContext = structuredTableContext;
@@ -123,6 +136,22 @@ public class FieldLineageTable {
     return summaryFieldsTable;
   }
 
+  private StructuredTable getSummaryBucketsTable() {
+    if (summaryBucketsTable == null) {
+      summaryBucketsTable =
+        structuredTableContext.getTable(StoreDefinition.FieldLineageStore.SUMMARY_BUCKETS_TABLE);
+    }
+    return summaryBucketsTable;
+  }
+
+  private StructuredTable getSummaryBucketWritesTable() {
+    if (summaryBucketWritesTable == null) {
+      summaryBucketWritesTable =
+        structuredTableContext.getTable(StoreDefinition.FieldLineageStore.SUMMARY_BUCKET_WRITES_TABLE);
+    }
+    return summaryBucketWritesTable;
+  }
+
   /**
    * Store the field lineage information.
    *
@@ -143,6 +172,12 @@ public class FieldLineageTable {
     }
 
     addFieldLineageInfoReferenceRecords(programRunId, info);
+
+    long bucket = getTimeBucket(RunIds.getTime(RunIds.fromString(programRunId.getEntityName()),
+                                               TimeUnit.MILLISECONDS));
+    addSummaryBuckets(bucket, checksum, INCOMING_DIRECTION_MARKER, info.getIncomingSummary());
+    addSummaryBuckets(bucket, checksum, OUTGOING_DIRECTION_MARKER, info.getOutgoingSummary());
+    recordSummaryBucketWrite(System.currentTimeMillis());
   }
 
   @VisibleForTesting
@@ -151,6 +186,8 @@ public class FieldLineageTable {
     getDestinationFieldsTable().deleteAll(Range.all());
     getOperationsTable().deleteAll(Range.all());
     getSummaryFieldsTable().deleteAll(Range.all());
+    getSummaryBucketsTable().deleteAll(Range.all());
+    getSummaryBucketWritesTable().deleteAll(Range.all());
   }
 
   @Nullable
@@ -177,6 +214,55 @@ public class FieldLineageTable {
     }
   }
 
+  /**
+   * Adds the given summary to the materialized summaries of the given time bucket. The summary of each endpoint is
+   * written in one row, unless a run with the same checksum already wrote it in this time bucket.
+   */
+  private void addSummaryBuckets(long bucket, long checksum, String direction,
+                                 Map<EndPointField, Set<EndPointField>> summary) throws IOException {
+    Map<EndPoint, Map<String, Set<EndPointField>>> endPointSummaries = new HashMap<>();
+    for (Map.Entry<EndPointField, Set<EndPointField>> entry : summary.entrySet()) {
+      endPointSummaries.computeIfAbsent(entry.getKey().getEndPoint(), endPoint -> new HashMap<>())
+        .put(entry.getKey().getField(), entry.getValue());
+    }
+    for (Map.Entry<EndPoint, Map<String, Set<EndPointField>>> entry : endPointSummaries.entrySet()) {
+      List<Field<?>> keys = getSummaryBucketKey(direction, entry.getKey(), bucket);
+      keys.add(Fields.longField(StoreDefinition.FieldLineageStore.CHECKSUM_FIELD, checksum));
+      if (getSummaryBucketsTable().read(keys).isPresent()) {
+        continue;
+      }
+      keys.add(Fields.stringField(StoreDefinition.FieldLineageStore.SUMMARY_DATA_FIELD,
+                                  GSON.toJson(entry.getValue())));
+      getSummaryBucketsTable().upsert(keys);
+    }
+  }
+
+  /**
+   * Records that summaries were materialized on the day of the given time. Every write on the same day overwrites
+   * the same row, hence no read is needed.
+   */
+  private void recordSummaryBucketWrite(long time) throws IOException {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.longField(StoreDefinition.FieldLineageStore.WRITE_DAY_FIELD, getTimeBucket(time)));
+    fields.add(Fields.longField(StoreDefinition.FieldLineageStore.LAST_WRITE_TIME_FIELD, time));
+    getSummaryBucketWritesTable().upsert(fields);
+  }
+
+  /**
+   * Returns the start of the first time bucket that has the summaries of all runs started in it materialized, or
+   * {@code null} if no summaries were materialized yet.
+   */
+  @Nullable
+  private Long getFirstCompleteBucket() throws IOException {
+    try (CloseableIterator<StructuredRow> iterator = getSummaryBucketWritesTable().scan(Range.all(), 1)) {
+      if (!iterator.hasNext()) {
+        return null;
+      }
+      // Runs started on the first day may have added lineage before the materialization started on that day
+      return iterator.next().getLong(StoreDefinition.FieldLineageStore.WRITE_DAY_FIELD) + SUMMARY_BUCKET_MILLIS;
+    }
+  }
+
   /**
    * Add records referring to the common operation record having the given checksum.
    * Operations represent transformations from source endpoints to the destination endpoints.
@@ -308,6 +394,57 @@ public class FieldLineageTable {
 
   private Set<EndPointField> getSummary(String direction, EndPointField endPointField, long start, long end)
     throws IOException {
+    Long firstCompleteBucket = getFirstCompleteBucket();
+    if (firstCompleteBucket == null) {
+      return getSummaryFromChecksums(direction, endPointField, start, end);
+    }
+    long firstBucket = Math.max(getCeilingTimeBucket(start), firstCompleteBucket);
+    long lastBucket = getTimeBucket(end);
+    if (firstBucket >= lastBucket) {
+      return getSummaryFromChecksums(direction, endPointField, start, end);
+    }
+    Set<EndPointField> result = getSummaryFromChecksums(direction, endPointField, start, firstBucket);
+    result.addAll(getSummaryFromBuckets(direction, endPointField, firstBucket, lastBucket));
+    result.addAll(getSummaryFromChecksums(direction, endPointField, lastBucket, end));
+    return result;
+  }
+
+  /**
+   * Reads the materialized summaries of the time buckets in the given range. All fields of the endpoint are read
+   * with a single scan, and the summaries of the requested field are picked from them.
+   *
+   * @param firstBucket the first time bucket (inclusive)
+   * @param lastBucket the last time bucket (exclusive)
+   */
+  private Set<EndPointField> getSummaryFromBuckets(String direction, EndPointField endPointField,
+                                                   long firstBucket, long lastBucket) throws IOException {
+    Set<EndPointField> result = new HashSet<>();
+    EndPoint endPoint = endPointField.getEndPoint();
+    Range range = Range.create(getSummaryBucketKey(direction, endPoint, firstBucket), Range.Bound.INCLUSIVE,
+                               getSummaryBucketKey(direction, endPoint, lastBucket), Range.Bound.EXCLUSIVE);
+    try (CloseableIterator<StructuredRow> iterator = getSummaryBucketsTable().scan(range, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        Map<String, Set<EndPointField>> summaries;
+        try {
+          summaries = GSON.fromJson(row.getString(StoreDefinition.FieldLineageStore.SUMMARY_DATA_FIELD),
+                                    MAP_FIELD_SUMMARY_TYPE);
+        } catch (JsonSyntaxException e) {
+          LOG.warn(String.format("Failed to parse json from summary bucket %d.",
+                                 row.getLong(StoreDefinition.FieldLineageStore.TIME_BUCKET_FIELD)));
+          continue;
+        }
+        Set<EndPointField> endPointFields = summaries.get(endPointField.getField());
+        if (endPointFields != null) {
+          result.addAll(endPointFields);
+        }
+      }
+    }
+    return result;
+  }
+
+  private Set<EndPointField> getSummaryFromChecksums(String direction, EndPointField endPointField,
+                                                     long start, long end) throws IOException {
     Set<Long> checksums = getChecksumsWithProgramRunsInRange(direction, endPointField.getEndPoint(),
                                                              start, end).keySet();
     Set<EndPointField> result = new HashSet<>();
@@ -476,6 +613,33 @@ public class FieldLineageTable {
     return fields;
   }
 
+  private List<Field<?>> getSummaryBucketKey(String direction, EndPoint endPoint, long bucket) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.FieldLineageStore.DIRECTION_FIELD, direction));
+    addEndPoint(fields, endPoint);
+    fields.add(Fields.longField(StoreDefinition.FieldLineageStore.TIME_BUCKET_FIELD, bucket));
+    return fields;
+  }
+
+  /**
+   * Returns the start of the time bucket that contains the given time.
+   */
+  private long getTimeBucket(long time) {
+    return time - time % SUMMARY_BUCKET_MILLIS;
+  }
+
+  /**
+   * Returns the start of the first time bucket that starts at or after the given time.
+   */
+  private long getCeilingTimeBucket(long time) {
+    long bucket = getTimeBucket(time);
+    if (bucket == time) {
+      return bucket;
+    }
+    // No bucket starts after the last one that fits in a long
+    return bucket > Long.MAX_VALUE - SUMMARY_BUCKET_MILLIS ? Long.MAX_VALUE : bucket + SUMMARY_BUCKET_MILLIS;
+  }
+
   private List<Field<?>> getOperationsKey(long checksum) {
     List<Field<?>> fields = new ArrayList<>();
     fields.add(Fields.longField(StoreDefinition.FieldLineageStore.CHECKSUM_FIELD, checksum));
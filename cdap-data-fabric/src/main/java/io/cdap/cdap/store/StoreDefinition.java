@@ -381,6 +381,7 @@ public final class StoreDefinition {
     public static final StructuredTableId APPLICATION_SPECIFICATIONS = new StructuredTableId("application_specs");
     public static final StructuredTableId WORKFLOW_NODE_STATES = new StructuredTableId("workflow_node_states");
     public static final StructuredTableId RUN_RECORDS = new StructuredTableId("run_records");
+    public static final StructuredTableId RUN_RECORDS_TIME_INDEX = new StructuredTableId("run_records_time_index");
     public static final StructuredTableId WORKFLOWS = new StructuredTableId("workflows");
     public static final StructuredTableId PROGRAM_COUNTS = new StructuredTableId("program_counts");
     // TODO: CDAP-14876 Move this table into it's own store, along with associated methods
@@ -398,6 +399,8 @@ public final class StoreDefinition {
     public static final String RUN_STATUS = "run_status";
     public static final String RUN_START_TIME = "run_start_time";
     public static final String RUN_RECORD_DATA = "run_record_data";
+    public static final String RUN_TIME_BUCKET = "run_time_bucket";
+    public static final String RUN_STOP_TIME = "run_stop_time";
     public static final String WORKFLOW_DATA = "workflow_data";
     public static final String COUNT_TYPE = "count_type";
     public static final String COUNTS = "counts";
@@ -447,6 +450,23 @@ public final class StoreDefinition {
                          PROGRAM_FIELD, RUN_START_TIME, RUN_FIELD)
         .build();
 
+    public static final StructuredTableSpecification RUN_RECORDS_TIME_INDEX_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(RUN_RECORDS_TIME_INDEX)
+        .withFields(Fields.stringType(RUN_STATUS),
+                    Fields.longType(RUN_TIME_BUCKET),
+                    Fields.stringType(NAMESPACE_FIELD),
+                    Fields.stringType(APPLICATION_FIELD),
+                    Fields.stringType(VERSION_FIELD),
+                    Fields.stringType(PROGRAM_TYPE_FIELD),
+                    Fields.stringType(PROGRAM_FIELD),
+                    Fields.stringType(RUN_FIELD),
+                    Fields.longType(RUN_START_TIME),
+                    Fields.longType(RUN_STOP_TIME))
+        .withPrimaryKeys(RUN_STATUS, RUN_TIME_BUCKET, NAMESPACE_FIELD, APPLICATION_FIELD, VERSION_FIELD,
+                         PROGRAM_TYPE_FIELD, PROGRAM_FIELD, RUN_FIELD)
+        .build();
+
     public static final StructuredTableSpecification WORKFLOWS_SPEC =
       new StructuredTableSpecification.Builder()
         .withId(WORKFLOWS)
@@ -495,6 +515,9 @@ public final class StoreDefinition {
       if (overWrite || tableAdmin.getSpecification(RUN_RECORDS) == null) {
         tableAdmin.create(RUN_RECORDS_SPEC);
       }
+      if (overWrite || tableAdmin.getSpecification(RUN_RECORDS_TIME_INDEX) == null) {
+        tableAdmin.create(RUN_RECORDS_TIME_INDEX_SPEC);
+      }
       if (overWrite || tableAdmin.getSpecification(WORKFLOWS) == null) {
         tableAdmin.create(WORKFLOWS_SPEC);
       }
@@ -961,6 +984,9 @@ public final class StoreDefinition {
     public static final StructuredTableId OPERATIONS_TABLE = new StructuredTableId("operations_table");
     public static final StructuredTableId DESTINATION_FIELDS_TABLE = new StructuredTableId("destination_fields_table");
     public static final StructuredTableId SUMMARY_FIELDS_TABLE = new StructuredTableId("summary_fields_table");
+    public static final StructuredTableId SUMMARY_BUCKETS_TABLE = new StructuredTableId("summary_buckets_table");
+    public static final StructuredTableId SUMMARY_BUCKET_WRITES_TABLE =
+      new StructuredTableId("summary_bucket_writes_table");
 
     public static final String DIRECTION_FIELD = "direction";
     public static final String ENDPOINT_NAMESPACE_FIELD = "endpoint_namespace";
@@ -971,6 +997,10 @@ public final class StoreDefinition {
     public static final String OPERATIONS_FIELD = "operations";
     public static final String DESTINATION_DATA_FIELD = "destination_data";
     public static final String ENDPOINT_FIELD = "endpoint_field";
+    public static final String TIME_BUCKET_FIELD = "time_bucket";
+    public static final String SUMMARY_DATA_FIELD = "summary_data";
+    public static final String WRITE_DAY_FIELD = "write_day";
+    public static final String LAST_WRITE_TIME_FIELD = "last_write_time";
 
     public static final StructuredTableSpecification ENDPOINT_CHECKSUM_SPEC =
       new StructuredTableSpecification.Builder()
@@ -1011,6 +1041,25 @@ public final class StoreDefinition {
         .withPrimaryKeys(CHECKSUM_FIELD, DIRECTION_FIELD, ENDPOINT_NAMESPACE_FIELD, ENDPOINT_NAME_FIELD,
                          ENDPOINT_FIELD)
         .build();
+    public static final StructuredTableSpecification SUMMARY_BUCKETS_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(SUMMARY_BUCKETS_TABLE)
+        .withFields(Fields.stringType(DIRECTION_FIELD),
+                    Fields.stringType(ENDPOINT_NAMESPACE_FIELD),
+                    Fields.stringType(ENDPOINT_NAME_FIELD),
+                    Fields.longType(TIME_BUCKET_FIELD),
+                    Fields.longType(CHECKSUM_FIELD),
+                    Fields.stringType(SUMMARY_DATA_FIELD))
+        .withPrimaryKeys(DIRECTION_FIELD, ENDPOINT_NAMESPACE_FIELD, ENDPOINT_NAME_FIELD, TIME_BUCKET_FIELD,
+                         CHECKSUM_FIELD)
+        .build();
+    public static final StructuredTableSpecification SUMMARY_BUCKET_WRITES_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(SUMMARY_BUCKET_WRITES_TABLE)
+        .withFields(Fields.longType(WRITE_DAY_FIELD),
+                    Fields.longType(LAST_WRITE_TIME_FIELD))
+        .withPrimaryKeys(WRITE_DAY_FIELD)
+        .build();
 
     public static void createTables(StructuredTableAdmin tableAdmin,
                                     boolean overWrite) throws IOException, TableAlreadyExistsException {
@@ -1026,6 +1075,12 @@ public final class StoreDefinition {
       if (overWrite || tableAdmin.getSpecification(SUMMARY_FIELDS_TABLE) == null) {
         tableAdmin.create(SUMMARY_FIELDS_SPEC);
       }
+      if (overWrite || tableAdmin.getSpecification(SUMMARY_BUCKETS_TABLE) == null) {
+        tableAdmin.create(SUMMARY_BUCKETS_SPEC);
+      }
+      if (overWrite || tableAdmin.getSpecification(SUMMARY_BUCKET_WRITES_TABLE) == null) {
+        tableAdmin.create(SUMMARY_BUCKET_WRITES_SPEC);
+      }
     }
   }
 
@@ -828,6 +828,129 @@ public class IndexedTableTest {
       dsFrameworkUtil.deleteInstance(incrTabInstance);
     }
   }
+
+  @Test
+  public void testCoveredColumns() throws Exception {
+    DatasetId coveredTabInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("coveredtab");
+    dsFrameworkUtil.createInstance("indexedTable", coveredTabInstance, DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .add(IndexedTable.COVERED_COLUMNS_CONF_KEY, Bytes.toString(valCol))
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(coveredTabInstance);
+    TransactionExecutor tx = dsFrameworkUtil.newTransactionExecutor(iTable);
+    final byte[] otherCol = { 'o' };
+    final byte[][] valCols = { valCol };
+    try {
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          iTable.put(new Put(keyA).add(idxCol, idx1).add(valCol, valA).add(otherCol, valE));
+          iTable.put(new Put(keyB).add(idxCol, idx1).add(valCol, valB));
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // covered columns are read from the index
+          TableAssert.assertScan(new byte[][] { keyA, keyB }, new byte[][][] { { valCol, valA }, { valCol, valB } },
+                                 iTable.readByIndex(idxCol, idx1, valCols));
+          // other columns are read from the data table
+          TableAssert.assertScan(new byte[][] { keyA, keyB }, new byte[][][] { { otherCol, valE }, { } },
+                                 iTable.readByIndex(idxCol, idx1, new byte[][] { otherCol }));
+
+          // update the covered column only
+          iTable.put(keyA, valCol, valC);
+          Assert.assertTrue(iTable.compareAndSwap(keyB, valCol, valB, valD));
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          TableAssert.assertScan(new byte[][] { keyA, keyB }, new byte[][][] { { valCol, valC }, { valCol, valD } },
+                                 iTable.scanByIndex(idxCol, idx1, idx2, valCols));
+
+          // delete the covered column, and change the indexed value
+          iTable.delete(keyA, valCol);
+          iTable.put(keyB, idxCol, idx2);
+          iTable.incrementAndGet(keyC, new byte[][] { idxCol, valCol }, new long[] { 1L, 2L });
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          TableAssert.assertScan(new byte[][] { keyA }, new byte[][][] { { } },
+                                 iTable.readByIndex(idxCol, idx1, valCols));
+          TableAssert.assertScan(new byte[][] { keyB }, new byte[][][] { { valCol, valD } },
+                                 iTable.readByIndex(idxCol, idx2, valCols));
+          TableAssert.assertScan(new byte[][] { keyC }, new byte[][][] { { valCol, Bytes.toBytes(2L) } },
+                                 iTable.readByIndex(idxCol, Bytes.toBytes(1L), valCols));
+
+          // read-less increments cannot update the index
+          try {
+            iTable.increment(keyC, valCol, 1L);
+            fail("Expected IllegalArgumentException performing increment on covered column");
+          } catch (IllegalArgumentException iae) {
+            // expected
+          }
+
+          iTable.delete(keyB);
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          assertEmpty(iTable.readByIndex(idxCol, idx2, valCols));
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(coveredTabInstance);
+    }
+  }
+
+  @Test
+  public void testReadInBatches() throws Exception {
+    DatasetId batchTabInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("batchtab");
+    dsFrameworkUtil.createInstance("indexedTable", batchTabInstance, DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(batchTabInstance);
+    TransactionExecutor tx = dsFrameworkUtil.newTransactionExecutor(iTable);
+    // more rows than fit into the first few batches
+    final int numRows = 1000;
+    try {
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          for (int i = 0; i < numRows; i++) {
+            iTable.put(new Put(Bytes.toBytes(i)).add(idxCol, i % 2 == 0 ? idx1 : idx2).add(valCol, Bytes.toBytes(i)));
+          }
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          byte[][] expectedRows = new byte[numRows / 2][];
+          byte[][][] expectedValues = new byte[numRows / 2][][];
+          for (int i = 0; i < numRows / 2; i++) {
+            expectedRows[i] = Bytes.toBytes(i * 2 + 1);
+            expectedValues[i] = new byte[][] { valCol, Bytes.toBytes(i * 2 + 1) };
+          }
+          TableAssert.assertScan(expectedRows, expectedValues,
+                                 iTable.readByIndex(idxCol, idx2, new byte[][] { valCol }));
+          TableAssert.assertScan(expectedRows, expectedValues,
+                                 iTable.scanByIndex(idxCol, idx2, idx3, new byte[][] { valCol }));
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(batchTabInstance);
+    }
+  }
+
   /**
    * Asserts that the given scanner contains no more rows.
    */
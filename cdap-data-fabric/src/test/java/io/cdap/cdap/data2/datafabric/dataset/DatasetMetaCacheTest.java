@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.datafabric.dataset;
+
+import com.google.common.util.concurrent.Service;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.client.StoreRequestBuilder;
+import io.cdap.cdap.messaging.guice.MessagingServerRuntimeModule;
+import io.cdap.cdap.proto.DatasetMeta;
+import io.cdap.cdap.proto.DatasetTypeMeta;
+import io.cdap.cdap.proto.audit.AuditMessage;
+import io.cdap.cdap.proto.audit.AuditPayload;
+import io.cdap.cdap.proto.audit.AuditType;
+import io.cdap.cdap.proto.codec.AuditMessageTypeAdapter;
+import io.cdap.cdap.proto.codec.EntityIdTypeAdapter;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.EntityId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link DatasetMetaCache}.
+ */
+public class DatasetMetaCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(AuditMessage.class, new AuditMessageTypeAdapter())
+    .registerTypeAdapter(EntityId.class, new EntityIdTypeAdapter())
+    .create();
+
+  private static CConfiguration cConf;
+  private static MessagingService messagingService;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
+
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      new InMemoryDiscoveryModule(),
+      new MessagingServerRuntimeModule().getInMemoryModules(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(MetricsCollectionService.class).toInstance(new NoOpMetricsCollectionService());
+        }
+      }
+    );
+
+    messagingService = injector.getInstance(MessagingService.class);
+    if (messagingService instanceof Service) {
+      ((Service) messagingService).startAndWait();
+    }
+  }
+
+  @AfterClass
+  public static void finish() {
+    if (messagingService instanceof Service) {
+      ((Service) messagingService).stopAndWait();
+    }
+  }
+
+  @Test
+  public void testCacheAndInvalidate() throws Exception {
+    DatasetMetaCache cache = createCache(true);
+
+    DatasetId datasetId = NamespaceId.DEFAULT.dataset("ds");
+    AtomicInteger loads = new AtomicInteger();
+    DatasetMetaCache.Loader loader = () -> {
+      loads.incrementAndGet();
+      return createMeta(datasetId);
+    };
+
+    Assert.assertNotNull(cache.get(datasetId, loader));
+    Assert.assertNotNull(cache.get(datasetId, loader));
+    Assert.assertEquals(1, loads.get());
+
+    // Local invalidation of the instance or the namespace
+    cache.invalidate(datasetId);
+    Assert.assertNotNull(cache.get(datasetId, loader));
+    Assert.assertEquals(2, loads.get());
+    cache.invalidate(NamespaceId.SYSTEM);
+    Assert.assertNotNull(cache.get(datasetId, loader));
+    Assert.assertEquals(2, loads.get());
+    cache.invalidate(NamespaceId.DEFAULT);
+    Assert.assertNotNull(cache.get(datasetId, loader));
+    Assert.assertEquals(3, loads.get());
+
+    // Missing instances are not cached
+    DatasetId missingId = NamespaceId.DEFAULT.dataset("missing");
+    AtomicInteger missingLoads = new AtomicInteger();
+    DatasetMetaCache.Loader missingLoader = () -> {
+      missingLoads.incrementAndGet();
+      return null;
+    };
+    Assert.assertNull(cache.get(missingId, missingLoader));
+    Assert.assertNull(cache.get(missingId, missingLoader));
+    Assert.assertEquals(2, missingLoads.get());
+  }
+
+  @Test
+  public void testAuditInvalidation() throws Exception {
+    DatasetMetaCache cache = createCache(true);
+
+    DatasetId datasetId = NamespaceId.DEFAULT.dataset("audited");
+    DatasetId otherId = NamespaceId.DEFAULT.dataset("other");
+    AtomicInteger loads = new AtomicInteger();
+    AtomicInteger otherLoads = new AtomicInteger();
+    cache.get(datasetId, () -> {
+      loads.incrementAndGet();
+      return createMeta(datasetId);
+    });
+    cache.get(otherId, () -> {
+      otherLoads.incrementAndGet();
+      return createMeta(otherId);
+    });
+
+    publishAudit(datasetId, AuditType.UPDATE);
+
+    // Lookups don't poll the audit topic, which is done in the background
+    cache.get(datasetId, () -> {
+      loads.incrementAndGet();
+      return createMeta(datasetId);
+    });
+    Assert.assertEquals(1, loads.get());
+
+    cache.processChanges();
+    cache.get(datasetId, () -> {
+      loads.incrementAndGet();
+      return createMeta(datasetId);
+    });
+    Assert.assertEquals(2, loads.get());
+
+    // Other instances are not affected
+    cache.get(otherId, () -> {
+      otherLoads.incrementAndGet();
+      return createMeta(otherId);
+    });
+    Assert.assertEquals(1, otherLoads.get());
+  }
+
+  @Test
+  public void testAuditDisabled() throws Exception {
+    DatasetMetaCache cache = createCache(false);
+
+    // Without audit messages, changes made by others can't be seen, hence nothing is cached
+    DatasetId datasetId = NamespaceId.DEFAULT.dataset("unaudited");
+    AtomicInteger loads = new AtomicInteger();
+    DatasetMetaCache.Loader loader = () -> {
+      loads.incrementAndGet();
+      return createMeta(datasetId);
+    };
+    Assert.assertNotNull(cache.get(datasetId, loader));
+    Assert.assertNotNull(cache.get(datasetId, loader));
+    Assert.assertEquals(2, loads.get());
+  }
+
+  private DatasetMetaCache createCache(boolean auditEnabled) {
+    CConfiguration conf = CConfiguration.copy(cConf);
+    conf.setBoolean(Constants.Audit.ENABLED, auditEnabled);
+    // Long enough for the background poller to not run during the test
+    conf.setLong(Constants.Dataset.META_CACHE_POLL_INTERVAL_MS, TimeUnit.MINUTES.toMillis(10));
+    return new DatasetMetaCache(conf, messagingService, new NoopMetricsContext());
+  }
+
+  private void publishAudit(DatasetId datasetId, AuditType auditType) throws Exception {
+    AuditMessage message = new AuditMessage(System.currentTimeMillis(), datasetId, "user", auditType,
+                                            AuditPayload.EMPTY_PAYLOAD);
+    messagingService.publish(StoreRequestBuilder.of(NamespaceId.SYSTEM.topic(cConf.get(Constants.Audit.TOPIC)))
+                               .addPayload(GSON.toJson(message)).build());
+  }
+
+  private static DatasetMeta createMeta(DatasetId datasetId) {
+    DatasetSpecification spec = DatasetSpecification.builder(datasetId.getEntityName(), "table").build();
+    return new DatasetMeta(spec, new DatasetTypeMeta("table", Collections.emptyList()), null);
+  }
+}
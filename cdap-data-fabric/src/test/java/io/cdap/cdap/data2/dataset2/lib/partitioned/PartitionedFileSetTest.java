@@ -23,6 +23,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.cdap.cdap.api.Predicate;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DataSetException;
 import io.cdap.cdap.api.dataset.PartitionNotFoundException;
 import io.cdap.cdap.api.dataset.lib.FileSet;
@@ -42,6 +43,7 @@ import io.cdap.cdap.api.dataset.table.TableProperties;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.namespace.NamespacePathLocator;
 import io.cdap.cdap.data2.dataset2.DatasetFrameworkTestUtil;
+import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.proto.id.DatasetId;
 import io.cdap.cdap.test.SlowTests;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -214,6 +216,120 @@ public class PartitionedFileSetTest {
     Assert.assertEquals(tablePermissions, TableProperties.getTablePermissions(props));
   }
 
+  @Test
+  public void testGenerateFuzzyRowFilter() {
+    Partitioning partitioning = Partitioning.builder()
+      .addIntField("i")
+      .addLongField("l")
+      .addStringField("s")
+      .addIntField("x")
+      .build();
+
+    // conditions on the leading fields only are covered by the start and stop key
+    Assert.assertNull(PartitionedFileSetDataset.generateFuzzyRowFilter(null, partitioning));
+    Assert.assertNull(PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("i", 1).addValueCondition("l", 2L).build(), partitioning));
+    // range conditions cannot be pushed down
+    Assert.assertNull(PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addRangeCondition("l", 2L, 5L).build(), partitioning));
+    // fields after a string field without a single value condition have no fixed position
+    Assert.assertNull(PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("x", 3).build(), partitioning));
+
+    FuzzyRowFilter filter = PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("s", "ab").build(), partitioning);
+    Assert.assertNotNull(filter);
+    Assert.assertEquals(1, filter.getFuzzyKeysData().size());
+    byte[] fuzzyKey = filter.getFuzzyKeysData().get(0).getFirst();
+    byte[] fuzzyMask = filter.getFuzzyKeysData().get(0).getSecond();
+    Assert.assertArrayEquals(Bytes.concat(new byte[Bytes.SIZEOF_INT + 1 + Bytes.SIZEOF_LONG + 1],
+                                          Bytes.toBytes("ab")), fuzzyKey);
+    Assert.assertArrayEquals(new byte[] { 1, 1, 1, 1, 0, 1, 1, 1, 1, 1, 1, 1, 1, 0, 0, 0 }, fuzzyMask);
+
+    // the filter matches the row keys of partitions with the given value, regardless of the other fields
+    Assert.assertEquals(FuzzyRowFilter.ReturnCode.INCLUDE, filter.filterRow(PartitionedFileSetDataset.generateRowKey(
+      PartitionKey.builder().addIntField("i", 5).addLongField("l", -3L).addStringField("s", "ab")
+        .addIntField("x", 1).build(), partitioning)));
+    Assert.assertNotEquals(FuzzyRowFilter.ReturnCode.INCLUDE, filter.filterRow(
+      PartitionedFileSetDataset.generateRowKey(
+        PartitionKey.builder().addIntField("i", 5).addLongField("l", -3L).addStringField("s", "ac")
+          .addIntField("x", 1).build(), partitioning)));
+
+    // a single value condition on a string field fixes the position of the following fields
+    filter = PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("s", "ab").addValueCondition("x", 3).build(), partitioning);
+    Assert.assertNotNull(filter);
+    Assert.assertEquals(Bytes.SIZEOF_INT + 1 + Bytes.SIZEOF_LONG + 1 + 2 + 1 + Bytes.SIZEOF_INT,
+                        filter.getFuzzyKeysData().get(0).getFirst().length);
+  }
+
+  @Test
+  @Category(SlowTests.class)
+  public void testNonPrefixFiltersAndIndexedFields() throws Exception {
+    // the string field is last, so that conditions on the other fields can be pushed down as fuzzy row filter
+    Partitioning partitioning = Partitioning.builder()
+      .addIntField("i")
+      .addLongField("l")
+      .addStringField("s")
+      .build();
+    DatasetId id = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("indexedPfs");
+    dsFrameworkUtil.createInstance("partitionedFileSet", id, PartitionedFileSetProperties.builder()
+      .setPartitioning(partitioning)
+      .setIndexedFields("s", "l")
+      .build());
+    Set<String> indexColumns = ImmutableSet.copyOf(
+      dsFrameworkUtil.getSpec(id).getSpecification("partitions").getProperty("columnsToIndex").split(","));
+    Assert.assertTrue(indexColumns.containsAll(ImmutableSet.of("k.s", "k.l")));
+
+    final PartitionedFileSet dataset = dsFrameworkUtil.getInstance(id);
+    final Set<BasicPartition> allPartitionDetails = Sets.newHashSet();
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) dataset).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        for (int s = 0; s < 4; s++) {
+          for (int i = 0; i < 4; i++) {
+            for (int l = 0; l < 4; l++) {
+              PartitionKey key = PartitionKey.builder()
+                .addField("s", String.format("%c-%d", 'a' + s, s))
+                .addField("i", i * 100)
+                .addField("l", 15L - 10 * l)
+                .build();
+              PartitionOutput output = dataset.getPartitionOutput(key);
+              output.addPartition();
+              allPartitionDetails.add(new BasicPartition((PartitionedFileSetDataset) dataset,
+                                                         output.getRelativePath(), output.getPartitionKey()));
+            }
+          }
+        }
+      }
+    });
+
+    // filters without a condition on the leading field are served from the index or with a fuzzy row filter
+    for (PartitionFilter filter : generateFilters()) {
+      testFilter(dataset, allPartitionDetails, filter);
+    }
+
+    // a dropped partition must not be found through the index
+    final PartitionKey dropped = PartitionKey.builder().addField("s", "b-1").addField("i", 100).addField("l", 5L)
+      .build();
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) dataset).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        dataset.dropPartition(dropped);
+      }
+    });
+    Iterables.removeIf(allPartitionDetails, new com.google.common.base.Predicate<BasicPartition>() {
+      @Override
+      public boolean apply(BasicPartition partition) {
+        return dropped.equals(partition.getPartitionKey());
+      }
+    });
+    testFilter(dataset, allPartitionDetails, PartitionFilter.builder().addValueCondition("s", "b-1").build());
+    testFilter(dataset, allPartitionDetails, PartitionFilter.builder().addRangeCondition("l", 0L, 10L).build());
+
+    dsFrameworkUtil.deleteInstance(id);
+  }
+
   @Test
   public void testDefaultBasePath() throws Exception {
     DatasetId id = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("testDefaultPath");
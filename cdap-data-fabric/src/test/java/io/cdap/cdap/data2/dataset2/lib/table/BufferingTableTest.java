@@ -21,7 +21,9 @@ import com.google.common.collect.Maps;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DatasetAdmin;
 import io.cdap.cdap.api.dataset.DatasetProperties;
+import io.cdap.cdap.api.dataset.lib.IndexedTable;
 import io.cdap.cdap.api.dataset.table.Get;
+import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
@@ -38,6 +40,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
  * unit-test
@@ -497,6 +501,70 @@ public abstract class BufferingTableTest<T extends BufferingTable> extends Table
     }
   }
 
+  /**
+   * Tests reading rows by index from an {@link IndexedTable} on top of this table implementation, with and without
+   * covered columns. The number of rows is larger than the first batch of the index scanner.
+   */
+  @Test
+  public void testIndexedTableReads() throws Exception {
+    int numRows = 100;
+    DatasetAdmin dataAdmin = getTableAdmin(CONTEXT1, "indexedData");
+    DatasetAdmin indexAdmin = getTableAdmin(CONTEXT1, "indexedIndex");
+    dataAdmin.create();
+    indexAdmin.create();
+    try (BufferingTable dataTable = getTable(CONTEXT1, "indexedData");
+         BufferingTable indexTable = getTable(CONTEXT1, "indexedIndex")) {
+      SortedSet<byte[]> indexedColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+      indexedColumns.add(C1);
+      SortedSet<byte[]> coveredColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+      coveredColumns.add(C2);
+      IndexedTable indexedTable = new IndexedTable("indexed", dataTable, indexTable, indexedColumns,
+                                                   Bytes.EMPTY_BYTE_ARRAY, coveredColumns);
+
+      Transaction tx = txClient.startShort();
+      dataTable.startTx(tx);
+      indexTable.startTx(tx);
+      for (int i = 0; i < numRows; i++) {
+        indexedTable.put(new Put(Bytes.toBytes(i)).add(C1, V1).add(C2, Bytes.toBytes(i)).add(C3, V3));
+      }
+      List<byte[]> txChanges = new ArrayList<>(dataTable.getTxChanges());
+      txChanges.addAll(indexTable.getTxChanges());
+      txClient.canCommitOrThrow(tx, txChanges);
+      Assert.assertTrue(dataTable.commitTx());
+      Assert.assertTrue(indexTable.commitTx());
+      txClient.commitOrThrow(tx);
+
+      tx = txClient.startShort();
+      dataTable.startTx(tx);
+      indexTable.startTx(tx);
+
+      // reads the covered column from the index only
+      int count = 0;
+      try (Scanner scanner = indexedTable.readByIndex(C1, V1, a(C2))) {
+        for (Row row = scanner.next(); row != null; row = scanner.next()) {
+          Assert.assertArrayEquals(Bytes.toBytes(count), row.getRow());
+          Assert.assertArrayEquals(Bytes.toBytes(count++), row.get(C2));
+          Assert.assertNull(row.get(C3));
+        }
+      }
+      Assert.assertEquals(numRows, count);
+
+      // reads the whole data rows with multi-gets
+      count = 0;
+      try (Scanner scanner = indexedTable.readByIndex(C1, V1)) {
+        for (Row row = scanner.next(); row != null; row = scanner.next()) {
+          Assert.assertArrayEquals(Bytes.toBytes(count++), row.get(C2));
+          Assert.assertArrayEquals(V3, row.get(C3));
+        }
+      }
+      Assert.assertEquals(numRows, count);
+      txClient.abort(tx);
+    } finally {
+      dataAdmin.drop();
+      indexAdmin.drop();
+    }
+  }
+
   private void verify123(BufferingTable table) throws Exception {
     byte[] row = new byte[] {1};
     byte[] col = new byte[] {2};
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tests for concurrent read-modify-write operations of {@link LevelDBTableCore}.
+ */
+public class LevelDBTableCoreTest {
+
+  private static final byte[] COLUMN = Bytes.toBytes("c");
+  private static final int ROWS = 64;
+  private static final int INCREMENTS_PER_THREAD = 2000;
+
+  @ClassRule
+  public static TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private static LevelDBTableService service;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, tmpFolder.newFolder().getAbsolutePath());
+    service = new LevelDBTableService();
+    service.setConfiguration(cConf);
+  }
+
+  @AfterClass
+  public static void finish() {
+    service.close();
+  }
+
+  @Test
+  public void testConcurrentIncrements() throws Exception {
+    String tableName = "increment";
+    service.ensureTableExists(tableName);
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    runIncrements(tableName, threads);
+
+    // Each increment operation adds one to the counter of a single row or two rows
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    long total = 0;
+    for (int i = 0; i < ROWS; i++) {
+      byte[] value = table.getRow(Bytes.toBytes(i), new byte[][] { COLUMN }, null, null, -1, null).get(COLUMN);
+      total += value == null ? 0L : Bytes.toLong(value);
+    }
+    Assert.assertEquals((long) threads * INCREMENTS_PER_THREAD * 3 / 2, total);
+  }
+
+  @Test
+  public void testConcurrentSwap() throws Exception {
+    String tableName = "swap";
+    service.ensureTableExists(tableName);
+    byte[] row = Bytes.toBytes("row");
+
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        // Each thread uses its own table instance to make sure locking is shared across instances
+        LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 500; j++) {
+            // Retry compare-and-swap until success
+            while (true) {
+              byte[] existing = table.getRow(row, new byte[][] { COLUMN }, null, null, -1, null).get(COLUMN);
+              long value = existing == null ? 0L : Bytes.toLong(existing);
+              if (table.swap(row, COLUMN, existing, Bytes.toBytes(value + 1))) {
+                break;
+              }
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    Assert.assertEquals(threads * 500L,
+                        Bytes.toLong(table.getRow(row, new byte[][] { COLUMN }, null, null, -1, null).get(COLUMN)));
+  }
+
+  /**
+   * Performs increments from the given number of threads, alternating between single row and two rows increments.
+   */
+  private void runIncrements(String tableName, int numThreads) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    CyclicBarrier barrier = new CyclicBarrier(numThreads + 1);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+        futures.add(executor.submit(() -> {
+          barrier.await();
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          for (int j = 0; j < INCREMENTS_PER_THREAD; j++) {
+            int row = random.nextInt(ROWS);
+            if (j % 2 == 0) {
+              table.increment(Bytes.toBytes(row), Collections.singletonMap(COLUMN, 1L));
+            } else {
+              NavigableMap<byte[], NavigableMap<byte[], Long>> updates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+              updates.put(Bytes.toBytes(row), createIncrement());
+              updates.put(Bytes.toBytes((row + 1) % ROWS), createIncrement());
+              table.increment(updates);
+            }
+          }
+          return null;
+        }));
+      }
+      barrier.await();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private NavigableMap<byte[], Long> createIncrement() {
+    NavigableMap<byte[], Long> increment = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    increment.put(COLUMN, 1L);
+    return increment;
+  }
+}
@@ -17,6 +17,7 @@
 package io.cdap.cdap.data2.metadata.lineage;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.proto.ProgramType;
@@ -131,6 +132,20 @@ public abstract class LineageTableTest {
         lineageTable.getRelations(datasetInstance2, 0, 35000, x -> true)
       );
 
+      // Batched reads for multiple datasets and programs
+      Assert.assertEquals(
+        ImmutableMap.of(datasetInstance1, lineageTable.getRelations(datasetInstance1, 0, 35000, x -> true),
+                        datasetInstance2, lineageTable.getRelations(datasetInstance2, 0, 35000, x -> true)),
+        lineageTable.getDatasetRelations(ImmutableList.of(datasetInstance1, datasetInstance2), 0, 35000, x -> true)
+      );
+
+      Assert.assertEquals(
+        ImmutableMap.of(program1, lineageTable.getRelations(program1, 0, 100000, x -> true),
+                        program2, lineageTable.getRelations(program2, 0, 100000, x -> true),
+                        program3, lineageTable.getRelations(program3, 0, 100000, x -> true)),
+        lineageTable.getProgramRelations(ImmutableList.of(program1, program2, program3), 0, 100000, x -> true)
+      );
+
       Assert.assertEquals(toSet(program1, datasetInstance1), lineageTable.getEntitiesForRun(run11));
       Assert.assertEquals(ImmutableList.of(run11Data1AccessTime), lineageTable.getAccessTimesForRun(run11));
     });
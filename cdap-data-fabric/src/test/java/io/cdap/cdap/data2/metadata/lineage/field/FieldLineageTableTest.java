@@ -40,6 +40,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test for storage and retrieval of the field lineage operations.
@@ -225,6 +226,67 @@ public abstract class FieldLineageTableTest {
     });
   }
 
+  @Test
+  public void testSummaryOverTimeBuckets() {
+    // Runs that start after the first lineage is written are materialized in daily buckets, so the runs start
+    // in the future, twice a day over three months
+    long dayMillis = TimeUnit.DAYS.toMillis(1);
+    long now = System.currentTimeMillis();
+    long base = now - now % dayMillis + dayMillis + TimeUnit.HOURS.toMillis(1);
+    int numRuns = 180;
+    long[] startTimes = new long[numRuns];
+    EndPoint destination = EndPoint.of("ns", "destination");
+
+    TransactionRunners.run(transactionRunner, context -> {
+      FieldLineageTable fieldLineageTable = FieldLineageTable.create(context);
+      for (int i = 0; i < numRuns; i++) {
+        startTimes[i] = base + i * dayMillis / 2 + i;
+        ProgramRunId programRun = new ProgramId("default", "app1", ProgramType.WORKFLOW, "workflow" + i % 3)
+          .run(RunIds.generate(startTimes[i]).getId());
+        // Each run reads from a different source, so that the summary tells which runs are included
+        ReadOperation read = new ReadOperation("read", "some read", EndPoint.of("ns1", "source" + i), "body");
+        WriteOperation write = new WriteOperation("write", "some write", destination, InputField.of("read", "body"));
+        fieldLineageTable.addFieldLineageInfo(programRun, new FieldLineageInfo(Arrays.asList(read, write)));
+      }
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      FieldLineageTable fieldLineageTable = FieldLineageTable.create(context);
+      EndPointField destinationField = new EndPointField(destination, "body");
+      long last = startTimes[numRuns - 1];
+      long[][] ranges = {
+        {0, Long.MAX_VALUE},
+        {now, last + 1},
+        {base, last},
+        {base + 1, last + 1},
+        {base - base % dayMillis, last - last % dayMillis},
+        {startTimes[3], startTimes[100]},
+        {startTimes[3] + 1, startTimes[100] + 1},
+        {startTimes[10] - dayMillis, startTimes[10] + dayMillis},
+        {startTimes[20], startTimes[21]},
+        {startTimes[40] + 5, startTimes[40] + 6},
+        {base + 30 * dayMillis, base + 30 * dayMillis},
+      };
+      for (long[] range : ranges) {
+        Set<EndPointField> expected = new HashSet<>();
+        for (int i = 0; i < numRuns; i++) {
+          // Same range semantics as the program run scan, which includes runs from one millisecond before start
+          if (startTimes[i] >= range[0] - 1 && startTimes[i] < range[1]) {
+            expected.add(new EndPointField(EndPoint.of("ns1", "source" + i), "body"));
+          }
+        }
+        Assert.assertEquals(expected, fieldLineageTable.getIncomingSummary(destinationField, range[0], range[1]));
+      }
+
+      // Outgoing summary of a single source only contains the destination within the range of its run
+      EndPointField sourceField = new EndPointField(EndPoint.of("ns1", "source50"), "body");
+      Assert.assertEquals(Collections.singleton(destinationField),
+                          fieldLineageTable.getOutgoingSummary(sourceField, base, last));
+      Assert.assertEquals(Collections.emptySet(),
+                          fieldLineageTable.getOutgoingSummary(sourceField, startTimes[51], last));
+    });
+  }
+
   private List<Operation> generateOperations(boolean addAditionalField) {
     // read: file -> (offset, body)
     // parse: (body) -> (first_name, last_name)
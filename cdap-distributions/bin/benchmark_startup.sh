@@ -0,0 +1,99 @@
+#!/usr/bin/env bash
+#
+# Copyright © 2021 Cask Data, Inc.
+#
+# Licensed under the Apache License, Version 2.0 (the "License"); you may not
+# use this file except in compliance with the License. You may obtain a copy of
+# the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+# WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+# License for the specific language governing permissions and limitations under
+# the License.
+
+# Measures the startup time of the CDAP Sandbox or CDAP Master on this host, with and without
+# the JDK Class Data Sharing archives created by "cdap setup cds".
+#
+# Logic:
+# for each iteration and mode (without and with archives)
+# - start the service
+# - poll the URL until it responds successfully
+# - record the elapsed time and stop the service
+# print the elapsed times and the average of each mode
+
+function die() { __code=${2:-1}; echo "[ERROR] ${1}" >&2; exit ${__code}; };
+
+function usage() {
+  echo "Usage: ${0} [-n <iterations>] [-u <url>] [-t <timeout seconds>] <sandbox|master>"
+  echo
+  echo "  The cdap script is found in CDAP_HOME/bin (default: /opt/cdap/sandbox or /opt/cdap/master)."
+  echo "  The archives are read from CDAP_CDS_DIR (default: CDAP_HOME/cds)."
+  exit 1
+}
+
+ITERATIONS=3
+URL=http://localhost:11015/v3/namespaces
+TIMEOUT=600
+
+while getopts "n:u:t:h" opt; do
+  case ${opt} in
+    n) ITERATIONS=${OPTARG} ;;
+    u) URL=${OPTARG} ;;
+    t) TIMEOUT=${OPTARG} ;;
+    *) usage ;;
+  esac
+done
+shift $((OPTIND - 1))
+
+SERVICE=${1}
+case ${SERVICE} in
+  sandbox) CDAP_HOME=${CDAP_HOME:-/opt/cdap/sandbox} ;;
+  master) CDAP_HOME=${CDAP_HOME:-/opt/cdap/master} ;;
+  *) usage ;;
+esac
+CDAP=${CDAP_HOME}/bin/cdap
+CDS_DIR=${CDAP_CDS_DIR:-${CDAP_HOME}/cds}
+[[ -x ${CDAP} ]] || die "Cannot find ${CDAP}"
+ls "${CDS_DIR}"/*.jsa >/dev/null 2>&1 || die "No Class Data Sharing archives found in ${CDS_DIR}, run '${CDAP} setup cds' first"
+which curl >/dev/null 2>&1 || die "curl is required"
+
+# An empty directory for starting without archives
+EMPTY_DIR=$(mktemp -d) || die "Failed to create temporary directory"
+trap "rm -rf ${EMPTY_DIR}" EXIT
+
+# Starts the service and prints the milliseconds until the URL responds
+function measure() {
+  local __cds_dir=${1} __start __now
+  __start=$(date +%s%3N)
+  CDAP_CDS_DIR=${__cds_dir} ${CDAP} ${SERVICE} start >/dev/null 2>&1 || die "Failed to start ${SERVICE}"
+  while ! curl -sf -o /dev/null "${URL}"; do
+    __now=$(date +%s%3N)
+    if [[ $(( (__now - __start) / 1000 )) -ge ${TIMEOUT} ]]; then
+      ${CDAP} ${SERVICE} stop >/dev/null 2>&1
+      die "Timed out waiting for ${URL}"
+    fi
+    sleep 0.2
+  done
+  echo $(( $(date +%s%3N) - __start ))
+  ${CDAP} ${SERVICE} stop >/dev/null 2>&1 || die "Failed to stop ${SERVICE}"
+}
+
+declare -A TOTALS=([without]=0 [with]=0)
+for ((i = 1; i <= ITERATIONS; i++)); do
+  for mode in without with; do
+    if [[ ${mode} == with ]]; then
+      elapsed=$(measure "${CDS_DIR}") || exit 1
+    else
+      elapsed=$(measure "${EMPTY_DIR}") || exit 1
+    fi
+    TOTALS[${mode}]=$(( TOTALS[${mode}] + elapsed ))
+    echo "Iteration ${i} ${mode} Class Data Sharing: ${elapsed} ms"
+  done
+done
+
+for mode in without with; do
+  echo "Average ${mode} Class Data Sharing: $(( TOTALS[${mode}] / ITERATIONS )) ms"
+done
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.cdap.gateway.discovery;
+
+import org.apache.twill.discovery.Discoverable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the number of requests that are in-flight to each {@link Discoverable} endpoint.
+ * This class is thread safe.
+ */
+public final class InflightRequestCounter {
+
+  private final ConcurrentMap<Discoverable, Integer> counts = new ConcurrentHashMap<>();
+
+  /**
+   * Records the start of a request to the given endpoint.
+   */
+  public void increment(Discoverable discoverable) {
+    counts.merge(discoverable, 1, Integer::sum);
+  }
+
+  /**
+   * Records the completion of a request to the given endpoint.
+   */
+  public void decrement(Discoverable discoverable) {
+    // Remove the entry when it drops to zero so that endpoints that are gone won't stay in the map
+    counts.computeIfPresent(discoverable, (key, count) -> count <= 1 ? null : count - 1);
+  }
+
+  /**
+   * Returns the number of in-flight requests to the given endpoint.
+   */
+  public int get(Discoverable discoverable) {
+    return counts.getOrDefault(discoverable, 0);
+  }
+}
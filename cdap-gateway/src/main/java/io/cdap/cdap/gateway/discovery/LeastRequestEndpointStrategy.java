@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.cdap.gateway.discovery;
+
+import io.cdap.cdap.common.discovery.AbstractEndpointStrategy;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.ServiceDiscovered;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Picks the endpoint that has the least number of in-flight requests, as tracked by the given
+ * {@link InflightRequestCounter}. Ties are broken randomly, so that it behaves the same as random picking
+ * when there is no load.
+ */
+public final class LeastRequestEndpointStrategy extends AbstractEndpointStrategy {
+
+  private final InflightRequestCounter requestCounter;
+
+  public LeastRequestEndpointStrategy(Supplier<ServiceDiscovered> serviceDiscoveredSupplier,
+                                      InflightRequestCounter requestCounter) {
+    super(serviceDiscoveredSupplier);
+    this.requestCounter = requestCounter;
+  }
+
+  @Nullable
+  @Override
+  protected Discoverable pick(ServiceDiscovered serviceDiscovered) {
+    Discoverable result = null;
+    int minCount = Integer.MAX_VALUE;
+    int ties = 0;
+    for (Discoverable discoverable : serviceDiscovered) {
+      int count = requestCounter.get(discoverable);
+      if (count < minCount) {
+        result = discoverable;
+        minCount = count;
+        ties = 1;
+      } else if (count == minCount && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+        // Reservoir sampling among endpoints with the same count
+        result = discoverable;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * A trie of path segments, built once and then used to match request paths without re-parsing the patterns.
+ * Patterns are '/' separated and each segment can be:
+ *
+ * <ul><li>
+ *   a literal string, which must match the path segment exactly;
+ * </li><li>
+ *   {@code *} or a JAX-RS style template such as {@code {namespace-id}}, which matches any single segment;
+ * </li><li>
+ *   {@code **}, which matches one or more segments.
+ * </li></ul>
+ *
+ * A value can be added either as an exact match, in which case the whole path must be consumed by the pattern,
+ * or as a prefix match, in which case the path may have extra segments after the pattern. A trie created
+ * with {@link #forSuffixes()} matches patterns against the end of the path instead of the beginning.
+ *
+ * When multiple values match a path, the one added first wins. This class is not thread safe for writes,
+ * but is safe for concurrent lookups once it is fully built.
+ *
+ * @param <T> type of the values stored in the trie
+ */
+final class PathTrie<T> {
+
+  private static final String WILDCARD = "*";
+  private static final String MULTI_WILDCARD = "**";
+
+  private final Node<T> root = new Node<>();
+  private final boolean reversed;
+  private int size;
+
+  /**
+   * Creates a trie that matches patterns against the beginning of a path.
+   */
+  static <T> PathTrie<T> create() {
+    return new PathTrie<>(false);
+  }
+
+  /**
+   * Creates a trie that matches patterns against the end of a path.
+   */
+  static <T> PathTrie<T> forSuffixes() {
+    return new PathTrie<>(true);
+  }
+
+  private PathTrie(boolean reversed) {
+    this.reversed = reversed;
+  }
+
+  /**
+   * Adds a value that matches only when the given pattern consumes the whole path.
+   */
+  void add(String pattern, T value) {
+    add(pattern, value, false);
+  }
+
+  /**
+   * Adds a value that matches when the given pattern matches the beginning (or the end for a suffix trie)
+   * of the path. The path may contain additional segments.
+   */
+  void addPrefix(String pattern, T value) {
+    add(pattern, value, true);
+  }
+
+  /**
+   * Returns the number of values added to this trie.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Finds the first added value that matches the given path.
+   *
+   * @param path a '/' separated path
+   * @param filter additional condition that a matching value must satisfy
+   * @return the matching value that was added first or {@code null} if nothing matches
+   */
+  @Nullable
+  T find(String path, Predicate<? super T> filter) {
+    return find(split(path), filter);
+  }
+
+  /**
+   * Finds the first added value that matches the given path segments.
+   *
+   * @param parts the path segments; must not contain nulls or empty strings
+   * @param filter additional condition that a matching value must satisfy
+   * @return the matching value that was added first or {@code null} if nothing matches
+   */
+  @Nullable
+  T find(String[] parts, Predicate<? super T> filter) {
+    Entry<T> entry = reversed
+      ? find(root, parts, parts.length - 1, -1, filter, null)
+      : find(root, parts, 0, parts.length, filter, null);
+    return entry == null ? null : entry.value;
+  }
+
+  /**
+   * Splits the given path into non-empty segments. A trailing query string is not treated specially.
+   */
+  static String[] split(String path) {
+    List<String> parts = new ArrayList<>();
+    int len = path.length();
+    int start = 0;
+    while (start < len) {
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = len;
+      }
+      if (end > start) {
+        parts.add(path.substring(start, end));
+      }
+      start = end + 1;
+    }
+    return parts.toArray(new String[0]);
+  }
+
+  private void add(String pattern, T value, boolean prefix) {
+    String[] segments = split(pattern);
+    Node<T> node = root;
+    int start = reversed ? segments.length - 1 : 0;
+    int step = reversed ? -1 : 1;
+    for (int i = start; i >= 0 && i < segments.length; i += step) {
+      String segment = segments[i];
+      if (MULTI_WILDCARD.equals(segment)) {
+        if (node.multiWildcard == null) {
+          node.multiWildcard = new Node<>();
+        }
+        node = node.multiWildcard;
+      } else if (WILDCARD.equals(segment) || (segment.startsWith("{") && segment.endsWith("}"))) {
+        if (node.wildcard == null) {
+          node.wildcard = new Node<>();
+        }
+        node = node.wildcard;
+      } else {
+        node = node.children.computeIfAbsent(segment, k -> new Node<>());
+      }
+    }
+    Entry<T> entry = new Entry<>(size++, value);
+    if (prefix) {
+      node.prefixEntries.add(entry);
+    } else {
+      node.exactEntries.add(entry);
+    }
+  }
+
+  /**
+   * Walks the trie from the given node for the path segments starting at index {@code idx}, with {@code end}
+   * being the exclusive end index. Returns the matching entry with the lowest order.
+   */
+  @Nullable
+  private Entry<T> find(Node<T> node, String[] parts, int idx, int end,
+                        Predicate<? super T> filter, @Nullable Entry<T> best) {
+    best = firstMatch(node.prefixEntries, filter, best);
+    if (idx == end) {
+      return firstMatch(node.exactEntries, filter, best);
+    }
+
+    int step = reversed ? -1 : 1;
+    Node<T> child = node.children.get(parts[idx]);
+    if (child != null) {
+      best = find(child, parts, idx + step, end, filter, best);
+    }
+    if (node.wildcard != null) {
+      best = find(node.wildcard, parts, idx + step, end, filter, best);
+    }
+    if (node.multiWildcard != null) {
+      // Multi-segments wildcard consumes at least one segment
+      for (int i = idx + step; i != end + step; i += step) {
+        best = find(node.multiWildcard, parts, i, end, filter, best);
+      }
+    }
+    return best;
+  }
+
+  @Nullable
+  private Entry<T> firstMatch(List<Entry<T>> entries, Predicate<? super T> filter, @Nullable Entry<T> best) {
+    for (Entry<T> entry : entries) {
+      // Entries in a node are sorted by order, hence the first one either matches or we can stop
+      if (best != null && best.order < entry.order) {
+        return best;
+      }
+      if (filter.test(entry.value)) {
+        return entry;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * A node in the trie.
+   */
+  private static final class Node<T> {
+    private final Map<String, Node<T>> children = new HashMap<>();
+    private final List<Entry<T>> exactEntries = new ArrayList<>();
+    private final List<Entry<T>> prefixEntries = new ArrayList<>();
+    private Node<T> wildcard;
+    private Node<T> multiWildcard;
+  }
+
+  /**
+   * A value in the trie, together with the order it was added.
+   */
+  private static final class Entry<T> {
+    private final int order;
+    private final T value;
+
+    Entry(int order, T value) {
+      this.order = order;
+      this.value = value;
+    }
+  }
+}
@@ -24,7 +24,6 @@ import io.cdap.cdap.common.security.AuditDetail;
 import io.cdap.cdap.common.security.AuditPolicy;
 import io.cdap.cdap.internal.asm.Classes;
 import io.cdap.http.HttpHandler;
-import io.cdap.http.internal.PatternPathRouterWithGroups;
 import io.netty.handler.codec.http.HttpMethod;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,15 +52,13 @@ public final class RouterAuditLookUp {
 
   private static final Logger LOG = LoggerFactory.getLogger(RouterAuditLookUp.class);
   private static final RouterAuditLookUp INSTANCE = new RouterAuditLookUp();
-  private static final int MAX_PARTS = 25;
   private final int numberOfPaths;
 
   public static RouterAuditLookUp getInstance() {
     return INSTANCE;
   }
 
-  private final PatternPathRouterWithGroups<AuditLogConfig> patternMatcher =
-    PatternPathRouterWithGroups.create(MAX_PARTS);
+  private final PathTrie<AuditLogConfig> patternMatcher = PathTrie.create();
 
   private RouterAuditLookUp() {
     numberOfPaths = createMatcher();
@@ -69,15 +66,7 @@ public final class RouterAuditLookUp {
 
   @Nullable
   public AuditLogConfig getAuditLogContent(String path, HttpMethod httpMethod) throws Exception {
-    List<PatternPathRouterWithGroups.RoutableDestination<AuditLogConfig>> destinations =
-      patternMatcher.getDestinations(path);
-    for (PatternPathRouterWithGroups.RoutableDestination<AuditLogConfig> entry : destinations) {
-      AuditLogConfig destination = entry.getDestination();
-      if (destination.getHttpMethod().equals(httpMethod)) {
-        return destination;
-      }
-    }
-    return null;
+    return patternMatcher.find(path, config -> config.getHttpMethod().equals(httpMethod));
   }
 
   private int createMatcher() {
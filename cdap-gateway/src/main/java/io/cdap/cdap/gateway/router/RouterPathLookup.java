@@ -16,15 +16,15 @@
 
 package io.cdap.cdap.gateway.router;
 
-import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Splitter;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.service.ServiceDiscoverable;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.http.AbstractHttpHandler;
 import io.netty.handler.codec.http.HttpRequest;
 
-import java.util.stream.StreamSupport;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
 /**
@@ -53,6 +53,8 @@ public final class RouterPathLookup extends AbstractHttpHandler {
   public static final RouteDestination RUNTIME = new RouteDestination(Constants.Service.RUNTIME);
   public static final RouteDestination DONT_ROUTE = new RouteDestination(Constants.Router.DONT_ROUTE_SERVICE);
 
+  private static final RouteTable ROUTES = createRouteTable();
+
   /**
    * Returns the CDAP service which will handle the HttpRequest
    *
@@ -65,12 +67,10 @@ public final class RouterPathLookup extends AbstractHttpHandler {
     try {
       String method = httpRequest.method().name();
       AllowedMethod requestMethod = AllowedMethod.valueOf(method);
-      String[] uriParts = StreamSupport
-        .stream(Splitter.on('/').omitEmptyStrings().split(requestPath).spliterator(), false)
-        .toArray(String[]::new);
+      String[] uriParts = PathTrie.split(requestPath);
 
       if (uriParts[0].equals(Constants.Gateway.API_VERSION_3_TOKEN)) {
-        return getV3RoutingService(uriParts, requestMethod);
+        return ROUTES.getDestination(uriParts, requestMethod);
       }
     } catch (Exception e) {
       // Ignore exception. Default routing to app-fabric.
@@ -78,91 +78,69 @@ public final class RouterPathLookup extends AbstractHttpHandler {
     return APP_FABRIC_HTTP;
   }
 
-  private boolean isUserServiceType(String uriPart) {
-    for (ProgramType type : ServiceDiscoverable.getUserServiceTypes()) {
-      if (type.getCategoryName().equals(uriPart)) {
-        return true;
-      }
-    }
-    return false;
-  }
+  /**
+   * Creates the {@link RouteTable} for all v3 paths. Routes are matched in the order they are added to the table,
+   * and paths that don't match any route are routed to app-fabric.
+   */
+  private static RouteTable createRouteTable() {
+    RouteTable table = new RouteTable();
+    String[] userServiceTypes = ServiceDiscoverable.getUserServiceTypes().stream()
+      .map(ProgramType::getCategoryName)
+      .toArray(String[]::new);
 
-  @Nullable
-  private RouteDestination getV3RoutingService(String [] uriParts, AllowedMethod requestMethod) {
-    if ((uriParts.length >= 2) && uriParts[1].equals("feeds")) {
-      // TODO(Rohit) find a better way to handle that - this looks hackish
-      // This needs to now changed especially metadata since now it can have custom parts
-      return null;
-    } else if ("bootstrap".equals(uriParts[1])) {
-      return APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 11) && "versions".equals(uriParts[5]) && isUserServiceType(uriParts[7])
-      && "methods".equals(uriParts[9])) {
-      // User defined services (version specific) handle methods on them:
-      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/versions/{version-id}/services/{service-id}/methods/
-      //       <user-defined-method-path>"
-      String serviceName = ServiceDiscoverable.getName(uriParts[2], uriParts[4],
-                                                       ProgramType.valueOfCategoryName(uriParts[7]), uriParts[8]);
-      String version = uriParts[6];
-      return new RouteDestination(serviceName, version);
-    } else if ((uriParts.length >= 9) && isUserServiceType(uriParts[5]) && "methods".equals(uriParts[7])) {
-      //User defined services handle methods on them:
-      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
-      return new RouteDestination(ServiceDiscoverable.getName(uriParts[2], uriParts[4],
-                                                              ProgramType.valueOfCategoryName(uriParts[5]),
-                                                              uriParts[6]));
-    } else if (beginsWith(uriParts, "v3", "system", "services", null, "logs")) {
-      //Log Handler Path /v3/system/services/<service-id>/logs
-      return LOG_QUERY;
-    } else if ((!beginsWith(uriParts, "v3", "namespaces", null, "securekeys")) && (endsWith(uriParts, "metadata") ||
-      // do no intercept the namespaces/<namespace-name>/securekeys/<key>/metadata as that is handled by the
-      // SecureStoreHandler
-      endsWith(uriParts, "metadata", "properties") || endsWith(uriParts, "metadata", "properties", null) ||
-      endsWith(uriParts, "metadata", "tags") || endsWith(uriParts, "metadata", "tags", null) ||
-      endsWith(uriParts, "metadata", "search") ||
-      beginsWith(uriParts, "v3", "namespaces", null, "datasets", null, "lineage") ||
-      beginsWith(uriParts, "v3", "metadata", "search"))) {
-      return METADATA_SERVICE;
-    } else if (beginsWith(uriParts, "v3", "security", "authorization") ||
-      beginsWith(uriParts, "v3", "namespaces", null, "securekeys")) {
-      // Authorization and Secure Store Handlers currently run in App Fabric
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "security", "store", "namespaces", null)) {
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "namespaces", null, "data", "datasets", null, "programs") &&
-      requestMethod.equals(AllowedMethod.GET)) {
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "namespaces", null, "profiles") ||
-      beginsWith(uriParts, "v3", "profiles")) {
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "namespaces", null, "runs")) {
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "namespaces", null, "previews")) {
-      return PREVIEW_HTTP;
-    } else if (beginsWith(uriParts, "v3", "system", "serviceproviders")) {
-      return APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 8 && uriParts[7].equals("logs")) ||
-      (uriParts.length >= 10 && uriParts[9].equals("logs")) ||
-      (uriParts.length >= 6 && uriParts[5].equals("logs"))) {
-      //Log Handler Paths:
-      // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
-      // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
-      return LOG_QUERY;
-    } else if (uriParts.length >= 2 && uriParts[1].equals("metrics")) {
-      //Metrics Search Handler Path /v3/metrics
-      return METRICS;
-    } else if (uriParts.length >= 5 && uriParts[1].equals("data") && uriParts[2].equals("explore") &&
-      (uriParts[3].equals("queries") || uriParts[3].equals("jdbc") || uriParts[3].equals("namespaces"))) {
-      // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if (uriParts.length >= 6 && uriParts[3].equals("data") && uriParts[4].equals("explore") &&
-      (uriParts[5].equals("queries") || uriParts[5].equals("datasets")
-        || uriParts[5].equals("tables") || uriParts[5].equals("jdbc"))) {
-      // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/datasets/{ds}/enable
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if ((uriParts.length == 3) && uriParts[1].equals("explore") && uriParts[2].equals("status")) {
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if (beginsWith(uriParts, "v3", "system", "services", null, "status")
-      || beginsWith(uriParts, "v3", "system", "services", null, "stacks")) {
+    // TODO(Rohit) find a better way to handle that - this looks hackish
+    // This needs to now changed especially metadata since now it can have custom parts
+    table.route(uriParts -> null).prefix("/v3/feeds");
+    table.route(APP_FABRIC_HTTP).prefix("/v3/bootstrap");
+
+    // User defined services (version specific) handle methods on them:
+    //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/versions/{version-id}/services/{service-id}/methods/
+    //       <user-defined-method-path>"
+    table.route(uriParts -> new RouteDestination(
+      ServiceDiscoverable.getName(uriParts[2], uriParts[4], ProgramType.valueOfCategoryName(uriParts[7]), uriParts[8]),
+      uriParts[6])).prefix(expand("/v3/*/*/*/*/versions/*/%s/*/methods/*", userServiceTypes));
+
+    //User defined services handle methods on them:
+    //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
+    table.route(uriParts -> new RouteDestination(
+      ServiceDiscoverable.getName(uriParts[2], uriParts[4], ProgramType.valueOfCategoryName(uriParts[5]), uriParts[6])
+    )).prefix(expand("/v3/*/*/*/*/%s/*/methods/*", userServiceTypes));
+
+    //Log Handler Path /v3/system/services/<service-id>/logs
+    table.route(LOG_QUERY).prefix("/v3/system/services/*/logs");
+
+    // do no intercept the namespaces/<namespace-name>/securekeys/<key>/metadata as that is handled by the
+    // SecureStoreHandler, which currently runs in App Fabric
+    table.route(APP_FABRIC_HTTP).prefix("/v3/namespaces/*/securekeys");
+
+    table.route(METADATA_SERVICE)
+      .suffix("/metadata", "/metadata/properties", "/metadata/properties/*",
+              "/metadata/tags", "/metadata/tags/*", "/metadata/search")
+      .prefix("/v3/namespaces/*/datasets/*/lineage", "/v3/metadata/search");
+
+    // Authorization and Secure Store Handlers currently run in App Fabric
+    table.route(APP_FABRIC_HTTP).prefix("/v3/security/authorization", "/v3/security/store/namespaces/*");
+    table.route(APP_FABRIC_HTTP).method(AllowedMethod.GET).prefix("/v3/namespaces/*/data/datasets/*/programs");
+    table.route(APP_FABRIC_HTTP).prefix("/v3/namespaces/*/profiles", "/v3/profiles", "/v3/namespaces/*/runs");
+    table.route(PREVIEW_HTTP).prefix("/v3/namespaces/*/previews");
+    table.route(APP_FABRIC_HTTP).prefix("/v3/system/serviceproviders");
+
+    //Log Handler Paths:
+    // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
+    // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
+    table.route(LOG_QUERY).prefix("/v3/*/*/*/*/*/*/logs", "/v3/*/*/*/*/*/*/*/*/logs", "/v3/*/*/*/*/logs");
+
+    //Metrics Search Handler Path /v3/metrics
+    table.route(METRICS).prefix("/v3/metrics");
+
+    // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
+    table.route(EXPLORE_HTTP_USER_SERVICE).prefix(expand("/v3/data/explore/%s/*", "queries", "jdbc", "namespaces"));
+    // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/datasets/{ds}/enable
+    table.route(EXPLORE_HTTP_USER_SERVICE).prefix(expand("/v3/*/*/data/explore/%s",
+                                                         "queries", "datasets", "tables", "jdbc"));
+    table.route(EXPLORE_HTTP_USER_SERVICE).exact("/v3/explore/status");
+
+    table.route(uriParts -> {
       switch (uriParts[3]) {
         case Constants.Service.LOGSAVER: return LOG_SAVER;
         case Constants.Service.TRANSACTION: return TRANSACTION;
@@ -176,91 +154,127 @@ public final class RouterPathLookup extends AbstractHttpHandler {
         case Constants.Service.RUNTIME: return RUNTIME;
         default: return null;
       }
-    } else if (uriParts.length == 7 && uriParts[3].equals("data") && uriParts[4].equals("datasets") &&
-      (uriParts[6].equals("flows") || uriParts[6].equals("workers") || uriParts[6].equals("mapreduce"))) {
-      // namespaced app fabric data operations:
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
-      return APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 4) && uriParts[3].equals("data")) {
-      // other data operations. For example:
-      // /v3/namespaces/{namespace-id}/data/datasets
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
-      return DATASET_MANAGER;
-    } else if ((uriParts.length == 3) && uriParts[1].equals("metadata-internals")) {
-      // we don't want to expose endpoints for direct metadata mutation from CDAP master
-      // /v3/metadata-internals/{mutation-type}
-      return DONT_ROUTE;
-    }
-    return APP_FABRIC_HTTP;
+    }).prefix("/v3/system/services/*/status", "/v3/system/services/*/stacks");
+
+    // namespaced app fabric data operations:
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
+    table.route(APP_FABRIC_HTTP).exact(expand("/v3/*/*/data/datasets/*/%s", "flows", "workers", "mapreduce"));
+
+    // other data operations. For example:
+    // /v3/namespaces/{namespace-id}/data/datasets
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
+    table.route(DATASET_MANAGER).prefix("/v3/*/*/data");
+
+    // we don't want to expose endpoints for direct metadata mutation from CDAP master
+    // /v3/metadata-internals/{mutation-type}
+    table.route(DONT_ROUTE).exact("/v3/metadata-internals/*");
+
+    return table;
   }
 
   /**
-   * Determines if the beginning of an array of strings matches an expected sequence of strings.
-   *
-   * <ul><li>
-   *   the actual sequence may be longer than the expected one as long as its beginning matches;
-   * </li><li>
-   *   a null in the expected sequence means "accept any string" in that position.
-   * </li></ul>
-   *
-   * @param actual the actual string array to check; must not contain nulls.
-   * @param expected the expected string array to match; may contain nulls as wildcards.
-   *                 
-   * @return true if the start of {@code actual} matches {@code expected}
+   * Returns an array of path patterns by formatting the given pattern with each of the given values.
    */
-  @VisibleForTesting
-  static boolean beginsWith(String[] actual, String ... expected) {
-    return matches(actual, expected, false);
+  private static String[] expand(String pattern, String... values) {
+    return Arrays.stream(values).map(v -> String.format(pattern, v)).toArray(String[]::new);
   }
 
   /**
-   * Determines if the end of an array of strings matches an expected sequence of strings.
-   *
-   * <ul><li>
-   *   the actual sequence may be longer than the expected one as long as its end matches;
-   * </li><li>
-   *   a null in the expected sequence means "accept any string" in that position.
-   * </li></ul>
-   *
-   * @param actual the actual string array to check; must not contain nulls.
-   * @param expected the expected string array to match; may contain nulls as wildcards.
-   *
-   * @return true if the end of {@code actual} matches {@code expected}
+   * A precompiled routing table that matches path segments to {@link RouteDestination} through {@link PathTrie}s.
+   * The table is built once and is safe for concurrent lookups afterwards.
    */
-  @VisibleForTesting
-  static boolean endsWith(String[] actual, String ... expected) {
-    return matches(actual, expected, true);
+  private static final class RouteTable {
+
+    private final PathTrie<Route> prefixRoutes = PathTrie.create();
+    private final PathTrie<Route> suffixRoutes = PathTrie.forSuffixes();
+    private int priority;
+
+    /**
+     * Adds a new route with the given fixed destination. A {@code null} destination means the path is not routed.
+     */
+    Route route(@Nullable RouteDestination destination) {
+      return route(uriParts -> destination);
+    }
+
+    /**
+     * Adds a new route with the destination computed from the path segments.
+     */
+    Route route(Function<String[], RouteDestination> destination) {
+      return new Route(this, priority++, destination);
+    }
+
+    /**
+     * Returns the destination of the first route that matches the given path segments and request method,
+     * or {@link RouterPathLookup#APP_FABRIC_HTTP} if no route matches.
+     */
+    @Nullable
+    RouteDestination getDestination(String[] uriParts, AllowedMethod requestMethod) {
+      Predicate<Route> filter = r -> r.method == null || r.method == requestMethod;
+      Route route = prefixRoutes.find(uriParts, filter);
+      Route suffixRoute = suffixRoutes.find(uriParts, filter);
+      if (route == null || (suffixRoute != null && suffixRoute.priority < route.priority)) {
+        route = suffixRoute;
+      }
+      return route == null ? APP_FABRIC_HTTP : route.destination.apply(uriParts);
+    }
   }
 
   /**
-   * Determines if the begin or end of an array of strings matches an expected sequence of strings.
-   *
-   * <ul><li>
-   *   the actual sequence may be longer than the expected one as long as its begin or end matches;
-   * </li><li>
-   *   a null in the expected sequence means "accept any string" in that position.
-   * </li></ul>
-   *
-   * @param actual the actual string array to check; must not contain nulls.
-   * @param expected the expected string array to match; may contain nulls as wildcards.
-   * @param matchEnd whether to match the end of the actual sequence
-   *
-   * @return true if the end of {@code actual} matches {@code expected}
+   * A route in the {@link RouteTable}. All the path patterns of a route share the same priority.
    */
-  private static boolean matches(String[] actual, String[] expected, boolean matchEnd) {
-    if (actual.length < expected.length) {
-      return false;
+  private static final class Route {
+
+    private final RouteTable table;
+    private final int priority;
+    private final Function<String[], RouteDestination> destination;
+    private AllowedMethod method;
+
+    private Route(RouteTable table, int priority, Function<String[], RouteDestination> destination) {
+      this.table = table;
+      this.priority = priority;
+      this.destination = destination;
+    }
+
+    /**
+     * Restricts this route to requests of the given method.
+     */
+    Route method(AllowedMethod method) {
+      this.method = method;
+      return this;
+    }
+
+    /**
+     * Matches paths that begin with any of the given patterns.
+     */
+    Route prefix(String... patterns) {
+      for (String pattern : patterns) {
+        table.prefixRoutes.addPrefix(pattern, this);
+      }
+      return this;
+    }
+
+    /**
+     * Matches paths that end with any of the given patterns.
+     */
+    Route suffix(String... patterns) {
+      for (String pattern : patterns) {
+        table.suffixRoutes.addPrefix(pattern, this);
+      }
+      return this;
     }
-    int offset = matchEnd ? actual.length - expected.length : 0;
-    for (int i = 0; i < expected.length; i++) {
-      if (expected[i] != null && !expected[i].equals(actual[offset + i])) {
-        return false;
+
+    /**
+     * Matches paths that are exactly the same as any of the given patterns.
+     */
+    Route exact(String... patterns) {
+      for (String pattern : patterns) {
+        table.prefixRoutes.add(pattern, this);
       }
+      return this;
     }
-    return true;
   }
 }
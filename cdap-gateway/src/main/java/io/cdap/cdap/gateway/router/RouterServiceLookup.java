@@ -26,15 +26,19 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.EndpointStrategy;
 import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
 import io.cdap.cdap.common.service.ServiceDiscoverable;
+import io.cdap.cdap.gateway.discovery.InflightRequestCounter;
+import io.cdap.cdap.gateway.discovery.LeastRequestEndpointStrategy;
 import io.cdap.cdap.gateway.discovery.VersionFilteredServiceDiscovered;
 import io.netty.handler.codec.http.HttpRequest;
 import org.apache.twill.discovery.DiscoveryServiceClient;
+import org.apache.twill.discovery.ServiceDiscovered;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 /**
@@ -46,12 +50,17 @@ public class RouterServiceLookup {
   private final DiscoveryServiceClient discoveryServiceClient;
   private final LoadingCache<RouteDestination, EndpointStrategy> discoverableCache;
   private final RouterPathLookup routerPathLookup;
+  private final InflightRequestCounter requestCounter;
+  private final boolean leastRequestStrategy;
 
   @Inject
   RouterServiceLookup(CConfiguration cConf, DiscoveryServiceClient discoveryServiceClient,
                       RouterPathLookup routerPathLookup) {
     this.discoveryServiceClient = discoveryServiceClient;
     this.routerPathLookup = routerPathLookup;
+    this.requestCounter = new InflightRequestCounter();
+    this.leastRequestStrategy = Constants.Router.ENDPOINT_STRATEGY_LEAST_REQUESTS.equals(
+      cConf.get(Constants.Router.ENDPOINT_STRATEGY, Constants.Router.ENDPOINT_STRATEGY_LEAST_REQUESTS));
     this.discoverableCache = CacheBuilder.newBuilder()
       .expireAfterAccess(1, TimeUnit.HOURS)
       .build(new CacheLoader<RouteDestination, EndpointStrategy>() {
@@ -89,6 +98,13 @@ public class RouterServiceLookup {
     }
   }
 
+  /**
+   * Returns the {@link InflightRequestCounter} for tracking requests to the endpoints returned by this class.
+   */
+  public InflightRequestCounter getRequestCounter() {
+    return requestCounter;
+  }
+
   private EndpointStrategy discover(RouteDestination routeDestination) {
     String serviceName = routeDestination.getServiceName();
 
@@ -97,12 +113,17 @@ public class RouterServiceLookup {
 
       // If the request is from the versioned endpoint, filter the discoverables by the version
       if (version != null) {
-        return new RandomEndpointStrategy(
+        return createEndpointStrategy(
           () -> new VersionFilteredServiceDiscovered(discoveryServiceClient.discover(serviceName), version));
       }
     }
 
-    // For all other cases, use the random strategy
-    return new RandomEndpointStrategy(() -> discoveryServiceClient.discover(serviceName));
+    return createEndpointStrategy(() -> discoveryServiceClient.discover(serviceName));
+  }
+
+  private EndpointStrategy createEndpointStrategy(Supplier<ServiceDiscovered> serviceDiscoveredSupplier) {
+    return leastRequestStrategy
+      ? new LeastRequestEndpointStrategy(serviceDiscoveredSupplier, requestCounter)
+      : new RandomEndpointStrategy(serviceDiscoveredSupplier);
   }
 }
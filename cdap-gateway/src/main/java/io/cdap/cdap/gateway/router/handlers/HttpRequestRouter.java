@@ -16,57 +16,42 @@
 
 package io.cdap.cdap.gateway.router.handlers;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.cdap.cdap.common.HandlerException;
-import io.cdap.cdap.common.conf.CConfiguration;
-import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.EndpointStrategy;
-import io.cdap.cdap.common.discovery.URIScheme;
 import io.cdap.cdap.common.http.Channels;
 import io.cdap.cdap.gateway.router.RouterServiceLookup;
-import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
-import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
-import io.netty.handler.ssl.SslContext;
-import io.netty.handler.ssl.SslContextBuilder;
-import io.netty.handler.ssl.SslHandler;
-import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
-import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.ReferenceCountUtil;
 import org.apache.twill.discovery.Discoverable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.Flushable;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import javax.annotation.Nullable;
-import javax.net.ssl.SSLException;
 
 /**
  * A {@link ChannelInboundHandler} for forwarding incoming request to appropriate CDAP service endpoint
@@ -75,19 +60,15 @@ import javax.net.ssl.SSLException;
  */
 public class HttpRequestRouter extends ChannelDuplexHandler {
 
-  private static final Logger LOG = LoggerFactory.getLogger(HttpRequestRouter.class);
-
-  private final CConfiguration cConf;
   private final RouterServiceLookup serviceLookup;
-  private final Map<Discoverable, Queue<MessageSender>> messageSenders;
+  private final OutboundConnectionPool connectionPool;
   private int inflightRequests;
   private MessageSender currentMessageSender;
   private ChannelFutureListener failureResponseListener;
 
-  public HttpRequestRouter(CConfiguration cConf, RouterServiceLookup serviceLookup) {
-    this.cConf = cConf;
+  public HttpRequestRouter(RouterServiceLookup serviceLookup, OutboundConnectionPool connectionPool) {
     this.serviceLookup = serviceLookup;
-    this.messageSenders = new HashMap<>();
+    this.connectionPool = connectionPool;
   }
 
   @Override
@@ -129,9 +110,8 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
           }
         };
 
-        currentMessageSender = getMessageSender(
-          inboundChannel, getDiscoverable(request)
-        );
+        currentMessageSender = new MessageSender(connectionPool, inboundChannel, getDiscoverable(request),
+                                                 isRetryable(request));
       }
 
       if (inflightRequests == 1 && currentMessageSender != null) {
@@ -162,9 +142,9 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       }
       inflightRequests = 0;
 
-      // Recycle the message sender
+      // Return the outbound connection to the pool so that it can be reused
       if (currentMessageSender != null) {
-        messageSenders.get(currentMessageSender.getDiscoverable()).add(currentMessageSender);
+        currentMessageSender.release();
       }
     }
   }
@@ -183,11 +163,6 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
     if (currentMessageSender != null) {
       currentMessageSender.close();
     }
-    for (Map.Entry<Discoverable, Queue<MessageSender>> entry : messageSenders.entrySet()) {
-      for (MessageSender sender : entry.getValue()) {
-        sender.close();
-      }
-    }
     ctx.fireChannelInactive();
   }
 
@@ -234,25 +209,14 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
   }
 
   /**
-   * Returns the {@link MessageSender} for writing messages to the endpoint represented by the given
-   * {@link Discoverable}.
+   * Returns {@code true} if the given request can be sent again when a reused connection is closed before a
+   * response is received. Only requests without side effects are retried, since the endpoint may have processed the
+   * request before closing the connection (RFC 7230, section 6.3.1).
    */
-  private MessageSender getMessageSender(Channel inboundChannel,
-                                         Discoverable discoverable) {
-    Queue<MessageSender> senders = messageSenders.computeIfAbsent(discoverable, k -> new LinkedList<>());
-
-    MessageSender sender = senders.poll();
-
-    // Found a MessageSender to reuse, return it
-    if (sender != null) {
-      LOG.trace("Reuse message sender for {}", discoverable);
-      return sender;
-    }
-
-    // Create new MessageSender
-    sender = new MessageSender(cConf, inboundChannel, discoverable);
-    LOG.trace("Create new message sender for {}", discoverable);
-    return sender;
+  @VisibleForTesting
+  static boolean isRetryable(HttpRequest request) {
+    HttpMethod method = request.method();
+    return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method);
   }
 
   private String getRequestLine(HttpRequest request) {
@@ -282,50 +246,42 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
    */
   private static final class MessageSender implements Flushable, Closeable {
 
+    // The maximum size of the request kept for retrying it when a reused connection is closed by the endpoint
+    private static final int MAX_RETRY_BUFFER_SIZE = 64 * 1024;
+
+    private final OutboundConnectionPool connectionPool;
+    private final Channel inboundChannel;
     private final Discoverable discoverable;
-    private final Queue<OutboundMessage> pendingMessages;
-    private final Bootstrap clientBootstrap;
-    private volatile SslContext sslContext;
+    private final boolean retryable;
+    private final Deque<OutboundMessage> pendingMessages;
+    private final ChannelFutureListener onCloseResetListener;
     private Channel outboundChannel;
     private boolean closed;
     private boolean connecting;
-
-    private MessageSender(final CConfiguration cConf, final Channel inboundChannel, final Discoverable discoverable) {
+    // Copies of the messages written to a reused connection, which are sent again on a new connection if the
+    // reused one is closed before a response is received. It is null if the request cannot be retried.
+    private List<OutboundMessage> retryMessages;
+    private int retryBufferSize;
+    // The connection acquired from the pool, and whether the request was retried because it was closed
+    private Channel reusedChannel;
+    private boolean retried;
+
+    private MessageSender(OutboundConnectionPool connectionPool, Channel inboundChannel, Discoverable discoverable,
+                          boolean retryable) {
+      this.connectionPool = connectionPool;
+      this.inboundChannel = inboundChannel;
       this.discoverable = discoverable;
+      this.retryable = retryable;
       this.pendingMessages = new LinkedList<>();
 
-      // A channel listener for resetting the state of this message sender on closing of outbound channel
-      final ChannelFutureListener onCloseResetListener = new ChannelFutureListener() {
-        @Override
-        public void operationComplete(ChannelFuture future) {
+      // A channel listener for resetting the state of this message sender on closing of outbound channel.
+      // A reused connection that the request was retried from must not reset the state of the new connection.
+      this.onCloseResetListener = future -> {
+        if (!retried || future.channel() != reusedChannel) {
           outboundChannel = null;
           connecting = false;
         }
       };
-
-      // Create a client Bootstrap for connecting to internal services
-      // It must be create using the same EventLoopGroup as the inbound channel to make
-      // sure thread safety between the inbound and outbound channels callbacks.
-      this.clientBootstrap = new Bootstrap()
-        .group(inboundChannel.eventLoop())
-        .channel(NioSocketChannel.class)
-        .option(ChannelOption.SO_KEEPALIVE, true)
-        .handler(new ChannelInitializer<SocketChannel>() {
-          @Override
-          protected void initChannel(SocketChannel ch) throws Exception {
-            ch.closeFuture().addListener(onCloseResetListener);
-            ChannelPipeline pipeline = ch.pipeline();
-
-            SslHandler sslHandler = getSslHandler(discoverable, ch.alloc());
-            if (sslHandler != null) {
-              pipeline.addLast("ssl", sslHandler);
-            }
-            pipeline.addLast("idle-state-handler",
-                             new IdleStateHandler(0, 0, cConf.getInt(Constants.Router.CONNECTION_TIMEOUT_SECS)));
-            pipeline.addLast("codec", new HttpClientCodec());
-            pipeline.addLast("forwarder", new OutboundHandler(inboundChannel));
-          }
-        });
     }
 
     /**
@@ -334,9 +290,9 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
      * @param msg the message to be sent
      * @param writeCompletedListener a {@link ChannelFutureListener} to be notified when the write completed
      */
-    void send(Object msg, ChannelFutureListener writeCompletedListener) {
+    void send(Object msg, ChannelFutureListener writeCompletedListener) throws Exception {
       if (outboundChannel != null) {
-        outboundChannel.write(msg).addListener(writeCompletedListener);
+        write(outboundChannel, new OutboundMessage(msg, writeCompletedListener));
         return;
       }
 
@@ -348,8 +304,68 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
         return;
       }
 
-      // Make a new connection
-      ChannelFuture connectFuture = clientBootstrap.connect(discoverable.getSocketAddress());
+      // Reuse an idle connection from the pool if there is one.
+      // The pool is per event loop, hence the connection is using the same event loop as the inbound channel.
+      Channel channel = connectionPool.acquire(inboundChannel.eventLoop(), discoverable);
+      if (channel != null) {
+        channel.closeFuture().addListener(onCloseResetListener);
+        reusedChannel = channel;
+        retryMessages = retryable ? new ArrayList<>() : null;
+        retryBufferSize = 0;
+        bind(channel, retryable ? this::retry : null);
+        outboundChannel = channel;
+        sendPendingMessages(channel.newSucceededFuture());
+        return;
+      }
+      connect();
+    }
+
+    /**
+     * Returns the outbound connection to the pool if it can be reused by other requests, otherwise closes it.
+     * This method should be called when the response has been fully forwarded to the inbound channel.
+     */
+    void release() {
+      discardRetryMessages();
+      Channel channel = outboundChannel;
+      if (closed || channel == null) {
+        return;
+      }
+      OutboundHandler handler = channel.pipeline().get(OutboundHandler.class);
+      if (handler == null || !handler.isReusable()) {
+        // The connection stays bound, so that closing it also closes the inbound channel if it is not keep-alive
+        Channels.closeOnFlush(channel);
+        return;
+      }
+      channel.closeFuture().removeListener(onCloseResetListener);
+      handler.unbind();
+      outboundChannel = null;
+      connectionPool.release(discoverable, channel);
+    }
+
+    @Override
+    public void flush() {
+      if (outboundChannel != null && !closed) {
+        outboundChannel.flush();
+      }
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        discardRetryMessages();
+        if (outboundChannel != null) {
+          Channels.closeOnFlush(outboundChannel);
+        }
+      }
+    }
+
+    /**
+     * Makes a new connection and sends all pending messages once it is connected.
+     */
+    private void connect() {
+      ChannelFuture connectFuture = connectionPool.connect(inboundChannel.eventLoop(), discoverable);
+      connectFuture.channel().closeFuture().addListener(onCloseResetListener);
       connectFuture.addListener(new ChannelFutureListener() {
         @Override
         public void operationComplete(ChannelFuture future) throws Exception {
@@ -359,68 +375,101 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
           connecting = false;
 
           if (future.isSuccess()) {
+            bind(outboundChannel, null);
             // If this sender is closed (because inbound channel is closed), just close the outbound channel
             if (closed) {
               Channels.closeOnFlush(outboundChannel);
             }
           }
-          OutboundMessage message = pendingMessages.poll();
-          while (message != null) {
-            processMessage(message, future);
-            message = pendingMessages.poll();
-          }
-          if (future.isSuccess()) {
-            flush();
-          }
+          sendPendingMessages(future);
         }
       });
 
       connecting = true;
     }
 
-    @Override
-    public void flush() {
-      if (outboundChannel != null && !closed) {
-        outboundChannel.flush();
+    /**
+     * Retries the current request on a new connection. It is called when a reused connection is closed before
+     * a response is received.
+     *
+     * @return {@code true} if the request is retried, {@code false} if it cannot be retried
+     */
+    private boolean retry() {
+      List<OutboundMessage> messages = retryMessages;
+      retryMessages = null;
+      if (closed || messages == null) {
+        if (messages != null) {
+          messages.forEach(OutboundMessage::release);
+        }
+        return false;
       }
+
+      retried = true;
+      outboundChannel = null;
+      connecting = false;
+
+      // Messages not yet written go after the ones sent to the closed connection
+      for (int i = messages.size() - 1; i >= 0; i--) {
+        pendingMessages.addFirst(messages.get(i));
+      }
+      connect();
+      return true;
     }
 
-    @Override
-    public void close() {
-      if (!closed) {
-        closed = true;
-        if (outboundChannel != null) {
-          Channels.closeOnFlush(outboundChannel);
-        }
+    /**
+     * Writes a message to the given channel. A copy of the message is kept if the request can be retried.
+     */
+    private void write(Channel channel, OutboundMessage message) {
+      if (retryMessages == null) {
+        message.write(channel);
+        return;
+      }
+      OutboundMessage copy = message.retainedDuplicate();
+      retryBufferSize += copy.size();
+      if (retryBufferSize > MAX_RETRY_BUFFER_SIZE) {
+        copy.release();
+        discardRetryMessages();
+        message.write(channel);
+        return;
       }
+      retryMessages.add(copy);
+
+      // A failed write is not reported if the request is going to be retried, which happens when the channel
+      // becomes inactive
+      channel.write(message.message).addListener((ChannelFutureListener) future -> {
+        if (!future.isSuccess() && (retryMessages != null || retried)) {
+          future.channel().close();
+          return;
+        }
+        message.writeCompletedListener.operationComplete(future);
+      });
     }
 
-    Discoverable getDiscoverable() {
-      return discoverable;
+    private void discardRetryMessages() {
+      if (retryMessages != null) {
+        retryMessages.forEach(OutboundMessage::release);
+        retryMessages = null;
+      }
     }
 
     /**
-     * Returns the {@link SslContext} to be used for a given discoverable endpoint
-     *
-     * @param discoverable the endpoint to connect to
-     * @return the {@link SslContext} or {@code null} if SSL is not needed
+     * Binds the given outbound channel to the inbound channel, so that responses are forwarded to it.
      */
-    @Nullable
-    private SslHandler getSslHandler(Discoverable discoverable, ByteBufAllocator alloc) throws SSLException {
-      if (!URIScheme.HTTPS.isMatch(discoverable)) {
-        return null;
+    private void bind(Channel channel, @Nullable BooleanSupplier retrier) {
+      OutboundHandler handler = channel.pipeline().get(OutboundHandler.class);
+      if (handler != null) {
+        handler.bind(inboundChannel, retrier);
       }
-      SslContext context = sslContext;
-      if (context != null) {
-        return context.newHandler(alloc);
+    }
+
+    private void sendPendingMessages(ChannelFuture future) throws Exception {
+      OutboundMessage message = pendingMessages.poll();
+      while (message != null) {
+        processMessage(message, future);
+        message = pendingMessages.poll();
       }
-      synchronized (this) {
-        context = sslContext;
-        if (context == null) {
-          sslContext = context = SslContextBuilder.forClient()
-                                                  .trustManager(InsecureTrustManagerFactory.INSTANCE).build();
-        }
-        return context.newHandler(alloc);
+      if (future.isSuccess()) {
+        flush();
       }
     }
 
@@ -432,12 +481,14 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       Channel channel = channelFuture.channel();
 
       if (closed) {
+        message.release();
         message.writeCompletedListener.operationComplete(channel.newFailedFuture(new ClosedChannelException()));
         return;
       }
       if (channelFuture.isSuccess()) {
-        message.write(channelFuture.channel());
+        write(channelFuture.channel(), message);
       } else {
+        message.release();
         message.writeCompletedListener.operationComplete(channelFuture);
       }
     }
@@ -458,5 +509,24 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
     void write(Channel channel) {
       channel.write(message).addListener(writeCompletedListener);
     }
+
+    /**
+     * Returns a copy of this message that can be written independently of this message.
+     */
+    OutboundMessage retainedDuplicate() {
+      Object copy = message instanceof ByteBufHolder ? ((ByteBufHolder) message).retainedDuplicate() : message;
+      return new OutboundMessage(copy, writeCompletedListener);
+    }
+
+    /**
+     * Returns the size of the message content.
+     */
+    int size() {
+      return message instanceof ByteBufHolder ? ((ByteBufHolder) message).content().readableBytes() : 0;
+    }
+
+    void release() {
+      ReferenceCountUtil.release(message);
+    }
   }
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router.handlers;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.discovery.URIScheme;
+import io.cdap.cdap.gateway.discovery.InflightRequestCounter;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.timeout.IdleStateHandler;
+import org.apache.twill.discovery.Discoverable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLException;
+
+/**
+ * A pool of keep-alive connections from the router to the internal CDAP services. Idle connections are kept per
+ * {@link EventLoop}, so that a connection can be reused by any inbound channel served by the same event loop
+ * without extra synchronization. All methods that take an {@link EventLoop} must be called from that event loop.
+ * Idle connections are closed after the pool idle timeout, which should be shorter than the keep-alive timeout of
+ * the endpoints, so that the router rather than the endpoint closes connections that are not in use.
+ */
+public final class OutboundConnectionPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OutboundConnectionPool.class);
+
+  private final CConfiguration cConf;
+  private final InflightRequestCounter requestCounter;
+  private final int maxIdlePerEndpoint;
+  private final long idleTimeoutMillis;
+  private final ConcurrentMap<EventLoop, Map<Discoverable, Deque<IdleConnection>>> idleConnections;
+  private volatile SslContext sslContext;
+
+  public OutboundConnectionPool(CConfiguration cConf, InflightRequestCounter requestCounter) {
+    this.cConf = cConf;
+    this.requestCounter = requestCounter;
+    this.maxIdlePerEndpoint = cConf.getInt(Constants.Router.CONNECTION_POOL_MAX_IDLE);
+    this.idleTimeoutMillis =
+      TimeUnit.SECONDS.toMillis(cConf.getInt(Constants.Router.CONNECTION_POOL_IDLE_TIMEOUT_SECS));
+    this.idleConnections = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Acquires an idle connection to the given endpoint.
+   *
+   * @param eventLoop the event loop of the inbound channel that will use the connection
+   * @param discoverable the endpoint to connect to
+   * @return an active {@link Channel} or {@code null} if there is no idle connection to the endpoint
+   */
+  @Nullable
+  Channel acquire(EventLoop eventLoop, Discoverable discoverable) {
+    Map<Discoverable, Deque<IdleConnection>> connections = idleConnections.get(eventLoop);
+    Deque<IdleConnection> channels = connections == null ? null : connections.get(discoverable);
+    if (channels == null) {
+      return null;
+    }
+    // Use the most recently used connection, so that extra connections can time out when the load is low
+    Channel channel = null;
+    IdleConnection connection = channels.pollLast();
+    while (connection != null && channel == null) {
+      connection.evictTask.cancel(false);
+      if (connection.channel.isActive()) {
+        channel = connection.channel;
+      } else {
+        connection = channels.pollLast();
+      }
+    }
+    if (channels.isEmpty()) {
+      connections.remove(discoverable);
+    }
+    if (channel != null) {
+      LOG.trace("Reuse connection {} to {}", channel, discoverable);
+    }
+    return channel;
+  }
+
+  /**
+   * Opens a new connection to the given endpoint.
+   *
+   * @param eventLoop the event loop of the inbound channel that will use the connection. It must be the same
+   *                  event loop as the inbound channel to make sure thread safety between the inbound and
+   *                  outbound channels callbacks.
+   * @param discoverable the endpoint to connect to
+   * @return a {@link ChannelFuture} that will be completed when the connection is established
+   */
+  ChannelFuture connect(EventLoop eventLoop, Discoverable discoverable) {
+    LOG.trace("Create new connection to {}", discoverable);
+    return new Bootstrap()
+      .group(eventLoop)
+      .channel(NioSocketChannel.class)
+      .option(ChannelOption.SO_KEEPALIVE, true)
+      .handler(new ChannelInitializer<SocketChannel>() {
+        @Override
+        protected void initChannel(SocketChannel ch) throws Exception {
+          ch.closeFuture().addListener(future -> removeIdle(ch, discoverable));
+          ChannelPipeline pipeline = ch.pipeline();
+
+          SslHandler sslHandler = getSslHandler(discoverable, ch.alloc());
+          if (sslHandler != null) {
+            pipeline.addLast("ssl", sslHandler);
+          }
+          pipeline.addLast("idle-state-handler",
+                           new IdleStateHandler(0, 0, cConf.getInt(Constants.Router.CONNECTION_TIMEOUT_SECS)));
+          pipeline.addLast("codec", new HttpClientCodec());
+          pipeline.addLast("forwarder", new OutboundHandler(discoverable, requestCounter));
+        }
+      })
+      .connect(discoverable.getSocketAddress());
+  }
+
+  /**
+   * Returns a connection to the pool. The connection will be closed if the pool for the endpoint is full.
+   *
+   * @param discoverable the endpoint that the connection is connected to
+   * @param channel the connection
+   */
+  void release(Discoverable discoverable, Channel channel) {
+    if (!channel.isActive()) {
+      return;
+    }
+    Deque<IdleConnection> channels = idleConnections.computeIfAbsent(channel.eventLoop(), k -> new HashMap<>())
+      .computeIfAbsent(discoverable, k -> new ArrayDeque<>());
+    if (channels.size() >= maxIdlePerEndpoint) {
+      LOG.trace("Too many idle connections to {}. Closing connection {}", discoverable, channel);
+      channel.close();
+      return;
+    }
+    ScheduledFuture<?> evictTask = channel.eventLoop().schedule(() -> {
+      LOG.trace("Connection {} to {} is idle for more than {} ms. Closing the connection",
+                channel, discoverable, idleTimeoutMillis);
+      channel.close();
+    }, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    channels.addLast(new IdleConnection(channel, evictTask));
+  }
+
+  /**
+   * Removes the given connection from the idle pool if it is there.
+   */
+  private void removeIdle(Channel channel, Discoverable discoverable) {
+    Map<Discoverable, Deque<IdleConnection>> connections = idleConnections.get(channel.eventLoop());
+    Deque<IdleConnection> channels = connections == null ? null : connections.get(discoverable);
+    if (channels == null) {
+      return;
+    }
+    Iterator<IdleConnection> iterator = channels.iterator();
+    while (iterator.hasNext()) {
+      IdleConnection connection = iterator.next();
+      if (connection.channel == channel) {
+        connection.evictTask.cancel(false);
+        iterator.remove();
+      }
+    }
+    if (channels.isEmpty()) {
+      connections.remove(discoverable);
+    }
+  }
+
+  /**
+   * Returns the {@link SslHandler} to be used for a given discoverable endpoint
+   *
+   * @param discoverable the endpoint to connect to
+   * @return the {@link SslHandler} or {@code null} if SSL is not needed
+   */
+  @Nullable
+  private SslHandler getSslHandler(Discoverable discoverable, ByteBufAllocator alloc) throws SSLException {
+    if (!URIScheme.HTTPS.isMatch(discoverable)) {
+      return null;
+    }
+    SslContext context = sslContext;
+    if (context != null) {
+      return context.newHandler(alloc);
+    }
+    synchronized (this) {
+      context = sslContext;
+      if (context == null) {
+        sslContext = context = SslContextBuilder.forClient()
+                                                .trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+      }
+      return context.newHandler(alloc);
+    }
+  }
+
+  /**
+   * A connection in the idle pool together with the task that closes it when it stays idle for too long.
+   */
+  private static final class IdleConnection {
+    private final Channel channel;
+    private final ScheduledFuture<?> evictTask;
+
+    IdleConnection(Channel channel, ScheduledFuture<?> evictTask) {
+      this.channel = channel;
+      this.evictTask = evictTask;
+    }
+  }
+}
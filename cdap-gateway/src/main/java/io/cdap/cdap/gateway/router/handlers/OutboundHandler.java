@@ -17,52 +17,120 @@
 package io.cdap.cdap.gateway.router.handlers;
 
 import io.cdap.cdap.common.http.Channels;
+import io.cdap.cdap.gateway.discovery.InflightRequestCounter;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.twill.discovery.Discoverable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
+
 /**
  * A {@link ChannelDuplexHandler} for forwarding requests/responses between the router and the internal service.
  * It also handle idle state event for closing idled internal connections.
+ *
+ * The internal connection can be reused by different inbound channels through the {@link OutboundConnectionPool}.
+ * It is bound to an inbound channel with {@link #bind(Channel)} while serving a request, and is unbound when it is
+ * returned to the pool. Since a pooled connection can be closed by the internal service at any time, a request on
+ * a reused connection can be retried by the inbound side if the connection is closed before any response arrives.
+ * Requests that are not retried fail with a {@code 502 Bad Gateway} response.
  */
 public class OutboundHandler extends ChannelDuplexHandler {
   private static final Logger LOG = LoggerFactory.getLogger(OutboundHandler.class);
 
-  private final Channel inboundChannel;
+  private final Discoverable discoverable;
+  private final InflightRequestCounter requestCounter;
+  private Channel inboundChannel;
+  private BooleanSupplier retrier;
   private boolean requestInProgress;
+  private boolean responseReceived;
+  private boolean requestCompleted;
   private boolean keepAlive;
+  private boolean requestKeepAlive;
+
+  public OutboundHandler(Discoverable discoverable, InflightRequestCounter requestCounter) {
+    this.discoverable = discoverable;
+    this.requestCounter = requestCounter;
+  }
 
-  public OutboundHandler(Channel inboundChannel) {
+  /**
+   * Binds this handler to the given inbound channel, which all responses will be forwarded to.
+   *
+   * @param inboundChannel the inbound channel
+   * @param retrier if not {@code null}, it is called when the connection is closed while a request is in progress
+   *                and no response was received. If it returns {@code true}, the request is retried by the
+   *                inbound side and the inbound channel is kept open.
+   */
+  void bind(Channel inboundChannel, @Nullable BooleanSupplier retrier) {
     this.inboundChannel = inboundChannel;
+    this.retrier = retrier;
+    this.requestCompleted = false;
+  }
+
+  /**
+   * Unbinds this handler from the current inbound channel.
+   */
+  void unbind() {
+    this.inboundChannel = null;
+    this.retrier = null;
+  }
+
+  /**
+   * Returns {@code true} if the connection can be reused for another request. It is the case when the last request
+   * was fully sent, the response was fully received and both of them are keep-alive.
+   */
+  boolean isReusable() {
+    return requestCompleted && !requestInProgress && requestKeepAlive && keepAlive;
   }
 
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-    // One receiving messages from the internal service, forward it to the inbound channel
-    inboundChannel.write(msg);
+    if (inboundChannel == null) {
+      // Not expecting anything from an idle connection, just close it.
+      ReferenceCountUtil.release(msg);
+      LOG.trace("Unexpected message received on idle connection {}. Closing the channel.", ctx.channel());
+      ctx.channel().close();
+      return;
+    }
 
+    responseReceived = true;
     if (msg instanceof HttpResponse) {
       keepAlive = HttpUtil.isKeepAlive((HttpResponse) msg);
     }
 
-    // A response is completed by receiving the last http content
+    // A response is completed by receiving the last http content.
+    // The states need to be updated before forwarding, since the inbound side can release this connection
+    // back to the pool when it sees the end of the response.
     if (msg instanceof LastHttpContent) {
-      requestInProgress = false;
+      completeRequest();
     }
+
+    // One receiving messages from the internal service, forward it to the inbound channel
+    inboundChannel.write(msg);
   }
 
   @Override
   public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-    inboundChannel.flush();
+    if (inboundChannel != null) {
+      inboundChannel.flush();
+    }
   }
 
   @Override
@@ -70,15 +138,23 @@ public class OutboundHandler extends ChannelDuplexHandler {
     // A request starts with a HttpRequest
     if (msg instanceof HttpRequest) {
       requestInProgress = true;
+      requestCompleted = false;
+      responseReceived = false;
       keepAlive = HttpUtil.isKeepAlive((HttpRequest) msg);
+      requestKeepAlive = keepAlive;
+      requestCounter.increment(discoverable);
+    }
+    if (msg instanceof LastHttpContent) {
+      requestCompleted = true;
     }
     ctx.write(msg, promise);
   }
 
   @Override
   public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
-    if (requestInProgress) {
+    if (requestInProgress && inboundChannel != null) {
       final Channel channel = ctx.channel();
+      final Channel inboundChannel = this.inboundChannel;
       ctx.executor().execute(() -> {
         // If outboundChannel is not saturated anymore, continue accepting
         // the incoming traffic from the inboundChannel.
@@ -97,10 +173,34 @@ public class OutboundHandler extends ChannelDuplexHandler {
 
   @Override
   public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-    // Close the inbound channel if there is request in progress, or the last request/response has keep-alive == false
-    if (requestInProgress || !keepAlive) {
+    // A reused connection can be closed by the internal service due to its keep-alive timeout while the request is
+    // being sent. The request is then retried on a new connection if nothing was forwarded to the client yet.
+    if (inboundChannel != null && requestInProgress && !responseReceived && retrier != null
+      && retrier.getAsBoolean()) {
+      LOG.trace("Connection {} closed before receiving a response. Retrying the request.", ctx.channel());
+      completeRequest();
+      unbind();
+      ctx.fireChannelInactive();
+      return;
+    }
+
+    // A request that cannot be retried fails, since the endpoint may or may not have processed it
+    if (inboundChannel != null && requestInProgress && !responseReceived) {
+      HttpResponse response = createClosedResponse(ctx.channel());
+      completeRequest();
+      inboundChannel.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+      ctx.fireChannelInactive();
+      return;
+    }
+
+    // Close the inbound channel if there is request in progress, the last request/response has keep-alive == false,
+    // or the response was completed before the rest of the request was sent
+    if (inboundChannel != null && (requestInProgress || !keepAlive || !requestCompleted)) {
       Channels.closeOnFlush(inboundChannel);
     }
+    if (requestInProgress) {
+      completeRequest();
+    }
     ctx.fireChannelInactive();
   }
 
@@ -124,4 +224,18 @@ public class OutboundHandler extends ChannelDuplexHandler {
       }
     }
   }
+
+  private HttpResponse createClosedResponse(Channel channel) {
+    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_GATEWAY);
+    response.content().writeCharSequence("Connection to " + discoverable.getName() + " at " + channel.remoteAddress()
+                                           + " closed before a response was received", StandardCharsets.UTF_8);
+    HttpUtil.setContentLength(response, response.content().readableBytes());
+    HttpUtil.setKeepAlive(response, false);
+    return response;
+  }
+
+  private void completeRequest() {
+    requestInProgress = false;
+    requestCounter.decrement(discoverable);
+  }
 }
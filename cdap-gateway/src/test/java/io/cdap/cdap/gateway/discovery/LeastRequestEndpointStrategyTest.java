@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.cdap.gateway.discovery;
+
+import io.cdap.cdap.common.discovery.EndpointStrategy;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.InMemoryDiscoveryService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link LeastRequestEndpointStrategy}.
+ */
+public class LeastRequestEndpointStrategyTest {
+
+  @Test
+  public void testPickLeastRequests() {
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    InflightRequestCounter counter = new InflightRequestCounter();
+    EndpointStrategy strategy = new LeastRequestEndpointStrategy(() -> discoveryService.discover("service"),
+                                                                 counter);
+    Assert.assertNull(strategy.pick());
+
+    Discoverable d1 = new Discoverable("service", InetSocketAddress.createUnresolved("host1", 1000));
+    Discoverable d2 = new Discoverable("service", InetSocketAddress.createUnresolved("host2", 1000));
+    discoveryService.register(d1);
+    discoveryService.register(d2);
+    Assert.assertNotNull(strategy.pick(5, TimeUnit.SECONDS));
+
+    counter.increment(d1);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(d2, strategy.pick());
+    }
+
+    counter.increment(d2);
+    counter.increment(d2);
+    Assert.assertEquals(d1, strategy.pick());
+
+    counter.decrement(d2);
+    counter.decrement(d2);
+    Assert.assertEquals(0, counter.get(d2));
+    Assert.assertEquals(d2, strategy.pick());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PathTrie}.
+ */
+public class PathTrieTest {
+
+  @Test
+  public void testSplit() {
+    Assert.assertArrayEquals(new String[0], PathTrie.split(""));
+    Assert.assertArrayEquals(new String[0], PathTrie.split("/"));
+    Assert.assertArrayEquals(new String[] { "a" }, PathTrie.split("a"));
+    Assert.assertArrayEquals(new String[] { "a", "b" }, PathTrie.split("/a//b/"));
+  }
+
+  @Test
+  public void testPrefix() {
+    PathTrie<String> trie = PathTrie.create();
+    trie.addPrefix("/a/b", "ab");
+    trie.addPrefix("/*/c", "wc");
+
+    // expected should not be longer than actual
+    assertMatch(trie, "/a", null);
+    // prefix matches
+    assertMatch(trie, "/a/b", "ab");
+    assertMatch(trie, "/a/b/c", "ab");
+    // prefix with wildcards matches
+    assertMatch(trie, "/x/c", "wc");
+    assertMatch(trie, "/a/c/d", "wc");
+    assertMatch(trie, "/b/c/d/e", "wc");
+    // not matching
+    assertMatch(trie, "/c/b", null);
+  }
+
+  @Test
+  public void testSuffix() {
+    PathTrie<String> trie = PathTrie.forSuffixes();
+    trie.addPrefix("/b/c", "bc");
+    trie.addPrefix("/a/b/*", "ab*");
+
+    // expected should not be longer than actual
+    assertMatch(trie, "/c", null);
+    // should pass as ends with is correct
+    assertMatch(trie, "/a/b/c", "bc");
+    // should pass as actual has one extra string at end
+    assertMatch(trie, "/a/b/d", "ab*");
+    // should fail as actual has two extra string at end
+    assertMatch(trie, "/a/b/d/e", null);
+  }
+
+  @Test
+  public void testExact() {
+    PathTrie<String> trie = PathTrie.create();
+    trie.add("/v3/namespaces/{namespace-id}/apps/{app-id}", "app");
+    trie.add("/v3/namespaces/{namespace-id}/apps/{app-id}/versions/{version-id}", "version");
+    trie.add("/v3/**/metadata", "metadata");
+    trie.add("/v3/configuration/user", "user");
+
+    assertMatch(trie, "/v3/namespaces/default/apps/a", "app");
+    assertMatch(trie, "/v3/namespaces/default/apps/a/", "app");
+    assertMatch(trie, "/v3/namespaces/default/apps/a/versions/v1", "version");
+    assertMatch(trie, "/v3/namespaces/default/apps", null);
+    assertMatch(trie, "/v3/namespaces/default/apps/a/versions", null);
+    assertMatch(trie, "/v3/namespaces/default/apps/a/metadata", "metadata");
+    assertMatch(trie, "/v3/x/metadata", "metadata");
+    assertMatch(trie, "/v3/metadata", null);
+    assertMatch(trie, "/v3/configuration/user/", "user");
+    Assert.assertEquals(4, trie.size());
+  }
+
+  @Test
+  public void testOrderAndFilter() {
+    PathTrie<String> trie = PathTrie.create();
+    trie.add("/a/*/c", "first");
+    trie.addPrefix("/a/b", "second");
+    trie.add("/a/b/c", "third");
+
+    // first added wins, regardless of how specific the pattern is
+    assertMatch(trie, "/a/b/c", "first");
+    Assert.assertEquals("second", trie.find("/a/b/c", v -> !v.equals("first")));
+    Assert.assertEquals("third", trie.find("/a/b/c", v -> v.equals("third")));
+    Assert.assertNull(trie.find("/a/b/c", v -> false));
+  }
+
+  private void assertMatch(PathTrie<String> trie, String path, String expected) {
+    Assert.assertEquals(expected, trie.find(path, v -> true));
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router.handlers;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.gateway.discovery.InflightRequestCounter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.apache.twill.discovery.Discoverable;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link OutboundConnectionPool} and the connection reuse handling in {@link OutboundHandler}.
+ */
+public class OutboundConnectionPoolTest {
+
+  private static NioEventLoopGroup eventLoopGroup;
+  private static Channel serverChannel;
+  private static ChannelGroup backendConnections;
+  private static Discoverable discoverable;
+
+  private EventLoop eventLoop;
+
+  @BeforeClass
+  public static void init() throws InterruptedException {
+    eventLoopGroup = new NioEventLoopGroup(2);
+    backendConnections = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    // A backend that responds to all requests, except for "/close", for which it closes the connection
+    serverChannel = new ServerBootstrap()
+      .group(eventLoopGroup)
+      .channel(NioServerSocketChannel.class)
+      .childHandler(new ChannelInitializer<SocketChannel>() {
+        @Override
+        protected void initChannel(SocketChannel ch) {
+          backendConnections.add(ch);
+          ch.pipeline()
+            .addLast(new HttpServerCodec())
+            .addLast(new HttpObjectAggregator(1024))
+            .addLast(new SimpleChannelInboundHandler<FullHttpRequest>() {
+              @Override
+              protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+                if ("/close".equals(request.uri())) {
+                  ctx.close();
+                  return;
+                }
+                DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                                                                               HttpResponseStatus.OK);
+                HttpUtil.setContentLength(response, 0);
+                ctx.writeAndFlush(response);
+              }
+            });
+        }
+      })
+      .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+    discoverable = new Discoverable("service", (InetSocketAddress) serverChannel.localAddress());
+  }
+
+  @AfterClass
+  public static void finish() throws InterruptedException {
+    serverChannel.close().sync();
+    eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+  }
+
+  @Before
+  public void beforeTest() {
+    eventLoop = eventLoopGroup.next();
+  }
+
+  @Test
+  public void testReuse() throws Exception {
+    OutboundConnectionPool pool = createPool(60);
+    Channel channel = connect(pool);
+    sendRequest(channel, "/ok");
+    Assert.assertTrue(call(() -> channel.pipeline().get(OutboundHandler.class).isReusable()));
+
+    // A released connection is reused, but only from the same event loop
+    call(() -> release(pool, channel));
+    EventLoop otherEventLoop = eventLoopGroup.next();
+    if (otherEventLoop == eventLoop) {
+      otherEventLoop = eventLoopGroup.next();
+    }
+    EventLoop finalOtherEventLoop = otherEventLoop;
+    Assert.assertNull(callOn(otherEventLoop, () -> pool.acquire(finalOtherEventLoop, discoverable)));
+    Assert.assertSame(channel, call(() -> pool.acquire(eventLoop, discoverable)));
+    Assert.assertNull(call(() -> pool.acquire(eventLoop, discoverable)));
+
+    sendRequest(channel, "/ok");
+    call(() -> release(pool, channel));
+    Assert.assertSame(channel, call(() -> pool.acquire(eventLoop, discoverable)));
+    channel.close().sync();
+  }
+
+  @Test
+  public void testMaxIdle() throws Exception {
+    OutboundConnectionPool pool = createPool(60);
+    Channel channel1 = connect(pool);
+    Channel channel2 = connect(pool);
+    Channel channel3 = connect(pool);
+    call(() -> release(pool, channel1));
+    call(() -> release(pool, channel2));
+
+    // The pool is full, hence the connection is closed
+    call(() -> release(pool, channel3));
+    Assert.assertTrue(channel3.closeFuture().await(5, TimeUnit.SECONDS));
+    Assert.assertSame(channel2, call(() -> pool.acquire(eventLoop, discoverable)));
+    Assert.assertSame(channel1, call(() -> pool.acquire(eventLoop, discoverable)));
+    channel1.close().sync();
+    channel2.close().sync();
+  }
+
+  @Test
+  public void testIdleEviction() throws Exception {
+    OutboundConnectionPool pool = createPool(1);
+    Channel channel = connect(pool);
+    call(() -> release(pool, channel));
+    Assert.assertTrue(channel.closeFuture().await(5, TimeUnit.SECONDS));
+    Assert.assertNull(call(() -> pool.acquire(eventLoop, discoverable)));
+
+    // A connection that is acquired again is not evicted
+    Channel channel2 = connect(pool);
+    call(() -> release(pool, channel2));
+    Assert.assertSame(channel2, call(() -> pool.acquire(eventLoop, discoverable)));
+    Assert.assertFalse(channel2.closeFuture().await(2, TimeUnit.SECONDS));
+    channel2.close().sync();
+  }
+
+  @Test
+  public void testBackendClose() throws Exception {
+    OutboundConnectionPool pool = createPool(60);
+    Channel channel = connect(pool);
+    call(() -> release(pool, channel));
+
+    // Connections closed by the backend are removed from the pool
+    backendConnections.close().sync();
+    Assert.assertTrue(channel.closeFuture().await(5, TimeUnit.SECONDS));
+    Assert.assertNull(call(() -> pool.acquire(eventLoop, discoverable)));
+  }
+
+  @Test
+  public void testRetryOnClose() throws Exception {
+    OutboundConnectionPool pool = createPool(60);
+    Channel channel = connect(pool);
+    call(() -> release(pool, channel));
+    Channel reused = call(() -> pool.acquire(eventLoop, discoverable));
+    Assert.assertSame(channel, reused);
+
+    // The backend closes the connection without responding. The retrier decides whether the client is closed.
+    AtomicInteger retries = new AtomicInteger();
+    EmbeddedChannel inboundChannel = new EmbeddedChannel();
+    call(() -> {
+      reused.pipeline().get(OutboundHandler.class).bind(inboundChannel, () -> retries.incrementAndGet() > 0);
+      return reused.writeAndFlush(createRequest("/close"));
+    });
+    Assert.assertTrue(reused.closeFuture().await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(call(() -> retries.get() == 1 && inboundChannel.isOpen()));
+
+    // Without a retry the client gets an error response and is closed
+    Channel channel2 = connect(pool);
+    EmbeddedChannel inboundChannel2 = new EmbeddedChannel();
+    call(() -> {
+      channel2.pipeline().get(OutboundHandler.class).bind(inboundChannel2, () -> false);
+      return channel2.writeAndFlush(createRequest("/close"));
+    });
+    Assert.assertTrue(channel2.closeFuture().await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(call(() -> !inboundChannel2.isOpen()));
+    FullHttpResponse response = call(inboundChannel2::readOutbound);
+    try {
+      Assert.assertEquals(HttpResponseStatus.BAD_GATEWAY, response.status());
+      Assert.assertFalse(HttpUtil.isKeepAlive(response));
+    } finally {
+      response.release();
+    }
+  }
+
+  @Test
+  public void testRetryableMethods() {
+    for (HttpMethod method : new HttpMethod[] { HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS }) {
+      Assert.assertTrue(HttpRequestRouter.isRetryable(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, "/")));
+    }
+    for (HttpMethod method : new HttpMethod[] { HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE,
+                                                HttpMethod.PATCH }) {
+      Assert.assertFalse(HttpRequestRouter.isRetryable(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, "/")));
+    }
+  }
+
+  private OutboundConnectionPool createPool(int idleTimeoutSecs) {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setInt(Constants.Router.CONNECTION_POOL_MAX_IDLE, 2);
+    cConf.setInt(Constants.Router.CONNECTION_POOL_IDLE_TIMEOUT_SECS, idleTimeoutSecs);
+    cConf.setInt(Constants.Router.CONNECTION_TIMEOUT_SECS, 60);
+    return new OutboundConnectionPool(cConf, new InflightRequestCounter());
+  }
+
+  private Channel connect(OutboundConnectionPool pool) throws Exception {
+    return call(() -> pool.connect(eventLoop, discoverable)).sync().channel();
+  }
+
+  private Void release(OutboundConnectionPool pool, Channel channel) {
+    channel.pipeline().get(OutboundHandler.class).unbind();
+    pool.release(discoverable, channel);
+    return null;
+  }
+
+  /**
+   * Sends a request through the given connection and waits for the response to be forwarded.
+   */
+  private void sendRequest(Channel channel, String uri) throws Exception {
+    CountDownLatch responded = new CountDownLatch(1);
+    EmbeddedChannel inboundChannel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+      @Override
+      public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof LastHttpContent) {
+          responded.countDown();
+        }
+        ReferenceCountUtil.release(msg);
+        promise.setSuccess();
+      }
+    });
+    call(() -> {
+      channel.pipeline().get(OutboundHandler.class).bind(inboundChannel, null);
+      return channel.writeAndFlush(createRequest(uri));
+    }).sync();
+    Assert.assertTrue(responded.await(5, TimeUnit.SECONDS));
+  }
+
+  private FullHttpRequest createRequest(String uri) {
+    FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+    HttpUtil.setContentLength(request, 0);
+    return request;
+  }
+
+  /**
+   * Calls the given {@link Callable} from the event loop used by the test, since the pool is not thread safe.
+   */
+  private <T> T call(Callable<T> callable) throws Exception {
+    return callOn(eventLoop, callable);
+  }
+
+  private <T> T callOn(EventLoop eventLoop, Callable<T> callable) throws Exception {
+    return eventLoop.submit(callable).get(5, TimeUnit.SECONDS);
+  }
+}
@@ -123,6 +123,8 @@ class KubeTwillPreparer implements TwillPreparer, StatefulTwillPreparer {
   private static final String CPU_MULTIPLIER = "master.environment.k8s.container.cpu.multiplier";
   private static final String MEMORY_MULTIPLIER = "master.environment.k8s.container.memory.multiplier";
   private static final String DEFAULT_MULTIPLIER = "1.0";
+  // Directory in the container image that contains the JDK Class Data Sharing archives created by "cdap setup cds"
+  private static final String CDS_DIR = "master.environment.k8s.container.cds.dir";
 
   private final MasterEnvironmentContext masterEnvContext;
   private final ApiClient apiClient;
@@ -739,6 +741,12 @@ class KubeTwillPreparer implements TwillPreparer, StatefulTwillPreparer {
 
     // Set the process memory is through the JAVA_HEAPMAX variable.
     environs.put("JAVA_HEAPMAX", String.format("-Xmx%dm", computeMaxHeapSize(resourceRequirements)));
+
+    // Have the container use the Class Data Sharing archives in the image if they are available
+    String cdsDir = masterEnvContext.getConfigurations().get(CDS_DIR);
+    if (cdsDir != null && !cdsDir.isEmpty()) {
+      environs.put("CDAP_CDS_DIR", cdsDir);
+    }
     List<V1EnvVar> containerEnvironments = environs.entrySet().stream()
       .map(e -> new V1EnvVar().name(e.getKey()).value(e.getValue()))
       .collect(Collectors.toList());
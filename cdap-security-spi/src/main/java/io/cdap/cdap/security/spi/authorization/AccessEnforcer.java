@@ -58,6 +58,24 @@ public interface AccessEnforcer {
    */
   void enforce(EntityId entity, Principal principal, Set<? extends Permission> permissions) throws AccessException;
 
+  /**
+   * Enforces authorization for the specified {@link Principal} for the specified {@link Permission permissions} on
+   * every one of the specified {@link EntityId entities}. Implementations that can check multiple entities at once
+   * should override this method, the default implementation enforces on the entities one by one.
+   *
+   * @param entities the entities on which authorization is to be enforced
+   * @param principal the {@link Principal} that performs the permissions
+   * @param permissions the {@link Permission permissions} being performed
+   * @throws UnauthorizedException if the principal is not authorized to perform the specified permissions on any of
+   *                               the entities
+   */
+  default void enforceAll(Set<? extends EntityId> entities, Principal principal,
+                          Set<? extends Permission> permissions) throws AccessException {
+    for (EntityId entity : entities) {
+      enforce(entity, principal, permissions);
+    }
+  }
+
   /**
    * Enforces specific {@link Permission#isCheckedOnParent()} permission for {@link EntityType} on it's parent
    * {@link EntityId}. E.g. one can check if it's possible to {@link StandardPermission#LIST}
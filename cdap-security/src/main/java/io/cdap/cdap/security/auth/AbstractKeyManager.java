@@ -30,7 +30,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
 import javax.crypto.KeyGenerator;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
@@ -48,6 +51,7 @@ public abstract class AbstractKeyManager extends AbstractIdleService implements
   protected volatile KeyIdentifier currentKey;
   protected final String keyAlgo;
   protected final int keyLength;
+  private final List<IntConsumer> keyRemovalListeners = new CopyOnWriteArrayList<>();
   /**
    * Time duration (in milliseconds) after which an active secret key should be retired. A value or zero or less
    * means no expiration.
@@ -106,6 +110,30 @@ public abstract class AbstractKeyManager extends AbstractIdleService implements
    */
   protected abstract void addKey(KeyIdentifier key);
 
+  @Override
+  public void addKeyRemovalListener(IntConsumer listener) {
+    keyRemovalListeners.add(listener);
+  }
+
+  @Override
+  public void removeKeyRemovalListener(IntConsumer listener) {
+    keyRemovalListeners.remove(listener);
+  }
+
+  /**
+   * Notifies all key removal listeners that the key with the given ID was removed. Subclasses must call this method
+   * whenever they remove a key.
+   */
+  protected final void notifyKeyRemoved(int id) {
+    for (IntConsumer listener : keyRemovalListeners) {
+      try {
+        listener.accept(id);
+      } catch (Exception e) {
+        LOG.warn("Exception raised when notifying removal of key {}", id, e);
+      }
+    }
+  }
+
   /**
    * Generates a new KeyIdentifier and sets that to be the current key being used.
    * @return A new KeyIdentifier.
@@ -16,37 +16,77 @@
 
 package io.cdap.cdap.security.auth;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Codec;
+import io.cdap.cdap.proto.id.NamespaceId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import javax.annotation.Nullable;
 
 /**
  * This class validates the accessToken and returns the different states
  * of accessToken validation.
+ *
+ * Validated tokens are kept in a bounded cache, so that a token that is presented repeatedly is only decoded and
+ * has its digest recomputed once. A cached token is evicted once it expires, or once the secret key used to
+ * sign it is removed by the {@link KeyManager}.
  */
 public class AccessTokenValidator extends AbstractIdleService implements TokenValidator {
   private static final Logger LOG = LoggerFactory.getLogger(AccessTokenValidator.class);
+  private static final String METRIC_CACHE_HIT = "auth.token.validation.cache.hit";
+  private static final String METRIC_CACHE_MISS = "auth.token.validation.cache.miss";
+
   private final TokenManager tokenManager;
   private final Codec<AccessToken> accessTokenCodec;
+  @Nullable
+  private final Cache<String, ValidatedToken> validatedTokens;
+  private final AtomicLong keyRemovals = new AtomicLong();
+  private final IntConsumer keyRemovalListener = this::keyRemoved;
+  private volatile MetricsContext metricsContext;
 
   @Inject
-  public AccessTokenValidator(TokenManager tokenManager, Codec<AccessToken> accessTokenCodec) {
+  public AccessTokenValidator(CConfiguration cConf, TokenManager tokenManager, Codec<AccessToken> accessTokenCodec) {
     this.tokenManager = tokenManager;
     this.accessTokenCodec = accessTokenCodec;
+    int cacheSize = cConf.getInt(Constants.Security.TOKEN_VALIDATION_CACHE_SIZE);
+    this.validatedTokens = cacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(cacheSize).build() : null;
+  }
+
+  /**
+   * Optional guice injection of the {@link MetricsCollectionService} for emitting the cache metrics.
+   */
+  @Inject(optional = true)
+  void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+      Constants.Metrics.Tag.COMPONENT, "token.validator"));
   }
 
   @Override
   protected void startUp() throws Exception {
     tokenManager.startAndWait();
+    tokenManager.addKeyRemovalListener(keyRemovalListener);
   }
 
   @Override
   protected void shutDown() throws Exception {
+    tokenManager.removeKeyRemovalListener(keyRemovalListener);
+    if (validatedTokens != null) {
+      validatedTokens.invalidateAll();
+    }
     tokenManager.stopAndWait();
   }
 
@@ -58,11 +98,31 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
       LOG.debug("Token is missing");
       return TokenState.MISSING;
     }
+
+    if (validatedTokens != null) {
+      ValidatedToken validated = validatedTokens.getIfPresent(token);
+      if (validated != null) {
+        if (validated.expireTimestamp >= System.currentTimeMillis()) {
+          incrementMetric(METRIC_CACHE_HIT);
+          return TokenState.VALID;
+        }
+        // expired, validate it again to report the state
+        validatedTokens.invalidate(token);
+      }
+      incrementMetric(METRIC_CACHE_MISS);
+    }
+
+    // remember the number of key removals, to not cache a token whose key was removed during validation
+    long removals = keyRemovals.get();
     byte[] decodedToken = Base64.getDecoder().decode(token);
 
     try {
       accessToken = accessTokenCodec.decode(decodedToken);
       tokenManager.validateSecret(accessToken);
+      if (validatedTokens != null && removals == keyRemovals.get()) {
+        validatedTokens.put(token, new ValidatedToken(accessToken.getKeyId(),
+                                                      accessToken.getIdentifier().getExpireTimestamp()));
+      }
     } catch (IOException ioe) {
       state = TokenState.INVALID;
       LOG.debug("Unknown Schema version for Access Token. {}", ioe);
@@ -72,4 +132,31 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
     }
     return state;
   }
+
+  private void keyRemoved(int keyId) {
+    keyRemovals.incrementAndGet();
+    if (validatedTokens != null) {
+      validatedTokens.asMap().values().removeIf(validated -> validated.keyId == keyId);
+    }
+  }
+
+  private void incrementMetric(String metricName) {
+    MetricsContext context = metricsContext;
+    if (context != null) {
+      context.increment(metricName, 1L);
+    }
+  }
+
+  /**
+   * The information kept for a validated token.
+   */
+  private static final class ValidatedToken {
+    private final int keyId;
+    private final long expireTimestamp;
+
+    private ValidatedToken(int keyId, long expireTimestamp) {
+      this.keyId = keyId;
+      this.expireTimestamp = expireTimestamp;
+    }
+  }
 }
@@ -192,6 +192,11 @@ public class DistributedKeyManager extends AbstractKeyManager implements Resourc
   @Override
   public void onResourceDelete(String name) {
     LOG.debug("Removed key: leader={}, key={}", leader, name);
+    try {
+      notifyKeyRemoved(Integer.parseInt(name));
+    } catch (NumberFormatException e) {
+      LOG.warn("Ignoring removal of key with invalid name {}", name);
+    }
   }
 
   @Override
@@ -20,6 +20,7 @@ import com.google.common.util.concurrent.Service;
 import io.cdap.cdap.common.io.Codec;
 
 import java.security.InvalidKeyException;
+import java.util.function.IntConsumer;
 
 /**
  * Maintains secret keys used to sign and validate authentication tokens.
@@ -64,4 +65,14 @@ public interface KeyManager extends Service {
   <T> void validateMAC(Codec<T> codec, Signed<T> signedMessage)
     throws InvalidDigestException, InvalidKeyException;
 
+  /**
+   * Adds a listener that is called with the ID of a secret key when the key is removed. Digests computed with a
+   * removed key can no longer be validated.
+   */
+  void addKeyRemovalListener(IntConsumer listener);
+
+  /**
+   * Removes a listener added with {@link #addKeyRemovalListener(IntConsumer)}.
+   */
+  void removeKeyRemovalListener(IntConsumer listener);
 }
@@ -23,6 +23,7 @@ import io.cdap.cdap.common.io.Codec;
 
 import java.io.IOException;
 import java.security.InvalidKeyException;
+import java.util.function.IntConsumer;
 
 /**
  * Provides a simple interface to generate and validate {@link AccessToken}s.
@@ -64,6 +65,21 @@ public class TokenManager extends AbstractIdleService {
     }
   }
 
+  /**
+   * Adds a listener that is called with the ID of a secret key when the key is removed. Tokens signed with a removed
+   * key are no longer valid.
+   */
+  public void addKeyRemovalListener(IntConsumer listener) {
+    keyManager.addKeyRemovalListener(listener);
+  }
+
+  /**
+   * Removes a listener added with {@link #addKeyRemovalListener(IntConsumer)}.
+   */
+  public void removeKeyRemovalListener(IntConsumer listener) {
+    keyManager.removeKeyRemovalListener(listener);
+  }
+
   /**
    * Given an {@link AccessToken} instance, checks that the token has not yet expired and that the digest matches
    * the expected value. To validate the token digest, we recompute the digest value, based on the asserted identity
@@ -34,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -78,6 +79,37 @@ public class DefaultAccessEnforcer extends AbstractAccessEnforcer {
     doEnforce(entity, principal, permissions);
   }
 
+  @Override
+  public void enforceAll(Set<? extends EntityId> entities, Principal principal, Set<? extends Permission> permissions)
+    throws AccessException {
+    if (!isSecurityAuthorizationEnabled()) {
+      return;
+    }
+    Set<EntityId> enforceEntities = new LinkedHashSet<>();
+    for (EntityId entity : entities) {
+      // bypass the check when the principal is the master user and the entity is in the system namespace
+      if (!isAccessingSystemNSAsMasterUser(entity, principal) && !isEnforcingOnSamePrincipalId(entity, principal)) {
+        enforceEntities.add(entity);
+      }
+    }
+    if (enforceEntities.isEmpty()) {
+      return;
+    }
+    LOG.trace("Enforcing permissions {} on {} for principal {}.", permissions, enforceEntities, principal);
+    long startTime = System.nanoTime();
+    try {
+      accessControllerInstantiator.get().enforceAll(enforceEntities, principal, permissions);
+    } finally {
+      long timeTaken = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+      String logLine = "Enforced permissions {} on {} entities for principal {}. Time spent in enforcement was {} ms.";
+      if (timeTaken > logTimeTakenAsWarn) {
+        LOG.warn(logLine, permissions, enforceEntities.size(), principal, timeTaken);
+      } else {
+        LOG.trace(logLine, permissions, enforceEntities.size(), principal, timeTaken);
+      }
+    }
+  }
+
   @Override
   public void enforceOnParent(EntityType entityType, EntityId parentId, Principal principal, Permission permission)
     throws AccessException {
@@ -24,6 +24,7 @@ import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -32,6 +33,8 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import com.google.inject.Inject;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.api.security.AccessException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -41,6 +44,7 @@ import io.cdap.cdap.common.security.AuthEnforceUtil;
 import io.cdap.cdap.proto.codec.EntityIdTypeAdapter;
 import io.cdap.cdap.proto.element.EntityType;
 import io.cdap.cdap.proto.id.EntityId;
+import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.security.AuthorizationPrivilege;
 import io.cdap.cdap.proto.security.Permission;
 import io.cdap.cdap.proto.security.PermissionAdapterFactory;
@@ -58,8 +62,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -71,6 +77,10 @@ import javax.annotation.ParametersAreNonnullByDefault;
 /**
  * Remote implementation of the AuthorizationEnforcer. Contacts master for authorization enforcement and
  * then caches the results if caching is enabled.
+ *
+ * Enforcement on multiple entities through {@link #enforceAll(Set, Principal, Set)} and visibility checks only contact
+ * the master once for all entities that are not cached. Cached results of a principal are invalidated through
+ * {@link #invalidate(Principal)} when its permissions are changed from this process.
  */
 public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
 
@@ -81,6 +91,12 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
     .registerTypeAdapterFactory(new PermissionAdapterFactory())
     .create();
   private static final Type SET_ENTITY_TYPE = new TypeToken<Set<EntityId>>() { }.getType();
+  private static final Type LIST_BOOLEAN_TYPE = new TypeToken<List<Boolean>>() { }.getType();
+
+  private static final String METRIC_ENFORCE_REQUESTS = "auth.enforce.cache.requests";
+  private static final String METRIC_ENFORCE_MISSES = "auth.enforce.cache.misses";
+  private static final String METRIC_VISIBILITY_REQUESTS = "auth.visibility.cache.requests";
+  private static final String METRIC_VISIBILITY_MISSES = "auth.visibility.cache.misses";
 
   private static final Function<VisibilityKey, EntityId> VISIBILITY_KEY_ENTITY_ID_FUNCTION =
     new Function<VisibilityKey, EntityId>() {
@@ -100,6 +116,7 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
 
   private final RemoteClient remoteClient;
   private final boolean cacheEnabled;
+  private volatile MetricsContext metricsContext;
 
   private class EnforcementResponse {
     private boolean success;
@@ -148,8 +165,17 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
         @ParametersAreNonnullByDefault
         public EnforcementResponse load(AuthorizationPrivilege authorizationPrivilege) throws Exception {
           LOG.trace("Cache miss for {}", authorizationPrivilege);
+          incrementMetric(METRIC_ENFORCE_MISSES, 1);
           return doEnforce(authorizationPrivilege);
         }
+
+        @Override
+        public Map<AuthorizationPrivilege, EnforcementResponse> loadAll(
+          Iterable<? extends AuthorizationPrivilege> authorizationPrivileges) throws Exception {
+          LOG.trace("Cache miss for {}", authorizationPrivileges);
+          incrementMetric(METRIC_ENFORCE_MISSES, Iterables.size(authorizationPrivileges));
+          return doEnforceAll(authorizationPrivileges);
+        }
       });
 
     visibilityCache = CacheBuilder.newBuilder()
@@ -160,17 +186,29 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
         @ParametersAreNonnullByDefault
         public Boolean load(VisibilityKey key) throws Exception {
           LOG.trace("Cache miss for {}", key);
-          return !loadVisibility(Collections.singleton(key)).isEmpty();
+          incrementMetric(METRIC_VISIBILITY_MISSES, 1);
+          return loadVisibility(Collections.singleton(key)).get(key);
         }
 
         @Override
         public Map<VisibilityKey, Boolean> loadAll(Iterable<? extends VisibilityKey> keys) throws Exception {
           LOG.trace("Cache miss for {}", keys);
+          incrementMetric(METRIC_VISIBILITY_MISSES, Iterables.size(keys));
           return loadVisibility(keys);
         }
       });
   }
 
+  /**
+   * Optional guice injection of the {@link MetricsCollectionService} for emitting the cache metrics.
+   */
+  @Inject(optional = true)
+  void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+      Constants.Metrics.Tag.COMPONENT, "access.enforcer"));
+  }
+
   @Override
   public void enforce(EntityId entity, Principal principal, Set<? extends Permission> permissions)
     throws AccessException {
@@ -181,7 +219,7 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
 
     try {
       EnforcementResponse res = cacheEnabled ?
-        authPolicyCache.get(authorizationPrivilege) : doEnforce(authorizationPrivilege);
+        getCachedResponse(authorizationPrivilege) : doEnforce(authorizationPrivilege);
       if (!res.isSuccess()) {
         throw res.getException();
       }
@@ -190,6 +228,36 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
     }
   }
 
+  @Override
+  public void enforceAll(Set<? extends EntityId> entities, Principal principal, Set<? extends Permission> permissions)
+    throws AccessException {
+    if (!isSecurityAuthorizationEnabled()) {
+      return;
+    }
+    List<AuthorizationPrivilege> authorizationPrivileges = new ArrayList<>();
+    for (EntityId entity : entities) {
+      authorizationPrivileges.add(new AuthorizationPrivilege(principal, entity, permissions, null));
+    }
+
+    try {
+      Map<AuthorizationPrivilege, EnforcementResponse> responses;
+      if (cacheEnabled) {
+        incrementMetric(METRIC_ENFORCE_REQUESTS, authorizationPrivileges.size());
+        responses = authPolicyCache.getAll(authorizationPrivileges);
+      } else {
+        responses = doEnforceAll(authorizationPrivileges);
+      }
+      for (AuthorizationPrivilege authorizationPrivilege : authorizationPrivileges) {
+        EnforcementResponse res = responses.get(authorizationPrivilege);
+        if (!res.isSuccess()) {
+          throw res.getException();
+        }
+      }
+    } catch (Exception e) {
+      throw AuthEnforceUtil.propagateAccessException(e);
+    }
+  }
+
   @Override
   public void enforceOnParent(EntityType entityType, EntityId parentId, Principal principal, Permission permission)
     throws AccessException {
@@ -202,7 +270,7 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
 
     try {
       EnforcementResponse res = cacheEnabled ?
-        authPolicyCache.get(authorizationPrivilege) : doEnforce(authorizationPrivilege);
+        getCachedResponse(authorizationPrivilege) : doEnforce(authorizationPrivilege);
       if (!res.isSuccess()) {
         throw res.getException();
       }
@@ -223,6 +291,7 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
     try {
       if (cacheEnabled) {
         Iterable<VisibilityKey> visibilityKeys = toVisibilityKeys(principal, entityIds);
+        incrementMetric(METRIC_VISIBILITY_REQUESTS, entityIds.size());
         ImmutableMap<VisibilityKey, Boolean> visibilityMap = visibilityCache.getAll(visibilityKeys);
         return toEntityIds(Maps.filterEntries(visibilityMap, VISIBILITY_KEYS_FILTER).keySet());
       } else {
@@ -233,12 +302,40 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
     }
   }
 
-  @VisibleForTesting
-  public void clearCache() {
+  /**
+   * Invalidates all cached enforcement and visibility results of the given principal.
+   */
+  public void invalidate(Principal principal) {
+    authPolicyCache.asMap().keySet().removeIf(privilege -> principal.equals(privilege.getPrincipal()));
+    visibilityCache.asMap().keySet().removeIf(key -> principal.equals(key.getPrincipal()));
+  }
+
+  /**
+   * Invalidates all cached enforcement and visibility results.
+   */
+  public void invalidateAll() {
     authPolicyCache.invalidateAll();
     visibilityCache.invalidateAll();
   }
 
+  @VisibleForTesting
+  public void clearCache() {
+    invalidateAll();
+  }
+
+  private EnforcementResponse getCachedResponse(AuthorizationPrivilege authorizationPrivilege)
+    throws ExecutionException {
+    incrementMetric(METRIC_ENFORCE_REQUESTS, 1);
+    return authPolicyCache.get(authorizationPrivilege);
+  }
+
+  private void incrementMetric(String metricName, long count) {
+    MetricsContext context = metricsContext;
+    if (context != null && count > 0) {
+      context.increment(metricName, count);
+    }
+  }
+
   private EnforcementResponse doEnforce(AuthorizationPrivilege authorizationPrivilege) throws IOException {
     HttpRequest request = remoteClient.requestBuilder(HttpMethod.POST, "enforce")
       .withBody(GSON.toJson(authorizationPrivilege))
@@ -257,6 +354,51 @@ public class RemoteAccessEnforcer extends AbstractAccessEnforcer {
     }
   }
 
+  /**
+   * Enforces the given privileges with a single request to the master, which returns whether each privilege is
+   * allowed.
+   */
+  private Map<AuthorizationPrivilege, EnforcementResponse> doEnforceAll(
+    Iterable<? extends AuthorizationPrivilege> authorizationPrivileges) throws IOException {
+    List<AuthorizationPrivilege> privileges = ImmutableList.copyOf(authorizationPrivileges);
+    Map<AuthorizationPrivilege, EnforcementResponse> responses = new HashMap<>();
+    if (privileges.isEmpty()) {
+      return responses;
+    }
+    HttpRequest request = remoteClient.requestBuilder(HttpMethod.POST, "enforceAll")
+      .withBody(GSON.toJson(privileges))
+      .build();
+    LOG.trace("Remotely enforcing on authorization privileges {}", privileges);
+
+    EnforcementResponse failure;
+    try {
+      HttpResponse response = remoteClient.execute(request);
+      if (response.getResponseCode() == HttpURLConnection.HTTP_OK) {
+        List<Boolean> results = GSON.fromJson(response.getResponseBodyAsString(), LIST_BOOLEAN_TYPE);
+        if (results.size() != privileges.size()) {
+          throw new IOException(String.format("Expected %d enforcement results but got %d",
+                                              privileges.size(), results.size()));
+        }
+        for (int i = 0; i < privileges.size(); i++) {
+          AuthorizationPrivilege privilege = privileges.get(i);
+          responses.put(privilege, results.get(i) ? new EnforcementResponse(true, null) : new EnforcementResponse(
+            false, new UnauthorizedException(privilege.getPrincipal(), privilege.getPermissions(),
+                                             privilege.getEntity())));
+        }
+        return responses;
+      }
+      failure = new EnforcementResponse(false, new IOException(String.format("Failed to enforce with code %d: %s",
+                                                                             response.getResponseCode(),
+                                                                             response.getResponseBodyAsString())));
+    } catch (UnauthorizedException e) {
+      failure = new EnforcementResponse(false, e);
+    }
+    for (AuthorizationPrivilege privilege : privileges) {
+      responses.put(privilege, failure);
+    }
+    return responses;
+  }
+
   private Set<? extends EntityId> visibilityCheckCall(VisibilityRequest visibilityRequest)
     throws IOException, UnauthorizedException {
     HttpRequest request = remoteClient.requestBuilder(HttpMethod.POST, "isVisible")
@@ -29,6 +29,7 @@ import io.cdap.cdap.proto.security.GrantedPermission;
 import io.cdap.cdap.proto.security.Permission;
 import io.cdap.cdap.proto.security.PermissionAdapterFactory;
 import io.cdap.cdap.proto.security.Principal;
+import io.cdap.cdap.security.spi.authorization.AccessEnforcer;
 import io.cdap.cdap.security.spi.authorization.PermissionManager;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 import io.cdap.common.http.HttpResponse;
@@ -52,16 +53,32 @@ public class RemotePermissionManager extends RemoteOpsClient implements Permissi
     .create();
   private static final Type SET_GRANTED_PERMISSIONS_TYPE = new TypeToken<Set<GrantedPermission>>() { }.getType();
 
+  private RemoteAccessEnforcer remoteAccessEnforcer;
+
   @Inject
   RemotePermissionManager(DiscoveryServiceClient discoveryClient) {
     super(discoveryClient, Constants.Service.APP_FABRIC_HTTP);
   }
 
+  /**
+   * Optional guice injection of the {@link AccessEnforcer}. If it is a {@link RemoteAccessEnforcer}, its cached
+   * results are invalidated when permissions are changed.
+   */
+  @Inject(optional = true)
+  void setAccessEnforcer(AccessEnforcer accessEnforcer) {
+    if (accessEnforcer instanceof RemoteAccessEnforcer) {
+      this.remoteAccessEnforcer = (RemoteAccessEnforcer) accessEnforcer;
+    }
+  }
+
   @Override
   public void grant(Authorizable authorizable, Principal principal, Set<? extends Permission> permissions)
     throws UnauthorizedException {
     LOG.trace("Making request to grant {} on {} to {}", permissions, authorizable, principal);
     executeRequest("grant", authorizable, principal, permissions);
+    if (remoteAccessEnforcer != null) {
+      remoteAccessEnforcer.invalidate(principal);
+    }
     LOG.debug("Granted {} on {} to {} successfully", permissions, authorizable, principal);
   }
 
@@ -70,6 +87,9 @@ public class RemotePermissionManager extends RemoteOpsClient implements Permissi
     throws UnauthorizedException {
     LOG.trace("Making request to revoke {} on {} to {}", permissions, authorizable, principal);
     executeRequest("revoke", authorizable, principal, permissions);
+    if (remoteAccessEnforcer != null) {
+      remoteAccessEnforcer.invalidate(principal);
+    }
     LOG.debug("Revoked {} on {} to {} successfully", permissions, authorizable, principal);
   }
 
@@ -77,6 +97,9 @@ public class RemotePermissionManager extends RemoteOpsClient implements Permissi
   public void revoke(Authorizable authorizable) throws UnauthorizedException {
     LOG.trace("Making request to revoke all permissions on {}", authorizable);
     executeRequest("revokeAll", authorizable);
+    if (remoteAccessEnforcer != null) {
+      remoteAccessEnforcer.invalidateAll();
+    }
     LOG.debug("Revoked all permissions on {} successfully", authorizable);
   }
 
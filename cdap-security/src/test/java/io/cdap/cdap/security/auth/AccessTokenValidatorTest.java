@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.security.auth;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.IOModule;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Base64;
+
+/**
+ * Tests for the validated token cache of {@link AccessTokenValidator}.
+ */
+public class AccessTokenValidatorTest {
+
+  private static AccessTokenCodec accessTokenCodec;
+  private static UserIdentityCodec userIdentityCodec;
+
+  @BeforeClass
+  public static void init() {
+    Injector injector = Guice.createInjector(new IOModule());
+    accessTokenCodec = injector.getInstance(AccessTokenCodec.class);
+    userIdentityCodec = injector.getInstance(UserIdentityCodec.class);
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    RemovableKeyManager keyManager = new RemovableKeyManager(cConf);
+    TokenManager tokenManager = new TokenManager(keyManager, userIdentityCodec);
+    AccessTokenValidator validator = new AccessTokenValidator(cConf, tokenManager, accessTokenCodec);
+    validator.startAndWait();
+    try {
+      String token = createToken(tokenManager, System.currentTimeMillis() + 3600 * 1000);
+      Assert.assertEquals(TokenState.VALID, validator.validate(token));
+
+      // the token is served from the cache, even if the key can no longer be used to recompute the digest
+      int keyId = accessTokenCodec.decode(Base64.getDecoder().decode(token)).getKeyId();
+      KeyIdentifier key = keyManager.allKeys.remove(keyId);
+      Assert.assertEquals(TokenState.VALID, validator.validate(token));
+
+      // once the key removal is notified, the token is validated again
+      keyManager.removeKey(keyId);
+      Assert.assertEquals(TokenState.INTERNAL, validator.validate(token));
+      keyManager.allKeys.put(keyId, key);
+      Assert.assertEquals(TokenState.VALID, validator.validate(token));
+
+      // expired tokens are evicted
+      String expiringToken = createToken(tokenManager, System.currentTimeMillis() + 200);
+      Assert.assertEquals(TokenState.VALID, validator.validate(expiringToken));
+      Thread.sleep(300);
+      Assert.assertEquals(TokenState.EXPIRED, validator.validate(expiringToken));
+
+      // invalid tokens are never cached
+      AccessToken accessToken = accessTokenCodec.decode(Base64.getDecoder().decode(token));
+      byte[] digest = accessToken.getDigestBytes().clone();
+      digest[0]++;
+      String invalidToken = Base64.getEncoder().encodeToString(
+        accessTokenCodec.encode(new AccessToken(accessToken.getIdentifier(), keyId, digest)));
+      Assert.assertEquals(TokenState.INVALID, validator.validate(invalidToken));
+      Assert.assertEquals(TokenState.INVALID, validator.validate(invalidToken));
+    } finally {
+      validator.stopAndWait();
+    }
+  }
+
+  @Test
+  public void testCacheDisabled() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setInt(Constants.Security.TOKEN_VALIDATION_CACHE_SIZE, 0);
+    RemovableKeyManager keyManager = new RemovableKeyManager(cConf);
+    TokenManager tokenManager = new TokenManager(keyManager, userIdentityCodec);
+    AccessTokenValidator validator = new AccessTokenValidator(cConf, tokenManager, accessTokenCodec);
+    validator.startAndWait();
+    try {
+      String token = createToken(tokenManager, System.currentTimeMillis() + 3600 * 1000);
+      Assert.assertEquals(TokenState.VALID, validator.validate(token));
+      keyManager.allKeys.clear();
+      Assert.assertEquals(TokenState.INTERNAL, validator.validate(token));
+    } finally {
+      validator.stopAndWait();
+    }
+  }
+
+  private String createToken(TokenManager tokenManager, long expireTimestamp) throws Exception {
+    UserIdentity identity = new UserIdentity("user", ImmutableList.of("users"), System.currentTimeMillis(),
+                                             expireTimestamp);
+    return Base64.getEncoder().encodeToString(accessTokenCodec.encode(tokenManager.signIdentifier(identity)));
+  }
+
+  /**
+   * An {@link InMemoryKeyManager} that allows removing keys.
+   */
+  private static final class RemovableKeyManager extends InMemoryKeyManager {
+
+    RemovableKeyManager(CConfiguration conf) {
+      super(conf);
+    }
+
+    void removeKey(int id) {
+      allKeys.remove(id);
+      notifyKeyRemoved(id);
+    }
+  }
+}
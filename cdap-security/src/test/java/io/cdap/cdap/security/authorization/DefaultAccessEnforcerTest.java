@@ -129,6 +129,16 @@ public class DefaultAccessEnforcerTest extends AuthorizationTestBase {
       assertAuthorizationFailure(authEnforcementService, NS, ALICE, StandardPermission.DELETE);
       // bob enforcement should succeed since we grant him admin privilege
       authEnforcementService.enforce(ds, BOB, StandardPermission.UPDATE);
+      // enforcement on multiple entities fails if any of the entities is not allowed
+      authEnforcementService.enforceAll(ImmutableSet.of(NS), ALICE, Collections.singleton(StandardPermission.UPDATE));
+      try {
+        authEnforcementService.enforceAll(ImmutableSet.of(NS, ds), ALICE,
+                                          Collections.singleton(StandardPermission.UPDATE));
+        Assert.fail(String.format("Expected %s to not have '%s' privilege on %s but it does.",
+                                  ALICE, StandardPermission.UPDATE, ds));
+      } catch (UnauthorizedException expected) {
+        // expected
+      }
       // revoke all of alice's privileges
       accessController.revoke(Authorizable.fromEntityId(NS), ALICE, ImmutableSet.of(StandardPermission.GET));
       try {
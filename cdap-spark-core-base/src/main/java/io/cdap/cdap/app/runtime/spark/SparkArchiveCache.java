@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.app.runtime.spark;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Caches archives that only depend on the jars in the classpath of the Spark client, such as the cdap-spark.jar
+ * dependency archive and the launcher jar. The archives are stored in the {@link LocationFactory} in a directory
+ * named by a fingerprint of those jars, so that they are built and uploaded once and then localized by every
+ * Spark program run that uses the same jars, also from other processes.
+ *
+ * Every fingerprint directory has a marker file that is refreshed when the directory is used. Directories of
+ * other fingerprints that were not used within the retention period are removed whenever a new archive is cached,
+ * which happens when the set of jars changes, e.g. after an upgrade.
+ */
+final class SparkArchiveCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SparkArchiveCache.class);
+  private static final String CACHE_DIR = "/framework/spark/cdap";
+  private static final String USED_MARKER = "used";
+  // The marker of a fingerprint directory is not rewritten more often than this by runs that use the directory
+  private static final long MARKER_REFRESH_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  /**
+   * Creates an archive in a local file.
+   */
+  interface ArchiveCreator {
+    void create(File target) throws IOException;
+  }
+
+  /**
+   * Computes a fingerprint of the given jars from their names and sizes, and the name, size and CRC of every entry
+   * in them. Only the central directory of each jar is read, so that the fingerprint is cheap to compute on every
+   * run. Modification times are not used, since the cache is shared by processes on hosts that install the same
+   * jars at different times.
+   *
+   * @param jars the jars, keyed by their name in the archive
+   * @return a hex string that changes when any of the jars changes
+   * @throws IOException if any of the files cannot be read as a jar
+   */
+  static String fingerprint(SortedMap<String, File> jars) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (Map.Entry<String, File> jar : jars.entrySet()) {
+      File file = jar.getValue();
+      hasher.putString(jar.getKey(), StandardCharsets.UTF_8).putLong(file.length());
+      try (ZipFile zipFile = new ZipFile(file)) {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          ZipEntry entry = entries.nextElement();
+          hasher.putString(entry.getName(), StandardCharsets.UTF_8).putLong(entry.getSize()).putLong(entry.getCrc());
+        }
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns the cached archive with the given name for the given fingerprint. If it is not cached yet, it is
+   * created in the given temporary directory and uploaded to the cache.
+   *
+   * @param locationFactory the {@link LocationFactory} that holds the cache
+   * @param fingerprint the fingerprint of the jars the archive is created from
+   * @param name the file name of the archive, which is preserved in the cache
+   * @param tempDir directory for creating the archive before uploading it
+   * @param retentionMillis how long directories of other fingerprints are kept after they were last used
+   * @param creator creates the archive if it is not cached
+   * @return the {@link Location} of the cached archive
+   * @throws IOException if failed to create or upload the archive
+   */
+  static Location getOrCreate(LocationFactory locationFactory, String fingerprint, String name, File tempDir,
+                              long retentionMillis, ArchiveCreator creator) throws IOException {
+    Location cacheDir = locationFactory.create(CACHE_DIR).append(fingerprint);
+    Location location = cacheDir.append(name);
+    if (location.exists()) {
+      LOG.debug("Using cached {} at {}", name, location);
+      markUsed(cacheDir);
+      return location;
+    }
+
+    File archive = new File(tempDir, name);
+    creator.create(archive);
+    try {
+      cacheDir.mkdirs("755");
+      // Upload to a temporary location and rename, so that concurrent runs never see a partial archive
+      Location tmpLocation = cacheDir.append(name).getTempFile(".tmp");
+      try (OutputStream os = tmpLocation.getOutputStream("644")) {
+        Files.copy(archive.toPath(), os);
+      }
+      // Another run may have cached the same archive in the meantime. Don't replace it, since runs that
+      // already localize from it would fail if its modification time changes.
+      if (location.exists() || tmpLocation.renameTo(location) == null) {
+        tmpLocation.delete();
+        if (!location.exists()) {
+          throw new IOException("Failed to rename " + tmpLocation + " to " + location);
+        }
+      }
+      LOG.debug("Cached {} at {}", name, location);
+    } finally {
+      archive.delete();
+    }
+    markUsed(cacheDir);
+    cleanup(locationFactory.create(CACHE_DIR), fingerprint, retentionMillis);
+    return location;
+  }
+
+  /**
+   * Refreshes the marker file of the given fingerprint directory, unless it was refreshed recently.
+   */
+  private static void markUsed(Location cacheDir) {
+    Location marker = cacheDir.append(USED_MARKER);
+    try {
+      if (marker.exists() && System.currentTimeMillis() - marker.lastModified() < MARKER_REFRESH_MILLIS) {
+        return;
+      }
+      try (OutputStream os = marker.getOutputStream("644")) {
+        os.write(Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
+      }
+    } catch (IOException e) {
+      // Not fatal, since it can only make the directory appear unused for longer
+      LOG.debug("Failed to update the marker file {}", marker, e);
+    }
+  }
+
+  /**
+   * Deletes the fingerprint directories other than the given one that were not used within the retention period.
+   * Failures are only logged, since they don't affect the current run.
+   *
+   * @param cacheRoot the directory that contains all fingerprint directories
+   * @param fingerprint the fingerprint of the current run, which is never deleted
+   * @param retentionMillis how long a fingerprint directory is kept after it was last used
+   */
+  @VisibleForTesting
+  static void cleanup(Location cacheRoot, String fingerprint, long retentionMillis) {
+    long expireTime = System.currentTimeMillis() - retentionMillis;
+    try {
+      for (Location dir : cacheRoot.list()) {
+        if (fingerprint.equals(dir.getName()) || !dir.isDirectory()) {
+          continue;
+        }
+        Location marker = dir.append(USED_MARKER);
+        // Directories without a marker were never used since they were created
+        long lastUsed = marker.exists() ? marker.lastModified() : dir.lastModified();
+        if (lastUsed < expireTime) {
+          LOG.debug("Deleting unused Spark archive cache directory {}", dir);
+          dir.delete(true);
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to clean up the Spark archive cache in {}", cacheRoot, e);
+    }
+  }
+
+  private SparkArchiveCache() {
+    // no-op
+  }
+}
@@ -492,7 +492,7 @@ public final class SparkPackageUtils {
    * Resolves a {@link URI} representation from the given {@link Location}. It resolves the URI in the same way
    * as Spark does.
    */
-  private static URI resolveURI(Location location) throws IOException {
+  static URI resolveURI(Location location) throws IOException {
     LocationFactory locationFactory = location.getLocationFactory();
 
     while (locationFactory instanceof ForwardingLocationFactory) {
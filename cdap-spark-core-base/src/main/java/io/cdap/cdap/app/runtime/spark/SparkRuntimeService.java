@@ -72,6 +72,7 @@ import org.apache.spark.deploy.SparkSubmit;
 import org.apache.twill.api.Configs;
 import org.apache.twill.api.RunId;
 import org.apache.twill.api.TwillRunnable;
+import org.apache.twill.filesystem.Location;
 import org.apache.twill.filesystem.LocationFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -100,10 +101,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
@@ -233,6 +235,18 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
         // Localize all user requested files in distributed mode
         distributedUserResources(context.getLocalizeResources(), localizeResources);
 
+        // The launcher jar and the spark.jar archive only depend on the jars in the classpath,
+        // hence they can be shared by all runs with the same set of jars.
+        SortedMap<String, File> dependencyJars = getDependencyJars();
+        String fingerprint = null;
+        if (cConfCopy.getBoolean(Constants.AppFabric.SPARK_ARCHIVE_CACHE_ENABLED)) {
+          try {
+            fingerprint = SparkArchiveCache.fingerprint(dependencyJars);
+          } catch (IOException e) {
+            LOG.warn("Failed to compute the fingerprint of the Spark dependency jars, not using the archive cache", e);
+          }
+        }
+
         // Localize program jar and the expanding program jar
         File programJar = Locations.linkOrCopy(runtimeContext.getProgram().getJarLocation(),
                                                new File(tempDir, SparkRuntimeContextProvider.PROGRAM_JAR_NAME));
@@ -248,7 +262,7 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
         }
 
         // Create and localize the launcher jar, which is for setting up services and classloader for spark containers
-        localizeResources.add(new LocalizeResource(createLauncherJar(tempDir)));
+        localizeResources.add(prepareArchive(CDAP_LAUNCHER_JAR, false, tempDir, fingerprint, this::createLauncherJar));
 
         // Create metrics conf file in the current directory since
         // the same value for the "spark.metrics.conf" config needs to be used for both driver and executor processes
@@ -270,14 +284,14 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
         Joiner joiner = Joiner.on(File.pathSeparator).skipNulls();
 
         // Localize the spark.jar archive, which contains all CDAP and dependency jars
-        File sparkJar = new File(tempDir, CDAP_SPARK_JAR);
-        classpath = joiner.join(Iterables.transform(buildDependencyJar(sparkJar), new Function<String, String>() {
+        localizeResources.add(prepareArchive(CDAP_SPARK_JAR, true, tempDir, fingerprint,
+                                             target -> buildDependencyJar(dependencyJars, target)));
+        classpath = joiner.join(Iterables.transform(dependencyJars.keySet(), new Function<String, String>() {
           @Override
           public String apply(String name) {
             return Paths.get("$PWD", CDAP_SPARK_JAR, name).toString();
           }
         }));
-        localizeResources.add(new LocalizeResource(sparkJar, true));
 
         // Localize logback if there is one. It is placed at the beginning of the classpath
         File logbackJar = ProgramRunners.createLogbackJar(new File(tempDir, "logback.xml.jar"));
@@ -478,14 +492,40 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
    * are used for intercepting the Java main method in the YARN container so that we can control the
    * ClassLoader creation.
    */
-  private File createLauncherJar(File tempDir) throws IOException {
-    File jarFile = new File(tempDir, CDAP_LAUNCHER_JAR);
+  private void createLauncherJar(File jarFile) throws IOException {
     ContainerLauncherGenerator.generateLauncherJar(
       Arrays.asList("org.apache.spark.deploy.yarn.ApplicationMaster",
                     "org.apache.spark.executor.CoarseGrainedExecutorBackend",
                     "org.apache.spark.executor.YarnCoarseGrainedExecutorBackend"),
       SparkContainerLauncher.class, jarFile);
-    return jarFile;
+  }
+
+  /**
+   * Prepares the archive of the given name for localization. If the archive cache is used, the archive is taken from
+   * the {@link SparkArchiveCache} and localized from there. Otherwise it is created in the temporary directory.
+   *
+   * @param name the file name of the archive
+   * @param isArchive whether the file should be expanded when localized
+   * @param tempDir temporary directory for creating the archive
+   * @param fingerprint the fingerprint of the dependency jars, or {@code null} to not use the archive cache
+   * @param creator creates the archive
+   */
+  private LocalizeResource prepareArchive(String name, boolean isArchive, File tempDir, @Nullable String fingerprint,
+                                          SparkArchiveCache.ArchiveCreator creator) throws IOException {
+    if (fingerprint != null) {
+      try {
+        long retentionMillis = TimeUnit.SECONDS.toMillis(
+          cConf.getLong(Constants.AppFabric.SPARK_ARCHIVE_CACHE_RETENTION_SECONDS));
+        Location location = SparkArchiveCache.getOrCreate(locationFactory, fingerprint, name, tempDir,
+                                                          retentionMillis, creator);
+        return new LocalizeResource(SparkPackageUtils.resolveURI(location), isArchive);
+      } catch (IOException e) {
+        LOG.warn("Failed to get {} from the archive cache, creating it for this run only", name, e);
+      }
+    }
+    File file = new File(tempDir, name);
+    creator.create(file);
+    return new LocalizeResource(file, isArchive);
   }
 
   /**
@@ -619,37 +659,46 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
   }
 
   /**
-   * Packages all the dependencies of the Spark job. It contains all CDAP classes that are needed to run the
+   * Finds all the dependencies of the Spark job. They contain all CDAP classes that are needed to run the
    * user spark program.
    *
+   * @return the dependency jar files keyed by their file name, in sorted order
+   */
+  private SortedMap<String, File> getDependencyJars() throws IOException, URISyntaxException {
+    SortedMap<String, File> jars = new TreeMap<>();
+
+    // All the jar files under the same directory that contains the jar for this class and twill class.
+    // Those are the directory created by TWILL that contains all dependency jars for this container
+    for (String className : Arrays.asList(getClass().getName(), TwillRunnable.class.getName())) {
+      Enumeration<URL> resources = getClass().getClassLoader().getResources(className.replace('.', '/') + ".class");
+      while (resources.hasMoreElements()) {
+        URL classURL = resources.nextElement();
+        File libDir = new File(ClassLoaders.getClassPathURL(className, classURL).toURI()).getParentFile();
+
+        for (File file : DirUtils.listFiles(libDir, "jar")) {
+          jars.putIfAbsent(file.getName(), file);
+        }
+      }
+    }
+    return jars;
+  }
+
+  /**
+   * Packages the given dependency jars of the Spark job into one jar.
+   *
+   * @param jars the dependency jars keyed by their name in the packaged jar
    * @param targetFile the target file for the jar created
-   * @return list of jar file name that contains all dependency jars in sorted order
    * @throws IOException if failed to package the jar
    */
-  private Iterable<String> buildDependencyJar(File targetFile) throws IOException, URISyntaxException {
-    Set<String> classpath = new TreeSet<>();
+  private void buildDependencyJar(SortedMap<String, File> jars, File targetFile) throws IOException {
     try (JarOutputStream jarOut = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(targetFile)))) {
       jarOut.setLevel(Deflater.NO_COMPRESSION);
-
-      // Zip all the jar files under the same directory that contains the jar for this class and twill class.
-      // Those are the directory created by TWILL that contains all dependency jars for this container
-      for (String className : Arrays.asList(getClass().getName(), TwillRunnable.class.getName())) {
-        Enumeration<URL> resources = getClass().getClassLoader().getResources(className.replace('.', '/') + ".class");
-        while (resources.hasMoreElements()) {
-          URL classURL = resources.nextElement();
-          File libDir = new File(ClassLoaders.getClassPathURL(className, classURL).toURI()).getParentFile();
-
-          for (File file : DirUtils.listFiles(libDir, "jar")) {
-            if (classpath.add(file.getName())) {
-              jarOut.putNextEntry(new JarEntry(file.getName()));
-              Files.copy(file, jarOut);
-              jarOut.closeEntry();
-            }
-          }
-        }
+      for (Map.Entry<String, File> entry : jars.entrySet()) {
+        jarOut.putNextEntry(new JarEntry(entry.getKey()));
+        Files.copy(entry.getValue(), jarOut);
+        jarOut.closeEntry();
       }
     }
-    return classpath;
   }
 
   /**
@@ -31,6 +31,7 @@ import javax.annotation.Nullable;
 public class SparkContainerClassLoader extends MainClassLoader {
 
   private final SparkClassRewriter sparkClassRewriter;
+  private final boolean rewriteCheckpointTempFileName;
 
   /**
    * Creates a new instance for the following set of {@link URL}.
@@ -42,6 +43,14 @@ public class SparkContainerClassLoader extends MainClassLoader {
     super(urls, parent);
     this.sparkClassRewriter = new SparkClassRewriter(name -> ClassLoaders.openResource(this, name), false,
                                                      rewriteCheckpointTempFileName);
+    this.rewriteCheckpointTempFileName = rewriteCheckpointTempFileName;
+  }
+
+  @Override
+  protected String getRewriteConfig() {
+    // The SparkClassRewriter rewrites differently depending on these settings
+    return "rewriteCheckpointTempFileName=" + rewriteCheckpointTempFileName
+      + ",SPARK_YARN_MODE=" + System.getenv("SPARK_YARN_MODE");
   }
 
   @Override
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.app.runtime.spark;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Unit tests for {@link SparkArchiveCache}.
+ */
+public class SparkArchiveCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static final long RETENTION = TimeUnit.DAYS.toMillis(1);
+
+  @Test
+  public void testFingerprint() throws IOException {
+    File jarDir = TEMP_FOLDER.newFolder();
+    File jar1 = createJar(new File(jarDir, "a.jar"), "content a");
+    File jar2 = createJar(new File(jarDir, "b.jar"), "content b");
+
+    SortedMap<String, File> jars = new TreeMap<>();
+    jars.put(jar1.getName(), jar1);
+    jars.put(jar2.getName(), jar2);
+    String fingerprint = SparkArchiveCache.fingerprint(jars);
+    Assert.assertEquals(fingerprint, SparkArchiveCache.fingerprint(new TreeMap<>(jars)));
+
+    // same size, different content
+    createJar(jar2, "content c");
+    String changed = SparkArchiveCache.fingerprint(jars);
+    Assert.assertNotEquals(fingerprint, changed);
+
+    // different set of jars
+    jars.remove(jar1.getName());
+    Assert.assertNotEquals(changed, SparkArchiveCache.fingerprint(jars));
+  }
+
+  @Test(expected = IOException.class)
+  public void testFingerprintNotJar() throws IOException {
+    File file = new File(TEMP_FOLDER.newFolder(), "a.jar");
+    Files.write("content", file, Charsets.UTF_8);
+    SortedMap<String, File> jars = new TreeMap<>();
+    jars.put(file.getName(), file);
+    SparkArchiveCache.fingerprint(jars);
+  }
+
+  @Test
+  public void testGetOrCreate() throws IOException {
+    LocationFactory locationFactory = new LocalLocationFactory(TEMP_FOLDER.newFolder());
+    File tempDir = TEMP_FOLDER.newFolder();
+    AtomicInteger creations = new AtomicInteger();
+    SparkArchiveCache.ArchiveCreator creator = target -> {
+      creations.incrementAndGet();
+      Files.write("archive", target, Charsets.UTF_8);
+    };
+
+    Location location = SparkArchiveCache.getOrCreate(locationFactory, "f1", "test.jar", tempDir, RETENTION, creator);
+    Assert.assertEquals("test.jar", location.getName());
+    Assert.assertEquals(1, creations.get());
+    try (InputStream is = location.getInputStream()) {
+      Assert.assertEquals("archive", new String(ByteStreams.toByteArray(is), Charsets.UTF_8));
+    }
+    // the local copy is removed once uploaded
+    Assert.assertFalse(new File(tempDir, "test.jar").exists());
+
+    // the cached archive is reused
+    Assert.assertEquals(location,
+                        SparkArchiveCache.getOrCreate(locationFactory, "f1", "test.jar", tempDir, RETENTION,
+                                                      creator));
+    Assert.assertEquals(1, creations.get());
+
+    // a different fingerprint creates a new archive
+    Location other = SparkArchiveCache.getOrCreate(locationFactory, "f2", "test.jar", tempDir, RETENTION, creator);
+    Assert.assertNotEquals(location, other);
+    Assert.assertEquals(2, creations.get());
+    // the archive of the first fingerprint was used recently, hence it is not cleaned up
+    Assert.assertTrue(location.exists());
+  }
+
+  @Test
+  public void testCleanup() throws IOException {
+    File root = TEMP_FOLDER.newFolder();
+    Location cacheRoot = new LocalLocationFactory().create(root.toURI());
+    long expired = System.currentTimeMillis() - 2 * RETENTION;
+
+    // a directory that was used recently
+    File used = createCacheDir(root, "used");
+    Files.write("1", new File(used, "used"), Charsets.UTF_8);
+    // a directory that was last used before the retention period
+    File expiredUsed = createCacheDir(root, "expiredUsed");
+    File marker = new File(expiredUsed, "used");
+    Files.write("1", marker, Charsets.UTF_8);
+    Assert.assertTrue(marker.setLastModified(expired));
+    // a directory that was never used and was created before the retention period
+    File expiredNew = createCacheDir(root, "expiredNew");
+    Assert.assertTrue(expiredNew.setLastModified(expired));
+    // the directory of the current fingerprint is kept even if it is old
+    File current = createCacheDir(root, "current");
+    Assert.assertTrue(current.setLastModified(expired));
+
+    SparkArchiveCache.cleanup(cacheRoot, "current", RETENTION);
+    Assert.assertTrue(used.exists());
+    Assert.assertFalse(expiredUsed.exists());
+    Assert.assertFalse(expiredNew.exists());
+    Assert.assertTrue(current.exists());
+  }
+
+  private File createJar(File file, String content) throws IOException {
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file))) {
+      output.putNextEntry(new JarEntry("test.txt"));
+      output.write(content.getBytes(Charsets.UTF_8));
+      output.closeEntry();
+    }
+    return file;
+  }
+
+  private File createCacheDir(File root, String fingerprint) throws IOException {
+    File dir = new File(root, fingerprint);
+    Assert.assertTrue(dir.mkdirs());
+    Files.write("archive", new File(dir, "test.jar"), Charsets.UTF_8);
+    return dir;
+  }
+}
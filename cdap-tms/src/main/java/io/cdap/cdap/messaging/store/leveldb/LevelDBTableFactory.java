@@ -34,7 +34,6 @@ import io.cdap.cdap.proto.id.TopicId;
 import org.apache.twill.common.Threads;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.Options;
-import org.iq80.leveldb.impl.Iq80DBFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,16 +54,17 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
- * A {@link TableFactory} for creating tables used by the messaging system using the LevelDB implementation.
+ * A {@link TableFactory} for creating tables used by the messaging system using the LevelDB implementation. The
+ * tables are stored with the embedded key-value store configured by {@link Constants#CFG_DATA_LOCAL_STORAGE_ENGINE}.
  */
 public final class LevelDBTableFactory implements TableFactory {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableFactory.class);
-  private static final Iq80DBFactory LEVEL_DB_FACTORY = Iq80DBFactory.factory;
   private static final Gson GSON = new Gson();
   static final String MESSAGE_TABLE_VERSION = "v2";
 
   private final File baseDir;
+  private final LocalStorageDBFactory dbFactory;
   private final Options dbOptions;
   private final String metadataTableName;
   private final String messageTableName;
@@ -74,11 +74,17 @@ public final class LevelDBTableFactory implements TableFactory {
   private final long partitionSizeMillis;
 
   private LevelDBMetadataTable metadataTable;
+  private boolean closed;
 
   @VisibleForTesting
-  @Inject
   public LevelDBTableFactory(CConfiguration cConf) {
+    this(cConf, new LocalStorageDBFactory(cConf));
+  }
+
+  @Inject
+  public LevelDBTableFactory(CConfiguration cConf, LocalStorageDBFactory dbFactory) {
     this.baseDir = new File(cConf.get(Constants.MessagingSystem.LOCAL_DATA_DIR));
+    this.dbFactory = dbFactory.retain();
     this.dbOptions = new Options()
       .blockSize(cConf.getInt(Constants.CFG_DATA_LEVELDB_BLOCKSIZE, Constants.DEFAULT_DATA_LEVELDB_BLOCKSIZE))
       .cacheSize(cConf.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE))
@@ -167,7 +173,7 @@ public final class LevelDBTableFactory implements TableFactory {
     }
 
     File dbPath = getMetadataDBPath(metadataTableName);
-    metadataTable = new LevelDBMetadataTable(LEVEL_DB_FACTORY.open(dbPath, dbOptions));
+    metadataTable = new LevelDBMetadataTable(dbFactory.open(dbPath, dbOptions));
     LOG.info("Messaging metadata table created at {}", dbPath);
     return metadataTable;
   }
@@ -185,9 +191,13 @@ public final class LevelDBTableFactory implements TableFactory {
   @Override
   public void close() {
     LevelDBMetadataTable metadataTable;
+    boolean releaseDBFactory;
     synchronized (this) {
       metadataTable = this.metadataTable;
       this.metadataTable = null;
+      // The factory is shared, hence it must only be released once
+      releaseDBFactory = !closed;
+      closed = true;
     }
     if (metadataTable != null) {
       Closeables.closeQuietly(metadataTable.getLevelDB());
@@ -197,6 +207,9 @@ public final class LevelDBTableFactory implements TableFactory {
     dbs.clear();
     partitionedLevelDBs.values().forEach(Closeables::closeQuietly);
     partitionedLevelDBs.clear();
+    if (releaseDBFactory) {
+      Closeables.closeQuietly(dbFactory);
+    }
   }
 
   @VisibleForTesting
@@ -219,7 +232,8 @@ public final class LevelDBTableFactory implements TableFactory {
         return partitionManager;
       }
 
-      partitionManager = new LevelDBPartitionManager(ensureDirExists(topicDir), dbOptions, partitionSizeMillis);
+      partitionManager = new LevelDBPartitionManager(ensureDirExists(topicDir), dbFactory, dbOptions,
+                                                     partitionSizeMillis);
       partitionedLevelDBs.put(topicDir, partitionManager);
     }
 
@@ -244,7 +258,7 @@ public final class LevelDBTableFactory implements TableFactory {
         return db;
       }
 
-      db = LEVEL_DB_FACTORY.open(ensureDirExists(dbPath), dbOptions);
+      db = dbFactory.open(ensureDirExists(dbPath), dbOptions);
       levelDBs.put(dbPath, db);
     }
 
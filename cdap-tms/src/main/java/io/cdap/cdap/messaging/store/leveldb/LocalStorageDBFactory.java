@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.leveldb;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBFactory;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.impl.Iq80DBFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The {@link DBFactory} of the local messaging store, using the storage engine configured by
+ * {@link Constants#CFG_DATA_LOCAL_STORAGE_ENGINE}. A single instance is shared, so that all RocksDB databases share
+ * one block cache. Local tables always use LevelDB, because they order keys with a custom comparator. Each user
+ * calls {@link #retain()} before opening databases and {@link #close()} after closing them. The underlying factory
+ * is closed when the last user closes it.
+ */
+@Singleton
+public final class LocalStorageDBFactory implements DBFactory, Closeable {
+
+  private final DBFactory dbFactory;
+  private int users;
+  private boolean closed;
+
+  @Inject
+  public LocalStorageDBFactory(CConfiguration cConf) {
+    Constants.LocalStorageEngine engine = cConf.getEnum(Constants.CFG_DATA_LOCAL_STORAGE_ENGINE,
+                                                        Constants.DEFAULT_DATA_LOCAL_STORAGE_ENGINE);
+    // RocksDBFactory is only referenced for RocksDB, such that the native library is not loaded for LevelDB
+    this.dbFactory = engine == Constants.LocalStorageEngine.ROCKSDB ? new RocksDBFactory(cConf) : Iq80DBFactory.factory;
+  }
+
+  /**
+   * Registers a user of this factory, which has to call {@link #close()} once it no longer uses the factory.
+   *
+   * @return this factory
+   * @throws IllegalStateException if the factory is closed already
+   */
+  public synchronized LocalStorageDBFactory retain() {
+    Preconditions.checkState(!closed, "%s has already been closed.", getClass().getSimpleName());
+    users++;
+    return this;
+  }
+
+  @Override
+  public DB open(File path, Options options) throws IOException {
+    return dbFactory.open(path, options);
+  }
+
+  @Override
+  public void destroy(File path, Options options) throws IOException {
+    dbFactory.destroy(path, options);
+  }
+
+  @Override
+  public void repair(File path, Options options) throws IOException {
+    dbFactory.repair(path, options);
+  }
+
+  /**
+   * Unregisters a user of this factory. The underlying factory is closed once there are no more users.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed || --users > 0) {
+      return;
+    }
+    closed = true;
+    if (dbFactory instanceof Closeable) {
+      ((Closeable) dbFactory).close();
+    }
+  }
+}
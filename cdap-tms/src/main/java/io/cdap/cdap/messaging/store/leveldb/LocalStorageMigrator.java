@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.leveldb;
+
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBFactory;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import org.iq80.leveldb.impl.Iq80DBFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * Converts local databases between the LevelDB and the RocksDB storage engines, whose file formats are not
+ * compatible. Each database is copied into a new directory next to it, which then replaces the original one. A
+ * conversion that was interrupted is rolled back or completed when the migrator runs again. The databases must not
+ * be in use while they are converted.
+ */
+public final class LocalStorageMigrator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalStorageMigrator.class);
+  // The suffixes contain a character that never appears in the directory names of tables, which are URL encoded,
+  // and of messaging tables, whose names only contain characters allowed in entity ids.
+  private static final String MIGRATING_SUFFIX = "~migrating";
+  private static final String BACKUP_SUFFIX = "~backup";
+  private static final int BATCH_SIZE = 1000;
+
+  private final DBFactory sourceFactory;
+  private final DBFactory targetFactory;
+  private final boolean toRocksDB;
+
+  /**
+   * Creates a migrator that converts databases to the given engine.
+   *
+   * @param rocksDBFactory the factory for opening RocksDB databases
+   * @param targetEngine the engine to convert databases to
+   */
+  public LocalStorageMigrator(RocksDBFactory rocksDBFactory, Constants.LocalStorageEngine targetEngine) {
+    this.toRocksDB = targetEngine == Constants.LocalStorageEngine.ROCKSDB;
+    this.sourceFactory = toRocksDB ? Iq80DBFactory.factory : rocksDBFactory;
+    this.targetFactory = toRocksDB ? rocksDBFactory : Iq80DBFactory.factory;
+  }
+
+  /**
+   * Converts all databases under the given directory, at any depth, that are not stored with the target engine.
+   *
+   * @param baseDir the directory to search for databases
+   * @param options the options for opening the databases, which must have the comparator the databases were
+   *                created with and allow creating missing databases
+   * @return the number of databases converted
+   */
+  public int migrate(File baseDir, Options options) throws IOException {
+    recover(baseDir);
+
+    int converted = 0;
+    for (File dir : DirUtils.listFiles(baseDir)) {
+      if (!dir.isDirectory()) {
+        continue;
+      }
+      if (!RocksDBFactory.isDB(dir)) {
+        converted += migrate(dir, options);
+      } else if (RocksDBFactory.isRocksDB(dir) != toRocksDB) {
+        convert(dir, options);
+        converted++;
+      }
+    }
+    return converted;
+  }
+
+  /**
+   * Cleans up after conversions in the given directory that were interrupted.
+   */
+  private void recover(File dir) throws IOException {
+    for (File backupDir : DirUtils.listFiles(dir, (d, name) -> name.endsWith(BACKUP_SUFFIX))) {
+      String name = backupDir.getName();
+      File dbDir = new File(dir, name.substring(0, name.length() - BACKUP_SUFFIX.length()));
+      if (dbDir.exists()) {
+        // The converted database is in place already
+        DirUtils.deleteDirectoryContents(backupDir);
+      } else {
+        LOG.info("Restoring {} from interrupted conversion", dbDir);
+        Files.move(backupDir.toPath(), dbDir.toPath());
+      }
+    }
+    for (File migratingDir : DirUtils.listFiles(dir, (d, name) -> name.endsWith(MIGRATING_SUFFIX))) {
+      DirUtils.deleteDirectoryContents(migratingDir);
+    }
+  }
+
+  private void convert(File dbDir, Options options) throws IOException {
+    File migratingDir = new File(dbDir.getParentFile(), dbDir.getName() + MIGRATING_SUFFIX);
+    File backupDir = new File(dbDir.getParentFile(), dbDir.getName() + BACKUP_SUFFIX);
+    LOG.info("Converting {} to {}", dbDir, toRocksDB ? "RocksDB" : "LevelDB");
+
+    long entries = 0;
+    try (DB source = sourceFactory.open(dbDir, options);
+         DB target = targetFactory.open(migratingDir, options);
+         DBIterator iterator = source.iterator()) {
+      iterator.seekToFirst();
+      WriteBatch batch = target.createWriteBatch();
+      int batchSize = 0;
+      while (iterator.hasNext()) {
+        Map.Entry<byte[], byte[]> entry = iterator.next();
+        batch.put(entry.getKey(), entry.getValue());
+        entries++;
+        if (++batchSize == BATCH_SIZE) {
+          target.write(batch);
+          batch.close();
+          batch = target.createWriteBatch();
+          batchSize = 0;
+        }
+      }
+      // Sync the last batch, so that all data is durable before the original database is replaced
+      target.write(batch, new WriteOptions().sync(true));
+      batch.close();
+    }
+
+    Files.move(dbDir.toPath(), backupDir.toPath());
+    Files.move(migratingDir.toPath(), dbDir.toPath());
+    DirUtils.deleteDirectoryContents(backupDir);
+    LOG.info("Converted {} with {} entries", dbDir, entries);
+  }
+}
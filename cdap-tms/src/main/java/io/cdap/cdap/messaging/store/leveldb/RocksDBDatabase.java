@@ -0,0 +1,460 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.leveldb;
+
+import com.google.common.collect.Maps;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBException;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Range;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.SizeApproximationFlag;
+import org.rocksdb.Slice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+
+/**
+ * A RocksDB database exposed through the LevelDB {@link DB} interface. Instances are created by
+ * {@link RocksDBFactory}.
+ */
+final class RocksDBDatabase implements DB {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RocksDBDatabase.class);
+
+  private final RocksDB db;
+  private final List<AutoCloseable> resources;
+  private final org.rocksdb.ReadOptions readOptions;
+  private final org.rocksdb.WriteOptions writeOptions;
+  private final org.rocksdb.WriteOptions syncWriteOptions;
+
+  /**
+   * Creates an instance that owns the given database and the given native resources, which are released in
+   * reverse order after the database is closed.
+   */
+  RocksDBDatabase(RocksDB db, List<AutoCloseable> resources) {
+    this.db = db;
+    this.resources = resources;
+    this.readOptions = new org.rocksdb.ReadOptions();
+    this.writeOptions = new org.rocksdb.WriteOptions();
+    this.syncWriteOptions = new org.rocksdb.WriteOptions().setSync(true);
+    resources.add(readOptions);
+    resources.add(writeOptions);
+    resources.add(syncWriteOptions);
+  }
+
+  @Override
+  public byte[] get(byte[] key) throws DBException {
+    try {
+      return db.get(readOptions, key);
+    } catch (RocksDBException e) {
+      throw new DBException(e);
+    }
+  }
+
+  @Override
+  public byte[] get(byte[] key, ReadOptions options) throws DBException {
+    try (org.rocksdb.ReadOptions rocksReadOptions = toRocksReadOptions(options)) {
+      return db.get(rocksReadOptions, key);
+    } catch (RocksDBException e) {
+      throw new DBException(e);
+    }
+  }
+
+  @Override
+  public DBIterator iterator() {
+    return new RocksDBIterator(db.newIterator(readOptions), null);
+  }
+
+  @Override
+  public DBIterator iterator(ReadOptions options) {
+    org.rocksdb.ReadOptions rocksReadOptions = toRocksReadOptions(options);
+    return new RocksDBIterator(db.newIterator(rocksReadOptions), rocksReadOptions);
+  }
+
+  @Override
+  public void put(byte[] key, byte[] value) throws DBException {
+    put(key, value, new WriteOptions());
+  }
+
+  @Override
+  public void delete(byte[] key) throws DBException {
+    delete(key, new WriteOptions());
+  }
+
+  @Override
+  public void write(WriteBatch updates) throws DBException {
+    write(updates, new WriteOptions());
+  }
+
+  @Override
+  public WriteBatch createWriteBatch() {
+    return new RocksDBWriteBatch();
+  }
+
+  @Nullable
+  @Override
+  public Snapshot put(byte[] key, byte[] value, WriteOptions options) throws DBException {
+    try {
+      db.put(toRocksWriteOptions(options), key, value);
+    } catch (RocksDBException e) {
+      throw new DBException(e);
+    }
+    return options.snapshot() ? getSnapshot() : null;
+  }
+
+  @Nullable
+  @Override
+  public Snapshot delete(byte[] key, WriteOptions options) throws DBException {
+    try {
+      db.delete(toRocksWriteOptions(options), key);
+    } catch (RocksDBException e) {
+      throw new DBException(e);
+    }
+    return options.snapshot() ? getSnapshot() : null;
+  }
+
+  @Nullable
+  @Override
+  public Snapshot write(WriteBatch updates, WriteOptions options) throws DBException {
+    try (org.rocksdb.WriteBatch batch = ((RocksDBWriteBatch) updates).toRocksWriteBatch()) {
+      db.write(toRocksWriteOptions(options), batch);
+    } catch (RocksDBException e) {
+      throw new DBException(e);
+    }
+    return options.snapshot() ? getSnapshot() : null;
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    return new RocksDBSnapshot(db.getSnapshot());
+  }
+
+  @Override
+  public long[] getApproximateSizes(Range... ranges) {
+    List<org.rocksdb.Range> rocksRanges = new ArrayList<>();
+    List<Slice> slices = new ArrayList<>();
+    try {
+      for (Range range : ranges) {
+        Slice start = new Slice(range.start());
+        slices.add(start);
+        Slice limit = new Slice(range.limit());
+        slices.add(limit);
+        rocksRanges.add(new org.rocksdb.Range(start, limit));
+      }
+      return db.getApproximateSizes(rocksRanges, SizeApproximationFlag.INCLUDE_FILES);
+    } finally {
+      closeAll(slices);
+    }
+  }
+
+  @Nullable
+  @Override
+  public String getProperty(String name) {
+    try {
+      return db.getProperty(name);
+    } catch (RocksDBException e) {
+      // Same as LevelDB, which returns null for unknown properties
+      return null;
+    }
+  }
+
+  @Override
+  public void suspendCompactions() {
+    try {
+      db.pauseBackgroundWork();
+    } catch (RocksDBException e) {
+      throw new DBException(e);
+    }
+  }
+
+  @Override
+  public void resumeCompactions() {
+    try {
+      db.continueBackgroundWork();
+    } catch (RocksDBException e) {
+      throw new DBException(e);
+    }
+  }
+
+  @Override
+  public void compactRange(byte[] begin, byte[] end) throws DBException {
+    try {
+      db.compactRange(begin, end);
+    } catch (RocksDBException e) {
+      throw new DBException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    db.close();
+    closeAll(resources);
+  }
+
+  /**
+   * Closes the given native resources in reverse order.
+   */
+  static void closeAll(List<? extends AutoCloseable> resources) {
+    for (int i = resources.size() - 1; i >= 0; i--) {
+      try {
+        resources.get(i).close();
+      } catch (Exception e) {
+        LOG.warn("Failed to close {}", resources.get(i), e);
+      }
+    }
+  }
+
+  private org.rocksdb.ReadOptions toRocksReadOptions(ReadOptions options) {
+    org.rocksdb.ReadOptions rocksReadOptions = new org.rocksdb.ReadOptions()
+      .setFillCache(options.fillCache())
+      .setVerifyChecksums(options.verifyChecksums());
+    Snapshot snapshot = options.snapshot();
+    if (snapshot != null) {
+      rocksReadOptions.setSnapshot(((RocksDBSnapshot) snapshot).snapshot);
+    }
+    return rocksReadOptions;
+  }
+
+  private org.rocksdb.WriteOptions toRocksWriteOptions(WriteOptions options) {
+    return options.sync() ? syncWriteOptions : writeOptions;
+  }
+
+  /**
+   * A {@link DBIterator} over a {@link RocksIterator}. Like with LevelDB, the iterator is positioned between
+   * entries: {@link #next()} returns the entry at the cursor of the {@link RocksIterator} and {@link #prev()} the
+   * one before it. A cursor that moved past the last entry is before the end, so that iterating backwards starts
+   * at the last entry.
+   */
+  private static final class RocksDBIterator implements DBIterator {
+
+    private final RocksIterator iterator;
+    private final org.rocksdb.ReadOptions readOptions;
+    // Like a LevelDB iterator, a new iterator starts at the first entry. The seek is deferred, since callers
+    // usually seek to a key right away.
+    private boolean positioned;
+
+    RocksDBIterator(RocksIterator iterator, @Nullable org.rocksdb.ReadOptions readOptions) {
+      this.iterator = iterator;
+      this.readOptions = readOptions;
+    }
+
+    @Override
+    public void seek(byte[] key) {
+      iterator.seek(key);
+      positioned = true;
+    }
+
+    @Override
+    public void seekToFirst() {
+      iterator.seekToFirst();
+      positioned = true;
+    }
+
+    @Override
+    public void seekToLast() {
+      iterator.seekToLast();
+      positioned = true;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (!positioned) {
+        seekToFirst();
+      }
+      return isValid();
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> peekNext() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return Maps.immutableEntry(iterator.key(), iterator.value());
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> next() {
+      Map.Entry<byte[], byte[]> entry = peekNext();
+      iterator.next();
+      return entry;
+    }
+
+    @Override
+    public boolean hasPrev() {
+      boolean hasPrev = moveBack();
+      moveForward(hasPrev);
+      return hasPrev;
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> peekPrev() {
+      boolean hasPrev = moveBack();
+      try {
+        if (!hasPrev) {
+          throw new NoSuchElementException();
+        }
+        return Maps.immutableEntry(iterator.key(), iterator.value());
+      } finally {
+        moveForward(hasPrev);
+      }
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> prev() {
+      if (!moveBack()) {
+        moveForward(false);
+        throw new NoSuchElementException();
+      }
+      return Maps.immutableEntry(iterator.key(), iterator.value());
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Remove is not supported");
+    }
+
+    /**
+     * Moves the cursor to the previous entry.
+     *
+     * @return {@code true} if there is a previous entry, or {@code false} if the cursor moved before the first entry
+     */
+    private boolean moveBack() {
+      if (!positioned) {
+        seekToFirst();
+      }
+      // A cursor past the last entry is invalid too, but then the previous entry is the last one
+      if (isValid()) {
+        iterator.prev();
+      } else {
+        iterator.seekToLast();
+      }
+      return isValid();
+    }
+
+    /**
+     * Undoes {@link #moveBack()}, given its result.
+     */
+    private void moveForward(boolean movedBack) {
+      if (movedBack) {
+        iterator.next();
+      } else {
+        iterator.seekToFirst();
+      }
+    }
+
+    /**
+     * Returns whether the cursor is at an entry, after checking that the iterator did not fail.
+     */
+    private boolean isValid() {
+      if (iterator.isValid()) {
+        return true;
+      }
+      try {
+        iterator.status();
+      } catch (RocksDBException e) {
+        throw new DBException(e);
+      }
+      return false;
+    }
+
+    @Override
+    public void close() {
+      iterator.close();
+      if (readOptions != null) {
+        readOptions.close();
+      }
+    }
+  }
+
+  /**
+   * A {@link WriteBatch} that collects the changes on the heap and only creates the native batch when it is
+   * written. Hence, like with LevelDB, batches that are dropped without being closed do not leak native memory.
+   */
+  private static final class RocksDBWriteBatch implements WriteBatch {
+
+    private final List<byte[]> keys = new ArrayList<>();
+    // A null value denotes a delete
+    private final List<byte[]> values = new ArrayList<>();
+
+    @Override
+    public WriteBatch put(byte[] key, byte[] value) {
+      keys.add(key);
+      values.add(value);
+      return this;
+    }
+
+    @Override
+    public WriteBatch delete(byte[] key) {
+      keys.add(key);
+      values.add(null);
+      return this;
+    }
+
+    org.rocksdb.WriteBatch toRocksWriteBatch() throws RocksDBException {
+      org.rocksdb.WriteBatch batch = new org.rocksdb.WriteBatch();
+      try {
+        for (int i = 0; i < keys.size(); i++) {
+          byte[] value = values.get(i);
+          if (value == null) {
+            batch.delete(keys.get(i));
+          } else {
+            batch.put(keys.get(i), value);
+          }
+        }
+      } catch (RocksDBException | RuntimeException e) {
+        batch.close();
+        throw e;
+      }
+      return batch;
+    }
+
+    @Override
+    public void close() {
+      keys.clear();
+      values.clear();
+    }
+  }
+
+  /**
+   * A {@link Snapshot} that releases the RocksDB snapshot when closed.
+   */
+  private final class RocksDBSnapshot implements Snapshot {
+
+    private final org.rocksdb.Snapshot snapshot;
+
+    RocksDBSnapshot(org.rocksdb.Snapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    public void close() {
+      db.releaseSnapshot(snapshot);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.leveldb;
+
+import com.google.common.base.Preconditions;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.iq80.leveldb.CompressionType;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBComparator;
+import org.iq80.leveldb.DBFactory;
+import org.iq80.leveldb.Options;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.LRUCache;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link DBFactory} that opens embedded RocksDB databases behind the LevelDB {@link DB} interface, so that the
+ * local messaging store can run on either engine. Only databases that order keys bytewise are supported, because a
+ * custom comparator would be called from native code for every key comparison. All databases opened by the same
+ * factory share one block cache, whose size is the configured LevelDB cache size, and one bloom filter policy. The
+ * factory must only be closed after all databases opened by it are closed.
+ */
+public final class RocksDBFactory implements DBFactory, Closeable {
+
+  private static final String OPTIONS_FILE_PREFIX = "OPTIONS-";
+
+  private final LRUCache blockCache;
+  @Nullable
+  private final BloomFilter bloomFilter;
+  private final CompactionStyle compactionStyle;
+  private final int maxBackgroundJobs;
+
+  public RocksDBFactory(CConfiguration cConf) {
+    this(cConf.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE),
+         cConf.getInt(Constants.CFG_DATA_ROCKSDB_BLOOM_BITS_PER_KEY, 10),
+         cConf.getEnum(Constants.CFG_DATA_ROCKSDB_COMPACTION_STYLE, CompactionStyle.LEVEL),
+         cConf.getInt(Constants.CFG_DATA_ROCKSDB_MAX_BACKGROUND_JOBS, 2));
+  }
+
+  RocksDBFactory(long blockCacheSize, int bloomBitsPerKey, CompactionStyle compactionStyle, int maxBackgroundJobs) {
+    // FIFO compaction drops old data, which is not acceptable for tables
+    Preconditions.checkArgument(compactionStyle == CompactionStyle.LEVEL
+                                  || compactionStyle == CompactionStyle.UNIVERSAL,
+                                "Unsupported compaction style %s", compactionStyle);
+    // Loaded here rather than in a static initializer, so that referring to the class does not load the native code
+    RocksDB.loadLibrary();
+    this.blockCache = new LRUCache(blockCacheSize);
+    this.bloomFilter = bloomBitsPerKey > 0 ? new BloomFilter(bloomBitsPerKey) : null;
+    this.compactionStyle = compactionStyle;
+    this.maxBackgroundJobs = maxBackgroundJobs;
+  }
+
+  /**
+   * Returns {@code true} if the given directory contains a database, of either engine.
+   */
+  public static boolean isDB(File dir) {
+    return new File(dir, "CURRENT").isFile();
+  }
+
+  /**
+   * Returns {@code true} if the given directory contains a database written by RocksDB, which, unlike LevelDB,
+   * persists its options next to the data.
+   */
+  public static boolean isRocksDB(File dir) {
+    String[] optionFiles = dir.list((d, name) -> name.startsWith(OPTIONS_FILE_PREFIX));
+    return optionFiles != null && optionFiles.length > 0;
+  }
+
+  @Override
+  public DB open(File path, Options options) throws IOException {
+    DBComparator comparator = options.comparator();
+    if (comparator != null) {
+      throw new IllegalArgumentException("Comparator " + comparator.name() + " is not supported. RocksDB databases "
+                                           + "can only be opened with the bytewise key order");
+    }
+    // The file formats are not compatible, hence existing data has to be converted before switching engines
+    if (isDB(path) && !isRocksDB(path)) {
+      throw new IOException("Database " + path + " was created by LevelDB. Convert it with "
+                              + "LocalStorageMigrationTool before using the RocksDB storage engine");
+    }
+
+    List<AutoCloseable> resources = new ArrayList<>();
+    org.rocksdb.Options rocksOptions = createOptions(options);
+    resources.add(rocksOptions);
+    try {
+      return new RocksDBDatabase(RocksDB.open(rocksOptions, path.getAbsolutePath()), resources);
+    } catch (RocksDBException e) {
+      RocksDBDatabase.closeAll(resources);
+      throw new IOException("Failed to open RocksDB database at " + path, e);
+    }
+  }
+
+  @Override
+  public void destroy(File path, Options options) throws IOException {
+    try (org.rocksdb.Options rocksOptions = new org.rocksdb.Options()) {
+      RocksDB.destroyDB(path.getAbsolutePath(), rocksOptions);
+    } catch (RocksDBException e) {
+      throw new IOException("Failed to destroy RocksDB database at " + path, e);
+    }
+  }
+
+  /**
+   * Not supported, because RocksJava does not expose the repair function of RocksDB. It cannot be reached through
+   * {@link LocalStorageDBFactory}, because the local messaging store, the only user of RocksDB databases, never
+   * repairs its databases.
+   */
+  @Override
+  public void repair(File path, Options options) {
+    throw new UnsupportedOperationException("Repair is not supported for RocksDB databases");
+  }
+
+  @Override
+  public void close() {
+    blockCache.close();
+    if (bloomFilter != null) {
+      bloomFilter.close();
+    }
+  }
+
+  /**
+   * Translates the LevelDB {@link Options} to RocksDB options, which must live as long as the database.
+   */
+  private org.rocksdb.Options createOptions(Options options) {
+    BlockBasedTableConfig tableConfig = new BlockBasedTableConfig()
+      .setBlockCache(blockCache)
+      .setBlockSize(options.blockSize())
+      .setBlockRestartInterval(options.blockRestartInterval());
+    if (bloomFilter != null) {
+      tableConfig.setFilterPolicy(bloomFilter);
+    }
+
+    return new org.rocksdb.Options()
+      .setCreateIfMissing(options.createIfMissing())
+      .setErrorIfExists(options.errorIfExists())
+      .setParanoidChecks(options.paranoidChecks())
+      .setWriteBufferSize(options.writeBufferSize())
+      .setMaxOpenFiles(options.maxOpenFiles())
+      .setCompressionType(options.compressionType() == CompressionType.SNAPPY
+                            ? org.rocksdb.CompressionType.SNAPPY_COMPRESSION
+                            : org.rocksdb.CompressionType.NO_COMPRESSION)
+      .setCompactionStyle(compactionStyle)
+      .setMaxBackgroundJobs(maxBackgroundJobs)
+      .setTableFormatConfig(tableConfig);
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright © 2021 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.leveldb;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBComparator;
+import org.iq80.leveldb.DBFactory;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.impl.Iq80DBFactory;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.CompactionStyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Tests for {@link RocksDBFactory}, {@link LocalStorageDBFactory} and {@link LocalStorageMigrator}.
+ */
+public class RocksDBFactoryTest {
+
+  @ClassRule
+  public static TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private static RocksDBFactory rocksDBFactory;
+
+  @BeforeClass
+  public static void init() {
+    rocksDBFactory = new RocksDBFactory(64 * 1024 * 1024, 10, CompactionStyle.LEVEL, 2);
+  }
+
+  @AfterClass
+  public static void finish() {
+    rocksDBFactory.close();
+  }
+
+  @Test
+  public void testReadWrite() throws IOException {
+    try (DB db = rocksDBFactory.open(tmpFolder.newFolder(), createOptions())) {
+      db.put(Bytes.toBytes("a"), Bytes.toBytes("1"));
+      db.put(Bytes.toBytes("b"), Bytes.toBytes("2"));
+      Assert.assertArrayEquals(Bytes.toBytes("1"), db.get(Bytes.toBytes("a")));
+      Assert.assertNull(db.get(Bytes.toBytes("c")));
+
+      try (WriteBatch batch = db.createWriteBatch()) {
+        batch.put(Bytes.toBytes("c"), Bytes.toBytes("3"));
+        batch.delete(Bytes.toBytes("a"));
+        db.write(batch);
+      }
+      Assert.assertNull(db.get(Bytes.toBytes("a")));
+      Assert.assertArrayEquals(Bytes.toBytes("3"), db.get(Bytes.toBytes("c")));
+
+      // A snapshot does not see later changes
+      try (Snapshot snapshot = db.getSnapshot()) {
+        db.put(Bytes.toBytes("d"), Bytes.toBytes("4"));
+        db.delete(Bytes.toBytes("b"));
+        ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
+        Assert.assertArrayEquals(Bytes.toBytes("2"), db.get(Bytes.toBytes("b"), readOptions));
+        Assert.assertNull(db.get(Bytes.toBytes("d"), readOptions));
+        try (DBIterator iterator = db.iterator(readOptions)) {
+          assertKeys(iterator, "b", "c");
+        }
+      }
+
+      // A new iterator starts at the first entry
+      try (DBIterator iterator = db.iterator()) {
+        Assert.assertEquals("c", Bytes.toString(iterator.peekNext().getKey()));
+        assertKeys(iterator, "c", "d");
+      }
+      try (DBIterator iterator = db.iterator()) {
+        iterator.seek(Bytes.toBytes("cc"));
+        assertKeys(iterator, "d");
+      }
+    }
+  }
+
+  @Test
+  public void testComparatorNotSupported() throws IOException {
+    // Only the bytewise key order is supported, since custom comparators would be called from native code
+    try {
+      rocksDBFactory.open(tmpFolder.newFolder(), createOptions().comparator(new ReverseComparator())).close();
+      Assert.fail("Expected failure to open a database with a custom comparator");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testReverseIteration() throws IOException {
+    try (DB db = rocksDBFactory.open(tmpFolder.newFolder(), createOptions())) {
+      try (DBIterator iterator = db.iterator()) {
+        Assert.assertFalse(iterator.hasPrev());
+        iterator.seekToLast();
+        Assert.assertFalse(iterator.hasPrev());
+      }
+
+      for (String key : new String[] { "a", "b", "c" }) {
+        db.put(Bytes.toBytes(key), Bytes.toBytes(key));
+      }
+      try (DBIterator iterator = db.iterator()) {
+        // A new iterator is before the first entry
+        Assert.assertFalse(iterator.hasPrev());
+        Assert.assertEquals("a", Bytes.toString(iterator.next().getKey()));
+        Assert.assertEquals("a", Bytes.toString(iterator.peekPrev().getKey()));
+        Assert.assertEquals("b", Bytes.toString(iterator.peekNext().getKey()));
+
+        // Going back returns the same entry as the preceding next
+        Assert.assertEquals("a", Bytes.toString(iterator.prev().getKey()));
+        Assert.assertFalse(iterator.hasPrev());
+        try {
+          iterator.prev();
+          Assert.fail("Expected no entry before the first one");
+        } catch (NoSuchElementException e) {
+          // expected
+        }
+        Assert.assertEquals("a", Bytes.toString(iterator.next().getKey()));
+
+        // Iterating backwards after the end starts at the last entry
+        assertKeys(iterator, "b", "c");
+        Assert.assertTrue(iterator.hasPrev());
+        Assert.assertEquals("c", Bytes.toString(iterator.peekPrev().getKey()));
+        Assert.assertFalse(iterator.hasNext());
+        assertPrevKeys(iterator, "c", "b", "a");
+      }
+
+      try (DBIterator iterator = db.iterator()) {
+        iterator.seekToLast();
+        assertPrevKeys(iterator, "b", "a");
+      }
+      try (DBIterator iterator = db.iterator()) {
+        iterator.seek(Bytes.toBytes("bb"));
+        assertPrevKeys(iterator, "b", "a");
+      }
+    }
+  }
+
+  @Test
+  public void testSharedFactory() throws IOException {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LOCAL_STORAGE_ENGINE, Constants.LocalStorageEngine.ROCKSDB.name());
+    LocalStorageDBFactory dbFactory = new LocalStorageDBFactory(cConf);
+    dbFactory.retain();
+    dbFactory.retain();
+
+    // The factory remains usable until the last user closes it
+    dbFactory.close();
+    File dir = tmpFolder.newFolder();
+    dbFactory.open(dir, createOptions()).close();
+    Assert.assertTrue(RocksDBFactory.isRocksDB(dir));
+    dbFactory.close();
+    try {
+      dbFactory.retain();
+      Assert.fail("Expected failure to use a closed factory");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMigration() throws IOException {
+    // A directory with two databases, one of them nested, and a leftover from an interrupted conversion
+    File baseDir = tmpFolder.newFolder();
+    File tableDir = new File(baseDir, "table");
+    File partitionDir = new File(new File(baseDir, "topic"), "part.0.1000");
+    Options options = createOptions();
+    writeEntries(Iq80DBFactory.factory, tableDir, options, 2500);
+    writeEntries(Iq80DBFactory.factory, partitionDir, options, 10);
+    Assert.assertTrue(new File(baseDir, "table~migrating").mkdirs());
+
+    // LevelDB databases cannot be opened by the RocksDB factory
+    try {
+      rocksDBFactory.open(tableDir, options).close();
+      Assert.fail("Expected failure to open a LevelDB database");
+    } catch (IOException e) {
+      // expected
+    }
+
+    LocalStorageMigrator toRocksDB = new LocalStorageMigrator(rocksDBFactory, Constants.LocalStorageEngine.ROCKSDB);
+    Assert.assertEquals(2, toRocksDB.migrate(baseDir, options));
+    Assert.assertFalse(new File(baseDir, "table~migrating").exists());
+    Assert.assertTrue(RocksDBFactory.isRocksDB(tableDir));
+    verifyEntries(rocksDBFactory, tableDir, options, 2500);
+    verifyEntries(rocksDBFactory, partitionDir, options, 10);
+
+    // Databases that are converted already are skipped
+    Assert.assertEquals(0, toRocksDB.migrate(baseDir, options));
+
+    LocalStorageMigrator toLevelDB = new LocalStorageMigrator(rocksDBFactory, Constants.LocalStorageEngine.LEVELDB);
+    Assert.assertEquals(2, toLevelDB.migrate(baseDir, options));
+    Assert.assertFalse(RocksDBFactory.isRocksDB(tableDir));
+    verifyEntries(Iq80DBFactory.factory, tableDir, options, 2500);
+    verifyEntries(Iq80DBFactory.factory, partitionDir, options, 10);
+  }
+
+  private static void assertKeys(DBIterator iterator, String... keys) {
+    for (String key : keys) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals(key, Bytes.toString(iterator.next().getKey()));
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  private static void assertPrevKeys(DBIterator iterator, String... keys) {
+    for (String key : keys) {
+      Assert.assertTrue(iterator.hasPrev());
+      Assert.assertEquals(key, Bytes.toString(iterator.prev().getKey()));
+    }
+    Assert.assertFalse(iterator.hasPrev());
+  }
+
+  private static Options createOptions() {
+    return new Options().createIfMissing(true).errorIfExists(false);
+  }
+
+  private static void writeEntries(DBFactory factory, File dir, Options options, int count) throws IOException {
+    try (DB db = factory.open(dir, options)) {
+      for (int i = 0; i < count; i++) {
+        db.put(Bytes.toBytes(i), Bytes.toBytes("value" + i));
+      }
+    }
+  }
+
+  private static void verifyEntries(DBFactory factory, File dir, Options options, int count) throws IOException {
+    try (DB db = factory.open(dir, options); DBIterator iterator = db.iterator()) {
+      iterator.seekToFirst();
+      for (int i = 0; i < count; i++) {
+        Map.Entry<byte[], byte[]> entry = iterator.next();
+        Assert.assertEquals(i, Bytes.toInt(entry.getKey()));
+        Assert.assertEquals("value" + i, Bytes.toString(entry.getValue()));
+      }
+      Assert.assertFalse(iterator.hasNext());
+    }
+  }
+
+  /**
+   * A comparator that orders keys in reverse of the bytewise order.
+   */
+  private static final class ReverseComparator implements DBComparator {
+
+    @Override
+    public String name() {
+      return "reverse";
+    }
+
+    @Override
+    public byte[] findShortestSeparator(byte[] start, byte[] limit) {
+      return start;
+    }
+
+    @Override
+    public byte[] findShortSuccessor(byte[] key) {
+      return key;
+    }
+
+    @Override
+    public int compare(byte[] left, byte[] right) {
+      return Bytes.compareTo(right, left);
+    }
+  }
+}
@@ -16,9 +16,10 @@
 
 package io.cdap.cdap.logging.gateway.handlers.store;
 
-import com.google.gson.Gson;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.app.store.RunRecordDetail;
+import io.cdap.cdap.internal.app.store.RunRecordDetailCodec;
+import io.cdap.cdap.internal.app.store.RunRecordProjection;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.ProgramId;
@@ -41,7 +42,6 @@ import javax.annotation.Nullable;
  */
 public class AppMetadataStore {
 
-  private static final Gson GSON = new Gson();
   private static final String TYPE_RUN_RECORD_ACTIVE = "runRecordActive";
   private static final String TYPE_RUN_RECORD_COMPLETED = "runRecordCompleted";
 
@@ -83,14 +83,9 @@ public class AppMetadataStore {
   }
 
   private static RunRecordDetail deserializeRunRecordMeta(StructuredRow row) {
-    RunRecordDetail existing =
-      GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA), RunRecordDetail.class);
-    RunRecordDetail newMeta =
-      RunRecordDetail.builder(existing)
-        .setProgramRunId(
-          getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys())).run(existing.getPid()))
-        .build();
-    return newMeta;
+    return RunRecordDetailCodec.decode(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA),
+                                       getProgramIdFromRunRecordsPrimaryKeys(new ArrayList<>(row.getPrimaryKeys())),
+                                       RunRecordProjection.FULL);
   }
 
   private static ProgramId getProgramIdFromRunRecordsPrimaryKeys(List<Field<?>> primaryKeys) {